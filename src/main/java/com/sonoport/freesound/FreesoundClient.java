@@ -15,28 +15,55 @@
  */
 package com.sonoport.freesound;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Map.Entry;
-
-import com.mashape.unirest.http.HttpResponse;
-import com.mashape.unirest.http.JsonNode;
-import com.mashape.unirest.http.Unirest;
-import com.mashape.unirest.http.exceptions.UnirestException;
-import com.mashape.unirest.request.GetRequest;
-import com.mashape.unirest.request.HttpRequest;
-import com.mashape.unirest.request.HttpRequestWithBody;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
 import com.sonoport.freesound.query.BinaryResponseQuery;
+import com.sonoport.freesound.query.CursorPagingQuery;
+import com.sonoport.freesound.query.HedgeableQuery;
 import com.sonoport.freesound.query.JSONResponseQuery;
 import com.sonoport.freesound.query.OAuthQuery;
+import com.sonoport.freesound.query.PageSnapshot;
 import com.sonoport.freesound.query.PagingQuery;
+import com.sonoport.freesound.query.Priority;
 import com.sonoport.freesound.query.Query;
 import com.sonoport.freesound.query.oauth2.AccessTokenQuery;
 import com.sonoport.freesound.query.oauth2.OAuth2AccessTokenRequest;
 import com.sonoport.freesound.query.oauth2.RefreshOAuth2AccessTokenRequest;
+import com.sonoport.freesound.query.other.AvailableAudioDescriptorsQuery;
 import com.sonoport.freesound.response.AccessTokenDetails;
+import com.sonoport.freesound.response.AudioDescriptors;
+import com.sonoport.freesound.response.CursorPagingResponse;
 import com.sonoport.freesound.response.PagingResponse;
+import com.sonoport.freesound.resilience.AdaptiveConcurrencyLimiter;
+import com.sonoport.freesound.resilience.CircuitBreaker;
+import com.sonoport.freesound.resilience.CircuitBreakerOpenException;
+import com.sonoport.freesound.resilience.CircuitBreakerSettings;
+import com.sonoport.freesound.resilience.PriorityScheduler;
+import com.sonoport.freesound.resilience.RequestHedger;
 import com.sonoport.freesound.response.Response;
+import com.sonoport.freesound.transport.HttpClientTransport;
+import com.sonoport.freesound.transport.HttpTransport;
+import com.sonoport.freesound.transport.TransportRequest;
+import com.sonoport.freesound.transport.TransportResponse;
 
 /**
  * Client used to make calls to the freesound.org API (v2).
@@ -56,6 +83,9 @@ public class FreesoundClient {
 	protected static final String DEFAULT_USER_AGENT_STRING =
 			"Sonoport-freesound-java/0.5.0 (https://github.com/Sonoport/freesound-java)";
 
+	/** Name of the HTTP Header carrying the credentials authenticating the request. */
+	protected static final String HTTP_AUTHORIZATION_HEADER = "Authorization";
+
 	/** Name of the HTTP Header specifying the content types to be accepted. */
 	protected static final String HTTP_ACCEPT_HEADER = "Accept";
 
@@ -68,6 +98,42 @@ public class FreesoundClient {
 	/** The Client Secret/API Key generated by freesound.org for the application. */
 	private final String clientSecret;
 
+	/** The audio descriptors available for content searches, retrieved on first use. */
+	private volatile AudioDescriptors audioDescriptors;
+
+	/** Compiled route templates, keyed on the path of the query they were compiled from. */
+	private final ConcurrentMap<String, RouteTemplate> routeTemplates = new ConcurrentHashMap<>();
+
+	/** The transport used to exchange requests and responses with the API. */
+	private final HttpTransport transport;
+
+	/** The headers sent with requests that are not authenticated. */
+	private final Map<String, String> anonymousHeaders;
+
+	/** The headers sent with requests authenticated with the Client Secret. */
+	private final Map<String, String> tokenHeaders;
+
+	/** The headers for the most recently used OAuth2 token. */
+	private volatile BearerCredential bearerCredential;
+
+	/** Circuit breakers guarding each route of the API, keyed on the path template of the route. */
+	private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+	/** The settings used to create circuit breakers (or null if circuit breaking is disabled). */
+	private volatile CircuitBreakerSettings circuitBreakerSettings;
+
+	/** Used to hedge idempotent queries (or null if hedging is disabled). */
+	private volatile RequestHedger requestHedger;
+
+	/** Limits the number of requests in flight at once (or null if concurrency is not limited). */
+	private volatile AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+	/** Schedules requests by priority (or null if requests are not scheduled). */
+	private volatile PriorityScheduler priorityScheduler;
+
+	/** Released once the client has been warmed up, and is ready to serve requests without connection delays. */
+	private final CountDownLatch ready = new CountDownLatch(1);
+
 	/**
 	 * @param clientId Client ID for application
 	 * @param clientSecret Client Secret (API Key) for application
@@ -82,16 +148,71 @@ public class FreesoundClient {
 	 * @param userAgentString The User-Agent string to send with all requests
 	 */
 	public FreesoundClient(final String clientId, final String clientSecret, final String userAgentString) {
+		this(clientId, clientSecret, userAgentString, new HttpClientTransport());
+	}
+
+	/**
+	 * @param clientId Client ID for application
+	 * @param clientSecret Client Secret (API Key) for application
+	 * @param userAgentString The User-Agent string to send with all requests (or null to use the default)
+	 * @param transport The transport used to exchange requests and responses with the API
+	 */
+	public FreesoundClient(
+			final String clientId,
+			final String clientSecret,
+			final String userAgentString,
+			final HttpTransport transport) {
 		this.clientId = clientId;
 		this.clientSecret = clientSecret;
+		this.transport = transport;
 
-		Unirest.setDefaultHeader(HTTP_ACCEPT_HEADER, CONTENT_TYPES_TO_ACCEPT);
+		final Map<String, String> headers = new HashMap<>();
+		headers.put(HTTP_ACCEPT_HEADER, CONTENT_TYPES_TO_ACCEPT);
+		headers.put(HTTP_USER_AGENT_HEADER, (userAgentString != null) ? userAgentString : DEFAULT_USER_AGENT_STRING);
 
-		if (userAgentString != null) {
-			Unirest.setDefaultHeader(HTTP_USER_AGENT_HEADER, userAgentString);
-		} else {
-			Unirest.setDefaultHeader(HTTP_USER_AGENT_HEADER, DEFAULT_USER_AGENT_STRING);
+		this.anonymousHeaders = Collections.unmodifiableMap(headers);
+		this.tokenHeaders = withAuthorisation(anonymousHeaders, String.format("Token %s", clientSecret));
+	}
+
+	/**
+	 * Prepare the client to serve requests, by resolving the address of the API and establishing a number of
+	 * connections to it in advance. Blocks until the connections are established, after which the client reports
+	 * itself as ready.
+	 *
+	 * @param connections The number of connections to establish
+	 * @throws FreesoundClientException Any errors encountered establishing connections
+	 */
+	public void warmUp(final int connections) throws FreesoundClientException {
+		if (connections < 1) {
+			throw new IllegalArgumentException("Number of connections must be greater than 0");
+		}
+
+		try {
+			transport.warmUp(API_ENDPOINT, connections);
+		} catch (final IOException e) {
+			throw new FreesoundClientException("Error warming up HTTP transport", e);
 		}
+
+		ready.countDown();
+	}
+
+	/**
+	 * @return Whether the client has been successfully warmed up
+	 */
+	public boolean isReady() {
+		return ready.getCount() == 0;
+	}
+
+	/**
+	 * Wait for the client to be successfully warmed up (by another thread).
+	 *
+	 * @param timeout The maximum time to wait
+	 * @param unit The unit of the timeout
+	 * @return Whether the client is ready, or false if the timeout elapsed first
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	public boolean awaitReady(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return ready.await(timeout, unit);
 	}
 
 	/**
@@ -107,101 +228,323 @@ public class FreesoundClient {
 	@SuppressWarnings("unchecked")
 	public <S extends Object, R extends Object> Response<R> executeQuery(final Query<S, R> query)
 			throws FreesoundClientException {
-		final HttpRequest request = buildHTTPRequest(query);
-		final String credential = buildAuthorisationCredential(query);
-
-		if (credential != null) {
-			request.header("Authorization", credential);
+		if (!(query instanceof JSONResponseQuery) && !(query instanceof BinaryResponseQuery)) {
+			throw new FreesoundClientException(String.format("Unknown request type: %s", query.getClass()));
 		}
 
-		try {
-			if (query instanceof JSONResponseQuery) {
-				final HttpResponse<JsonNode> httpResponse = request.asJson();
-				final S responseBody = (S) httpResponse.getBody().getObject();
+		final String url = buildURL(query);
+		final TransportRequest request = new TransportRequest(
+				query.getHttpRequestMethod(), url, buildHeaders(query, url), query.getQueryParameters());
 
-				return query.processResponse(httpResponse.getStatus(), httpResponse.getStatusText(), responseBody);
-			} else if (query instanceof BinaryResponseQuery) {
-				final HttpResponse<InputStream> httpResponse = request.asBinary();
-				final S responseBody = (S) httpResponse.getBody();
+		try {
+			final TransportResponse httpResponse = submit(query, request);
 
-				return query.processResponse(httpResponse.getStatus(), httpResponse.getStatusText(), responseBody);
+			final S responseBody;
+			if (query instanceof JSONResponseQuery) {
+				responseBody = (S) parseJSON(httpResponse.getBody());
 			} else {
-				throw new FreesoundClientException(String.format("Unknown request type: %s", query.getClass()));
+				responseBody = (S) httpResponse.getBody();
 			}
-		} catch (final ClassCastException | UnirestException e) {
+
+			final Response<R> response =
+					query.processResponse(httpResponse.getStatus(), httpResponse.getStatusText(), responseBody);
+			if (response.isErrorResponse() && (query instanceof BinaryResponseQuery)
+					&& (httpResponse.getBody() != null)) {
+				// The error details have been read from the stream, and it is not handed to the caller to close
+				httpResponse.getBody().close();
+			}
+
+			return response;
+		} catch (final IOException | JSONException e) {
 			throw new FreesoundClientException("Error when attempting to make API call", e);
 		}
 	}
 
 	/**
-	 * Build the Unirest {@link HttpRequest} that will be used to make the call to the API.
+	 * Submit a request through the circuit breaker guarding its route, and the priority scheduler or concurrency
+	 * limiter (if enabled). Requests to a route whose circuit is open are rejected without being submitted; otherwise
+	 * the request waits until the scheduler or limiter permits it to be made. Transport errors and server errors (5xx
+	 * responses) count as failures of the route, and transport errors and throttled requests (429 and 503 responses)
+	 * as dropped by the limiter. A request holds its slot in the scheduler or limiter until the body of its response
+	 * has been closed, so that the round trip times they adapt to cover the whole response.
 	 *
-	 * @param query The query to be made
-	 * @return Properly configured {@link HttpRequest} representing query
+	 * @param query The query the request was built from
+	 * @param request The request to submit
+	 * @return The response received
+	 * @throws CircuitBreakerOpenException If the circuit guarding the route is open
+	 * @throws IOException Any errors encountered submitting the request
 	 */
-	private HttpRequest buildHTTPRequest(final Query<?, ?> query) {
-		final String url = API_ENDPOINT + query.getPath();
-
-		HttpRequest request;
-		switch (query.getHttpRequestMethod()) {
-			case GET:
-				request = Unirest.get(url);
+	private TransportResponse submit(final Query<?, ?> query, final TransportRequest request)
+			throws CircuitBreakerOpenException, IOException {
+		final String route = route(query.getPath());
+		final CircuitBreaker circuitBreaker = circuitBreaker(route);
+		final long permit = (circuitBreaker != null) ? circuitBreaker.tryAcquire() : CircuitBreaker.REJECTED;
+		if ((circuitBreaker != null) && (permit == CircuitBreaker.REJECTED)) {
+			throw new CircuitBreakerOpenException(route, circuitBreaker.getRemainingOpenMilliseconds());
+		}
 
-				if ((query.getQueryParameters() != null) && !query.getQueryParameters().isEmpty()) {
-					((GetRequest) request).queryString(query.getQueryParameters());
+		final PriorityScheduler scheduler = priorityScheduler;
+		final AdaptiveConcurrencyLimiter limiter = (scheduler == null) ? concurrencyLimiter : null;
+		if ((scheduler != null) || (limiter != null)) {
+			try {
+				if (scheduler != null) {
+					scheduler.acquire(query.getPriority());
+				} else {
+					limiter.acquire();
+				}
+			} catch (final InterruptedException e) {
+				if (circuitBreaker != null) {
+					circuitBreaker.cancel(permit);
 				}
 
-				break;
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted waiting to submit request");
+			}
+		}
 
-			case POST:
-				request = Unirest.post(url);
+		final long start = System.nanoTime();
+		int status = -1;
+		boolean released = false;
+		try {
+			final TransportResponse response = exchange(query, route, request);
+			status = response.getStatus();
+
+			final boolean dropped = (status == 429) || (status == 503);
+			if ((response.getBody() != null) && ((scheduler != null) || (limiter != null))) {
+				released = true;
+				final InputStream body = new SlotReleasingInputStream(
+						response.getBody(), scheduler, limiter, query.getPriority(), route, dropped, start);
+				return new TransportResponse(response.getStatus(), response.getStatusText(), body);
+			}
 
-				if ((query.getQueryParameters() != null) && !query.getQueryParameters().isEmpty()) {
-					((HttpRequestWithBody) request).fields(query.getQueryParameters());
-				}
+			return response;
+		} finally {
+			final long duration = System.nanoTime() - start;
+			if (circuitBreaker != null) {
+				circuitBreaker.record(permit, (status == -1) || (status >= 500), duration);
+			}
 
-				break;
+			if (!released) {
+				final boolean dropped = (status == -1) || (status == 429) || (status == 503);
+				releaseSlot(scheduler, limiter, query.getPriority(), route, dropped, duration);
+			}
+		}
+	}
 
-			default:
-				request = Unirest.get(url);
+	/**
+	 * Release the slot a request held in the priority scheduler or concurrency limiter it was submitted through.
+	 *
+	 * @param scheduler The scheduler the request was submitted through (or null if it was not scheduled)
+	 * @param limiter The limiter the request was submitted through (or null if concurrency was not limited)
+	 * @param priority The priority of the query the request was built from
+	 * @param route The route the request was made to
+	 * @param dropped Whether the request failed, or was throttled by the API
+	 * @param duration The time taken to complete the request (in nanoseconds)
+	 */
+	private static void releaseSlot(final PriorityScheduler scheduler, final AdaptiveConcurrencyLimiter limiter,
+			final Priority priority, final String route, final boolean dropped, final long duration) {
+		if (scheduler != null) {
+			scheduler.release(priority, route, dropped, duration);
+		} else if (limiter != null) {
+			limiter.release(route, dropped, duration);
 		}
+	}
 
-		/*
-		 * Add any named route parameters to the request (i.e. elements used to build the URI, such as
-		 * '/sound/{sound_id}' would have a parameter named 'sound_id').
-		 */
-		if ((query.getRouteParameters() != null) && !query.getRouteParameters().isEmpty()) {
-			for (final Entry<String, String> routeParameter : query.getRouteParameters().entrySet()) {
-				request.routeParam(routeParameter.getKey(), routeParameter.getValue());
+	/**
+	 * Exchange a request and response with the API, hedging the request if the query permits it and hedging is
+	 * enabled.
+	 *
+	 * @param query The query the request was built from
+	 * @param route The route the request is made to
+	 * @param request The request to submit
+	 * @return The response received
+	 * @throws IOException Any errors encountered submitting the request
+	 */
+	private TransportResponse exchange(final Query<?, ?> query, final String route, final TransportRequest request)
+			throws IOException {
+		final RequestHedger hedger = requestHedger;
+		if ((hedger == null) || !(query instanceof HedgeableQuery)) {
+			return transport.execute(request);
+		}
+
+		return hedger.execute(route, new Callable<TransportResponse>() {
+			@Override
+			public TransportResponse call() throws IOException {
+				return transport.execute(request);
 			}
+		});
+	}
+
+	/**
+	 * Determine the route a query is submitted to, for the purposes of circuit breaking. Queries relative to the API
+	 * are routed by their path template; absolute URIs (e.g. sound previews) by their scheme and host.
+	 *
+	 * @param path The path template of the query
+	 * @return The route
+	 */
+	private static String route(final String path) {
+		if (path.startsWith("http://") || path.startsWith("https://")) {
+			final int endOfHost = path.indexOf('/', path.indexOf("://") + 3);
+			return (endOfHost != -1) ? path.substring(0, endOfHost) : path;
 		}
 
-		return request;
+		return path;
 	}
 
 	/**
-	 * Build the credential that will be passed in the 'Authorization' HTTP header as part of the API call. The nature
-	 * of the credential will depend on the query being made.
+	 * Retrieve the circuit breaker guarding a route, creating one if necessary.
+	 *
+	 * @param route The route
+	 * @return The circuit breaker (or null if circuit breaking is disabled)
+	 */
+	private CircuitBreaker circuitBreaker(final String route) {
+		final CircuitBreakerSettings settings = circuitBreakerSettings;
+		if (settings == null) {
+			return null;
+		}
+
+		CircuitBreaker circuitBreaker = circuitBreakers.get(route);
+		if (circuitBreaker == null) {
+			circuitBreaker = new CircuitBreaker(settings);
+
+			final CircuitBreaker existing = circuitBreakers.putIfAbsent(route, circuitBreaker);
+			if (existing != null) {
+				circuitBreaker = existing;
+			}
+		}
+
+		return circuitBreaker;
+	}
+
+	/**
+	 * Parse a JSON document as it is read from the body of a response, rather than first reading the body in full. An
+	 * empty body is treated as an empty document.
+	 *
+	 * @param body The body of the response (may be null)
+	 * @return The parsed document
+	 * @throws IOException Any errors reading the body
+	 */
+	private static JSONObject parseJSON(final InputStream body) throws IOException {
+		if (body == null) {
+			return new JSONObject();
+		}
+
+		try (Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+			final JSONTokener tokener = new JSONTokener(reader);
+			if (tokener.nextClean() == 0) {
+				return new JSONObject();
+			}
+			tokener.back();
+
+			return new JSONObject(tokener);
+		}
+	}
+
+	/**
+	 * Build the URL the query will be submitted to, substituting any named route parameters into the path (i.e.
+	 * elements used to build the URI, such as '/sound/{sound_id}' would have a parameter named 'sound_id'). The path of
+	 * each type of query is compiled into a {@link RouteTemplate} once, and reused for subsequent queries.
+	 *
+	 * @param query The query to be made
+	 * @return The URL to submit the query to
+	 */
+	private String buildURL(final Query<?, ?> query) {
+		final String path = query.getPath();
+
+		// Some resources (e.g. sound previews) are referenced by absolute URIs rather than paths relative to the API.
+		// These are typically unique to a single resource, so aren't worth keeping.
+		if (path.startsWith("http://") || path.startsWith("https://")) {
+			return RouteTemplate.compile(path).expand(query.getRouteParameters());
+		}
+
+		RouteTemplate template = routeTemplates.get(path);
+		if (template == null) {
+			template = RouteTemplate.compile(API_ENDPOINT + path);
+
+			final RouteTemplate existing = routeTemplates.putIfAbsent(path, template);
+			if (existing != null) {
+				template = existing;
+			}
+		}
+
+		return template.expand(query.getRouteParameters());
+	}
+
+	/**
+	 * Build the HTTP headers that will be passed as part of the API call, including the credential passed in the
+	 * 'Authorization' header. The nature of the credential will depend on the query being made. No credential is sent
+	 * to URLs outside of the API, such as those serving sound previews and images.
 	 *
 	 * @param query The query being made
-	 * @return The string to pass in the Authorization header (or null if none)
+	 * @param url The URL the query will be sent to
+	 * @return The headers to send
 	 */
-	private String buildAuthorisationCredential(final Query<?, ?> query) {
-		String credential = null;
-		if (query instanceof OAuthQuery) {
+	private Map<String, String> buildHeaders(final Query<?, ?> query, final String url) {
+		Map<String, String> headers;
+		if (!url.startsWith(API_ENDPOINT + "/") && !url.equals(API_ENDPOINT)) {
+			// Credentials must never be sent to hosts other than the API (e.g. those serving previews and images)
+			headers = anonymousHeaders;
+		} else if (query instanceof OAuthQuery) {
 			final String oauthToken = ((OAuthQuery) query).getOauthToken();
-			credential = String.format("Bearer %s", oauthToken);
+
+			// Applications typically make many calls with the same token, so reuse the headers built for the last one
+			BearerCredential bearer = bearerCredential;
+			if ((bearer == null) || !bearer.oauthToken.equals(oauthToken)) {
+				bearer = new BearerCredential(
+						oauthToken, withAuthorisation(anonymousHeaders, String.format("Bearer %s", oauthToken)));
+				bearerCredential = bearer;
+			}
+
+			headers = bearer.headers;
 		} else if (query instanceof AccessTokenQuery) {
 			// Don't set the Authorization header
+			headers = anonymousHeaders;
 		} else {
-			credential = String.format("Token %s", clientSecret);
+			headers = tokenHeaders;
 		}
 
-		return credential;
+		return headers;
+	}
+
+	/**
+	 * @param headers The headers common to all requests
+	 * @param credential The credential to pass in the Authorization header
+	 * @return Unmodifiable copy of the common headers, with the addition of the Authorization header
+	 */
+	private static Map<String, String> withAuthorisation(final Map<String, String> headers, final String credential) {
+		final Map<String, String> authorisedHeaders = new HashMap<>(headers);
+		authorisedHeaders.put(HTTP_AUTHORIZATION_HEADER, credential);
+
+		return Collections.unmodifiableMap(authorisedHeaders);
 	}
 
 	/**
-	 * Retrieve the next page of results for a {@link PagingQuery}.
+	 * Retrieve the audio descriptors available for use in content searches. The descriptors are retrieved from the API
+	 * on the first call, and the same result returned on subsequent calls.
+	 *
+	 * @return The available audio descriptors
+	 * @throws FreesoundClientException If it is not possible to retrieve the descriptors
+	 */
+	public AudioDescriptors getAudioDescriptors() throws FreesoundClientException {
+		AudioDescriptors descriptors = audioDescriptors;
+		if (descriptors == null) {
+			final Response<AudioDescriptors> response = executeQuery(new AvailableAudioDescriptorsQuery());
+			if (response.isErrorResponse()) {
+				throw new FreesoundClientException(
+						String.format("Error retrieving available audio descriptors: %s", response.getErrorDetails()));
+			}
+
+			descriptors = response.getResults();
+			audioDescriptors = descriptors;
+		}
+
+		return descriptors;
+	}
+
+	/**
+	 * Retrieve the next page of results for a {@link PagingQuery}. The page retrieved is an immutable snapshot of the
+	 * query, and the page number of the query is advanced once the page has been retrieved. To retrieve pages of a
+	 * query shared between threads, execute snapshots taken with {@link PagingQuery#atPage(int)} instead.
 	 *
 	 * @param <I> The data type of items returned by the query
 	 *
@@ -212,14 +555,17 @@ public class FreesoundClient {
 	 */
 	public <I extends Object> PagingResponse<I> nextPage(final PagingQuery<?, I> query)
 			throws FreesoundClientException {
-		final int currentPage = query.getPage();
-		query.setPage(currentPage + 1);
+		final PageSnapshot<I> page = query.atPage(query.getPage() + 1);
+		final PagingResponse<I> response = (PagingResponse<I>) executeQuery(page);
+		query.setPage(page.getPage());
 
-		return (PagingResponse<I>) executeQuery(query);
+		return response;
 	}
 
 	/**
-	 * Retrieve the previous page of results for a {@link PagingQuery}.
+	 * Retrieve the previous page of results for a {@link PagingQuery}. The page retrieved is an immutable snapshot of
+	 * the query, and the page number of the query is moved back once the page has been retrieved. To retrieve pages of
+	 * a query shared between threads, execute snapshots taken with {@link PagingQuery#atPage(int)} instead.
 	 *
 	 * @param <I> The data type of items returned by the query
 	 *
@@ -230,10 +576,33 @@ public class FreesoundClient {
 	 */
 	public <I extends Object> PagingResponse<I> previousPage(final PagingQuery<?, I> query)
 			throws FreesoundClientException {
-		final int currentPage = query.getPage();
-		query.setPage(currentPage - 1);
+		final PageSnapshot<I> page = query.atPage(query.getPage() - 1);
+		final PagingResponse<I> response = (PagingResponse<I>) executeQuery(page);
+		query.setPage(page.getPage());
 
-		return (PagingResponse<I>) executeQuery(query);
+		return response;
+	}
+
+	/**
+	 * Retrieve the next page of results for a {@link CursorPagingQuery}, by following the cursor returned in the
+	 * previous page. The query itself is not modified, so it can be shared between threads.
+	 *
+	 * @param <I> The data type of items returned by the query
+	 *
+	 * @param query The {@link CursorPagingQuery} being run
+	 * @param previousResponse The previous page of results
+	 * @return The results of the query
+	 *
+	 * @throws FreesoundClientException If there are no further results, or it is not possible to retrieve them
+	 */
+	public <I extends Object> CursorPagingResponse<I> moreResults(
+			final CursorPagingQuery<?, I> query, final CursorPagingResponse<I> previousResponse)
+			throws FreesoundClientException {
+		if ((previousResponse == null) || !previousResponse.hasMoreResults()) {
+			throw new FreesoundClientException("No further results available for query");
+		}
+
+		return (CursorPagingResponse<I>) executeQuery(query.atCursor(previousResponse.getMoreResultsURI()));
 	}
 
 	/**
@@ -275,9 +644,195 @@ public class FreesoundClient {
 	 */
 	public void shutdown() throws FreesoundClientException {
 		try {
-			Unirest.shutdown();
+			transport.shutdown();
 		} catch (final IOException e) {
-			throw new FreesoundClientException("Error shutting down background Unirest service", e);
+			throw new FreesoundClientException("Error shutting down HTTP transport", e);
+		}
+	}
+
+	/**
+	 * Replace the settings used to guard each route of the API with a {@link CircuitBreaker}. All existing breakers are
+	 * discarded, so every route starts with a closed circuit. Circuit breaking is disabled until settings are provided.
+	 *
+	 * @param circuitBreakerSettings The settings to use (or null to disable circuit breaking)
+	 */
+	public void setCircuitBreakerSettings(final CircuitBreakerSettings circuitBreakerSettings) {
+		this.circuitBreakerSettings = circuitBreakerSettings;
+		circuitBreakers.clear();
+	}
+
+	/**
+	 * Retrieve the circuit breaker guarding a route, for monitoring purposes.
+	 *
+	 * @param route The route: the path template of a query (e.g. '/search/text/'), or the scheme and host of an
+	 * absolute URI
+	 * @return The circuit breaker (or null if no queries have been made to the route)
+	 */
+	public CircuitBreaker getCircuitBreaker(final String route) {
+		return circuitBreakers.get(route);
+	}
+
+	/**
+	 * Enable hedging of {@link HedgeableQuery}s: if a response is slow to arrive, a duplicate request is sent and the
+	 * first response received is used.
+	 *
+	 * @param requestHedger The hedger to submit requests through (or null to disable hedging)
+	 */
+	public void setRequestHedger(final RequestHedger requestHedger) {
+		this.requestHedger = requestHedger;
+	}
+
+	/**
+	 * @return The hedger requests are submitted through (or null if hedging is disabled)
+	 */
+	public RequestHedger getRequestHedger() {
+		return requestHedger;
+	}
+
+	/**
+	 * Limit the number of requests in flight at once, with a limit adapted to the observed capacity of the API. Queries
+	 * made while the limit is reached wait until a request completes. A request is complete once the body of its
+	 * response has been closed, so streams returned by binary queries (e.g. sound downloads) must be closed.
+	 *
+	 * @param concurrencyLimiter The limiter to use (or null to stop limiting concurrency)
+	 */
+	public void setConcurrencyLimiter(final AdaptiveConcurrencyLimiter concurrencyLimiter) {
+		this.concurrencyLimiter = concurrencyLimiter;
+	}
+
+	/**
+	 * @return The limiter applied to requests (or null if concurrency is not limited)
+	 */
+	public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+		return concurrencyLimiter;
+	}
+
+	/**
+	 * Schedule requests in separate lanes according to the {@link com.sonoport.freesound.query.Priority} of their
+	 * queries, so that batch traffic does not delay interactive queries. The scheduler takes precedence over any
+	 * concurrency limiter set with {@link #setConcurrencyLimiter(AdaptiveConcurrencyLimiter)}; to schedule requests
+	 * within an adaptive limit, create the scheduler with the limiter. As with the limiter, streams returned by binary
+	 * queries must be closed to release the slot their request holds.
+	 *
+	 * @param priorityScheduler The scheduler to use (or null to stop scheduling requests)
+	 */
+	public void setPriorityScheduler(final PriorityScheduler priorityScheduler) {
+		this.priorityScheduler = priorityScheduler;
+	}
+
+	/**
+	 * @return The scheduler requests are submitted through (or null if requests are not scheduled)
+	 */
+	public PriorityScheduler getPriorityScheduler() {
+		return priorityScheduler;
+	}
+
+	/**
+	 * @return The transport used to exchange requests and responses with the API
+	 */
+	public HttpTransport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * The headers used to authenticate with an OAuth2 token.
+	 */
+	private static final class BearerCredential {
+
+		/** The OAuth2 token. */
+		private final String oauthToken;
+
+		/** The headers, including the Authorization header. */
+		private final Map<String, String> headers;
+
+		/**
+		 * @param oauthToken The OAuth2 token
+		 * @param headers The headers, including the Authorization header
+		 */
+		private BearerCredential(final String oauthToken, final Map<String, String> headers) {
+			this.oauthToken = String.valueOf(oauthToken);
+			this.headers = headers;
+		}
+	}
+
+	/**
+	 * The body of a response to a scheduled or limited request, releasing the slot the request held once the body has
+	 * been consumed and closed. The round trip time reported to the scheduler or limiter therefore covers the whole
+	 * response, and a request whose body fails to arrive is reported as dropped.
+	 */
+	private static final class SlotReleasingInputStream extends FilterInputStream {
+
+		/** The scheduler the request was submitted through (or null if it was not scheduled). */
+		private final PriorityScheduler scheduler;
+
+		/** The limiter the request was submitted through (or null if concurrency was not limited). */
+		private final AdaptiveConcurrencyLimiter limiter;
+
+		/** The priority of the query the request was built from. */
+		private final Priority priority;
+
+		/** The route the request was made to. */
+		private final String route;
+
+		/** The time (from {@link System#nanoTime()}) at which the request was made. */
+		private final long start;
+
+		/** Whether the request was throttled, or the body failed to be read. */
+		private boolean dropped;
+
+		/** Whether the slot has been released. */
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		/**
+		 * @param body The body of the response
+		 * @param scheduler The scheduler the request was submitted through (or null if it was not scheduled)
+		 * @param limiter The limiter the request was submitted through (or null if concurrency was not limited)
+		 * @param priority The priority of the query the request was built from
+		 * @param route The route the request was made to
+		 * @param dropped Whether the request was throttled by the API
+		 * @param start The time (from {@link System#nanoTime()}) at which the request was made
+		 */
+		private SlotReleasingInputStream(final InputStream body, final PriorityScheduler scheduler,
+				final AdaptiveConcurrencyLimiter limiter, final Priority priority, final String route,
+				final boolean dropped, final long start) {
+			super(body);
+			this.scheduler = scheduler;
+			this.limiter = limiter;
+			this.priority = priority;
+			this.route = route;
+			this.dropped = dropped;
+			this.start = start;
+		}
+
+		@Override
+		public int read() throws IOException {
+			try {
+				return super.read();
+			} catch (final IOException e) {
+				dropped = true;
+				throw e;
+			}
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			try {
+				return super.read(b, off, len);
+			} catch (final IOException e) {
+				dropped = true;
+				throw e;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				if (released.compareAndSet(false, true)) {
+					releaseSlot(scheduler, limiter, priority, route, dropped, System.nanoTime() - start);
+				}
+			}
 		}
 	}
 }
@@ -15,9 +15,9 @@
  */
 package com.sonoport.freesound;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 
 /**
  * Enumeration used to represent each of the license types in use on freesound.org. The license representation varies in
@@ -45,16 +45,23 @@ public enum License {
 	}
 
 	/**
-	 * {@link Map} used to lookup the {@link License} type based on the URI. As different versions of the same license
-	 * exist (and additional versions may be added in the future), we hold the common prefix as the key. By testing the
-	 * received URI against the key using {@link String#startsWith(String)}, we can be version-agnostic.
+	 * Root of the trie used to lookup the {@link License} type based on the URI. As different versions of the same
+	 * license exist (and additional versions may be added in the future), the trie holds the common prefix of each
+	 * license URI and a lookup returns the longest prefix matched, so is version-agnostic. Prefixes are held without
+	 * their scheme or any leading 'www.', so that http/https variants of the URI resolve to the same license.
 	 */
-	private static final Map<String, License> LICENSE_BY_URI_PREFIX;
+	private static final URITrieNode URI_PREFIX_TRIE;
 	static {
-		LICENSE_BY_URI_PREFIX = new HashMap<String, License>();
+		URI_PREFIX_TRIE = new URITrieNode();
 
 		for (final License license : License.values()) {
-			LICENSE_BY_URI_PREFIX.put(license.getURIPrefix(), license);
+			final String uriPrefix = license.getURIPrefix();
+
+			URITrieNode node = URI_PREFIX_TRIE;
+			for (int i = skipSchemeAndHost(uriPrefix); i < uriPrefix.length(); i++) {
+				node = node.addChild(uriPrefix.charAt(i));
+			}
+			node.license = license;
 		}
 	}
 
@@ -93,16 +100,49 @@ public enum License {
 		License license = null;
 
 		if (uri != null) {
-			for (final Entry<String, License> entry : LICENSE_BY_URI_PREFIX.entrySet()) {
-				if (uri.startsWith(entry.getKey())) {
-					license = entry.getValue();
-					break;
+			URITrieNode node = URI_PREFIX_TRIE;
+			for (int i = skipSchemeAndHost(uri); (node != null) && (i < uri.length()); i++) {
+				node = node.getChild(uri.charAt(i));
+				if ((node != null) && (node.license != null)) {
+					license = node.license;
+				}
+			}
+
+			// Allow for the trailing '/' of the prefix being omitted, e.g. 'http://creativecommons.org/licenses/by'
+			if ((license == null) && (node != null)) {
+				final URITrieNode trailingSlashNode = node.getChild('/');
+				if (trailingSlashNode != null) {
+					license = trailingSlashNode.license;
 				}
 			}
 		}
 		return license;
 	}
 
+	/**
+	 * Determine the index at which to start matching a URI against the prefix trie, skipping any scheme
+	 * ('http://', 'https://' or '//') and leading 'www.'.
+	 *
+	 * @param uri The URI being matched
+	 * @return Index of the first character to match
+	 */
+	private static int skipSchemeAndHost(final String uri) {
+		int start = 0;
+		if (uri.regionMatches(true, 0, "https://", 0, 8)) {
+			start = 8;
+		} else if (uri.regionMatches(true, 0, "http://", 0, 7)) {
+			start = 7;
+		} else if (uri.startsWith("//")) {
+			start = 2;
+		}
+
+		if (uri.regionMatches(true, start, "www.", 0, 4)) {
+			start += 4;
+		}
+
+		return start;
+	}
+
 	/**
 	 * @return the description
 	 */
@@ -116,4 +156,53 @@ public enum License {
 	public String getURIPrefix() {
 		return uriPrefix;
 	}
+
+	/**
+	 * Node in the trie used to lookup licenses by URI prefix. Each node has very few children, so these are held in
+	 * small parallel arrays rather than a {@link Map}.
+	 */
+	private static final class URITrieNode {
+
+		/** The characters leading to each child node. */
+		private char[] keys = new char[0];
+
+		/** The child nodes. */
+		private URITrieNode[] children = new URITrieNode[0];
+
+		/** The license whose URI prefix ends at this node (if any). */
+		private License license;
+
+		/**
+		 * @param key The character to follow
+		 * @return The child node reached by the character (or null if none)
+		 */
+		private URITrieNode getChild(final char key) {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] == key) {
+					return children[i];
+				}
+			}
+
+			return null;
+		}
+
+		/**
+		 * @param key The character to follow
+		 * @return The child node reached by the character, created if it does not already exist
+		 */
+		private URITrieNode addChild(final char key) {
+			URITrieNode child = getChild(key);
+			if (child == null) {
+				child = new URITrieNode();
+
+				keys = Arrays.copyOf(keys, keys.length + 1);
+				keys[keys.length - 1] = key;
+
+				children = Arrays.copyOf(children, children.length + 1);
+				children[children.length - 1] = child;
+			}
+
+			return child;
+		}
+	}
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.mashape.unirest.http.utils.URLParamEncoder;
+
+/**
+ * A URI template (such as '/sounds/{sound_id}/download/') compiled into the literal text and named parameters it is
+ * made up of, so that it can be expanded repeatedly without re-parsing the template. Parameter values are encoded in
+ * the same way as by Unirest's own route parameter handling.
+ */
+final class RouteTemplate {
+
+	/** The literal text of the template, before, between and after the parameters. */
+	private final String[] literals;
+
+	/** The names of the parameters in the template, in order of appearance. */
+	private final String[] parameterNames;
+
+	/** The number of distinct parameters in the template. */
+	private final int distinctParameterCount;
+
+	/** Length of the literal text of the template, used to size the expanded URI. */
+	private final int literalLength;
+
+	/**
+	 * @param literals The literal text of the template, before, between and after the parameters
+	 * @param parameterNames The names of the parameters in the template, in order of appearance
+	 */
+	private RouteTemplate(final String[] literals, final String[] parameterNames) {
+		this.literals = literals;
+		this.parameterNames = parameterNames;
+
+		int length = 0;
+		for (final String literal : literals) {
+			length += literal.length();
+		}
+		this.literalLength = length;
+		this.distinctParameterCount = new HashSet<>(Arrays.asList(parameterNames)).size();
+	}
+
+	/**
+	 * Compile a template.
+	 *
+	 * @param template The template, with parameters identified by names enclosed in braces
+	 * @return The compiled template
+	 */
+	static RouteTemplate compile(final String template) {
+		final List<String> literals = new ArrayList<>();
+		final List<String> parameterNames = new ArrayList<>();
+
+		int start = 0;
+		int open;
+		while ((open = template.indexOf('{', start)) != -1) {
+			final int close = template.indexOf('}', open);
+			if (close == -1) {
+				throw new IllegalArgumentException(String.format("Unterminated parameter in route: %s", template));
+			}
+
+			literals.add(template.substring(start, open));
+			parameterNames.add(template.substring(open + 1, close));
+			start = close + 1;
+		}
+		literals.add(template.substring(start));
+
+		return new RouteTemplate(
+				literals.toArray(new String[literals.size()]),
+				parameterNames.toArray(new String[parameterNames.size()]));
+	}
+
+	/**
+	 * Expand the template, substituting the values of its parameters.
+	 *
+	 * @param routeParameters The value of each parameter, keyed on name (may be null if the template has none)
+	 * @return The expanded URI
+	 */
+	String expand(final Map<String, String> routeParameters) {
+		final int parameterCount = (routeParameters != null) ? routeParameters.size() : 0;
+		if (parameterNames.length == 0) {
+			if (parameterCount > 0) {
+				throw new IllegalArgumentException(String.format("Unknown route parameters: %s", routeParameters));
+			}
+
+			return literals[0];
+		}
+
+		final StringBuilder uri = new StringBuilder(literalLength + (16 * parameterNames.length));
+		for (int i = 0; i < parameterNames.length; i++) {
+			final String value = (routeParameters != null) ? routeParameters.get(parameterNames[i]) : null;
+			if (value == null) {
+				throw new IllegalArgumentException(
+						String.format("No value for route parameter '%s'", parameterNames[i]));
+			}
+
+			uri.append(literals[i]).append(URLParamEncoder.encode(value));
+		}
+		uri.append(literals[parameterNames.length]);
+
+		if (parameterCount > distinctParameterCount) {
+			checkAllParametersKnown(routeParameters);
+		}
+
+		return uri.toString();
+	}
+
+	/**
+	 * Ensure that every parameter supplied appears in the template.
+	 *
+	 * @param routeParameters The parameters supplied
+	 */
+	private void checkAllParametersKnown(final Map<String, String> routeParameters) {
+		for (final Entry<String, String> parameter : routeParameters.entrySet()) {
+			boolean known = false;
+			for (final String name : parameterNames) {
+				known |= name.equals(parameter.getKey());
+			}
+
+			if (!known) {
+				throw new IllegalArgumentException(
+						String.format("Can't find route parameter name \"%s\"", parameter.getKey()));
+			}
+		}
+	}
+}
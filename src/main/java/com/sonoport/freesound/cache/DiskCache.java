@@ -0,0 +1,524 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Size-bounded cache of binary content held on disk, evicting the least recently used entries once the total size of
+ * the entries exceeds a limit.
+ *
+ * Entries are stored in files named after a hash of their key, spread across 256 subdirectories so that no single
+ * directory grows too large. Entries are written to a temporary file and moved into place once complete, so a
+ * partially written entry is never visible. When a directory containing an existing cache is opened, its entries are
+ * adopted, ordered by when they were last used.
+ *
+ * Missing entries are populated by a {@link Loader}. If several threads request the same missing entry at once, only
+ * one of them runs its loader; the others wait for and share the result. Optionally, the most recently read entries can
+ * be held memory-mapped, so that repeated reads of popular entries are served without copying them onto the heap.
+ */
+public class DiskCache {
+
+	/** Source of the content of an entry which is not held by the cache. */
+	public interface Loader {
+
+		/**
+		 * Write the content of the entry.
+		 *
+		 * @param out The stream to write the content to
+		 * @throws IOException Any errors retrieving or writing the content
+		 */
+		void load(OutputStream out) throws IOException;
+	}
+
+	/** Prefix of the names of files being written. */
+	private static final String TEMPORARY_PREFIX = "loading-";
+
+	/** Lookup of hexadecimal digits. */
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/** The directory holding the cache. */
+	private final Path directory;
+
+	/** The maximum total size of the entries held, in bytes. */
+	private final long maximumBytes;
+
+	/** The size of each entry, keyed on the hash of its key, in order of use (least recent first). */
+	private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+	/** Memory mappings of the most recently read entries, keyed on the hash of the entry's key. */
+	private final LinkedHashMap<String, ByteBuffer> mappings = new LinkedHashMap<>(16, 0.75f, true);
+
+	/** Loads currently in progress, keyed on the hash of the entry's key. */
+	private final ConcurrentMap<String, FutureTask<Void>> loading = new ConcurrentHashMap<>();
+
+	/** The total size of the entries held. Guarded by {@link #entries}. */
+	private long totalBytes;
+
+	/** The maximum number of memory-mapped entries to hold. Guarded by {@link #entries}. */
+	private int maximumMappings;
+
+	/** Count of entries stored or removed, used to detect changes made while reading. Guarded by {@link #entries}. */
+	private long modifications;
+
+	/**
+	 * @param directory The directory to hold the cache, created if it does not exist
+	 * @param maximumBytes The maximum total size of the entries to hold, in bytes
+	 * @throws IOException Any errors encountered reading an existing cache
+	 */
+	public DiskCache(final Path directory, final long maximumBytes) throws IOException {
+		if (maximumBytes < 1) {
+			throw new IllegalArgumentException("Maximum size must be greater than 0");
+		}
+
+		this.directory = directory;
+		this.maximumBytes = maximumBytes;
+
+		Files.createDirectories(directory);
+		adoptExistingEntries();
+	}
+
+	/**
+	 * Open an entry for reading, loading it first if it is not held.
+	 *
+	 * @param key The key of the entry
+	 * @param loader Source of the entry's content, used if the entry is not held
+	 * @return Stream of the entry's content, which the caller must close
+	 * @throws IOException Any errors encountered loading or reading the entry
+	 */
+	public InputStream open(final String key, final Loader loader) throws IOException {
+		final String hash = hash(key);
+		while (true) {
+			final long version = lookUp(hash);
+			if (version < 0) {
+				load(hash, loader);
+				continue;
+			}
+
+			touch(hash);
+			try {
+				return Files.newInputStream(entryPath(hash));
+			} catch (final NoSuchFileException e) {
+				forgetMissing(hash, version);
+			}
+		}
+	}
+
+	/**
+	 * Read the content of an entry, loading it first if it is not held. If memory mapping is enabled (see
+	 * {@link #setMaximumMappings(int)}), the content is returned as a read-only view of a mapping of the entry.
+	 *
+	 * The entry is looked up while holding the lock on the index of entries, but is read without it, so that reads of
+	 * large entries do not hold up other callers. An entry evicted or replaced between being looked up and opened is
+	 * looked up again; once opened, its content remains readable even if it is then evicted.
+	 *
+	 * @param key The key of the entry
+	 * @param loader Source of the entry's content, used if the entry is not held
+	 * @return The content of the entry, positioned at its start
+	 * @throws IOException Any errors encountered loading or reading the entry
+	 */
+	public ByteBuffer read(final String key, final Loader loader) throws IOException {
+		final String hash = hash(key);
+		while (true) {
+			final long version;
+			final boolean map;
+			final ByteBuffer mapping;
+			synchronized (entries) {
+				version = (entries.get(hash) != null) ? modifications : -1;
+				map = maximumMappings > 0;
+				mapping = mappings.get(hash);
+			}
+
+			if (version < 0) {
+				load(hash, loader);
+				continue;
+			}
+
+			touch(hash);
+			if (mapping != null) {
+				return mapping.duplicate();
+			}
+
+			final ByteBuffer content;
+			try (FileChannel channel = FileChannel.open(entryPath(hash), StandardOpenOption.READ)) {
+				if (map) {
+					content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asReadOnlyBuffer();
+				} else {
+					content = ByteBuffer.allocate((int) channel.size());
+					while (content.hasRemaining() && (channel.read(content) >= 0)) {
+						// Keep reading until the buffer is full
+					}
+					content.flip();
+				}
+			} catch (final NoSuchFileException e) {
+				forgetMissing(hash, version);
+				continue;
+			}
+
+			if (!map) {
+				return content;
+			}
+
+			synchronized (entries) {
+				// Only hold on to the mapping if the entry cannot have been replaced since it was looked up
+				if ((modifications == version) && (maximumMappings > 0)) {
+					mappings.put(hash, content);
+					trimMappings();
+				}
+			}
+
+			return content.duplicate();
+		}
+	}
+
+	/**
+	 * @param key The key of an entry
+	 * @return Whether the entry is held
+	 */
+	public boolean contains(final String key) {
+		synchronized (entries) {
+			return entries.containsKey(hash(key));
+		}
+	}
+
+	/**
+	 * Remove an entry from the cache.
+	 *
+	 * @param key The key of the entry
+	 * @return Whether the entry was held
+	 * @throws IOException Any errors encountered deleting the entry
+	 */
+	public boolean remove(final String key) throws IOException {
+		final String hash = hash(key);
+		synchronized (entries) {
+			final Long size = entries.remove(hash);
+			if (size == null) {
+				return false;
+			}
+
+			totalBytes -= size.longValue();
+			mappings.remove(hash);
+			modifications++;
+			Files.deleteIfExists(entryPath(hash));
+
+			return true;
+		}
+	}
+
+	/**
+	 * @return The number of entries held
+	 */
+	public int getEntryCount() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * @return The total size of the entries held, in bytes
+	 */
+	public long getTotalBytes() {
+		synchronized (entries) {
+			return totalBytes;
+		}
+	}
+
+	/**
+	 * @return the maximumBytes
+	 */
+	public long getMaximumBytes() {
+		return maximumBytes;
+	}
+
+	/**
+	 * @return the maximumMappings
+	 */
+	public int getMaximumMappings() {
+		synchronized (entries) {
+			return maximumMappings;
+		}
+	}
+
+	/**
+	 * Set the number of recently read entries to hold memory-mapped. Mapped entries do not occupy heap space, but do
+	 * occupy address space until they are garbage collected. Defaults to 0 (no mapping).
+	 *
+	 * @param maximumMappings The maximum number of mapped entries to hold
+	 */
+	public void setMaximumMappings(final int maximumMappings) {
+		if (maximumMappings < 0) {
+			throw new IllegalArgumentException("Maximum number of mappings must not be negative");
+		}
+
+		synchronized (entries) {
+			this.maximumMappings = maximumMappings;
+			trimMappings();
+		}
+	}
+
+	/**
+	 * Look up an entry, recording its use.
+	 *
+	 * @param hash Hash of the entry's key
+	 * @return The count of modifications made to the cache at the time of the look up, or -1 if the entry is not held
+	 */
+	private long lookUp(final String hash) {
+		synchronized (entries) {
+			return (entries.get(hash) != null) ? modifications : -1;
+		}
+	}
+
+	/**
+	 * Handle an entry whose file was found to be missing when opened. If the cache has not been modified since the
+	 * entry was looked up, the file was removed from outside the cache, so the entry is dropped to be loaded again;
+	 * otherwise the entry was evicted or replaced in the meantime, and simply needs to be looked up again.
+	 *
+	 * @param hash Hash of the entry's key
+	 * @param version The count of modifications made to the cache when the entry was looked up
+	 */
+	private void forgetMissing(final String hash, final long version) {
+		synchronized (entries) {
+			if (modifications == version) {
+				final Long size = entries.remove(hash);
+				if (size != null) {
+					totalBytes -= size.longValue();
+				}
+				mappings.remove(hash);
+				modifications++;
+			}
+		}
+	}
+
+	/**
+	 * Load an entry, or wait for a load of the entry already in progress in another thread.
+	 *
+	 * @param hash Hash of the entry's key
+	 * @param loader Source of the entry's content
+	 * @throws IOException Any errors encountered loading the entry
+	 */
+	private void load(final String hash, final Loader loader) throws IOException {
+		final FutureTask<Void> task = new FutureTask<>(new Callable<Void>() {
+			@Override
+			public Void call() throws IOException {
+				store(hash, loader);
+				return null;
+			}
+		});
+
+		FutureTask<Void> existing = loading.putIfAbsent(hash, task);
+		if (existing == null) {
+			try {
+				task.run();
+			} finally {
+				loading.remove(hash, task);
+			}
+			existing = task;
+		}
+
+		try {
+			existing.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted waiting for cache entry to load", e);
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			} else if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+
+			throw new IOException("Error loading cache entry", e.getCause());
+		}
+	}
+
+	/**
+	 * Write the content of an entry to a temporary file, then move it into place and evict entries as necessary.
+	 *
+	 * @param hash Hash of the entry's key
+	 * @param loader Source of the entry's content
+	 * @throws IOException Any errors encountered writing the entry
+	 */
+	private void store(final String hash, final Loader loader) throws IOException {
+		final Path target = entryPath(hash);
+		Files.createDirectories(target.getParent());
+
+		final Path temporary = Files.createTempFile(directory, TEMPORARY_PREFIX, null);
+		try {
+			try (OutputStream out = Files.newOutputStream(temporary)) {
+				loader.load(out);
+			}
+
+			final long size = Files.size(temporary);
+			synchronized (entries) {
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+				final Long previous = entries.put(hash, Long.valueOf(size));
+				totalBytes += size - ((previous != null) ? previous.longValue() : 0);
+				mappings.remove(hash);
+				modifications++;
+
+				evict(hash);
+			}
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Remove least recently used entries until the total size is within the limit. Must be called holding the lock on
+	 * {@link #entries}.
+	 *
+	 * @param retain Hash of an entry which must not be evicted (the entry just added)
+	 * @throws IOException Any errors encountered deleting entries
+	 */
+	private void evict(final String retain) throws IOException {
+		final Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+		while ((totalBytes > maximumBytes) && iterator.hasNext()) {
+			final Map.Entry<String, Long> eldest = iterator.next();
+			if (eldest.getKey().equals(retain)) {
+				continue;
+			}
+
+			iterator.remove();
+			totalBytes -= eldest.getValue().longValue();
+			mappings.remove(eldest.getKey());
+			Files.deleteIfExists(entryPath(eldest.getKey()));
+		}
+	}
+
+	/**
+	 * Remove the least recently read mappings beyond the maximum. Must be called holding the lock on {@link #entries}.
+	 */
+	private void trimMappings() {
+		final Iterator<String> iterator = mappings.keySet().iterator();
+		while ((mappings.size() > maximumMappings) && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Record the use of an entry on disk, so that the order of use survives the cache being reopened. Failure to do so
+	 * only affects eviction order, so is ignored.
+	 *
+	 * @param hash Hash of the entry's key
+	 */
+	private void touch(final String hash) {
+		try {
+			Files.setLastModifiedTime(entryPath(hash), FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (final IOException e) {
+			// Eviction order after reopening may be less accurate
+		}
+	}
+
+	/**
+	 * Populate the cache from the entries already present in the directory, removing any left partially written.
+	 *
+	 * @throws IOException Any errors encountered reading the directory
+	 */
+	private void adoptExistingEntries() throws IOException {
+		final List<Object[]> existing = new ArrayList<>();
+		try (DirectoryStream<Path> shards = Files.newDirectoryStream(directory)) {
+			for (final Path shard : shards) {
+				if (shard.getFileName().toString().startsWith(TEMPORARY_PREFIX)) {
+					Files.deleteIfExists(shard);
+					continue;
+				} else if (!Files.isDirectory(shard)) {
+					continue;
+				}
+
+				try (DirectoryStream<Path> files = Files.newDirectoryStream(shard)) {
+					for (final Path file : files) {
+						final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+						existing.add(new Object[] {file.getFileName().toString(), Long.valueOf(attributes.size()),
+								Long.valueOf(attributes.lastModifiedTime().toMillis())});
+					}
+				}
+			}
+		}
+
+		Collections.sort(existing, new Comparator<Object[]>() {
+			@Override
+			public int compare(final Object[] first, final Object[] second) {
+				return ((Long) first[2]).compareTo((Long) second[2]);
+			}
+		});
+
+		synchronized (entries) {
+			for (final Object[] entry : existing) {
+				entries.put((String) entry[0], (Long) entry[1]);
+				totalBytes += ((Long) entry[1]).longValue();
+			}
+
+			evict(null);
+		}
+	}
+
+	/**
+	 * @param hash Hash of an entry's key
+	 * @return Path of the file holding the entry
+	 */
+	private Path entryPath(final String hash) {
+		return directory.resolve(hash.substring(0, 2)).resolve(hash);
+	}
+
+	/**
+	 * @param key The key of an entry
+	 * @return Hexadecimal SHA-256 hash of the key
+	 */
+	static String hash(final String key) {
+		try {
+			final byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+			final char[] hex = new char[digest.length * 2];
+			for (int i = 0; i < digest.length; i++) {
+				hex[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+				hex[(2 * i) + 1] = HEX_DIGITS[digest[i] & 0xF];
+			}
+
+			return new String(hex);
+		} catch (final NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
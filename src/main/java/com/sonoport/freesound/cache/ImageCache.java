@@ -0,0 +1,230 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.sonoport.freesound.FreesoundClient;
+import com.sonoport.freesound.FreesoundClientException;
+import com.sonoport.freesound.query.sound.SoundImageQuery;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * Retrieves the waveform and spectrogram images of {@link Sound}s, holding them in two tiers: a small in-memory cache
+ * of the most recently used images, bounded by the total size of the encoded images, backed by a larger
+ * {@link DiskCache}. Concurrent requests for an image which is not yet held result in a single download.
+ *
+ * Images for a whole page of search results can be retrieved in parallel using
+ * {@link #prefetch(Collection, String, ExecutorService)}, so that they are ready by the time the page is rendered.
+ */
+public class ImageCache {
+
+	/** Name of the large waveform image. */
+	public static final String WAVEFORM_LARGE = "waveform_l";
+
+	/** Name of the medium waveform image. */
+	public static final String WAVEFORM_MEDIUM = "waveform_m";
+
+	/** Name of the large spectrogram image. */
+	public static final String SPECTRAL_LARGE = "spectral_l";
+
+	/** Name of the medium spectrogram image. */
+	public static final String SPECTRAL_MEDIUM = "spectral_m";
+
+	/** The default maximum total size of the images held in memory, if none is specified. */
+	public static final long DEFAULT_MAXIMUM_MEMORY_BYTES = 8 * 1024 * 1024;
+
+	/** Client used to download images. */
+	private final FreesoundClient freesoundClient;
+
+	/** Cache holding downloaded images on disk. */
+	private final DiskCache diskCache;
+
+	/** The maximum total size of the images held in memory, in bytes. */
+	private final long maximumMemoryBytes;
+
+	/** Encoded images held in memory, keyed on their URI, in order of use (least recent first). */
+	private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(64, 0.75f, true);
+
+	/** The total size of the images held in memory. Guarded by {@link #memory}. */
+	private long memoryBytes;
+
+	/**
+	 * @param freesoundClient Client used to download images
+	 * @param diskCache Cache to hold downloaded images on disk
+	 */
+	public ImageCache(final FreesoundClient freesoundClient, final DiskCache diskCache) {
+		this(freesoundClient, diskCache, DEFAULT_MAXIMUM_MEMORY_BYTES);
+	}
+
+	/**
+	 * @param freesoundClient Client used to download images
+	 * @param diskCache Cache to hold downloaded images on disk
+	 * @param maximumMemoryBytes The maximum total size of the images to hold in memory, in bytes
+	 */
+	public ImageCache(final FreesoundClient freesoundClient, final DiskCache diskCache, final long maximumMemoryBytes) {
+		if (maximumMemoryBytes < 0) {
+			throw new IllegalArgumentException("Maximum memory size must not be negative");
+		}
+
+		this.freesoundClient = freesoundClient;
+		this.diskCache = diskCache;
+		this.maximumMemoryBytes = maximumMemoryBytes;
+	}
+
+	/**
+	 * Retrieve an image of a sound, from memory if held, otherwise from disk, downloading it first if necessary.
+	 *
+	 * @param sound The sound
+	 * @param imageName The name of the image (e.g. {@link #WAVEFORM_MEDIUM})
+	 * @return Read-only view of the encoded image
+	 * @throws FreesoundClientException Any errors encountered downloading or reading the image
+	 */
+	public ByteBuffer readImage(final Sound sound, final String imageName) throws FreesoundClientException {
+		final String imageURI = imageURI(sound, imageName);
+
+		byte[] image;
+		synchronized (memory) {
+			image = memory.get(imageURI);
+		}
+
+		if (image == null) {
+			final ByteBuffer content;
+			try {
+				content = diskCache.read(imageURI, new QueryLoader(freesoundClient, new SoundImageQuery(imageURI)));
+			} catch (final IOException e) {
+				throw QueryLoader.unwrap(e, "Error reading cached image");
+			}
+
+			image = new byte[content.remaining()];
+			content.get(image);
+			retain(imageURI, image);
+		}
+
+		return ByteBuffer.wrap(image).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Retrieve an image for each of a collection of sounds (typically a page of search results) in parallel. Sounds
+	 * without the requested image are skipped.
+	 *
+	 * @param sounds The sounds
+	 * @param imageName The name of the image (e.g. {@link #WAVEFORM_MEDIUM})
+	 * @param executor Executor used to retrieve the images
+	 * @return The pending result of retrieving the image of each sound, keyed on sound identifier, in the order given
+	 */
+	public Map<Integer, Future<ByteBuffer>> prefetch(
+			final Collection<Sound> sounds, final String imageName, final ExecutorService executor) {
+		final Map<Integer, Future<ByteBuffer>> images = new LinkedHashMap<>();
+		for (final Sound sound : sounds) {
+			if ((sound.getImages() == null) || (sound.getImages().get(imageName) == null)) {
+				continue;
+			}
+
+			images.put(sound.getId(), executor.submit(new Callable<ByteBuffer>() {
+				@Override
+				public ByteBuffer call() throws FreesoundClientException {
+					return readImage(sound, imageName);
+				}
+			}));
+		}
+
+		return images;
+	}
+
+	/**
+	 * @param sound The sound
+	 * @param imageName The name of the image
+	 * @return Whether the image is held in memory
+	 */
+	public boolean isInMemory(final Sound sound, final String imageName) {
+		synchronized (memory) {
+			return memory.containsKey(imageURI(sound, imageName));
+		}
+	}
+
+	/**
+	 * @return The total size of the images held in memory, in bytes
+	 */
+	public long getMemoryBytes() {
+		synchronized (memory) {
+			return memoryBytes;
+		}
+	}
+
+	/**
+	 * @return the maximumMemoryBytes
+	 */
+	public long getMaximumMemoryBytes() {
+		return maximumMemoryBytes;
+	}
+
+	/**
+	 * @return the diskCache
+	 */
+	public DiskCache getDiskCache() {
+		return diskCache;
+	}
+
+	/**
+	 * Hold an image in memory, discarding the least recently used images to stay within the limit. Images larger than
+	 * the limit are not held.
+	 *
+	 * @param imageURI The URI of the image
+	 * @param image The encoded image
+	 */
+	private void retain(final String imageURI, final byte[] image) {
+		if (image.length > maximumMemoryBytes) {
+			return;
+		}
+
+		synchronized (memory) {
+			final byte[] previous = memory.put(imageURI, image);
+			memoryBytes += image.length - ((previous != null) ? previous.length : 0);
+
+			final Iterator<byte[]> iterator = memory.values().iterator();
+			while (memoryBytes > maximumMemoryBytes) {
+				memoryBytes -= iterator.next().length;
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Look up the URI of an image of a sound.
+	 *
+	 * @param sound The sound
+	 * @param imageName The name of the image
+	 * @return The URI of the image
+	 */
+	private static String imageURI(final Sound sound, final String imageName) {
+		final String imageURI = (sound.getImages() != null) ? sound.getImages().get(imageName) : null;
+		if (imageURI == null) {
+			throw new IllegalArgumentException(
+					String.format("Sound %s has no image named '%s'", sound.getId(), imageName));
+		}
+
+		return imageURI;
+	}
+}
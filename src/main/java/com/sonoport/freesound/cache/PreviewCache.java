@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import com.sonoport.freesound.FreesoundClient;
+import com.sonoport.freesound.FreesoundClientException;
+import com.sonoport.freesound.query.sound.SoundPreviewQuery;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * Retrieves the previews of {@link Sound}s, holding them in a {@link DiskCache} so that repeated requests for the same
+ * preview are served locally. Concurrent requests for a preview which is not yet held result in a single download.
+ */
+public class PreviewCache {
+
+	/** Name of the ~128kbps mp3 preview. */
+	public static final String PREVIEW_HQ_MP3 = "preview-hq-mp3";
+
+	/** Name of the ~64kbps mp3 preview. */
+	public static final String PREVIEW_LQ_MP3 = "preview-lq-mp3";
+
+	/** Name of the ~192kbps ogg preview. */
+	public static final String PREVIEW_HQ_OGG = "preview-hq-ogg";
+
+	/** Name of the ~80kbps ogg preview. */
+	public static final String PREVIEW_LQ_OGG = "preview-lq-ogg";
+
+	/** Client used to download previews. */
+	private final FreesoundClient freesoundClient;
+
+	/** Cache holding downloaded previews. */
+	private final DiskCache diskCache;
+
+	/**
+	 * @param freesoundClient Client used to download previews
+	 * @param diskCache Cache to hold downloaded previews
+	 */
+	public PreviewCache(final FreesoundClient freesoundClient, final DiskCache diskCache) {
+		this.freesoundClient = freesoundClient;
+		this.diskCache = diskCache;
+	}
+
+	/**
+	 * Open a preview of a sound for reading, downloading it first if it is not held.
+	 *
+	 * @param sound The sound
+	 * @param previewName The name of the preview (e.g. {@link #PREVIEW_HQ_MP3})
+	 * @return Stream of the preview content, which the caller must close
+	 * @throws FreesoundClientException Any errors encountered downloading or reading the preview
+	 */
+	public InputStream openPreview(final Sound sound, final String previewName) throws FreesoundClientException {
+		final String previewURI = previewURI(sound, previewName);
+		try {
+			return diskCache.open(previewURI, new QueryLoader(freesoundClient, new SoundPreviewQuery(previewURI)));
+		} catch (final IOException e) {
+			throw QueryLoader.unwrap(e, "Error reading cached preview");
+		}
+	}
+
+	/**
+	 * Read a preview of a sound, downloading it first if it is not held. If the underlying {@link DiskCache} has memory
+	 * mapping enabled, popular previews are returned as views of a mapping of the cached file.
+	 *
+	 * @param sound The sound
+	 * @param previewName The name of the preview (e.g. {@link #PREVIEW_HQ_MP3})
+	 * @return The preview content
+	 * @throws FreesoundClientException Any errors encountered downloading or reading the preview
+	 */
+	public ByteBuffer readPreview(final Sound sound, final String previewName) throws FreesoundClientException {
+		final String previewURI = previewURI(sound, previewName);
+		try {
+			return diskCache.read(previewURI, new QueryLoader(freesoundClient, new SoundPreviewQuery(previewURI)));
+		} catch (final IOException e) {
+			throw QueryLoader.unwrap(e, "Error reading cached preview");
+		}
+	}
+
+	/**
+	 * @param sound The sound
+	 * @param previewName The name of the preview
+	 * @return Whether the preview is held in the cache
+	 */
+	public boolean isCached(final Sound sound, final String previewName) {
+		return diskCache.contains(previewURI(sound, previewName));
+	}
+
+	/**
+	 * @return the diskCache
+	 */
+	public DiskCache getDiskCache() {
+		return diskCache;
+	}
+
+	/**
+	 * Look up the URI of a preview of a sound.
+	 *
+	 * @param sound The sound
+	 * @param previewName The name of the preview
+	 * @return The URI of the preview
+	 */
+	private static String previewURI(final Sound sound, final String previewName) {
+		final String previewURI = (sound.getPreviews() != null) ? sound.getPreviews().get(previewName) : null;
+		if (previewURI == null) {
+			throw new IllegalArgumentException(
+					String.format("Sound %s has no preview named '%s'", sound.getId(), previewName));
+		}
+
+		return previewURI;
+	}
+}
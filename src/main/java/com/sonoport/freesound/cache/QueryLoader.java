@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.sonoport.freesound.FreesoundClient;
+import com.sonoport.freesound.FreesoundClientException;
+import com.sonoport.freesound.query.BinaryResponseQuery;
+import com.sonoport.freesound.response.Response;
+
+/**
+ * {@link DiskCache.Loader} that populates an entry with the content returned by a {@link BinaryResponseQuery}. Errors
+ * from the client are carried as the cause of the {@link IOException} thrown, and recovered by {@link #unwrap}.
+ */
+final class QueryLoader implements DiskCache.Loader {
+
+	/** Size of the buffer used when copying downloaded content into the cache. */
+	private static final int COPY_BUFFER_SIZE = 8192;
+
+	/** Client used to execute the query. */
+	private final FreesoundClient freesoundClient;
+
+	/** The query returning the content of the entry. */
+	private final BinaryResponseQuery query;
+
+	/**
+	 * @param freesoundClient Client used to execute the query
+	 * @param query The query returning the content of the entry
+	 */
+	QueryLoader(final FreesoundClient freesoundClient, final BinaryResponseQuery query) {
+		this.freesoundClient = freesoundClient;
+		this.query = query;
+	}
+
+	@Override
+	public void load(final OutputStream out) throws IOException {
+		final Response<InputStream> response;
+		try {
+			response = freesoundClient.executeQuery(query);
+		} catch (final FreesoundClientException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+
+		if (response.isErrorResponse()) {
+			throw new IOException(new FreesoundClientException(
+					String.format("Unable to retrieve %s: %s", query.getPath(), response.getErrorDetails())));
+		}
+
+		try (InputStream in = response.getResults()) {
+			final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+		}
+	}
+
+	/**
+	 * Convert an error raised by a cache into the exception reported to callers, preserving the original exception if
+	 * the error arose from the client.
+	 *
+	 * @param e The error raised by the cache
+	 * @param message Message to report if the error did not arise from the client
+	 * @return The exception to report
+	 */
+	static FreesoundClientException unwrap(final IOException e, final String message) {
+		if (e.getCause() instanceof FreesoundClientException) {
+			return (FreesoundClientException) e.getCause();
+		}
+
+		return new FreesoundClientException(message, e);
+	}
+}
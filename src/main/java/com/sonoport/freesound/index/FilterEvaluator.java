@@ -0,0 +1,196 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.index;
+
+import com.sonoport.freesound.License;
+import com.sonoport.freesound.query.search.CompoundFilter;
+import com.sonoport.freesound.query.search.FilterExpression;
+import com.sonoport.freesound.query.search.GeoBoundingBoxFilter;
+import com.sonoport.freesound.query.search.GeoDistanceFilter;
+import com.sonoport.freesound.query.search.NegatedFilter;
+import com.sonoport.freesound.query.search.RangeFilter;
+import com.sonoport.freesound.query.search.SearchFilter;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * Evaluates {@link FilterExpression}s against {@link Sound}s held locally, following the semantics the freesound.org
+ * search applies to the same expressions. Text values are compared case-insensitively.
+ */
+final class FilterEvaluator {
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private FilterEvaluator() {
+	}
+
+	/**
+	 * @param expression The expression to evaluate
+	 * @param sound The sound to evaluate it against
+	 * @return Whether the sound satisfies the expression
+	 */
+	static boolean matches(final FilterExpression expression, final Sound sound) {
+		if (expression instanceof SearchFilter) {
+			final SearchFilter filter = (SearchFilter) expression;
+			return matchesTerm(filter.getField(), unquote(filter.getValue()), sound);
+		} else if (expression instanceof RangeFilter) {
+			final RangeFilter filter = (RangeFilter) expression;
+			final double value = numericValue(filter.getField(), sound);
+
+			return !Double.isNaN(value)
+					&& ((filter.getFrom() == null) || (value >= filter.getFrom().doubleValue()))
+					&& ((filter.getTo() == null) || (value <= filter.getTo().doubleValue()));
+		} else if (expression instanceof CompoundFilter) {
+			final CompoundFilter filter = (CompoundFilter) expression;
+			final boolean and = filter.getOperator() == CompoundFilter.Operator.AND;
+			for (final FilterExpression operand : filter.getOperands()) {
+				if (matches(operand, sound) != and) {
+					return !and;
+				}
+			}
+
+			return and;
+		} else if (expression instanceof NegatedFilter) {
+			return !matches(((NegatedFilter) expression).getExpression(), sound);
+		} else if (expression instanceof GeoDistanceFilter) {
+			final GeoDistanceFilter filter = (GeoDistanceFilter) expression;
+
+			return sound.hasLocation() && (GeoIndex.distanceKm(filter.getLatitude(), filter.getLongitude(),
+					sound.getLatitude(), sound.getLongitude()) <= filter.getDistanceKm());
+		} else if (expression instanceof GeoBoundingBoxFilter) {
+			final GeoBoundingBoxFilter filter = (GeoBoundingBoxFilter) expression;
+			if (!sound.hasLocation()) {
+				return false;
+			}
+
+			final double longitude = sound.getLongitude();
+			final boolean withinLongitude = (filter.getMinimumLongitude() <= filter.getMaximumLongitude())
+					? ((longitude >= filter.getMinimumLongitude()) && (longitude <= filter.getMaximumLongitude()))
+					: ((longitude >= filter.getMinimumLongitude()) || (longitude <= filter.getMaximumLongitude()));
+
+			return withinLongitude
+					&& (sound.getLatitude() >= filter.getMinimumLatitude())
+					&& (sound.getLatitude() <= filter.getMaximumLatitude());
+		}
+
+		throw new IllegalArgumentException(
+				String.format("Filter '%s' cannot be evaluated locally", expression.getFilterString()));
+	}
+
+	/**
+	 * @param field The field being filtered on
+	 * @param value The value the field must hold
+	 * @param sound The sound to evaluate
+	 * @return Whether the field of the sound holds the value
+	 */
+	private static boolean matchesTerm(final String field, final String value, final Sound sound) {
+		switch (field) {
+			case "tag":
+				if (sound.getTags() != null) {
+					for (final String tag : sound.getTags()) {
+						if (value.equalsIgnoreCase(tag)) {
+							return true;
+						}
+					}
+				}
+				return false;
+			case "username":
+				return value.equalsIgnoreCase(sound.getUsername());
+			case "type":
+				return value.equalsIgnoreCase(sound.getType());
+			case "pack":
+				return value.equalsIgnoreCase(sound.getPack());
+			case "name":
+				return value.equalsIgnoreCase(sound.getName());
+			case "is_geotagged":
+				return Boolean.parseBoolean(value) == sound.hasLocation();
+			case "license":
+				return (sound.getLicense() != null)
+						&& ((sound.getLicense() == License.fromDescription(value))
+								|| value.equalsIgnoreCase(sound.getLicense().getDescription()));
+			default:
+				final double actual = numericValue(field, sound);
+				try {
+					return !Double.isNaN(actual) && (actual == Double.parseDouble(value));
+				} catch (final NumberFormatException e) {
+					return false;
+				}
+		}
+	}
+
+	/**
+	 * @param field A numeric field
+	 * @param sound The sound to read
+	 * @return The value of the field (or <code>NaN</code> if the sound holds no value)
+	 */
+	private static double numericValue(final String field, final Sound sound) {
+		final Number value;
+		switch (field) {
+			case "id":
+				value = sound.getId();
+				break;
+			case "duration":
+				value = sound.getDuration();
+				break;
+			case "samplerate":
+				value = sound.getSamplerate();
+				break;
+			case "avg_rating":
+				value = sound.getAverageRating();
+				break;
+			case "bitdepth":
+				value = sound.getBitdepth();
+				break;
+			case "bitrate":
+				value = sound.getBitrate();
+				break;
+			case "channels":
+				value = sound.getChannels();
+				break;
+			case "filesize":
+				value = sound.getFilesize();
+				break;
+			case "num_downloads":
+				value = sound.getNumberOfDownloads();
+				break;
+			case "num_ratings":
+				value = sound.getNumberOfRatings();
+				break;
+			case "comments":
+			case "num_comments":
+				value = sound.getNumberOfComments();
+				break;
+			default:
+				throw new IllegalArgumentException(
+						String.format("Filter field '%s' cannot be evaluated locally", field));
+		}
+
+		return (value != null) ? value.doubleValue() : Double.NaN;
+	}
+
+	/**
+	 * @param value A filter value, possibly quoted
+	 * @return The value with any surrounding quotes and escaping removed
+	 */
+	private static String unquote(final String value) {
+		final String trimmed = value.trim();
+		if ((trimmed.length() < 2) || (trimmed.charAt(0) != '"') || (trimmed.charAt(trimmed.length() - 1) != '"')) {
+			return trimmed;
+		}
+
+		return trimmed.substring(1, trimmed.length() - 1).replace("\\\"", "\"").replace("\\\\", "\\");
+	}
+}
@@ -0,0 +1,602 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.sonoport.freesound.FreesoundClient;
+import com.sonoport.freesound.FreesoundClientException;
+import com.sonoport.freesound.query.PageSnapshot;
+import com.sonoport.freesound.query.SoundPagingQuery;
+import com.sonoport.freesound.query.search.FilterExpression;
+import com.sonoport.freesound.query.search.TextSearch;
+import com.sonoport.freesound.response.PagingResponse;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * In-process spatial index of geotagged sounds, answering bounding box, radius and nearest neighbour queries locally.
+ *
+ * Locations are bucketed into a grid of cells of a fixed size (in degrees); queries only examine the cells that could
+ * contain matching sounds. Distances are great-circle distances in kilometres. The index is safe for use by multiple
+ * threads, with queries running concurrently.
+ */
+public class GeoIndex {
+
+	/** The default size of grid cells, in degrees. */
+	public static final double DEFAULT_CELL_SIZE = 1.0;
+
+	/** Mean radius of the Earth, in kilometres. */
+	private static final double EARTH_RADIUS_KM = 6371.0088;
+
+	/** The length of one degree of latitude, in kilometres. */
+	private static final double KM_PER_DEGREE = (Math.PI * EARTH_RADIUS_KM) / 180;
+
+	/** The size of grid cells, in degrees. */
+	private final double cellSize;
+
+	/** The number of rows of cells covering the range of latitudes. */
+	private final int latitudeCells;
+
+	/** The number of columns of cells covering the range of longitudes. */
+	private final int longitudeCells;
+
+	/** Lock guarding the contents of the index. */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** The populated cells of the grid, keyed on cell number. */
+	private final Map<Integer, Cell> cells = new HashMap<>();
+
+	/** The cell holding each sound, keyed on sound identifier. */
+	private final Map<Integer, Integer> cellBySoundId = new HashMap<>();
+
+	/**
+	 * No-arg constructor.
+	 */
+	public GeoIndex() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * @param cellSize The size of grid cells, in degrees. Smaller cells make queries over small areas faster, at the
+	 *            cost of queries over large areas.
+	 */
+	public GeoIndex(final double cellSize) {
+		if (!(cellSize > 0) || (cellSize > 90)) {
+			throw new IllegalArgumentException("Cell size must be greater than 0 and no more than 90 degrees");
+		}
+
+		this.cellSize = cellSize;
+		this.latitudeCells = (int) Math.ceil(180 / cellSize);
+		this.longitudeCells = (int) Math.ceil(360 / cellSize);
+	}
+
+	/**
+	 * Add the location of a sound to the index, replacing any location already held for it.
+	 *
+	 * @param soundId Identifier of the sound
+	 * @param latitude Latitude of the sound
+	 * @param longitude Longitude of the sound
+	 */
+	public void add(final int soundId, final double latitude, final double longitude) {
+		if (!((latitude >= -90) && (latitude <= 90))) {
+			throw new IllegalArgumentException(String.format("Latitude %s is outside range -90 to 90", latitude));
+		} else if (!((longitude >= -180) && (longitude <= 180))) {
+			throw new IllegalArgumentException(String.format("Longitude %s is outside range -180 to 180", longitude));
+		}
+
+		final Integer cellNumber = Integer.valueOf(cellNumber(latitudeCell(latitude), longitudeCell(longitude)));
+
+		lock.writeLock().lock();
+		try {
+			remove(soundId);
+
+			Cell cell = cells.get(cellNumber);
+			if (cell == null) {
+				cell = new Cell();
+				cells.put(cellNumber, cell);
+			}
+
+			cell.add(soundId, latitude, longitude);
+			cellBySoundId.put(Integer.valueOf(soundId), cellNumber);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Add the location of a sound to the index.
+	 *
+	 * @param sound The sound to add
+	 * @return Whether the sound was added (i.e. it has an identifier and a location)
+	 */
+	public boolean add(final Sound sound) {
+		if ((sound.getId() == null) || !sound.hasLocation()) {
+			return false;
+		}
+
+		add(sound.getId().intValue(), sound.getLatitude(), sound.getLongitude());
+		return true;
+	}
+
+	/**
+	 * Add the locations of a collection of sounds to the index. Sounds without a location are ignored.
+	 *
+	 * @param sounds The sounds to add
+	 * @return The number of sounds added
+	 */
+	public int addAll(final Collection<Sound> sounds) {
+		int added = 0;
+		for (final Sound sound : sounds) {
+			if (add(sound)) {
+				added++;
+			}
+		}
+
+		return added;
+	}
+
+	/**
+	 * Remove a sound from the index.
+	 *
+	 * @param soundId Identifier of the sound
+	 * @return Whether the sound was held
+	 */
+	public boolean remove(final int soundId) {
+		lock.writeLock().lock();
+		try {
+			final Integer cellNumber = cellBySoundId.remove(Integer.valueOf(soundId));
+			if (cellNumber == null) {
+				return false;
+			}
+
+			final Cell cell = cells.get(cellNumber);
+			cell.remove(soundId);
+			if (cell.size == 0) {
+				cells.remove(cellNumber);
+			}
+
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Execute a {@link SoundPagingQuery} (typically a {@link TextSearch} with a geographic filter - see
+	 * {@link FilterExpression#geoBoundingBox(double, double, double, double)}), adding every geotagged sound in every
+	 * page of results to the index. If the query restricts the fields returned, it must include 'id' and 'geotag'.
+	 * Pages are retrieved using snapshots of the query, so the query itself is not modified.
+	 *
+	 * @param freesoundClient The client to execute the query with
+	 * @param query The query to run
+	 * @return The number of sounds added
+	 *
+	 * @throws FreesoundClientException Any errors encountered executing the query, or an error response being received
+	 */
+	public int seed(final FreesoundClient freesoundClient, final SoundPagingQuery<?> query)
+			throws FreesoundClientException {
+		int added = 0;
+
+		PageSnapshot<Sound> page = query.snapshot();
+		PagingResponse<Sound> response = (PagingResponse<Sound>) freesoundClient.executeQuery(page);
+		while (true) {
+			if (response.isErrorResponse()) {
+				throw new FreesoundClientException(
+						String.format("Error retrieving sounds to index: %s", response.getErrorDetails()));
+			}
+
+			if (response.getResults() != null) {
+				added += addAll(response.getResults());
+			}
+
+			if (!response.hasNextPage()) {
+				break;
+			}
+
+			page = page.nextPage();
+			response = (PagingResponse<Sound>) freesoundClient.executeQuery(page);
+		}
+
+		return added;
+	}
+
+	/**
+	 * Find the sounds within a bounding box. If the minimum longitude is greater than the maximum, the box is taken to
+	 * cross the 180th meridian.
+	 *
+	 * @param minimumLatitude The southern edge of the box
+	 * @param minimumLongitude The western edge of the box
+	 * @param maximumLatitude The northern edge of the box
+	 * @param maximumLongitude The eastern edge of the box
+	 * @return Identifiers of the sounds within the box, in ascending order
+	 */
+	public int[] withinBoundingBox(
+			final double minimumLatitude,
+			final double minimumLongitude,
+			final double maximumLatitude,
+			final double maximumLongitude) {
+		if (minimumLatitude > maximumLatitude) {
+			throw new IllegalArgumentException("Minimum latitude is greater than maximum latitude");
+		}
+
+		final boolean crossesMeridian = minimumLongitude > maximumLongitude;
+		int[] matches = new int[16];
+		int matchCount = 0;
+
+		lock.readLock().lock();
+		try {
+			final int firstRow = latitudeCell(minimumLatitude);
+			final int lastRow = latitudeCell(maximumLatitude);
+			final int firstColumn = longitudeCell(minimumLongitude);
+			final int lastColumn = longitudeCell(maximumLongitude);
+			final int columnCount = crossesMeridian
+					? ((longitudeCells - firstColumn) + lastColumn + 1)
+					: ((lastColumn - firstColumn) + 1);
+
+			for (int row = firstRow; row <= lastRow; row++) {
+				for (int i = 0; i < Math.min(columnCount, longitudeCells); i++) {
+					final Cell cell = cells.get(Integer.valueOf(cellNumber(row, (firstColumn + i) % longitudeCells)));
+					if (cell == null) {
+						continue;
+					}
+
+					for (int j = 0; j < cell.size; j++) {
+						final double latitude = cell.latitudes[j];
+						final double longitude = cell.longitudes[j];
+						final boolean withinLongitude = crossesMeridian
+								? ((longitude >= minimumLongitude) || (longitude <= maximumLongitude))
+								: ((longitude >= minimumLongitude) && (longitude <= maximumLongitude));
+
+						if ((latitude >= minimumLatitude) && (latitude <= maximumLatitude) && withinLongitude) {
+							if (matchCount == matches.length) {
+								matches = Arrays.copyOf(matches, matches.length * 2);
+							}
+							matches[matchCount++] = cell.ids[j];
+						}
+					}
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		final int[] result = Arrays.copyOf(matches, matchCount);
+		Arrays.sort(result);
+
+		return result;
+	}
+
+	/**
+	 * Find the sounds within a given distance of a point.
+	 *
+	 * @param latitude Latitude of the point
+	 * @param longitude Longitude of the point
+	 * @param radiusKm The maximum distance from the point, in kilometres
+	 * @return The sounds within the radius, closest first, with their distance in kilometres
+	 */
+	public List<Neighbour> withinRadius(final double latitude, final double longitude, final double radiusKm) {
+		if (!(radiusKm >= 0)) {
+			throw new IllegalArgumentException("Radius must not be negative");
+		}
+
+		final double latitudeSpan = radiusKm / KM_PER_DEGREE;
+		final double minimumLatitude = Math.max(-90, latitude - latitudeSpan);
+		final double maximumLatitude = Math.min(90, latitude + latitudeSpan);
+
+		// Longitude span grows towards the poles; cover every longitude if the radius reaches a pole
+		double minimumLongitude = -180;
+		double maximumLongitude = 180;
+		final double maximumCosine = Math.cos(Math.toRadians(Math.max(Math.abs(minimumLatitude),
+				Math.abs(maximumLatitude))));
+		if ((maximumLatitude < 90) && (minimumLatitude > -90) && (maximumCosine > 0)) {
+			final double longitudeSpan = latitudeSpan / maximumCosine;
+			if (longitudeSpan < 180) {
+				minimumLongitude = wrapLongitude(longitude - longitudeSpan);
+				maximumLongitude = wrapLongitude(longitude + longitudeSpan);
+			}
+		}
+
+		final List<Neighbour> results = new ArrayList<>();
+		lock.readLock().lock();
+		try {
+			for (final int soundId
+					: withinBoundingBox(minimumLatitude, minimumLongitude, maximumLatitude, maximumLongitude)) {
+				final Cell cell = cells.get(cellBySoundId.get(Integer.valueOf(soundId)));
+				final int position = cell.indexOf(soundId);
+				final double distance =
+						distanceKm(latitude, longitude, cell.latitudes[position], cell.longitudes[position]);
+				if (distance <= radiusKm) {
+					results.add(new Neighbour(soundId, (float) distance));
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		Collections.sort(results);
+		return results;
+	}
+
+	/**
+	 * Find the sounds nearest to a point. Cells are examined in rings of increasing size around the point, stopping
+	 * once no unexamined cell could contain a nearer sound.
+	 *
+	 * @param latitude Latitude of the point
+	 * @param longitude Longitude of the point
+	 * @param k The maximum number of results to return
+	 * @return The nearest sounds, closest first, with their distance in kilometres
+	 */
+	public List<Neighbour> nearest(final double latitude, final double longitude, final int k) {
+		if (k < 1) {
+			throw new IllegalArgumentException("Must request at least one result");
+		}
+
+		// Max-heap of the best results found so far, so the worst can be replaced cheaply
+		final PriorityQueue<Neighbour> best = new PriorityQueue<>(k + 1, Collections.reverseOrder());
+		final Set<Integer> visited = new HashSet<>();
+
+		final int centreRow = latitudeCell(latitude);
+		final int centreColumn = longitudeCell(longitude);
+		final int maximumRing = Math.max(latitudeCells, longitudeCells);
+
+		lock.readLock().lock();
+		try {
+			int examined = 0;
+			for (int ring = 0; ring <= maximumRing; ring++) {
+				if (examined == cellBySoundId.size()) {
+					break;
+				} else if ((best.size() == k) && (ringLowerBoundKm(latitude, ring) > best.peek().getDistance())) {
+					break;
+				}
+
+				for (int row = centreRow - ring; row <= centreRow + ring; row++) {
+					if ((row < 0) || (row >= latitudeCells)) {
+						continue;
+					}
+
+					final boolean edgeRow = (row == centreRow - ring) || (row == centreRow + ring);
+					final int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+					for (int column = centreColumn - ring; column <= centreColumn + ring; column += step) {
+						final int wrappedColumn = ((column % longitudeCells) + longitudeCells) % longitudeCells;
+						final Integer cellNumber = Integer.valueOf(cellNumber(row, wrappedColumn));
+						if (!visited.add(cellNumber)) {
+							continue;
+						}
+
+						final Cell cell = cells.get(cellNumber);
+						if (cell != null) {
+							collectNearest(cell, latitude, longitude, k, best);
+							examined += cell.size;
+						}
+					}
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		final List<Neighbour> results = new ArrayList<>(best);
+		Collections.sort(results);
+
+		return results;
+	}
+
+	/**
+	 * Offer the sounds of a cell as candidates for the nearest neighbours of a point.
+	 *
+	 * @param cell The cell to examine
+	 * @param latitude Latitude of the point
+	 * @param longitude Longitude of the point
+	 * @param k The maximum number of results
+	 * @param best Max-heap of the best results found so far
+	 */
+	private static void collectNearest(
+			final Cell cell,
+			final double latitude,
+			final double longitude,
+			final int k,
+			final PriorityQueue<Neighbour> best) {
+		for (int i = 0; i < cell.size; i++) {
+			final float distance = (float) distanceKm(latitude, longitude, cell.latitudes[i], cell.longitudes[i]);
+			if (best.size() < k) {
+				best.add(new Neighbour(cell.ids[i], distance));
+			} else if (distance < best.peek().getDistance()) {
+				best.poll();
+				best.add(new Neighbour(cell.ids[i], distance));
+			}
+		}
+	}
+
+	/**
+	 * Calculate a lower bound on the distance from a point to any location in a ring of cells around it. Every cell in
+	 * the ring is at least <code>ring - 1</code> whole cells away from the point either north-south or east-west. An
+	 * east-west separation is shortest at the highest latitude the ring can reach from the point.
+	 *
+	 * @param latitude Latitude of the point
+	 * @param ring The ring number
+	 * @return The lower bound, in kilometres
+	 */
+	private double ringLowerBoundKm(final double latitude, final int ring) {
+		final double degrees = Math.min(180, Math.max(0, ring - 1) * cellSize);
+		final double furthestLatitude = Math.min(90, Math.abs(latitude) + degrees);
+
+		final double northSouthKm = degrees * KM_PER_DEGREE;
+		final double eastWestKm = 2 * EARTH_RADIUS_KM
+				* Math.asin(Math.cos(Math.toRadians(furthestLatitude)) * Math.sin(Math.toRadians(degrees / 2)));
+
+		return Math.min(northSouthKm, eastWestKm);
+	}
+
+	/**
+	 * Calculate the great-circle distance between two points, using the haversine formula.
+	 *
+	 * @param firstLatitude Latitude of the first point
+	 * @param firstLongitude Longitude of the first point
+	 * @param secondLatitude Latitude of the second point
+	 * @param secondLongitude Longitude of the second point
+	 * @return The distance, in kilometres
+	 */
+	static double distanceKm(
+			final double firstLatitude,
+			final double firstLongitude,
+			final double secondLatitude,
+			final double secondLongitude) {
+		final double latitudeDifference = Math.toRadians(secondLatitude - firstLatitude);
+		final double longitudeDifference = Math.toRadians(secondLongitude - firstLongitude);
+		final double sinLatitude = Math.sin(latitudeDifference / 2);
+		final double sinLongitude = Math.sin(longitudeDifference / 2);
+
+		final double a = (sinLatitude * sinLatitude)
+				+ (Math.cos(Math.toRadians(firstLatitude)) * Math.cos(Math.toRadians(secondLatitude))
+						* sinLongitude * sinLongitude);
+
+		return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+
+	/**
+	 * @return The number of sounds held
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return cellBySoundId.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the cellSize
+	 */
+	public double getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * @param latitude A latitude
+	 * @return The row of cells containing the latitude
+	 */
+	private int latitudeCell(final double latitude) {
+		return Math.min(latitudeCells - 1, Math.max(0, (int) ((latitude + 90) / cellSize)));
+	}
+
+	/**
+	 * @param longitude A longitude
+	 * @return The column of cells containing the longitude
+	 */
+	private int longitudeCell(final double longitude) {
+		return Math.min(longitudeCells - 1, Math.max(0, (int) ((longitude + 180) / cellSize)));
+	}
+
+	/**
+	 * @param row Row of the cell
+	 * @param column Column of the cell
+	 * @return The number identifying the cell
+	 */
+	private int cellNumber(final int row, final int column) {
+		return (row * longitudeCells) + column;
+	}
+
+	/**
+	 * @param longitude A longitude, possibly outside the range -180 to 180
+	 * @return The equivalent longitude within the range -180 to 180
+	 */
+	private static double wrapLongitude(final double longitude) {
+		if (longitude < -180) {
+			return longitude + 360;
+		} else if (longitude > 180) {
+			return longitude - 360;
+		}
+
+		return longitude;
+	}
+
+	/**
+	 * The sounds located within a single cell of the grid, held in flat primitive arrays. Access is controlled by the
+	 * owning index.
+	 */
+	private static final class Cell {
+
+		/** Identifiers of the sounds held. */
+		private int[] ids = new int[4];
+
+		/** Latitudes of the sounds held. */
+		private double[] latitudes = new double[4];
+
+		/** Longitudes of the sounds held. */
+		private double[] longitudes = new double[4];
+
+		/** The number of sounds held. */
+		private int size;
+
+		/**
+		 * @param soundId Identifier of the sound
+		 * @param latitude Latitude of the sound
+		 * @param longitude Longitude of the sound
+		 */
+		private void add(final int soundId, final double latitude, final double longitude) {
+			if (size == ids.length) {
+				final int newCapacity = ids.length * 2;
+				ids = Arrays.copyOf(ids, newCapacity);
+				latitudes = Arrays.copyOf(latitudes, newCapacity);
+				longitudes = Arrays.copyOf(longitudes, newCapacity);
+			}
+
+			ids[size] = soundId;
+			latitudes[size] = latitude;
+			longitudes[size] = longitude;
+			size++;
+		}
+
+		/**
+		 * @param soundId Identifier of the sound to remove, moving the last entry into its place
+		 */
+		private void remove(final int soundId) {
+			final int position = indexOf(soundId);
+			if (position >= 0) {
+				size--;
+				ids[position] = ids[size];
+				latitudes[position] = latitudes[size];
+				longitudes[position] = longitudes[size];
+			}
+		}
+
+		/**
+		 * @param soundId Identifier of the sound
+		 * @return Position of the sound within the cell, or -1 if not held
+		 */
+		private int indexOf(final int soundId) {
+			for (int i = 0; i < size; i++) {
+				if (ids[i] == soundId) {
+					return i;
+				}
+			}
+
+			return -1;
+		}
+	}
+}
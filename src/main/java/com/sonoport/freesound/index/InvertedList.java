@@ -0,0 +1,135 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.index;
+
+import java.util.Arrays;
+
+/**
+ * The vectors assigned to a single partition of a {@link VectorIndex}, held in flat primitive arrays. Not thread safe -
+ * access is controlled by the owning index.
+ */
+final class InvertedList {
+
+	/** The dimension of the vectors held. */
+	private final int dimension;
+
+	/** Identifiers of the sounds held. */
+	private int[] ids;
+
+	/** The vectors of the sounds held, stored contiguously in the same order as {@link #ids}. */
+	private float[] vectors;
+
+	/** The number of sounds held. */
+	private int size;
+
+	/**
+	 * @param dimension The dimension of the vectors held
+	 * @param initialCapacity The number of vectors to allocate space for
+	 */
+	InvertedList(final int dimension, final int initialCapacity) {
+		this.dimension = dimension;
+		this.ids = new int[Math.max(1, initialCapacity)];
+		this.vectors = new float[ids.length * dimension];
+	}
+
+	/**
+	 * @param dimension The dimension of the vectors held
+	 * @param ids Identifiers of the sounds held
+	 * @param vectors The vectors of the sounds held, stored contiguously
+	 */
+	InvertedList(final int dimension, final int[] ids, final float[] vectors) {
+		this.dimension = dimension;
+		this.ids = (ids.length > 0) ? ids : new int[1];
+		this.vectors = (ids.length > 0) ? vectors : new float[dimension];
+		this.size = ids.length;
+	}
+
+	/**
+	 * Add a vector to the list.
+	 *
+	 * @param soundId Identifier of the sound
+	 * @param vector The vector to add
+	 * @param offset The position of the vector within the array
+	 */
+	void add(final int soundId, final float[] vector, final int offset) {
+		if (size == ids.length) {
+			final int newCapacity = ids.length + (ids.length >> 1) + 1;
+			ids = Arrays.copyOf(ids, newCapacity);
+			vectors = Arrays.copyOf(vectors, newCapacity * dimension);
+		}
+
+		ids[size] = soundId;
+		System.arraycopy(vector, offset, vectors, size * dimension, dimension);
+		size++;
+	}
+
+	/**
+	 * Remove a sound from the list, moving the last entry into its place.
+	 *
+	 * @param soundId Identifier of the sound
+	 * @return Whether the sound was held
+	 */
+	boolean remove(final int soundId) {
+		for (int i = 0; i < size; i++) {
+			if (ids[i] == soundId) {
+				size--;
+				ids[i] = ids[size];
+				System.arraycopy(vectors, size * dimension, vectors, i * dimension, dimension);
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return The number of sounds held
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @param position Position within the list
+	 * @return Identifier of the sound at the position
+	 */
+	int idAt(final int position) {
+		return ids[position];
+	}
+
+	/**
+	 * @return The backing array of vectors; the vector at position <code>i</code> starts at <code>i * dimension</code>
+	 */
+	float[] vectors() {
+		return vectors;
+	}
+
+	/**
+	 * Find the position of a sound within the list.
+	 *
+	 * @param soundId Identifier of the sound
+	 * @return The position, or -1 if not held
+	 */
+	int indexOf(final int soundId) {
+		for (int i = 0; i < size; i++) {
+			if (ids[i] == soundId) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+}
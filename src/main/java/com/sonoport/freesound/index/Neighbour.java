@@ -0,0 +1,80 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.index;
+
+/**
+ * A single result of a nearest neighbour search of a {@link VectorIndex} or {@link GeoIndex}.
+ */
+public class Neighbour implements Comparable<Neighbour> {
+
+	/** Identifier of the sound. */
+	private final int soundId;
+
+	/** The distance between the sound and the query, as measured by the index that produced the result. */
+	private final float distance;
+
+	/**
+	 * @param soundId Identifier of the sound
+	 * @param distance The distance between the sound and the query
+	 */
+	public Neighbour(final int soundId, final float distance) {
+		this.soundId = soundId;
+		this.distance = distance;
+	}
+
+	/**
+	 * @return the soundId
+	 */
+	public int getSoundId() {
+		return soundId;
+	}
+
+	/**
+	 * @return the distance
+	 */
+	public float getDistance() {
+		return distance;
+	}
+
+	@Override
+	public int compareTo(final Neighbour other) {
+		final int comparison = Float.compare(distance, other.distance);
+		return (comparison != 0) ? comparison : Integer.compare(soundId, other.soundId);
+	}
+
+	@Override
+	public int hashCode() {
+		return (31 * soundId) + Float.floatToIntBits(distance);
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Neighbour)) {
+			return false;
+		}
+
+		final Neighbour other = (Neighbour) obj;
+		return (soundId == other.soundId) && (Float.floatToIntBits(distance) == Float.floatToIntBits(other.distance));
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d (%s)", soundId, distance);
+	}
+}
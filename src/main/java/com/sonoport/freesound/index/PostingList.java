@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.index;
+
+import java.util.Arrays;
+
+/**
+ * The postings of a single term in a {@link TextIndex}: the documents containing the term, and how often it occurs in
+ * each. Postings are held in document order, compressed as variable-length deltas between successive documents followed
+ * by the term frequency, so most postings occupy two bytes. Superseded documents keep their postings, but are no longer
+ * counted in the document frequency.
+ */
+final class PostingList {
+
+	/** The encoded postings. */
+	private byte[] data = new byte[8];
+
+	/** The number of bytes of {@link #data} in use. */
+	private int length;
+
+	/** The last document added. */
+	private int lastDocument = -1;
+
+	/** The number of live documents containing the term. */
+	private int documentFrequency;
+
+	/**
+	 * Append a posting. Documents must be added in ascending order.
+	 *
+	 * @param document The document containing the term
+	 * @param frequency The number of occurrences of the term in the document
+	 */
+	void add(final int document, final int frequency) {
+		if (document <= lastDocument) {
+			throw new IllegalArgumentException(
+					String.format("Document %d added out of order (after %d)", document, lastDocument));
+		} else if (frequency < 1) {
+			throw new IllegalArgumentException("Term frequency must be greater than 0");
+		}
+
+		// Each value occupies at most five bytes
+		if ((length + 10) > data.length) {
+			data = Arrays.copyOf(data, Math.max(data.length * 2, length + 10));
+		}
+
+		writeVarint(document - lastDocument);
+		writeVarint(frequency);
+
+		lastDocument = document;
+		documentFrequency++;
+	}
+
+	/**
+	 * Record that one of the documents containing the term has been superseded.
+	 *
+	 * @return The number of live documents still containing the term
+	 */
+	int supersede() {
+		if (documentFrequency == 0) {
+			throw new IllegalStateException("No live documents contain the term");
+		}
+
+		return --documentFrequency;
+	}
+
+	/**
+	 * @return A cursor positioned before the first posting
+	 */
+	Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * @return The number of live documents containing the term
+	 */
+	int getDocumentFrequency() {
+		return documentFrequency;
+	}
+
+	/**
+	 * @return The number of bytes used to hold the postings
+	 */
+	int getEncodedLength() {
+		return length;
+	}
+
+	/**
+	 * Write a non-negative value using seven bits per byte, with the high bit marking that more bytes follow.
+	 *
+	 * @param value The value to write
+	 */
+	private void writeVarint(final int value) {
+		int remaining = value;
+		while ((remaining & ~0x7F) != 0) {
+			data[length++] = (byte) ((remaining & 0x7F) | 0x80);
+			remaining >>>= 7;
+		}
+		data[length++] = (byte) remaining;
+	}
+
+	/**
+	 * Forward-only cursor over the postings of the list. A cursor sees the postings present when it was created.
+	 */
+	final class Cursor {
+
+		/** Position of the next posting in {@link PostingList#data}. */
+		private int position;
+
+		/** Number of bytes holding postings when the cursor was created. */
+		private final int end = length;
+
+		/** The current document. */
+		private int document = -1;
+
+		/** The frequency of the term in the current document. */
+		private int frequency;
+
+		/**
+		 * Advance to the next posting.
+		 *
+		 * @return Whether there was another posting
+		 */
+		boolean next() {
+			if (position >= end) {
+				return false;
+			}
+
+			document += readVarint();
+			frequency = readVarint();
+
+			return true;
+		}
+
+		/**
+		 * @return The current document
+		 */
+		int document() {
+			return document;
+		}
+
+		/**
+		 * @return The frequency of the term in the current document
+		 */
+		int frequency() {
+			return frequency;
+		}
+
+		/**
+		 * @return The next value in the postings
+		 */
+		private int readVarint() {
+			int value = 0;
+			int shift = 0;
+			byte current;
+			do {
+				current = data[position++];
+				value |= (current & 0x7F) << shift;
+				shift += 7;
+			} while ((current & 0x80) != 0);
+
+			return value;
+		}
+	}
+}
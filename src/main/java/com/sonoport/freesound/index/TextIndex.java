@@ -0,0 +1,584 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.sonoport.freesound.query.search.FilterExpression;
+import com.sonoport.freesound.query.search.SortOrder;
+import com.sonoport.freesound.query.search.TextSearch;
+import com.sonoport.freesound.response.PagingResponse;
+import com.sonoport.freesound.response.Sound;
+import com.sonoport.freesound.store.SoundMirror;
+
+/**
+ * Embedded inverted index over the name, description, tags and username of {@link Sound}s, allowing a
+ * {@link TextSearch} to be executed locally rather than against freesound.org.
+ *
+ * Text is split into lower-case runs of letters and digits. Each term's postings are held in a compressed
+ * {@link PostingList}, and matches are ranked using BM25. As with the freesound.org search, every term of the search
+ * string must be present, terms prefixed with '-' must be absent, and the filters of the search are applied to the
+ * matching sounds (see {@link FilterEvaluator} for the fields supported). Results are ordered by the {@link SortOrder}
+ * of the search, defaulting to {@link SortOrder#SCORE}.
+ *
+ * Replacing or removing a sound leaves its old postings in place until the index is next compacted, which happens
+ * automatically once the majority of indexed documents have been superseded. Superseded documents are excluded from
+ * the document frequencies used in ranking and completion straight away, so terms found only in superseded documents
+ * are neither matched nor suggested. The index is safe for use by multiple
+ * threads, with searches running concurrently.
+ */
+public class TextIndex {
+
+	/** BM25 term frequency saturation parameter. */
+	private static final float K1 = 1.2f;
+
+	/** BM25 document length normalisation parameter. */
+	private static final float B = 0.75f;
+
+	/** The minimum number of superseded documents before the index is compacted. */
+	private static final int MINIMUM_COMPACTION_SIZE = 1024;
+
+	/** Lock guarding the contents of the index. */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** Postings of each term, ordered by term to allow prefix lookups. */
+	private TreeMap<String, PostingList> postings = new TreeMap<>();
+
+	/** The sound held by each document. */
+	private Sound[] sounds = new Sound[16];
+
+	/** The number of terms in each document. */
+	private int[] documentLengths = new int[16];
+
+	/** The postings of the distinct terms of each live document. */
+	private PostingList[][] documentPostings = new PostingList[16][];
+
+	/** The documents which have not been superseded. */
+	private BitSet live = new BitSet();
+
+	/** The document holding each sound, keyed on sound identifier. */
+	private Map<Integer, Integer> documentsBySoundId = new HashMap<>();
+
+	/** The number of documents allocated, including superseded ones. */
+	private int documentCount;
+
+	/** The total number of terms in all live documents. */
+	private long totalLength;
+
+	/**
+	 * Add a sound to the index, replacing any version already held.
+	 *
+	 * @param sound The sound to add
+	 */
+	public void add(final Sound sound) {
+		if (sound.getId() == null) {
+			throw new IllegalArgumentException("Cannot index a sound without an identifier");
+		}
+
+		final Map<String, int[]> frequencies = new HashMap<>();
+		int length = tokenize(sound.getName(), frequencies);
+		length += tokenize(sound.getDescription(), frequencies);
+		length += tokenize(sound.getUsername(), frequencies);
+		if (sound.getTags() != null) {
+			for (final String tag : sound.getTags()) {
+				length += tokenize(tag, frequencies);
+			}
+		}
+
+		lock.writeLock().lock();
+		try {
+			remove(sound.getId().intValue());
+
+			final int document = documentCount++;
+			if (document == sounds.length) {
+				sounds = Arrays.copyOf(sounds, sounds.length * 2);
+				documentLengths = Arrays.copyOf(documentLengths, documentLengths.length * 2);
+				documentPostings = Arrays.copyOf(documentPostings, documentPostings.length * 2);
+			}
+
+			final PostingList[] termPostings = new PostingList[frequencies.size()];
+			int term = 0;
+			for (final Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+				PostingList postingList = postings.get(entry.getKey());
+				if (postingList == null) {
+					postingList = new PostingList();
+					postings.put(entry.getKey(), postingList);
+				}
+				postingList.add(document, entry.getValue()[0]);
+				termPostings[term++] = postingList;
+			}
+
+			sounds[document] = sound;
+			documentLengths[document] = length;
+			documentPostings[document] = termPostings;
+			live.set(document);
+			documentsBySoundId.put(sound.getId(), Integer.valueOf(document));
+			totalLength += length;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param sounds The sounds to add
+	 */
+	public void addAll(final Collection<Sound> sounds) {
+		for (final Sound sound : sounds) {
+			add(sound);
+		}
+	}
+
+	/**
+	 * Add every sound held by a {@link SoundMirror} to the index.
+	 *
+	 * @param mirror The mirror to read
+	 * @return The number of sounds added
+	 * @throws IOException Any errors encountered reading the mirror
+	 */
+	public int addAll(final SoundMirror mirror) throws IOException {
+		int added = 0;
+		for (final int soundId : mirror.getSoundIds()) {
+			final Sound sound = mirror.get(soundId);
+			if (sound != null) {
+				add(sound);
+				added++;
+			}
+		}
+
+		return added;
+	}
+
+	/**
+	 * Remove a sound from the index.
+	 *
+	 * @param soundId Identifier of the sound
+	 * @return Whether the sound was held
+	 */
+	public boolean remove(final int soundId) {
+		lock.writeLock().lock();
+		try {
+			final Integer document = documentsBySoundId.remove(Integer.valueOf(soundId));
+			if (document == null) {
+				return false;
+			}
+
+			live.clear(document.intValue());
+			sounds[document.intValue()] = null;
+			totalLength -= documentLengths[document.intValue()];
+
+			for (final PostingList postingList : documentPostings[document.intValue()]) {
+				postingList.supersede();
+			}
+			documentPostings[document.intValue()] = null;
+
+			final int superseded = documentCount - live.cardinality();
+			if ((superseded >= MINIMUM_COMPACTION_SIZE) && (superseded > live.cardinality())) {
+				compact();
+			}
+
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Execute a {@link TextSearch} against the index. The page and page size of the search are respected; the count of
+	 * the response is the total number of matching sounds, and the next and previous page URIs are populated where
+	 * further pages exist.
+	 *
+	 * @param query The search to execute
+	 * @return The matching sounds for the requested page
+	 */
+	public PagingResponse<Sound> search(final TextSearch query) {
+		final List<String> required = new ArrayList<>();
+		final List<String> excluded = new ArrayList<>();
+		if (query.getSearchString() != null) {
+			for (final String word : query.getSearchString().trim().split("\\s+")) {
+				(word.startsWith("-") ? excluded : required).addAll(tokens(word));
+			}
+		}
+
+		final SortOrder sortOrder = (query.getSortOrder() != null) ? query.getSortOrder() : SortOrder.SCORE;
+		final int page = Math.max(1, query.getPage());
+		final int pageSize = query.getPageSize();
+		final int limit = page * pageSize;
+
+		final List<Sound> results = new ArrayList<>();
+		int matchCount = 0;
+
+		lock.readLock().lock();
+		try {
+			final float[] scores = new float[documentCount];
+			final BitSet matches = match(required, excluded, scores);
+
+			final Comparator<Integer> order = ordering(sortOrder, scores);
+			final PriorityQueue<Integer> best =
+					new PriorityQueue<>(Math.min(limit, documentCount) + 1, Collections.reverseOrder(order));
+			for (int document = matches.nextSetBit(0); document >= 0; document = matches.nextSetBit(document + 1)) {
+				if (!passesFilters(query.getFilters(), sounds[document])) {
+					continue;
+				}
+
+				matchCount++;
+				best.add(Integer.valueOf(document));
+				if (best.size() > limit) {
+					best.poll();
+				}
+			}
+
+			final List<Integer> ordered = new ArrayList<>(best);
+			Collections.sort(ordered, order);
+			for (int i = (page - 1) * pageSize; i < ordered.size(); i++) {
+				results.add(sounds[ordered.get(i).intValue()]);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		final PagingResponse<Sound> response = new PagingResponse<>(200, "OK");
+		response.setResults(results);
+		response.setCount(matchCount);
+		if (matchCount > limit) {
+			response.setNextPageURI(pageURI(query, page + 1));
+		}
+		if (page > 1) {
+			response.setPreviousPageURI(pageURI(query, page - 1));
+		}
+
+		return response;
+	}
+
+	/**
+	 * Suggest completions of a partially typed term, most common (by the number of sounds containing it) first.
+	 *
+	 * @param prefix The partial term
+	 * @param limit The maximum number of completions to return
+	 * @return Indexed terms beginning with the prefix
+	 */
+	public List<String> complete(final String prefix, final int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Must request at least one completion");
+		}
+
+		final String normalised = (prefix != null) ? prefix.trim().toLowerCase(Locale.ROOT) : "";
+		final PriorityQueue<Map.Entry<String, PostingList>> best =
+				new PriorityQueue<>(limit + 1, new Comparator<Map.Entry<String, PostingList>>() {
+					@Override
+					public int compare(final Map.Entry<String, PostingList> first,
+							final Map.Entry<String, PostingList> second) {
+						// Least common (then alphabetically last) at the head, so it is discarded first
+						final int comparison = Integer.compare(first.getValue().getDocumentFrequency(),
+								second.getValue().getDocumentFrequency());
+						return (comparison != 0) ? comparison : second.getKey().compareTo(first.getKey());
+					}
+				});
+
+		lock.readLock().lock();
+		try {
+			for (final Map.Entry<String, PostingList> entry
+					: postings.subMap(normalised, normalised + Character.MAX_VALUE).entrySet()) {
+				if (entry.getValue().getDocumentFrequency() == 0) {
+					continue;
+				}
+
+				best.add(entry);
+				if (best.size() > limit) {
+					best.poll();
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		final String[] completions = new String[best.size()];
+		for (int i = completions.length - 1; i >= 0; i--) {
+			completions[i] = best.poll().getKey();
+		}
+
+		return Arrays.asList(completions);
+	}
+
+	/**
+	 * @return The number of sounds held
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return documentsBySoundId.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return The number of distinct terms held, including those found only in superseded documents until the index is
+	 * next compacted
+	 */
+	public int getTermCount() {
+		lock.readLock().lock();
+		try {
+			return postings.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Find the live documents containing every required term and no excluded term, scoring each using BM25.
+	 *
+	 * @param required Terms which must be present
+	 * @param excluded Terms which must be absent
+	 * @param scores Array to populate with the score of each document
+	 * @return The matching documents
+	 */
+	private BitSet match(final List<String> required, final List<String> excluded, final float[] scores) {
+		final BitSet matches = (BitSet) live.clone();
+		final int liveCount = live.cardinality();
+		final float averageLength = (liveCount > 0) ? ((float) totalLength / liveCount) : 0;
+
+		for (final String term : required) {
+			final PostingList postingList = postings.get(term);
+			if ((postingList == null) || (postingList.getDocumentFrequency() == 0)) {
+				matches.clear();
+				break;
+			}
+
+			final double documentFrequency = postingList.getDocumentFrequency();
+			final float idf = (float) Math.log(1 + ((liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5)));
+
+			final BitSet containing = new BitSet(documentCount);
+			final PostingList.Cursor cursor = postingList.cursor();
+			while (cursor.next()) {
+				final int document = cursor.document();
+				containing.set(document);
+
+				final float frequency = cursor.frequency();
+				final float norm = K1 * ((1 - B) + ((B * documentLengths[document]) / Math.max(averageLength, 1)));
+				scores[document] += idf * ((frequency * (K1 + 1)) / (frequency + norm));
+			}
+			matches.and(containing);
+		}
+
+		for (final String term : excluded) {
+			final PostingList postingList = postings.get(term);
+			if (postingList != null) {
+				final PostingList.Cursor cursor = postingList.cursor();
+				while (cursor.next()) {
+					matches.clear(cursor.document());
+				}
+			}
+		}
+
+		return matches;
+	}
+
+	/**
+	 * @param filters The filters of a search
+	 * @param sound A sound matching the search string
+	 * @return Whether the sound satisfies every filter
+	 */
+	private static boolean passesFilters(final Collection<FilterExpression> filters, final Sound sound) {
+		for (final FilterExpression filter : filters) {
+			if (!FilterEvaluator.matches(filter, sound)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Build the ordering of documents for a sort order. Sounds without a value for the sort field are placed last,
+	 * and ties are broken by sound identifier.
+	 *
+	 * @param sortOrder The sort order of the search
+	 * @param scores The score of each document
+	 * @return Comparator placing documents in result order
+	 */
+	private Comparator<Integer> ordering(final SortOrder sortOrder, final float[] scores) {
+		return new Comparator<Integer>() {
+			@Override
+			public int compare(final Integer first, final Integer second) {
+				final Sound firstSound = sounds[first.intValue()];
+				final Sound secondSound = sounds[second.intValue()];
+
+				int comparison;
+				switch (sortOrder) {
+					case DURATION_DESCENDING:
+						comparison = compareValues(secondSound.getDuration(), firstSound.getDuration(), true);
+						break;
+
+					case DURATION_ASCENDING:
+						comparison = compareValues(firstSound.getDuration(), secondSound.getDuration(), false);
+						break;
+
+					case CREATED_DESCENDING:
+						comparison = compareValues(secondSound.getCreated(), firstSound.getCreated(), true);
+						break;
+
+					case CREATED_ASCENDING:
+						comparison = compareValues(firstSound.getCreated(), secondSound.getCreated(), false);
+						break;
+
+					case DOWNLOADS_DESCENDING:
+						comparison = compareValues(
+								secondSound.getNumberOfDownloads(), firstSound.getNumberOfDownloads(), true);
+						break;
+
+					case DOWNLOADS_ASCENDING:
+						comparison = compareValues(
+								firstSound.getNumberOfDownloads(), secondSound.getNumberOfDownloads(), false);
+						break;
+
+					case RATING_DESCENDING:
+						comparison = compareValues(
+								secondSound.getAverageRating(), firstSound.getAverageRating(), true);
+						break;
+
+					case RATING_ASCENDING:
+						comparison = compareValues(
+								firstSound.getAverageRating(), secondSound.getAverageRating(), false);
+						break;
+
+					default:
+						comparison = Float.compare(scores[second.intValue()], scores[first.intValue()]);
+						break;
+				}
+
+				return (comparison != 0) ? comparison : firstSound.getId().compareTo(secondSound.getId());
+			}
+		};
+	}
+
+	/**
+	 * Compare two possibly absent values, placing absent values last in the result order.
+	 *
+	 * @param <T> The type of value
+	 *
+	 * @param first The first value
+	 * @param second The second value
+	 * @param reversed Whether the values have been swapped to produce a descending order
+	 * @return The comparison of the values
+	 */
+	private static <T extends Comparable<T>> int compareValues(final T first, final T second, final boolean reversed) {
+		if ((first == null) || (second == null)) {
+			if (first == second) {
+				return 0;
+			}
+
+			final int absentLast = (first == null) ? 1 : -1;
+			return reversed ? -absentLast : absentLast;
+		}
+
+		return first.compareTo(second);
+	}
+
+	/**
+	 * Rebuild the index from its live documents, discarding the postings of superseded ones.
+	 */
+	private void compact() {
+		final List<Sound> liveSounds = new ArrayList<>(live.cardinality());
+		for (int document = live.nextSetBit(0); document >= 0; document = live.nextSetBit(document + 1)) {
+			liveSounds.add(sounds[document]);
+		}
+
+		postings = new TreeMap<>();
+		sounds = new Sound[Math.max(16, liveSounds.size())];
+		documentLengths = new int[sounds.length];
+		documentPostings = new PostingList[sounds.length][];
+		live = new BitSet();
+		documentsBySoundId = new HashMap<>();
+		documentCount = 0;
+		totalLength = 0;
+
+		for (final Sound sound : liveSounds) {
+			add(sound);
+		}
+	}
+
+	/**
+	 * @param query The search being executed
+	 * @param page A page of its results
+	 * @return URI identifying the page
+	 */
+	private static String pageURI(final TextSearch query, final int page) {
+		return String.format("%s?page=%d", query.getPath(), page);
+	}
+
+	/**
+	 * Split text into terms, counting the occurrences of each.
+	 *
+	 * @param text The text to split (may be null)
+	 * @param frequencies Map to add the number of occurrences of each term to
+	 * @return The number of terms found
+	 */
+	static int tokenize(final String text, final Map<String, int[]> frequencies) {
+		if (text == null) {
+			return 0;
+		}
+
+		int count = 0;
+		for (final String token : tokens(text)) {
+			int[] frequency = frequencies.get(token);
+			if (frequency == null) {
+				frequency = new int[1];
+				frequencies.put(token, frequency);
+			}
+			frequency[0]++;
+			count++;
+		}
+
+		return count;
+	}
+
+	/**
+	 * @param text The text to split
+	 * @return The lower-case runs of letters and digits in the text, in order
+	 */
+	static List<String> tokens(final String text) {
+		final List<String> tokens = new ArrayList<>();
+		final String lowerCase = text.toLowerCase(Locale.ROOT);
+
+		int start = -1;
+		for (int i = 0; i <= lowerCase.length(); i++) {
+			final boolean tokenCharacter =
+					(i < lowerCase.length()) && Character.isLetterOrDigit(lowerCase.charAt(i));
+			if (tokenCharacter && (start < 0)) {
+				start = i;
+			} else if (!tokenCharacter && (start >= 0)) {
+				tokens.add(lowerCase.substring(start, i));
+				start = -1;
+			}
+		}
+
+		return tokens;
+	}
+}
@@ -0,0 +1,734 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.index;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.sonoport.freesound.response.SoundAnalysis;
+
+/**
+ * In-process approximate nearest neighbour index over fixed-length descriptor vectors (e.g. the
+ * <code>lowlevel.mfcc.mean</code> vectors of {@link SoundAnalysis} results), keyed on sound identifier.
+ *
+ * The index uses an inverted file structure: once {@link #train(int, int, ExecutorService)} has been called, vectors
+ * are partitioned around centroids found by k-means clustering, and searches only scan the partitions whose centroids
+ * are closest to the query (see {@link #setProbes(int)}). Before training, all vectors are held in a single partition
+ * and searches are exact. Vectors can be added at any time; those added after training are assigned to their nearest
+ * partition.
+ *
+ * Distances are squared euclidean; callers wanting cosine similarity should normalise vectors before adding them. The
+ * index is safe for use by multiple threads, with searches running concurrently.
+ */
+public class VectorIndex {
+
+	/** The default number of partitions scanned by a search. */
+	public static final int DEFAULT_PROBES = 8;
+
+	/** Identifies files written by {@link #save(Path)}. */
+	private static final int FILE_MAGIC = 0x46535649;
+
+	/** Version of the file format written by {@link #save(Path)}. */
+	private static final int FILE_VERSION = 1;
+
+	/** Seed for the random selection of initial centroids, so that training is repeatable. */
+	private static final long TRAINING_SEED = 0x5EED;
+
+	/** The dimension of the vectors held. */
+	private final int dimension;
+
+	/** Lock guarding the contents of the index. */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** The partition centroids, stored contiguously (or null if the index has not been trained). */
+	private float[] centroids;
+
+	/** The partitions of the index. */
+	private InvertedList[] lists;
+
+	/** The partition holding each sound, keyed on sound identifier. */
+	private final Map<Integer, Integer> listBySoundId = new HashMap<>();
+
+	/** The number of partitions scanned by a search. */
+	private volatile int probes = DEFAULT_PROBES;
+
+	/**
+	 * @param dimension The dimension of the vectors to be held
+	 */
+	public VectorIndex(final int dimension) {
+		if (dimension < 1) {
+			throw new IllegalArgumentException("Dimension must be greater than 0");
+		}
+
+		this.dimension = dimension;
+		this.lists = new InvertedList[] {new InvertedList(dimension, 16)};
+	}
+
+	/**
+	 * Add a vector to the index, replacing any vector already held for the sound.
+	 *
+	 * @param soundId Identifier of the sound
+	 * @param vector The vector to add
+	 */
+	public void add(final int soundId, final float[] vector) {
+		validateVector(vector);
+
+		lock.writeLock().lock();
+		try {
+			remove(soundId);
+
+			final int list = (centroids != null) ? nearestCentroid(vector, 0) : 0;
+			lists[list].add(soundId, vector, 0);
+			listBySoundId.put(Integer.valueOf(soundId), Integer.valueOf(list));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Add the vector of a descriptor from the analysis of a sound.
+	 *
+	 * @param soundId Identifier of the sound
+	 * @param soundAnalysis Analysis of the sound
+	 * @param descriptor Name of the descriptor whose vector should be added
+	 * @return Whether the analysis contained a vector for the descriptor
+	 */
+	public boolean add(final int soundId, final SoundAnalysis soundAnalysis, final String descriptor) {
+		final float[] vector = soundAnalysis.getVector(descriptor);
+		if (vector == null) {
+			return false;
+		}
+
+		add(soundId, vector);
+		return true;
+	}
+
+	/**
+	 * Remove the vector held for a sound.
+	 *
+	 * @param soundId Identifier of the sound
+	 * @return Whether a vector was held for the sound
+	 */
+	public boolean remove(final int soundId) {
+		lock.writeLock().lock();
+		try {
+			final Integer list = listBySoundId.remove(Integer.valueOf(soundId));
+			return (list != null) && lists[list.intValue()].remove(soundId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Retrieve a copy of the vector held for a sound.
+	 *
+	 * @param soundId Identifier of the sound
+	 * @return The vector (or null if none is held)
+	 */
+	public float[] getVector(final int soundId) {
+		lock.readLock().lock();
+		try {
+			final Integer list = listBySoundId.get(Integer.valueOf(soundId));
+			if (list == null) {
+				return null;
+			}
+
+			final InvertedList invertedList = lists[list.intValue()];
+			final int offset = invertedList.indexOf(soundId) * dimension;
+			return Arrays.copyOfRange(invertedList.vectors(), offset, offset + dimension);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Find the sounds whose vectors are nearest to a query vector.
+	 *
+	 * @param query The query vector
+	 * @param k The maximum number of results to return
+	 * @return The nearest sounds, closest first
+	 */
+	public List<Neighbour> search(final float[] query, final int k) {
+		return search(query, k, Integer.MIN_VALUE);
+	}
+
+	/**
+	 * Find the sounds whose vectors are nearest to that of a given sound (i.e. a local equivalent of
+	 * {@link com.sonoport.freesound.query.sound.SimilarSoundsQuery}). The sound itself is excluded from the results.
+	 *
+	 * @param soundId Identifier of the sound
+	 * @param k The maximum number of results to return
+	 * @return The nearest sounds, closest first (or null if no vector is held for the sound, in which case the caller
+	 *         should fall back to querying the API)
+	 */
+	public List<Neighbour> searchSimilar(final int soundId, final int k) {
+		final float[] vector = getVector(soundId);
+		return (vector != null) ? search(vector, k, soundId) : null;
+	}
+
+	/**
+	 * Find the sounds whose vectors are nearest to a query vector.
+	 *
+	 * @param query The query vector
+	 * @param k The maximum number of results to return
+	 * @param excludedSoundId Identifier of a sound to exclude from the results
+	 * @return The nearest sounds, closest first
+	 */
+	private List<Neighbour> search(final float[] query, final int k, final int excludedSoundId) {
+		validateVector(query);
+		if (k < 1) {
+			throw new IllegalArgumentException("Must request at least one result");
+		}
+
+		// Max-heap of the best results found so far, so the worst can be replaced cheaply
+		final PriorityQueue<Neighbour> best = new PriorityQueue<>(k + 1, Collections.reverseOrder());
+
+		lock.readLock().lock();
+		try {
+			for (final int list : listsToProbe(query)) {
+				final InvertedList invertedList = lists[list];
+				final float[] vectors = invertedList.vectors();
+
+				for (int i = 0; i < invertedList.size(); i++) {
+					final int soundId = invertedList.idAt(i);
+					if (soundId == excludedSoundId) {
+						continue;
+					}
+
+					final float distance = squaredDistance(query, 0, vectors, i * dimension, dimension);
+					if (best.size() < k) {
+						best.add(new Neighbour(soundId, distance));
+					} else if (distance < best.peek().getDistance()) {
+						best.poll();
+						best.add(new Neighbour(soundId, distance));
+					}
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		final List<Neighbour> results = new ArrayList<>(best);
+		Collections.sort(results);
+
+		return results;
+	}
+
+	/**
+	 * Determine the partitions to scan for a query. Must be called while holding the lock.
+	 *
+	 * @param query The query vector
+	 * @return Indexes of the partitions to scan
+	 */
+	private int[] listsToProbe(final float[] query) {
+		if (centroids == null) {
+			return new int[] {0};
+		}
+
+		final int listCount = lists.length;
+		final int probeCount = Math.min(probes, listCount);
+		final float[] distances = new float[listCount];
+		final Integer[] order = new Integer[listCount];
+		for (int i = 0; i < listCount; i++) {
+			distances[i] = squaredDistance(query, 0, centroids, i * dimension, dimension);
+			order[i] = Integer.valueOf(i);
+		}
+
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(final Integer first, final Integer second) {
+				return Float.compare(distances[first.intValue()], distances[second.intValue()]);
+			}
+		});
+
+		final int[] selected = new int[probeCount];
+		for (int i = 0; i < probeCount; i++) {
+			selected[i] = order[i].intValue();
+		}
+
+		return selected;
+	}
+
+	/**
+	 * Partition the vectors held using k-means clustering, using a thread pool sized to the available processors.
+	 *
+	 * @param listCount The number of partitions to create
+	 * @param iterations The number of k-means iterations to perform
+	 * @throws InterruptedException If interrupted while training
+	 */
+	public void train(final int listCount, final int iterations) throws InterruptedException {
+		final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try {
+			train(listCount, iterations, executor);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Partition the vectors held using k-means clustering. The assignment of vectors to centroids, which dominates the
+	 * cost of training, is split between the tasks submitted to the executor. Searches and additions are blocked
+	 * while training is in progress.
+	 *
+	 * @param listCount The number of partitions to create
+	 * @param iterations The number of k-means iterations to perform
+	 * @param executor Executor used to run the assignment tasks
+	 * @throws InterruptedException If interrupted while training
+	 */
+	public void train(final int listCount, final int iterations, final ExecutorService executor)
+			throws InterruptedException {
+		if (listCount < 1) {
+			throw new IllegalArgumentException("Must create at least one partition");
+		} else if (iterations < 1) {
+			throw new IllegalArgumentException("Must perform at least one iteration");
+		}
+
+		lock.writeLock().lock();
+		try {
+			final int size = listBySoundId.size();
+			if (size < listCount) {
+				throw new IllegalStateException(
+						String.format("Cannot create %d partitions from %d vectors", listCount, size));
+			}
+
+			// Gather every vector into a single contiguous array
+			final int[] ids = new int[size];
+			final float[] vectors = new float[size * dimension];
+			int position = 0;
+			for (final InvertedList list : lists) {
+				for (int i = 0; i < list.size(); i++) {
+					ids[position] = list.idAt(i);
+					System.arraycopy(list.vectors(), i * dimension, vectors, position * dimension, dimension);
+					position++;
+				}
+			}
+
+			final float[] newCentroids = initialCentroids(vectors, size, listCount);
+			final int[] assignments = new int[size];
+
+			for (int iteration = 0; iteration < iterations; iteration++) {
+				assign(vectors, size, newCentroids, assignments, executor);
+				updateCentroids(vectors, size, newCentroids, assignments, listCount);
+			}
+			assign(vectors, size, newCentroids, assignments, executor);
+
+			final InvertedList[] newLists = new InvertedList[listCount];
+			for (int i = 0; i < listCount; i++) {
+				newLists[i] = new InvertedList(dimension, (size / listCount) + 1);
+			}
+
+			for (int i = 0; i < size; i++) {
+				newLists[assignments[i]].add(ids[i], vectors, i * dimension);
+				listBySoundId.put(Integer.valueOf(ids[i]), Integer.valueOf(assignments[i]));
+			}
+
+			centroids = newCentroids;
+			lists = newLists;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Select the initial centroids at random from the vectors.
+	 *
+	 * @param vectors The vectors, stored contiguously
+	 * @param size The number of vectors
+	 * @param listCount The number of centroids
+	 * @return The initial centroids, stored contiguously
+	 */
+	private float[] initialCentroids(final float[] vectors, final int size, final int listCount) {
+		final Random random = new Random(TRAINING_SEED);
+
+		// Partial Fisher-Yates shuffle to choose distinct vectors
+		final int[] order = new int[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+
+		final float[] initial = new float[listCount * dimension];
+		for (int i = 0; i < listCount; i++) {
+			final int swap = i + random.nextInt(size - i);
+			final int chosen = order[swap];
+			order[swap] = order[i];
+			order[i] = chosen;
+
+			System.arraycopy(vectors, chosen * dimension, initial, i * dimension, dimension);
+		}
+
+		return initial;
+	}
+
+	/**
+	 * Assign each vector to its nearest centroid, splitting the work between tasks run on the executor.
+	 *
+	 * @param vectors The vectors, stored contiguously
+	 * @param size The number of vectors
+	 * @param currentCentroids The centroids, stored contiguously
+	 * @param assignments Array to populate with the nearest centroid of each vector
+	 * @param executor Executor used to run the tasks
+	 * @throws InterruptedException If interrupted while waiting for the tasks to complete
+	 */
+	private void assign(
+			final float[] vectors,
+			final int size,
+			final float[] currentCentroids,
+			final int[] assignments,
+			final ExecutorService executor) throws InterruptedException {
+		final int taskCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4, size / 256));
+		final int chunkSize = (size + taskCount - 1) / taskCount;
+
+		final List<Callable<Void>> tasks = new ArrayList<>(taskCount);
+		for (int start = 0; start < size; start += chunkSize) {
+			final int chunkStart = start;
+			final int chunkEnd = Math.min(size, start + chunkSize);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (int i = chunkStart; i < chunkEnd; i++) {
+						assignments[i] = nearest(vectors, i * dimension, currentCentroids);
+					}
+					return null;
+				}
+			});
+		}
+
+		for (final Future<Void> result : executor.invokeAll(tasks)) {
+			try {
+				result.get();
+			} catch (final ExecutionException e) {
+				throw new IllegalStateException("Error assigning vectors to partitions", e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Move each centroid to the mean of the vectors assigned to it. Centroids with no vectors assigned are moved to a
+	 * randomly chosen vector.
+	 *
+	 * @param vectors The vectors, stored contiguously
+	 * @param size The number of vectors
+	 * @param currentCentroids The centroids to update, stored contiguously
+	 * @param assignments The nearest centroid of each vector
+	 * @param listCount The number of centroids
+	 */
+	private void updateCentroids(
+			final float[] vectors,
+			final int size,
+			final float[] currentCentroids,
+			final int[] assignments,
+			final int listCount) {
+		final double[] sums = new double[listCount * dimension];
+		final int[] counts = new int[listCount];
+
+		for (int i = 0; i < size; i++) {
+			final int centroid = assignments[i];
+			counts[centroid]++;
+			for (int d = 0; d < dimension; d++) {
+				sums[(centroid * dimension) + d] += vectors[(i * dimension) + d];
+			}
+		}
+
+		final Random random = new Random(TRAINING_SEED);
+		for (int centroid = 0; centroid < listCount; centroid++) {
+			if (counts[centroid] == 0) {
+				System.arraycopy(
+						vectors, random.nextInt(size) * dimension, currentCentroids, centroid * dimension, dimension);
+			} else {
+				for (int d = 0; d < dimension; d++) {
+					currentCentroids[(centroid * dimension) + d] =
+							(float) (sums[(centroid * dimension) + d] / counts[centroid]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Find the nearest centroid of the index to a vector. Must be called while holding the lock.
+	 *
+	 * @param vector Array containing the vector
+	 * @param offset Position of the vector within the array
+	 * @return Index of the nearest centroid
+	 */
+	private int nearestCentroid(final float[] vector, final int offset) {
+		return nearest(vector, offset, centroids);
+	}
+
+	/**
+	 * Find the nearest of a set of centroids to a vector.
+	 *
+	 * @param vector Array containing the vector
+	 * @param offset Position of the vector within the array
+	 * @param candidateCentroids The centroids, stored contiguously
+	 * @return Index of the nearest centroid
+	 */
+	private int nearest(final float[] vector, final int offset, final float[] candidateCentroids) {
+		int nearest = 0;
+		float nearestDistance = Float.MAX_VALUE;
+		for (int centroid = 0; (centroid * dimension) < candidateCentroids.length; centroid++) {
+			final float distance =
+					squaredDistance(vector, offset, candidateCentroids, centroid * dimension, dimension);
+			if (distance < nearestDistance) {
+				nearest = centroid;
+				nearestDistance = distance;
+			}
+		}
+
+		return nearest;
+	}
+
+	/**
+	 * Calculate the squared euclidean distance between two vectors.
+	 *
+	 * @param first Array containing the first vector
+	 * @param firstOffset Position of the first vector within its array
+	 * @param second Array containing the second vector
+	 * @param secondOffset Position of the second vector within its array
+	 * @param dimension The dimension of the vectors
+	 * @return The squared distance
+	 */
+	static float squaredDistance(
+			final float[] first,
+			final int firstOffset,
+			final float[] second,
+			final int secondOffset,
+			final int dimension) {
+		float distance = 0;
+		for (int d = 0; d < dimension; d++) {
+			final float difference = first[firstOffset + d] - second[secondOffset + d];
+			distance += difference * difference;
+		}
+
+		return distance;
+	}
+
+	/**
+	 * Write the contents of the index to a file, via a memory mapping of the file.
+	 *
+	 * @param file The file to write to
+	 * @throws IOException Any errors encountered writing to the file
+	 */
+	public void save(final Path file) throws IOException {
+		lock.readLock().lock();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			final int centroidCount = (centroids != null) ? lists.length : 0;
+			long length = 6L * 4;
+			length += (long) centroidCount * dimension * 4;
+			for (final InvertedList list : lists) {
+				length += 4 + ((long) list.size() * (1 + dimension) * 4);
+			}
+
+			final MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, length);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(dimension).putInt(probes);
+			buffer.putInt(lists.length).putInt(centroidCount);
+
+			if (centroids != null) {
+				buffer.asFloatBuffer().put(centroids);
+				buffer.position(buffer.position() + (centroids.length * 4));
+			}
+
+			for (final InvertedList list : lists) {
+				buffer.putInt(list.size());
+				for (int i = 0; i < list.size(); i++) {
+					buffer.putInt(list.idAt(i));
+				}
+				buffer.asFloatBuffer().put(list.vectors(), 0, list.size() * dimension);
+				buffer.position(buffer.position() + (list.size() * dimension * 4));
+			}
+
+			buffer.force();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Read an index previously written by {@link #save(Path)}, via a memory mapping of the file.
+	 *
+	 * The mapping is only used to read the file: the centroids and vectors are copied onto the heap, as a loaded index
+	 * can have further vectors added to it like any other. A loaded index therefore occupies as much heap as the index
+	 * that was saved, and the file may be changed or removed once it has been loaded.
+	 *
+	 * @param file The file to read
+	 * @return The index
+	 * @throws IOException Any errors encountered reading the file, or if the file is not a valid index (including
+	 *             where its header describes more content than the file holds)
+	 */
+	public static VectorIndex load(final Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			if ((buffer.remaining() < 24) || (buffer.getInt() != FILE_MAGIC)) {
+				throw new IOException(String.format("%s is not a vector index file", file));
+			}
+
+			final int version = buffer.getInt();
+			if (version != FILE_VERSION) {
+				throw new IOException(String.format("Unsupported vector index file version %d", version));
+			}
+
+			final int dimension = buffer.getInt();
+			final int probes = buffer.getInt();
+			final int listCount = buffer.getInt();
+			final int centroidCount = buffer.getInt();
+			if ((dimension < 1) || (probes < 1) || (listCount < 1)
+					|| ((centroidCount != 0) && (centroidCount != listCount))) {
+				throw new IOException(String.format("%s has an invalid vector index header", file));
+			}
+
+			final VectorIndex index = new VectorIndex(dimension);
+			index.setProbes(probes);
+
+			if (centroidCount > 0) {
+				requireRemaining(buffer, (long) centroidCount * dimension * 4, file);
+				index.centroids = new float[centroidCount * dimension];
+				buffer.asFloatBuffer().get(index.centroids);
+				buffer.position(buffer.position() + (index.centroids.length * 4));
+			}
+
+			requireRemaining(buffer, (long) listCount * 4, file);
+			index.lists = new InvertedList[listCount];
+			for (int list = 0; list < listCount; list++) {
+				requireRemaining(buffer, 4, file);
+				final int size = buffer.getInt();
+				if (size < 0) {
+					throw new IOException(String.format("%s has a partition of invalid size %d", file, size));
+				}
+				requireRemaining(buffer, (long) size * (1 + dimension) * 4, file);
+
+				final int[] ids = new int[size];
+				buffer.asIntBuffer().get(ids);
+				buffer.position(buffer.position() + (size * 4));
+
+				final float[] vectors = new float[size * dimension];
+				buffer.asFloatBuffer().get(vectors);
+				buffer.position(buffer.position() + (vectors.length * 4));
+
+				index.lists[list] = new InvertedList(dimension, ids, vectors);
+				for (final int soundId : ids) {
+					index.listBySoundId.put(Integer.valueOf(soundId), Integer.valueOf(list));
+				}
+			}
+
+			return index;
+		}
+	}
+
+	/**
+	 * Check that enough of an index file remains to be read.
+	 *
+	 * @param buffer Mapping of the file, positioned at the content about to be read
+	 * @param length The length of the content about to be read, in bytes
+	 * @param file The file being read
+	 * @throws IOException If the file ends before the content does
+	 */
+	private static void requireRemaining(final MappedByteBuffer buffer, final long length, final Path file)
+			throws IOException {
+		if (length > buffer.remaining()) {
+			throw new IOException(String.format("%s is truncated", file));
+		}
+	}
+
+	/**
+	 * @return The number of vectors held
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return listBySoundId.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return Whether the vectors held have been partitioned
+	 */
+	public boolean isTrained() {
+		lock.readLock().lock();
+		try {
+			return centroids != null;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the dimension
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return The number of partitions scanned by a search
+	 */
+	public int getProbes() {
+		return probes;
+	}
+
+	/**
+	 * Specify the number of partitions scanned by a search. Scanning more partitions gives more accurate results, at
+	 * the cost of slower searches.
+	 *
+	 * @param probes The number of partitions to scan
+	 */
+	public void setProbes(final int probes) {
+		if (probes < 1) {
+			throw new IllegalArgumentException("Must scan at least one partition");
+		}
+
+		this.probes = probes;
+	}
+
+	/**
+	 * Ensure a vector has the dimension of the index.
+	 *
+	 * @param vector The vector to check
+	 */
+	private void validateVector(final float[] vector) {
+		if (vector == null) {
+			throw new IllegalArgumentException("Must specify a vector");
+		} else if (vector.length != dimension) {
+			throw new IllegalArgumentException(
+					String.format("Vector has dimension %d, index has dimension %d", vector.length, dimension));
+		}
+	}
+}
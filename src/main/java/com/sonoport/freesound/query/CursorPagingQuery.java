@@ -0,0 +1,206 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONObject;
+
+import com.sonoport.freesound.response.CursorPagingResponse;
+import com.sonoport.freesound.response.mapping.PagingResponseMapper;
+
+/**
+ * Extension of {@link JSONResponseQuery} that represents API calls whose results span multiple pages, where each page
+ * identifies the next by a cursor (the 'more' URI) rather than by page number. Results are returned as an instance of
+ * {@link CursorPagingResponse}.
+ *
+ * Following a cursor is achieved by taking an immutable snapshot of the query at the cursor URI, using
+ * {@link #atCursor(String)}, or by passing the URI to {@link #setCursor(String)}: the parameters it contains are
+ * included in subsequent requests, alongside those defined by the query itself.
+ *
+ * @param <Q> The type of the {@link CursorPagingQuery} (required to implement Fluent API elements)
+ * @param <I> The DTO type of the items in the list
+ */
+public abstract class CursorPagingQuery<Q extends CursorPagingQuery<Q, I>, I extends Object>
+			extends JSONResponseQuery<List<I>> {
+
+	/** The number of results to return per page. */
+	private int pageSize = PagingQuery.DEFAULT_PAGE_SIZE;
+
+	/** The parameters taken from the cursor currently being followed. */
+	private Map<String, String> cursorParameters = Collections.emptyMap();
+
+	/**
+	 * @param httpRequestMethod HTTP method to use for query
+	 * @param path The URI path to the API endpoint
+	 * @param resultsMapper {@link PagingResponseMapper} to convert results
+	 */
+	protected CursorPagingQuery(
+			final HTTPRequestMethod httpRequestMethod, final String path, final PagingResponseMapper<I> resultsMapper) {
+		super(httpRequestMethod, path, resultsMapper);
+	}
+
+	@Override
+	public CursorPagingResponse<I> processResponse(
+			final int httpResponseCode, final String httpResponseStatusString, final JSONObject freesoundResponse) {
+		final CursorPagingResponse<I> response = new CursorPagingResponse<>(httpResponseCode, httpResponseStatusString);
+
+		if (response.isErrorResponse()) {
+			response.setErrorDetails(extractErrorMessage(freesoundResponse));
+		} else {
+			final PagingResponseMapper<I> resultsMapper = (PagingResponseMapper<I>) getResultsMapper();
+
+			response.setMoreResultsURI(resultsMapper.extractMoreResultsURI(freesoundResponse));
+			response.setResults(resultsMapper.map(freesoundResponse));
+		}
+
+		return response;
+	}
+
+	/**
+	 * Set the number of results to return per page, using a Fluent API style.
+	 *
+	 * @param pageSize The number of results per page
+	 * @return The current query
+	 */
+	@SuppressWarnings("unchecked")
+	public Q pageSize(final int pageSize) {
+		setPageSize(pageSize);
+		return (Q) this;
+	}
+
+	@Override
+	public Map<String, Object> getQueryParameters() {
+		final Map<String, Object> queryParams = new HashMap<String, Object>(cursorParameters);
+		queryParams.put("page_size", Integer.valueOf(pageSize));
+
+		return queryParams;
+	}
+
+	/**
+	 * Take an immutable snapshot of the query as it currently stands, following a given cursor. The snapshot is
+	 * unaffected by later changes to this query, so it is safe to execute from other threads, and the query itself can
+	 * be paged from several threads at once.
+	 *
+	 * @param moreResultsURI The URI of further results, as returned in {@link CursorPagingResponse#getMoreResultsURI()}
+	 * @return Snapshot of the query following the cursor
+	 */
+	public CursorSnapshot<I> atCursor(final String moreResultsURI) {
+		return new CursorSnapshot<>(this, moreResultsURI);
+	}
+
+	/**
+	 * Specify the cursor to follow in subsequent requests, as returned in
+	 * {@link CursorPagingResponse#getMoreResultsURI()}. Passing null returns the query to the first page of results.
+	 *
+	 * @param moreResultsURI The URI of further results
+	 */
+	public void setCursor(final String moreResultsURI) {
+		cursorParameters = parseCursor(moreResultsURI);
+	}
+
+	/**
+	 * @return The parameters taken from the cursor currently being followed
+	 */
+	Map<String, String> getCursorParameters() {
+		return cursorParameters;
+	}
+
+	/**
+	 * Extract the parameters from the query string of a cursor URI.
+	 *
+	 * @param moreResultsURI The URI of further results (may be null)
+	 * @return Unmodifiable map of the decoded parameters, empty if no URI is given
+	 */
+	static Map<String, String> parseCursor(final String moreResultsURI) {
+		if (moreResultsURI == null) {
+			return Collections.emptyMap();
+		}
+
+		final String rawQuery;
+		try {
+			rawQuery = new URI(moreResultsURI).getRawQuery();
+		} catch (final URISyntaxException e) {
+			throw new IllegalArgumentException(String.format("Invalid cursor URI: %s", moreResultsURI), e);
+		}
+
+		final Map<String, String> parameters = new HashMap<>();
+		if (rawQuery != null) {
+			for (final String parameter : rawQuery.split("&")) {
+				if (parameter.isEmpty()) {
+					continue;
+				}
+
+				final int separator = parameter.indexOf('=');
+				final String name = (separator >= 0) ? parameter.substring(0, separator) : parameter;
+				final String value = (separator >= 0) ? parameter.substring(separator + 1) : "";
+				parameters.put(decode(name), decode(value));
+			}
+		}
+
+		return Collections.unmodifiableMap(parameters);
+	}
+
+	/**
+	 * @return Whether the query is currently following a cursor, rather than retrieving the first page of results
+	 */
+	public boolean isFollowingCursor() {
+		return !cursorParameters.isEmpty();
+	}
+
+	/**
+	 * @return the pageSize
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * @param pageSize the pageSize to set
+	 */
+	public void setPageSize(final int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Must specifiy a page size greater than 0");
+		} else if (pageSize > PagingQuery.MAXIMUM_PAGE_SIZE) {
+			throw new IllegalArgumentException(
+					String.format("Cannot specify a page size greater than %s", PagingQuery.MAXIMUM_PAGE_SIZE));
+		}
+
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Decode a URL encoded element of a query string.
+	 *
+	 * @param value The encoded value
+	 * @return The decoded value
+	 */
+	private static String decode(final String value) {
+		try {
+			return URLDecoder.decode(value, "UTF-8");
+		} catch (final UnsupportedEncodingException e) {
+			throw new IllegalStateException("UTF-8 encoding not supported", e);
+		}
+	}
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.json.JSONObject;
+
+import com.sonoport.freesound.response.CursorPagingResponse;
+import com.sonoport.freesound.response.mapping.StringPool;
+
+/**
+ * Immutable snapshot of a {@link CursorPagingQuery} following a cursor, created using
+ * {@link CursorPagingQuery#atCursor(String)}. The query and route parameters are captured when the snapshot is taken,
+ * so later changes to the original query do not affect the snapshot, and a snapshot can be shared freely between
+ * threads. Snapshots following later cursors of the same query are derived using {@link #atCursor(String)}, sharing
+ * the captured parameters.
+ *
+ * As when following a cursor with {@link CursorPagingQuery#setCursor(String)}, parameters defined by the query itself
+ * take precedence over those in the cursor. Responses are mapped using the
+ * {@link com.sonoport.freesound.response.mapping.Mapper} of the original query, so the mapping options of the original
+ * should not be changed while snapshots are in use.
+ *
+ * @param <I> The DTO type of the items in the list
+ */
+public final class CursorSnapshot<I extends Object> extends JSONResponseQuery<List<I>> {
+
+	/** The query the snapshot was taken of, used to process responses. */
+	private final CursorPagingQuery<?, I> origin;
+
+	/** The query parameters of the original query. Shared between derived snapshots. */
+	private final Map<String, Object> baseParameters;
+
+	/** The parameters of any cursor the original query was following. Shared between derived snapshots. */
+	private final Map<String, String> baseCursorParameters;
+
+	/** The route parameters of the original query. Shared between derived snapshots. */
+	private final Map<String, String> routeParameters;
+
+	/** The number of results per page. */
+	private final int pageSize;
+
+	/** The URI of the cursor the snapshot follows. */
+	private final String moreResultsURI;
+
+	/** The complete query parameters of this snapshot. */
+	private final Map<String, Object> queryParameters;
+
+	/**
+	 * @param origin The query to take a snapshot of
+	 * @param moreResultsURI The URI of the cursor the snapshot should follow
+	 */
+	CursorSnapshot(final CursorPagingQuery<?, I> origin, final String moreResultsURI) {
+		this(origin, Collections.unmodifiableMap(new HashMap<>(origin.getQueryParameters())),
+				origin.getCursorParameters(), copy(origin.getRouteParameters()), origin.getPageSize(),
+				origin.getPriority(), moreResultsURI);
+	}
+
+	/**
+	 * @param origin The query the snapshot was taken of
+	 * @param baseParameters The query parameters of the original query
+	 * @param baseCursorParameters The parameters of any cursor the original query was following
+	 * @param routeParameters The route parameters of the original query
+	 * @param pageSize The number of results per page
+	 * @param priority The class of traffic the original query belongs to
+	 * @param moreResultsURI The URI of the cursor the snapshot should follow
+	 */
+	private CursorSnapshot(
+			final CursorPagingQuery<?, I> origin,
+			final Map<String, Object> baseParameters,
+			final Map<String, String> baseCursorParameters,
+			final Map<String, String> routeParameters,
+			final int pageSize,
+			final Priority priority,
+			final String moreResultsURI) {
+		super(origin.getHttpRequestMethod(), origin.getPath(), origin.getResultsMapper());
+		super.setPriority(priority);
+
+		this.origin = origin;
+		this.baseParameters = baseParameters;
+		this.baseCursorParameters = baseCursorParameters;
+		this.routeParameters = routeParameters;
+		this.pageSize = pageSize;
+		this.moreResultsURI = moreResultsURI;
+
+		final Map<String, String> cursorParameters = CursorPagingQuery.parseCursor(moreResultsURI);
+		final Map<String, Object> parameters = new HashMap<String, Object>(cursorParameters);
+		for (final Entry<String, Object> parameter : baseParameters.entrySet()) {
+			final String name = parameter.getKey();
+
+			// Skip values taken from the cursor the original query was following, where this cursor replaces them
+			if (!(cursorParameters.containsKey(name) && parameter.getValue().equals(baseCursorParameters.get(name)))) {
+				parameters.put(name, parameter.getValue());
+			}
+		}
+		this.queryParameters = Collections.unmodifiableMap(parameters);
+	}
+
+	/**
+	 * Derive a snapshot of the same query following another cursor.
+	 *
+	 * @param cursorURI The URI of further results, as returned in {@link CursorPagingResponse#getMoreResultsURI()}
+	 * @return Snapshot of the query following the cursor
+	 */
+	public CursorSnapshot<I> atCursor(final String cursorURI) {
+		return new CursorSnapshot<>(
+				origin, baseParameters, baseCursorParameters, routeParameters, pageSize, getPriority(), cursorURI);
+	}
+
+	@Override
+	public CursorPagingResponse<I> processResponse(
+			final int httpResponseCode, final String httpResponseStatusString, final JSONObject freesoundResponse) {
+		return origin.processResponse(httpResponseCode, httpResponseStatusString, freesoundResponse);
+	}
+
+	@Override
+	public Map<String, Object> getQueryParameters() {
+		return queryParameters;
+	}
+
+	@Override
+	public Map<String, String> getRouteParameters() {
+		return routeParameters;
+	}
+
+	/**
+	 * Snapshots share the {@link com.sonoport.freesound.response.mapping.Mapper} of the original query, so cannot be
+	 * reconfigured.
+	 *
+	 * @param stringPool Ignored
+	 */
+	@Override
+	public void setStringPool(final StringPool stringPool) {
+		throw new UnsupportedOperationException("Cursor snapshots cannot be reconfigured");
+	}
+
+	/**
+	 * Snapshots take the priority of the original query when created, and cannot be reconfigured.
+	 *
+	 * @param priority Ignored
+	 */
+	@Override
+	public void setPriority(final Priority priority) {
+		throw new UnsupportedOperationException("Cursor snapshots cannot be reconfigured");
+	}
+
+	/**
+	 * @return The URI of the cursor the snapshot follows
+	 */
+	public String getMoreResultsURI() {
+		return moreResultsURI;
+	}
+
+	/**
+	 * @return the pageSize
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * @param parameters Route parameters of the original query
+	 * @return Unmodifiable copy of the parameters
+	 */
+	private static Map<String, String> copy(final Map<String, String> parameters) {
+		if ((parameters == null) || parameters.isEmpty()) {
+			return Collections.emptyMap();
+		}
+
+		return Collections.unmodifiableMap(new HashMap<>(parameters));
+	}
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONObject;
+
+import com.sonoport.freesound.response.PagingResponse;
+import com.sonoport.freesound.response.mapping.StringPool;
+
+/**
+ * Immutable snapshot of a single page of a {@link PagingQuery}, created using {@link PagingQuery#atPage(int)}. The
+ * query and route parameters are captured when the snapshot is taken and computed only once, so later changes to the
+ * original query do not affect the snapshot, and a snapshot can be shared freely between threads. Snapshots of other
+ * pages of the same query are derived cheaply using {@link #atPage(int)}, sharing the captured parameters.
+ *
+ * Responses are mapped using the {@link com.sonoport.freesound.response.mapping.Mapper} of the original query, so the
+ * mapping options of the original (lazy mapping, string pool etc.) should not be changed while snapshots are in use.
+ *
+ * @param <I> The DTO type of the items in the list
+ */
+public final class PageSnapshot<I extends Object> extends JSONResponseQuery<List<I>> {
+
+	/** The query the snapshot was taken of, used to process responses. */
+	private final PagingQuery<?, I> origin;
+
+	/** The query parameters of the original query, excluding the page number. Shared between derived snapshots. */
+	private final Map<String, Object> baseParameters;
+
+	/** The route parameters of the original query. Shared between derived snapshots. */
+	private final Map<String, String> routeParameters;
+
+	/** The page the snapshot represents. */
+	private final int page;
+
+	/** The number of results per page. */
+	private final int pageSize;
+
+	/** The complete query parameters of this snapshot. */
+	private final Map<String, Object> queryParameters;
+
+	/**
+	 * @param origin The query to take a snapshot of
+	 * @param page The page the snapshot should represent
+	 */
+	PageSnapshot(final PagingQuery<?, I> origin, final int page) {
+		this(origin, withoutPage(origin.getQueryParameters()), copy(origin.getRouteParameters()),
+				origin.getPageSize(), origin.getPriority(), page);
+	}
+
+	/**
+	 * @param origin The query the snapshot was taken of
+	 * @param baseParameters The query parameters of the original query, excluding the page number
+	 * @param routeParameters The route parameters of the original query
+	 * @param pageSize The number of results per page
+	 * @param priority The class of traffic the original query belongs to
+	 * @param page The page the snapshot should represent
+	 */
+	private PageSnapshot(
+			final PagingQuery<?, I> origin,
+			final Map<String, Object> baseParameters,
+			final Map<String, String> routeParameters,
+			final int pageSize,
+			final Priority priority,
+			final int page) {
+		super(origin.getHttpRequestMethod(), origin.getPath(), origin.getResultsMapper());
+		if (page < 1) {
+			throw new IllegalArgumentException("Must specifiy a page number greater than 0");
+		}
+
+		super.setPriority(priority);
+
+		this.origin = origin;
+		this.baseParameters = baseParameters;
+		this.routeParameters = routeParameters;
+		this.pageSize = pageSize;
+		this.page = page;
+
+		final Map<String, Object> parameters = new HashMap<>(baseParameters);
+		parameters.put(PagingQuery.PAGE_PARAMETER, Integer.valueOf(page));
+		this.queryParameters = Collections.unmodifiableMap(parameters);
+	}
+
+	/**
+	 * Derive a snapshot of another page of the same query.
+	 *
+	 * @param pageNumber The page number
+	 * @return Snapshot of the page
+	 */
+	public PageSnapshot<I> atPage(final int pageNumber) {
+		return new PageSnapshot<>(origin, baseParameters, routeParameters, pageSize, getPriority(), pageNumber);
+	}
+
+	/**
+	 * Derive a snapshot of the same page, with a query parameter replaced. The original query and this snapshot are
+	 * unaffected.
+	 *
+	 * @param name The name of the parameter
+	 * @param value The value of the parameter
+	 * @return Snapshot of the page with the parameter replaced
+	 */
+	public PageSnapshot<I> withQueryParameter(final String name, final Object value) {
+		final Map<String, Object> parameters = new HashMap<>(baseParameters);
+		parameters.put(name, value);
+
+		return new PageSnapshot<>(origin, withoutPage(parameters), routeParameters, pageSize, getPriority(), page);
+	}
+
+	/**
+	 * @return Snapshot of the following page of the same query
+	 */
+	public PageSnapshot<I> nextPage() {
+		return atPage(page + 1);
+	}
+
+	/**
+	 * @return Snapshot of the preceding page of the same query
+	 */
+	public PageSnapshot<I> previousPage() {
+		return atPage(page - 1);
+	}
+
+	@Override
+	public PagingResponse<I> processResponse(
+			final int httpResponseCode, final String httpResponseStatusString, final JSONObject freesoundResponse) {
+		return origin.processResponse(httpResponseCode, httpResponseStatusString, freesoundResponse);
+	}
+
+	@Override
+	public Map<String, Object> getQueryParameters() {
+		return queryParameters;
+	}
+
+	@Override
+	public Map<String, String> getRouteParameters() {
+		return routeParameters;
+	}
+
+	/**
+	 * Snapshots share the {@link com.sonoport.freesound.response.mapping.Mapper} of the original query, so cannot be
+	 * reconfigured.
+	 *
+	 * @param stringPool Ignored
+	 */
+	@Override
+	public void setStringPool(final StringPool stringPool) {
+		throw new UnsupportedOperationException("Page snapshots cannot be reconfigured");
+	}
+
+	/**
+	 * Snapshots take the priority of the original query when created, and cannot be reconfigured.
+	 *
+	 * @param priority Ignored
+	 */
+	@Override
+	public void setPriority(final Priority priority) {
+		throw new UnsupportedOperationException("Page snapshots cannot be reconfigured");
+	}
+
+	/**
+	 * @return the page
+	 */
+	public int getPage() {
+		return page;
+	}
+
+	/**
+	 * @return the pageSize
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * @param parameters Query parameters of the original query
+	 * @return Unmodifiable copy of the parameters, excluding the page number
+	 */
+	private static Map<String, Object> withoutPage(final Map<String, Object> parameters) {
+		final Map<String, Object> base = new HashMap<>(parameters);
+		base.remove(PagingQuery.PAGE_PARAMETER);
+
+		return Collections.unmodifiableMap(base);
+	}
+
+	/**
+	 * @param parameters Route parameters of the original query
+	 * @return Unmodifiable copy of the parameters
+	 */
+	private static Map<String, String> copy(final Map<String, String> parameters) {
+		if ((parameters == null) || parameters.isEmpty()) {
+			return Collections.emptyMap();
+		}
+
+		return Collections.unmodifiableMap(new HashMap<>(parameters));
+	}
+}
@@ -42,6 +42,12 @@ public abstract class PagingQuery<Q extends PagingQuery<Q, I>, I extends Object>
 	/** The maximum size of a single page. 150 is the specified maximum in the API documentation. */
 	public static final int MAXIMUM_PAGE_SIZE = 150;
 
+	/** Name of the parameter specifying the page to retrieve. */
+	public static final String PAGE_PARAMETER = "page";
+
+	/** Name of the parameter specifying the number of results per page. */
+	public static final String PAGE_SIZE_PARAMETER = "page_size";
+
 	/** The page that will be requested in the query. */
 	private int page;
 
@@ -134,11 +140,30 @@ public abstract class PagingQuery<Q extends PagingQuery<Q, I>, I extends Object>
 		return (Q) this;
 	}
 
+	/**
+	 * Take an immutable snapshot of the query as it currently stands, for a given page. The snapshot is unaffected by
+	 * later changes to this query, so it is safe to execute from other threads, and several pages can be retrieved
+	 * concurrently without modifying this query.
+	 *
+	 * @param pageNumber The page the snapshot should represent
+	 * @return Snapshot of the page
+	 */
+	public PageSnapshot<I> atPage(final int pageNumber) {
+		return new PageSnapshot<>(this, pageNumber);
+	}
+
+	/**
+	 * @return Immutable snapshot of the query as it currently stands, for the current page
+	 */
+	public PageSnapshot<I> snapshot() {
+		return atPage(page);
+	}
+
 	@Override
 	public Map<String, Object> getQueryParameters() {
 		final Map<String, Object> queryParams = new HashMap<>();
-		queryParams.put("page", Integer.valueOf(page));
-		queryParams.put("page_size", Integer.valueOf(pageSize));
+		queryParams.put(PAGE_PARAMETER, Integer.valueOf(page));
+		queryParams.put(PAGE_SIZE_PARAMETER, Integer.valueOf(pageSize));
 
 		return queryParams;
 	}
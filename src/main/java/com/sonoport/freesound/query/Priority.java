@@ -0,0 +1,29 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query;
+
+/**
+ * The classes of traffic a query may belong to, used to schedule requests when the number that may be in flight at
+ * once is limited.
+ */
+public enum Priority {
+
+	/** Latency-sensitive queries made on behalf of a user, served ahead of batch traffic. */
+	INTERACTIVE,
+
+	/** Background queries (e.g. crawling or mirroring), guaranteed a minimum share of capacity. */
+	BATCH;
+}
@@ -19,6 +19,7 @@ import java.util.Map;
 
 import com.sonoport.freesound.response.Response;
 import com.sonoport.freesound.response.mapping.Mapper;
+import com.sonoport.freesound.response.mapping.StringPool;
 
 /**
  * Representation of a query of the freesound API, encapsulating the common elements the different types of calls.
@@ -38,6 +39,9 @@ public abstract class Query<S extends Object, R extends Object> {
 	/** {@link Mapper} used to convert results received from freesound into appropriate DTO type. */
 	private final Mapper<S, R> resultsMapper;
 
+	/** The class of traffic the query belongs to. */
+	private Priority priority = Priority.INTERACTIVE;
+
 	/**
 	 * @param httpRequestMethod HTTP method to use for query
 	 * @param path Endpoint to submit the query to
@@ -92,6 +96,38 @@ public abstract class Query<S extends Object, R extends Object> {
 	 */
 	protected abstract String extractErrorMessage(S freesoundResponse);
 
+	/**
+	 * Specify a {@link StringPool} used to share instances of frequently repeated string values (usernames, tags etc.)
+	 * between the DTOs created from the results of this query. Sharing a single pool between queries reduces the memory
+	 * retained by large numbers of results.
+	 *
+	 * @param stringPool The pool to use (or null to disable interning)
+	 */
+	public void setStringPool(final StringPool stringPool) {
+		resultsMapper.setStringPool(stringPool);
+	}
+
+	/**
+	 * Specify the class of traffic the query belongs to. Queries are {@link Priority#INTERACTIVE} unless specified
+	 * otherwise.
+	 *
+	 * @param priority The class of traffic
+	 */
+	public void setPriority(final Priority priority) {
+		if (priority == null) {
+			throw new IllegalArgumentException("Priority must be specified");
+		}
+
+		this.priority = priority;
+	}
+
+	/**
+	 * @return the priority
+	 */
+	public Priority getPriority() {
+		return priority;
+	}
+
 	/**
 	 * @return the path
 	 */
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query;
+
+import java.util.Map;
+import java.util.Set;
+
+import com.sonoport.freesound.response.Sound;
+import com.sonoport.freesound.response.mapping.PagingResponseMapper;
+import com.sonoport.freesound.response.mapping.SoundMapper;
+
+/**
+ * Convenience class for dealing with {@link CursorPagingQuery} requests that return a list of {@link Sound}s, offering
+ * the same field selection and mapping options as {@link SoundPagingQuery}.
+ *
+ * @param <Q> The type of the {@link SoundCursorPagingQuery} (required to implement Fluent API elements)
+ */
+public abstract class SoundCursorPagingQuery<Q extends SoundCursorPagingQuery<Q>> extends CursorPagingQuery<Q, Sound> {
+
+	/** The fields selected by the query, and the mapper mapping them. */
+	private final SoundProjection projection;
+
+	/**
+	 * @param httpRequestMethod HTTP method to use for query
+	 * @param path The URI path to the API endpoint
+	 */
+	protected SoundCursorPagingQuery(final HTTPRequestMethod httpRequestMethod, final String path) {
+		this(httpRequestMethod, path, new SoundMapper());
+	}
+
+	/**
+	 * @param httpRequestMethod HTTP method to use for query
+	 * @param path The URI path to the API endpoint
+	 * @param soundMapper The {@link SoundMapper} used to map the individual items in the results
+	 */
+	private SoundCursorPagingQuery(
+			final HTTPRequestMethod httpRequestMethod, final String path, final SoundMapper soundMapper) {
+		super(httpRequestMethod, path, new PagingResponseMapper<>(soundMapper));
+		this.projection = new SoundProjection(soundMapper);
+	}
+
+	@Override
+	public Map<String, Object> getQueryParameters() {
+		final Map<String, Object> params = super.getQueryParameters();
+		projection.addQueryParameters(params);
+
+		return params;
+	}
+
+	/**
+	 * Specify whether the {@link Sound}s returned should decode their fields lazily, using the Fluent API approach.
+	 *
+	 * @param lazyMapping Whether fields should be decoded lazily
+	 * @return The current query
+	 */
+	@SuppressWarnings("unchecked")
+	public Q lazyMapping(final boolean lazyMapping) {
+		getSoundMapper().setLazy(lazyMapping);
+		return (Q) this;
+	}
+
+	/**
+	 * @return The {@link SoundMapper} used to map the individual items in the results
+	 */
+	protected SoundMapper getSoundMapper() {
+		return projection.getSoundMapper();
+	}
+
+	/**
+	 * Specify a field to return in the results using the Fluent API approach.
+	 *
+	 * @param field The field to include in the results
+	 * @return The current query
+	 */
+	@SuppressWarnings("unchecked")
+	public Q includeField(final String field) {
+		projection.includeField(field);
+		return (Q) this;
+	}
+
+	/**
+	 * Specify the set of fields to return in the results. Defined using the Fluent API approach.
+	 *
+	 * @param fields The fields to return
+	 * @return The current query
+	 */
+	@SuppressWarnings("unchecked")
+	public Q includeFields(final Set<String> fields) {
+		projection.includeFields(fields);
+		return (Q) this;
+	}
+}
@@ -15,7 +15,6 @@
  */
 package com.sonoport.freesound.query;
 
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -35,34 +34,55 @@ public abstract class SoundPagingQuery<Q extends SoundPagingQuery<Q>> extends Pa
 	/** Name of parameter to include the list of fields to return, if specified. */
 	public static final String FIELDS_PARAMETER = "fields";
 
-	/** The fields to retrieve as part of the query. If values are specified here, only those fields will be returned.
-	 * If no values are specified, freesound will return a default set. */
-	private Set<String> fields;
+	/** The fields selected by the query, and the mapper mapping them. */
+	private final SoundProjection projection;
 
 	/**
 	 * @param httpRequestMethod HTTP method to use for query
 	 * @param path The URI path to the API endpoint
 	 */
 	protected SoundPagingQuery(final HTTPRequestMethod httpRequestMethod, final String path) {
-		super(httpRequestMethod, path, new PagingResponseMapper<>(new SoundMapper()));
+		this(httpRequestMethod, path, new SoundMapper());
+	}
+
+	/**
+	 * @param httpRequestMethod HTTP method to use for query
+	 * @param path The URI path to the API endpoint
+	 * @param soundMapper The {@link SoundMapper} used to map the individual items in the results
+	 */
+	private SoundPagingQuery(
+			final HTTPRequestMethod httpRequestMethod, final String path, final SoundMapper soundMapper) {
+		super(httpRequestMethod, path, new PagingResponseMapper<>(soundMapper));
+		this.projection = new SoundProjection(soundMapper);
 	}
 
 	@Override
 	public Map<String, Object> getQueryParameters() {
 		final Map<String, Object> params = super.getQueryParameters();
+		projection.addQueryParameters(params);
 
-		if ((fields != null) && !fields.isEmpty()) {
-			final StringBuilder fieldsString = new StringBuilder();
-			for (final String field : fields) {
-				fieldsString.append(field.trim());
-				fieldsString.append(',');
-			}
-			fieldsString.deleteCharAt(fieldsString.lastIndexOf(","));
+		return params;
+	}
 
-			params.put(FIELDS_PARAMETER, fieldsString.toString());
-		}
+	/**
+	 * Specify whether the {@link Sound}s returned should decode their fields lazily (i.e. the first time each is
+	 * accessed), using the Fluent API approach. This reduces mapping costs when many fields are requested but only a
+	 * few of them are read.
+	 *
+	 * @param lazyMapping Whether fields should be decoded lazily
+	 * @return The current query
+	 */
+	@SuppressWarnings("unchecked")
+	public Q lazyMapping(final boolean lazyMapping) {
+		getSoundMapper().setLazy(lazyMapping);
+		return (Q) this;
+	}
 
-		return params;
+	/**
+	 * @return The {@link SoundMapper} used to map the individual items in the results
+	 */
+	protected SoundMapper getSoundMapper() {
+		return projection.getSoundMapper();
 	}
 
 	/**
@@ -75,14 +95,7 @@ public abstract class SoundPagingQuery<Q extends SoundPagingQuery<Q>> extends Pa
 	 */
 	@SuppressWarnings("unchecked")
 	public Q includeField(final String field) {
-		if (this.fields == null) {
-			this.fields = new HashSet<>();
-		}
-
-		if (field != null) {
-			this.fields.add(field);
-		}
-
+		projection.includeField(field);
 		return (Q) this;
 	}
 
@@ -94,14 +107,7 @@ public abstract class SoundPagingQuery<Q extends SoundPagingQuery<Q>> extends Pa
 	 */
 	@SuppressWarnings("unchecked")
 	public Q includeFields(final Set<String> fields) {
-		if (this.fields == null) {
-			this.fields = new HashSet<>();
-		}
-
-		if (fields != null) {
-			this.fields.addAll(fields);
-		}
-
+		projection.includeFields(fields);
 		return (Q) this;
 	}
 }
\ No newline at end of file
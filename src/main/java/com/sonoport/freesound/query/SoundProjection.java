@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.sonoport.freesound.response.Sound;
+import com.sonoport.freesound.response.mapping.SoundMapper;
+
+/**
+ * The fields selected by a query returning a list of {@link Sound}s, and the {@link SoundMapper} mapping them. Shared
+ * by {@link SoundPagingQuery} and {@link SoundCursorPagingQuery}, which extend different base classes but offer the
+ * same field selection and mapping options.
+ */
+final class SoundProjection {
+
+	/** The {@link SoundMapper} used to map the individual items in the results. */
+	private final SoundMapper soundMapper;
+
+	/** The fields to retrieve as part of the query. If values are specified here, only those fields will be returned,
+	 * and only those fields will be mapped onto the resulting {@link Sound}s. If no values are specified, freesound
+	 * will return a default set. */
+	private Set<String> fields;
+
+	/**
+	 * @param soundMapper The {@link SoundMapper} used to map the individual items in the results
+	 */
+	SoundProjection(final SoundMapper soundMapper) {
+		this.soundMapper = soundMapper;
+	}
+
+	/**
+	 * Add the list of fields to return (if any have been specified) to the parameters of the query.
+	 *
+	 * @param params The parameters of the query
+	 */
+	void addQueryParameters(final Map<String, Object> params) {
+		if ((fields != null) && !fields.isEmpty()) {
+			final StringBuilder fieldsString = new StringBuilder();
+			for (final String field : fields) {
+				if (fieldsString.length() > 0) {
+					fieldsString.append(',');
+				}
+				fieldsString.append(field.trim());
+			}
+
+			params.put(SoundPagingQuery.FIELDS_PARAMETER, fieldsString.toString());
+		}
+	}
+
+	/**
+	 * Add a field to those returned, and to the mapping plan of the {@link SoundMapper}.
+	 *
+	 * @param field The field to include in the results (ignored if null)
+	 */
+	void includeField(final String field) {
+		if (this.fields == null) {
+			this.fields = new HashSet<>();
+		}
+
+		if (field != null) {
+			this.fields.add(field);
+		}
+
+		soundMapper.setRequestedFields(this.fields);
+	}
+
+	/**
+	 * Add a set of fields to those returned, and to the mapping plan of the {@link SoundMapper}.
+	 *
+	 * @param fields The fields to include in the results (ignored if null)
+	 */
+	void includeFields(final Set<String> fields) {
+		if (this.fields == null) {
+			this.fields = new HashSet<>();
+		}
+
+		if (fields != null) {
+			this.fields.addAll(fields);
+		}
+
+		soundMapper.setRequestedFields(this.fields);
+	}
+
+	/**
+	 * @return the soundMapper
+	 */
+	SoundMapper getSoundMapper() {
+		return soundMapper;
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.search;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.sonoport.freesound.query.HTTPRequestMethod;
+import com.sonoport.freesound.query.SoundCursorPagingQuery;
+
+/**
+ * Class used to represent a Combined Search of the freesound.org content library, applying both text and audio
+ * descriptor criteria in a single query. Results are paged using a cursor: see
+ * {@link com.sonoport.freesound.FreesoundClient#moreResults(com.sonoport.freesound.query.CursorPagingQuery,
+ * com.sonoport.freesound.response.CursorPagingResponse)}.
+ *
+ * Full details of the query can be found at http://www.freesound.org/docs/api/resources_apiv2.html#combined-search.
+ */
+public class CombinedSearch extends SoundCursorPagingQuery<CombinedSearch> {
+
+	/** The name of the query parameter to pass the search string over as. */
+	private static final String SEARCH_STRING_PARAMETER = "query";
+
+	/** The name of the query parameter to pass the target over as. */
+	private static final String TARGET_PARAMETER = "target";
+
+	/** The name of the query parameter to pass the filters over as. */
+	private static final String FILTER_PARAMETER = "filter";
+
+	/** The name of the query parameter to pass the descriptor filters over as. */
+	private static final String DESCRIPTORS_FILTER_PARAMETER = "descriptors_filter";
+
+	/** The string to use as the text search criteria. */
+	private String searchString;
+
+	/** The value of the 'target' parameter - either a serialised {@link DescriptorTarget}, or a sound identifier. */
+	private String target;
+
+	/** Collection of filters that should be applied as part of the query. */
+	private final FilterParameter filters = new FilterParameter();
+
+	/** Collection of filters on descriptor values that should be applied as part of the query. */
+	private final FilterParameter descriptorsFilters = new FilterParameter();
+
+	/**
+	 * No-arg constructor.
+	 */
+	public CombinedSearch() {
+		super(HTTPRequestMethod.GET, "/search/combined/");
+	}
+
+	/**
+	 * Add the search string using the Fluent API approach.
+	 *
+	 * @param searchString The search string to use in the query
+	 * @return The current query
+	 */
+	public CombinedSearch searchString(final String searchString) {
+		this.searchString = searchString;
+		return this;
+	}
+
+	/**
+	 * Add a filter to the query using the Fluent API approach. A {@link GeoDistanceFilter} cannot be added alongside
+	 * any other filter.
+	 *
+	 * @param filter The filter to add
+	 * @return The current query
+	 */
+	public CombinedSearch filter(final FilterExpression filter) {
+		filters.add(filter);
+		return this;
+	}
+
+	/**
+	 * Specify the descriptor values to use as the target of the search using the Fluent API approach.
+	 *
+	 * @param target The descriptor values to use as the target of the search
+	 * @return The current query
+	 */
+	public CombinedSearch target(final DescriptorTarget target) {
+		if (target == null) {
+			throw new IllegalArgumentException("Must specify a target");
+		}
+
+		this.target = target.getTargetString();
+		return this;
+	}
+
+	/**
+	 * Specify a sound whose descriptor values should be used as the target of the search using the Fluent API approach.
+	 *
+	 * @param soundId Identifier of the sound to use as the target
+	 * @return The current query
+	 */
+	public CombinedSearch target(final int soundId) {
+		this.target = String.valueOf(soundId);
+		return this;
+	}
+
+	/**
+	 * Add a filter on descriptor values to the query using the Fluent API approach.
+	 *
+	 * @param filter The filter to add
+	 * @return The current query
+	 */
+	public CombinedSearch descriptorsFilter(final FilterExpression filter) {
+		descriptorsFilters.add(filter);
+		return this;
+	}
+
+	@Override
+	public Map<String, Object> getQueryParameters() {
+		final Map<String, Object> params = super.getQueryParameters();
+
+		if (searchString != null) {
+			params.put(SEARCH_STRING_PARAMETER, searchString);
+		}
+
+		if (target != null) {
+			params.put(TARGET_PARAMETER, target);
+		}
+
+		if (!filters.isEmpty()) {
+			params.put(FILTER_PARAMETER, filters.getValue());
+		}
+
+		if (!descriptorsFilters.isEmpty()) {
+			params.put(DESCRIPTORS_FILTER_PARAMETER, descriptorsFilters.getValue());
+		}
+
+		return params;
+	}
+
+	@Override
+	public Map<String, String> getRouteParameters() {
+		return Collections.emptyMap();
+	}
+
+}
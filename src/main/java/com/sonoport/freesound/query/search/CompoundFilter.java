@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link FilterExpression} combining a number of other expressions with a boolean operator. Operands are held in their
+ * natural (serialised) order, so that the same set of operands always produces the same expression regardless of the
+ * order in which they were specified.
+ */
+public class CompoundFilter extends FilterExpression {
+
+	/**
+	 * The boolean operators expressions can be combined with.
+	 */
+	public enum Operator {
+
+		/** All operands must match. */
+		AND,
+
+		/** Any of the operands must match. */
+		OR;
+	}
+
+	/** The operator used to combine the operands. */
+	private final Operator operator;
+
+	/** The expressions being combined. */
+	private final List<FilterExpression> operands;
+
+	/**
+	 * @param operator The operator used to combine the operands
+	 * @param operands The expressions being combined
+	 */
+	public CompoundFilter(final Operator operator, final Collection<FilterExpression> operands) {
+		this(operator, sortedOperands(operator, operands));
+	}
+
+	/**
+	 * @param operator The operator used to combine the operands
+	 * @param sortedOperands The expressions being combined, validated and in their natural order
+	 */
+	private CompoundFilter(final Operator operator, final List<FilterExpression> sortedOperands) {
+		super(serialise(operator, sortedOperands));
+		this.operator = operator;
+		this.operands = Collections.unmodifiableList(sortedOperands);
+	}
+
+	/**
+	 * Validate the operands and sort them into their natural order.
+	 *
+	 * @param operator The operator used to combine the operands
+	 * @param operands The expressions being combined
+	 * @return Sorted copy of the operands
+	 */
+	private static List<FilterExpression> sortedOperands(
+			final Operator operator, final Collection<FilterExpression> operands) {
+		if (operator == null) {
+			throw new IllegalArgumentException("Must specify an operator");
+		} else if ((operands == null) || operands.isEmpty()) {
+			throw new IllegalArgumentException("Must specify at least one expression to combine");
+		}
+
+		final List<FilterExpression> sorted = new ArrayList<>(operands);
+		if (sorted.contains(null)) {
+			throw new IllegalArgumentException("Cannot combine null expressions");
+		}
+
+		for (final FilterExpression operand : sorted) {
+			if (operand instanceof GeoDistanceFilter) {
+				throw new IllegalArgumentException("Geographic distance filters cannot be combined with other filters");
+			}
+		}
+
+		Collections.sort(sorted);
+
+		return sorted;
+	}
+
+	/**
+	 * Serialise the combination of expressions to the syntax expected by the API.
+	 *
+	 * @param operator The operator used to combine the operands
+	 * @param operands The expressions being combined
+	 * @return The serialised expression
+	 */
+	private static String serialise(final Operator operator, final List<FilterExpression> operands) {
+		final StringBuilder filterString = new StringBuilder("(");
+		for (int i = 0; i < operands.size(); i++) {
+			if (i > 0) {
+				filterString.append(' ').append(operator.name()).append(' ');
+			}
+			filterString.append(operands.get(i).getFilterString());
+		}
+		filterString.append(')');
+
+		return filterString.toString();
+	}
+
+	/**
+	 * @return the operator
+	 */
+	public Operator getOperator() {
+		return operator;
+	}
+
+	/**
+	 * @return the operands
+	 */
+	public List<FilterExpression> getOperands() {
+		return operands;
+	}
+}
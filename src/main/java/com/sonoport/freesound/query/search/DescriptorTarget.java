@@ -0,0 +1,222 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.search;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import com.sonoport.freesound.query.other.AvailableAudioDescriptorsQuery;
+import com.sonoport.freesound.response.AudioDescriptors;
+
+/**
+ * Immutable representation of the target of a {@link ContentSearch}, consisting of a value for each of a number of
+ * audio descriptors. Sounds are returned in order of their similarity to the target.
+ *
+ * Targets are built using a {@link DescriptorTarget.Builder}, e.g.
+ *
+ * <pre>
+ * final DescriptorTarget target = new DescriptorTarget.Builder()
+ *         .descriptor("lowlevel.pitch.mean", 220)
+ *         .descriptor("lowlevel.pitch_salience.mean", 1.0)
+ *         .build(freesoundClient.getAudioDescriptors());
+ * </pre>
+ *
+ * Descriptors are always serialised in the same order, regardless of the order in which they were added.
+ */
+public final class DescriptorTarget {
+
+	/** The target, serialised to the syntax expected by the API. */
+	private final String targetString;
+
+	/**
+	 * @param targetString The target, serialised to the syntax expected by the API
+	 */
+	private DescriptorTarget(final String targetString) {
+		this.targetString = targetString;
+	}
+
+	/**
+	 * @return The target, serialised to the syntax expected by the API
+	 */
+	public String getTargetString() {
+		return targetString;
+	}
+
+	@Override
+	public int hashCode() {
+		return targetString.hashCode();
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof DescriptorTarget)) {
+			return false;
+		}
+
+		return targetString.equals(((DescriptorTarget) obj).targetString);
+	}
+
+	@Override
+	public String toString() {
+		return targetString;
+	}
+
+	/**
+	 * Builder used to construct {@link DescriptorTarget}s.
+	 */
+	public static class Builder {
+
+		/** Values of one-dimensional descriptors, keyed on descriptor name. */
+		private final Map<String, Double> oneDimensionalValues = new TreeMap<>();
+
+		/** Values of multi-dimensional descriptors, keyed on descriptor name. */
+		private final Map<String, double[]> multiDimensionalValues = new TreeMap<>();
+
+		/**
+		 * Specify the target value of a one-dimensional descriptor (e.g. <code>lowlevel.pitch.mean</code>).
+		 *
+		 * @param descriptor The name of the descriptor
+		 * @param value The target value
+		 * @return The current builder
+		 */
+		public Builder descriptor(final String descriptor, final double value) {
+			validateName(descriptor);
+			if (Double.isNaN(value) || Double.isInfinite(value)) {
+				throw new IllegalArgumentException(String.format("Invalid value for descriptor %s", descriptor));
+			}
+
+			multiDimensionalValues.remove(descriptor);
+			oneDimensionalValues.put(descriptor, Double.valueOf(value));
+
+			return this;
+		}
+
+		/**
+		 * Specify the target values of a multi-dimensional descriptor (e.g. <code>lowlevel.mfcc.mean</code>).
+		 *
+		 * @param descriptor The name of the descriptor
+		 * @param values The target values
+		 * @return The current builder
+		 */
+		public Builder descriptor(final String descriptor, final double[] values) {
+			validateName(descriptor);
+			if ((values == null) || (values.length == 0)) {
+				throw new IllegalArgumentException(String.format("No values specified for descriptor %s", descriptor));
+			}
+			for (final double value : values) {
+				if (Double.isNaN(value) || Double.isInfinite(value)) {
+					throw new IllegalArgumentException(String.format("Invalid value for descriptor %s", descriptor));
+				}
+			}
+
+			oneDimensionalValues.remove(descriptor);
+			multiDimensionalValues.put(descriptor, values.clone());
+
+			return this;
+		}
+
+		/**
+		 * Build the target, without checking the descriptors used are known to the API.
+		 *
+		 * @return The target
+		 */
+		public DescriptorTarget build() {
+			if (oneDimensionalValues.isEmpty() && multiDimensionalValues.isEmpty()) {
+				throw new IllegalArgumentException("Must specify at least one descriptor");
+			}
+
+			final Map<String, String> serialisedValues = new TreeMap<>();
+			for (final Entry<String, Double> value : oneDimensionalValues.entrySet()) {
+				serialisedValues.put(value.getKey(), FilterExpression.formatNumber(value.getValue()));
+			}
+
+			for (final Entry<String, double[]> values : multiDimensionalValues.entrySet()) {
+				final StringBuilder valuesString = new StringBuilder("[");
+				for (int i = 0; i < values.getValue().length; i++) {
+					if (i > 0) {
+						valuesString.append(',');
+					}
+					valuesString.append(FilterExpression.formatNumber(values.getValue()[i]));
+				}
+				valuesString.append(']');
+
+				serialisedValues.put(values.getKey(), valuesString.toString());
+			}
+
+			final StringBuilder targetString = new StringBuilder();
+			for (final Entry<String, String> value : serialisedValues.entrySet()) {
+				if (targetString.length() > 0) {
+					targetString.append(' ');
+				}
+				targetString.append(value.getKey()).append(':').append(value.getValue());
+			}
+
+			return new DescriptorTarget(targetString.toString());
+		}
+
+		/**
+		 * Build the target, ensuring that each descriptor used is known to the API and has the correct number of
+		 * dimensions. The number of values given for a multi-dimensional descriptor is checked where its size is known
+		 * (see {@link AudioDescriptors#getDimensionCount(String)}).
+		 *
+		 * @param audioDescriptors The descriptors available, as returned by {@link AvailableAudioDescriptorsQuery}
+		 * @return The target
+		 */
+		public DescriptorTarget build(final AudioDescriptors audioDescriptors) {
+			if (audioDescriptors == null) {
+				throw new IllegalArgumentException("Must specify the available audio descriptors");
+			}
+
+			for (final String descriptor : oneDimensionalValues.keySet()) {
+				if (!audioDescriptors.isOneDimensional(descriptor)) {
+					throw new IllegalArgumentException(
+							String.format("%s is not a known one-dimensional descriptor", descriptor));
+				}
+			}
+
+			for (final Entry<String, double[]> values : multiDimensionalValues.entrySet()) {
+				final String descriptor = values.getKey();
+				if (!audioDescriptors.isMultiDimensional(descriptor)) {
+					throw new IllegalArgumentException(
+							String.format("%s is not a known multi-dimensional descriptor", descriptor));
+				}
+
+				final int dimensionCount = audioDescriptors.getDimensionCount(descriptor);
+				if ((dimensionCount > 0) && (values.getValue().length != dimensionCount)) {
+					throw new IllegalArgumentException(String.format(
+							"%s takes %d values, not %d", descriptor, dimensionCount, values.getValue().length));
+				}
+			}
+
+			return build();
+		}
+
+		/**
+		 * Ensure a descriptor name has been specified.
+		 *
+		 * @param descriptor The name of the descriptor
+		 */
+		private static void validateName(final String descriptor) {
+			if ((descriptor == null) || descriptor.trim().isEmpty()) {
+				throw new IllegalArgumentException("Must specify a descriptor name");
+			}
+		}
+	}
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.search;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import com.sonoport.freesound.License;
+
+/**
+ * Immutable representation of a filter expression that can be applied to a search, as specified by the 'filter'
+ * parameter at http://www.freesound.org/docs/api/resources_apiv2.html#text-search.
+ *
+ * Expressions are validated when they are built, and serialised to the syntax expected by the API once at that point.
+ * Expressions are compared on their serialised form, so equivalent expressions are equal regardless of how they were
+ * constructed, and collections of expressions can be ordered deterministically.
+ *
+ * The static factory methods of this class provide a typed way of building expressions, e.g.
+ *
+ * <pre>
+ * FilterExpression.and(
+ *         FilterExpression.range(NumericField.DURATION, 1, 5),
+ *         FilterExpression.or(FilterExpression.tag("drum"), FilterExpression.tag("percussion")),
+ *         FilterExpression.not(FilterExpression.license(License.CC_ATTRIBUTION_NONCOMMERCIAL)));
+ * </pre>
+ */
+public abstract class FilterExpression implements Comparable<FilterExpression> {
+
+	/** Characters with a special meaning in the filter syntax, requiring values containing them to be quoted. */
+	private static final String SPECIAL_CHARACTERS = "\"():[]{}^~*?+-!&|/";
+
+	/** The expression, serialised to the syntax expected by the API. */
+	private final String filterString;
+
+	/**
+	 * @param filterString The expression, serialised to the syntax expected by the API
+	 */
+	protected FilterExpression(final String filterString) {
+		this.filterString = filterString;
+	}
+
+	/**
+	 * Build an expression matching sounds with a given value for a field. The value is quoted if required.
+	 *
+	 * @param field The field to filter on
+	 * @param value The value to match
+	 * @return The expression
+	 */
+	public static SearchFilter term(final String field, final String value) {
+		return new SearchFilter(field, quote(value));
+	}
+
+	/**
+	 * Build an expression matching sounds with a given tag.
+	 *
+	 * @param tag The tag to match
+	 * @return The expression
+	 */
+	public static SearchFilter tag(final String tag) {
+		return term("tag", tag);
+	}
+
+	/**
+	 * Build an expression matching sounds available under a given license.
+	 *
+	 * @param license The license to match
+	 * @return The expression
+	 */
+	public static SearchFilter license(final License license) {
+		if (license == null) {
+			throw new IllegalArgumentException("Must specify a license to filter on");
+		}
+
+		return term("license", license.getDescription());
+	}
+
+	/**
+	 * Build an expression matching sounds whose value of a numeric field falls within an (inclusive) range.
+	 *
+	 * @param field The field to filter on
+	 * @param from The lower bound of the range (or null for no lower bound)
+	 * @param to The upper bound of the range (or null for no upper bound)
+	 * @return The expression
+	 */
+	public static RangeFilter range(final NumericField field, final Number from, final Number to) {
+		if (field == null) {
+			throw new IllegalArgumentException("Must specify a field to filter on");
+		}
+
+		return new RangeFilter(field.getFieldName(), from, to);
+	}
+
+	/**
+	 * Build an expression matching sounds whose value of a named field falls within an (inclusive) range. This can be
+	 * used for fields not covered by {@link NumericField}, such as audio descriptors.
+	 *
+	 * @param field The name of the field to filter on
+	 * @param from The lower bound of the range (or null for no lower bound)
+	 * @param to The upper bound of the range (or null for no upper bound)
+	 * @return The expression
+	 */
+	public static RangeFilter range(final String field, final Number from, final Number to) {
+		return new RangeFilter(field, from, to);
+	}
+
+	/**
+	 * Build an expression matching sounds that match all of the given expressions.
+	 *
+	 * @param expressions The expressions to combine
+	 * @return The expression
+	 */
+	public static FilterExpression and(final FilterExpression... expressions) {
+		return combine(CompoundFilter.Operator.AND, expressions);
+	}
+
+	/**
+	 * Build an expression matching sounds that match any of the given expressions.
+	 *
+	 * @param expressions The expressions to combine
+	 * @return The expression
+	 */
+	public static FilterExpression or(final FilterExpression... expressions) {
+		return combine(CompoundFilter.Operator.OR, expressions);
+	}
+
+	/**
+	 * Build an expression matching sounds that do not match a given expression.
+	 *
+	 * @param expression The expression to negate
+	 * @return The expression
+	 */
+	public static NegatedFilter not(final FilterExpression expression) {
+		return new NegatedFilter(expression);
+	}
+
+	/**
+	 * Build an expression matching geotagged sounds within a given distance of a point. Note that the API does not
+	 * allow this type of expression to be combined with others.
+	 *
+	 * @param latitude Latitude of the point
+	 * @param longitude Longitude of the point
+	 * @param distanceKm The maximum distance from the point, in kilometres
+	 * @return The expression
+	 */
+	public static GeoDistanceFilter geoDistance(
+			final double latitude, final double longitude, final double distanceKm) {
+		return new GeoDistanceFilter(latitude, longitude, distanceKm);
+	}
+
+	/**
+	 * Build an expression matching geotagged sounds within a bounding box.
+	 *
+	 * @param minimumLatitude The southern edge of the box
+	 * @param minimumLongitude The western edge of the box
+	 * @param maximumLatitude The northern edge of the box
+	 * @param maximumLongitude The eastern edge of the box
+	 * @return The expression
+	 */
+	public static GeoBoundingBoxFilter geoBoundingBox(
+			final double minimumLatitude,
+			final double minimumLongitude,
+			final double maximumLatitude,
+			final double maximumLongitude) {
+		return new GeoBoundingBoxFilter(minimumLatitude, minimumLongitude, maximumLatitude, maximumLongitude);
+	}
+
+	/**
+	 * Combine a number of expressions using a boolean operator. A single expression is returned unchanged.
+	 *
+	 * @param operator The operator to combine the expressions with
+	 * @param expressions The expressions to combine
+	 * @return The combined expression
+	 */
+	private static FilterExpression combine(
+			final CompoundFilter.Operator operator, final FilterExpression... expressions) {
+		if ((expressions == null) || (expressions.length == 0)) {
+			throw new IllegalArgumentException("Must specify at least one expression to combine");
+		}
+
+		final List<FilterExpression> operands = Arrays.asList(expressions);
+		if (operands.size() == 1) {
+			if (operands.get(0) == null) {
+				throw new IllegalArgumentException("Cannot combine null expressions");
+			}
+
+			return operands.get(0);
+		}
+
+		return new CompoundFilter(operator, operands);
+	}
+
+	/**
+	 * Quote a value for use in an expression, if it contains whitespace or characters with a special meaning in the
+	 * filter syntax.
+	 *
+	 * @param value The value to quote
+	 * @return The value, quoted if necessary
+	 */
+	static String quote(final String value) {
+		if ((value == null) || value.trim().isEmpty()) {
+			throw new IllegalArgumentException("Must specify a value to filter on");
+		}
+
+		boolean requiresQuoting = false;
+		for (int i = 0; (i < value.length()) && !requiresQuoting; i++) {
+			final char character = value.charAt(i);
+			requiresQuoting =
+					Character.isWhitespace(character) || (SPECIAL_CHARACTERS.indexOf(character) >= 0);
+		}
+
+		if (!requiresQuoting) {
+			return value;
+		}
+
+		return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+	}
+
+	/**
+	 * Format a numeric value for use in an expression.
+	 *
+	 * @param value The value to format
+	 * @return String representation of the value
+	 */
+	static String formatNumber(final Number value) {
+		final double doubleValue = value.doubleValue();
+		if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+			throw new IllegalArgumentException(String.format("Cannot filter on non-finite value %s", value));
+		}
+
+		final BigDecimal decimal = new BigDecimal(value.toString());
+		if (decimal.signum() == 0) {
+			return "0";
+		}
+
+		return decimal.stripTrailingZeros().toPlainString();
+	}
+
+	/**
+	 * @return The expression, serialised to the syntax expected by the API
+	 */
+	public String getFilterString() {
+		return filterString;
+	}
+
+	@Override
+	public int compareTo(final FilterExpression other) {
+		return filterString.compareTo(other.filterString);
+	}
+
+	@Override
+	public int hashCode() {
+		return filterString.hashCode();
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof FilterExpression)) {
+			return false;
+		}
+
+		return filterString.equals(((FilterExpression) obj).filterString);
+	}
+
+	@Override
+	public String toString() {
+		return filterString;
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.search;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The collection of {@link FilterExpression}s making up a filter parameter of a search query. Expressions are held in
+ * their natural order, so the same set of expressions always produces the same parameter value, and the value is only
+ * rebuilt when the collection changes.
+ */
+final class FilterParameter {
+
+	/** The expressions making up the parameter. */
+	private final Set<FilterExpression> expressions = new TreeSet<>();
+
+	/** The value of the parameter, built from {@link #expressions} when first required. */
+	private String value;
+
+	/**
+	 * Add an expression to the parameter. As the expressions are joined into a single value, a
+	 * {@link GeoDistanceFilter} cannot be added alongside any other expression.
+	 *
+	 * @param expression The expression to add
+	 */
+	void add(final FilterExpression expression) {
+		if (expression == null) {
+			throw new IllegalArgumentException("Cannot apply a null filter");
+		} else if (!expressions.isEmpty() && !expressions.contains(expression)
+				&& ((expression instanceof GeoDistanceFilter)
+						|| (expressions.iterator().next() instanceof GeoDistanceFilter))) {
+			throw new IllegalArgumentException("Geographic distance filters cannot be combined with other filters");
+		}
+
+		if (expressions.add(expression)) {
+			value = null;
+		}
+	}
+
+	/**
+	 * @param expression The expression to look for
+	 * @return Whether the parameter contains the expression
+	 */
+	boolean contains(final FilterExpression expression) {
+		return expressions.contains(expression);
+	}
+
+	/**
+	 * @return The expressions making up the parameter, in their natural order
+	 */
+	Set<FilterExpression> getExpressions() {
+		return Collections.unmodifiableSet(expressions);
+	}
+
+	/**
+	 * @return Whether no expressions have been added
+	 */
+	boolean isEmpty() {
+		return expressions.isEmpty();
+	}
+
+	/**
+	 * @return The expressions making up the parameter, separated by spaces
+	 */
+	String getValue() {
+		if (value == null) {
+			final StringBuilder filterString = new StringBuilder();
+			for (final FilterExpression expression : expressions) {
+				if (filterString.length() > 0) {
+					filterString.append(' ');
+				}
+				filterString.append(expression.getFilterString());
+			}
+
+			value = filterString.toString();
+		}
+
+		return value;
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.search;
+
+/**
+ * {@link FilterExpression} matching geotagged sounds within a bounding box, e.g.
+ * <code>geotag:"Intersects(-74.093 41.042 -69.347 44.558)"</code>.
+ */
+public class GeoBoundingBoxFilter extends FilterExpression {
+
+	/** The southern edge of the box. */
+	private final double minimumLatitude;
+
+	/** The western edge of the box. */
+	private final double minimumLongitude;
+
+	/** The northern edge of the box. */
+	private final double maximumLatitude;
+
+	/** The eastern edge of the box. */
+	private final double maximumLongitude;
+
+	/**
+	 * @param minimumLatitude The southern edge of the box
+	 * @param minimumLongitude The western edge of the box
+	 * @param maximumLatitude The northern edge of the box
+	 * @param maximumLongitude The eastern edge of the box
+	 */
+	public GeoBoundingBoxFilter(
+			final double minimumLatitude,
+			final double minimumLongitude,
+			final double maximumLatitude,
+			final double maximumLongitude) {
+		super(serialise(minimumLatitude, minimumLongitude, maximumLatitude, maximumLongitude));
+		this.minimumLatitude = minimumLatitude;
+		this.minimumLongitude = minimumLongitude;
+		this.maximumLatitude = maximumLatitude;
+		this.maximumLongitude = maximumLongitude;
+	}
+
+	/**
+	 * Validate the box and serialise it to the syntax expected by the API.
+	 *
+	 * @param minimumLatitude The southern edge of the box
+	 * @param minimumLongitude The western edge of the box
+	 * @param maximumLatitude The northern edge of the box
+	 * @param maximumLongitude The eastern edge of the box
+	 * @return The serialised expression
+	 */
+	private static String serialise(
+			final double minimumLatitude,
+			final double minimumLongitude,
+			final double maximumLatitude,
+			final double maximumLongitude) {
+		validateCoordinates(minimumLatitude, minimumLongitude);
+		validateCoordinates(maximumLatitude, maximumLongitude);
+		if (minimumLatitude > maximumLatitude) {
+			throw new IllegalArgumentException("Minimum latitude is greater than maximum latitude");
+		}
+
+		return String.format(
+				"geotag:\"Intersects(%s %s %s %s)\"",
+				formatNumber(minimumLongitude),
+				formatNumber(minimumLatitude),
+				formatNumber(maximumLongitude),
+				formatNumber(maximumLatitude));
+	}
+
+	/**
+	 * Ensure a pair of coordinates represent a valid location.
+	 *
+	 * @param latitude The latitude to check
+	 * @param longitude The longitude to check
+	 */
+	static void validateCoordinates(final double latitude, final double longitude) {
+		if (!((latitude >= -90) && (latitude <= 90))) {
+			throw new IllegalArgumentException(String.format("Latitude %s is outside range -90 to 90", latitude));
+		} else if (!((longitude >= -180) && (longitude <= 180))) {
+			throw new IllegalArgumentException(String.format("Longitude %s is outside range -180 to 180", longitude));
+		}
+	}
+
+	/**
+	 * @return the minimumLatitude
+	 */
+	public double getMinimumLatitude() {
+		return minimumLatitude;
+	}
+
+	/**
+	 * @return the minimumLongitude
+	 */
+	public double getMinimumLongitude() {
+		return minimumLongitude;
+	}
+
+	/**
+	 * @return the maximumLatitude
+	 */
+	public double getMaximumLatitude() {
+		return maximumLatitude;
+	}
+
+	/**
+	 * @return the maximumLongitude
+	 */
+	public double getMaximumLongitude() {
+		return maximumLongitude;
+	}
+}
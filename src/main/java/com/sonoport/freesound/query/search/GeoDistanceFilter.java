@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.search;
+
+/**
+ * {@link FilterExpression} matching geotagged sounds within a given distance of a point, e.g.
+ * <code>{!geofilt sfield=geotag pt=41.3833,2.1833 d=10}</code>. The API does not permit this type of expression to be
+ * combined with others.
+ */
+public class GeoDistanceFilter extends FilterExpression {
+
+	/** Latitude of the point. */
+	private final double latitude;
+
+	/** Longitude of the point. */
+	private final double longitude;
+
+	/** The maximum distance from the point, in kilometres. */
+	private final double distanceKm;
+
+	/**
+	 * @param latitude Latitude of the point
+	 * @param longitude Longitude of the point
+	 * @param distanceKm The maximum distance from the point, in kilometres
+	 */
+	public GeoDistanceFilter(final double latitude, final double longitude, final double distanceKm) {
+		super(serialise(latitude, longitude, distanceKm));
+		this.latitude = latitude;
+		this.longitude = longitude;
+		this.distanceKm = distanceKm;
+	}
+
+	/**
+	 * Validate the parameters and serialise them to the syntax expected by the API.
+	 *
+	 * @param latitude Latitude of the point
+	 * @param longitude Longitude of the point
+	 * @param distanceKm The maximum distance from the point, in kilometres
+	 * @return The serialised expression
+	 */
+	private static String serialise(final double latitude, final double longitude, final double distanceKm) {
+		GeoBoundingBoxFilter.validateCoordinates(latitude, longitude);
+		if (!(distanceKm > 0) || Double.isInfinite(distanceKm)) {
+			throw new IllegalArgumentException("Distance must be greater than 0");
+		}
+
+		return String.format(
+				"{!geofilt sfield=geotag pt=%s,%s d=%s}",
+				formatNumber(latitude),
+				formatNumber(longitude),
+				formatNumber(distanceKm));
+	}
+
+	/**
+	 * @return the latitude
+	 */
+	public double getLatitude() {
+		return latitude;
+	}
+
+	/**
+	 * @return the longitude
+	 */
+	public double getLongitude() {
+		return longitude;
+	}
+
+	/**
+	 * @return the distanceKm
+	 */
+	public double getDistanceKm() {
+		return distanceKm;
+	}
+}
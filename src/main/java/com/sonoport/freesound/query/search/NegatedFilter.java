@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.search;
+
+/**
+ * {@link FilterExpression} matching sounds that do not match another expression.
+ */
+public class NegatedFilter extends FilterExpression {
+
+	/** The expression being negated. */
+	private final FilterExpression expression;
+
+	/**
+	 * @param expression The expression to negate
+	 */
+	public NegatedFilter(final FilterExpression expression) {
+		super(serialise(expression));
+		this.expression = expression;
+	}
+
+	/**
+	 * Validate the expression and serialise its negation to the syntax expected by the API.
+	 *
+	 * @param expression The expression to negate
+	 * @return The serialised expression
+	 */
+	private static String serialise(final FilterExpression expression) {
+		if (expression == null) {
+			throw new IllegalArgumentException("Must specify an expression to negate");
+		} else if (expression instanceof GeoDistanceFilter) {
+			throw new IllegalArgumentException("Geographic distance filters cannot be negated");
+		}
+
+		return '-' + expression.getFilterString();
+	}
+
+	/**
+	 * @return the expression
+	 */
+	public FilterExpression getExpression() {
+		return expression;
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.search;
+
+/**
+ * Numeric fields of a sound that can be filtered on using a {@link RangeFilter}.
+ */
+public enum NumericField {
+
+	/** The sound's unique identifier. */
+	ID("id"),
+
+	/** The duration of the sound in seconds. */
+	DURATION("duration"),
+
+	/** The sample rate of the sound. */
+	SAMPLERATE("samplerate"),
+
+	/** The average rating of the sound. */
+	AVERAGE_RATING("avg_rating"),
+
+	/** The bit depth of the sound. */
+	BITDEPTH("bitdepth"),
+
+	/** The bit rate of the sound in kbps. */
+	BITRATE("bitrate"),
+
+	/** The number of channels. */
+	CHANNELS("channels"),
+
+	/** The size of the file in bytes. */
+	FILESIZE("filesize"),
+
+	/** The number of times the sound was downloaded. */
+	NUMBER_OF_DOWNLOADS("num_downloads"),
+
+	/** The number of times the sound was rated. */
+	NUMBER_OF_RATINGS("num_ratings"),
+
+	/** The number of comments. */
+	NUMBER_OF_COMMENTS("comments");
+
+	/** The name of the field in filter expressions. */
+	private final String fieldName;
+
+	/**
+	 * @param fieldName The name of the field in filter expressions
+	 */
+	private NumericField(final String fieldName) {
+		this.fieldName = fieldName;
+	}
+
+	/**
+	 * @return the fieldName
+	 */
+	public String getFieldName() {
+		return fieldName;
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.search;
+
+/**
+ * {@link FilterExpression} matching sounds whose value for a numeric field falls within an (inclusive) range, e.g.
+ * <code>duration:[1 TO 5]</code>. Either end of the range may be left open.
+ */
+public class RangeFilter extends FilterExpression {
+
+	/** The name of the field to filter on. */
+	private final String field;
+
+	/** The lower bound of the range (null if open). */
+	private final Number from;
+
+	/** The upper bound of the range (null if open). */
+	private final Number to;
+
+	/**
+	 * @param field The name of the field to filter on
+	 * @param from The lower bound of the range (or null for no lower bound)
+	 * @param to The upper bound of the range (or null for no upper bound)
+	 */
+	public RangeFilter(final String field, final Number from, final Number to) {
+		super(serialise(field, from, to));
+		this.field = field;
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * Validate the range and serialise it to the syntax expected by the API.
+	 *
+	 * @param field The name of the field to filter on
+	 * @param from The lower bound of the range
+	 * @param to The upper bound of the range
+	 * @return The serialised expression
+	 */
+	private static String serialise(final String field, final Number from, final Number to) {
+		if ((field == null) || field.trim().isEmpty()) {
+			throw new IllegalArgumentException("Must specify a field to filter on");
+		} else if ((from == null) && (to == null)) {
+			throw new IllegalArgumentException("Must specify at least one bound of the range");
+		} else if ((from != null) && (to != null) && (from.doubleValue() > to.doubleValue())) {
+			throw new IllegalArgumentException(
+					String.format("Lower bound of range (%s) is greater than upper bound (%s)", from, to));
+		}
+
+		final String fromString = (from != null) ? formatNumber(from) : "*";
+		final String toString = (to != null) ? formatNumber(to) : "*";
+
+		return String.format("%s:[%s TO %s]", field.trim(), fromString, toString);
+	}
+
+	/**
+	 * @return the field
+	 */
+	public String getField() {
+		return field;
+	}
+
+	/**
+	 * @return the from
+	 */
+	public Number getFrom() {
+		return from;
+	}
+
+	/**
+	 * @return the to
+	 */
+	public Number getTo() {
+		return to;
+	}
+}
@@ -21,9 +21,10 @@ package com.sonoport.freesound.query.search;
  *
  * This is a very simple representation - it is down to the user to specify the filter details as a String using the
  * syntax specified by the freesound.org API. See documentation of the 'filter' parameter at
- * http://www.freesound.org/docs/api/resources_apiv2.html#text-search.
+ * http://www.freesound.org/docs/api/resources_apiv2.html#text-search. The static factory methods of
+ * {@link FilterExpression} provide a typed alternative for building more complex filters.
  */
-public class SearchFilter {
+public class SearchFilter extends FilterExpression {
 
 	/** The name of the field to filter on. */
 	private final String field;
@@ -36,10 +37,28 @@ public class SearchFilter {
 	 * @param value The filter to apply
 	 */
 	public SearchFilter(final String field, final String value) {
+		super(serialise(field, value));
 		this.field = field;
 		this.value = value;
 	}
 
+	/**
+	 * Validate the filter and serialise it to the syntax expected by the API.
+	 *
+	 * @param field Field to filter on
+	 * @param value The filter to apply
+	 * @return The serialised filter
+	 */
+	private static String serialise(final String field, final String value) {
+		if ((field == null) || field.trim().isEmpty()) {
+			throw new IllegalArgumentException("Must specify a field to filter on");
+		} else if ((value == null) || value.trim().isEmpty()) {
+			throw new IllegalArgumentException("Must specify a value to filter on");
+		}
+
+		return field + ':' + value;
+	}
+
 	/**
 	 * @return the field
 	 */
@@ -53,42 +72,4 @@ public class SearchFilter {
 	public String getValue() {
 		return value;
 	}
-
-	@Override
-	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = (prime * result) + ((field == null) ? 0 : field.hashCode());
-		result = (prime * result) + ((value == null) ? 0 : value.hashCode());
-		return result;
-	}
-
-	@Override
-	public boolean equals(final Object obj) {
-		if (this == obj) {
-			return true;
-		}
-		if (obj == null) {
-			return false;
-		}
-		if (getClass() != obj.getClass()) {
-			return false;
-		}
-		final SearchFilter other = (SearchFilter) obj;
-		if (field == null) {
-			if (other.field != null) {
-				return false;
-			}
-		} else if (!field.equals(other.field)) {
-			return false;
-		}
-		if (value == null) {
-			if (other.value != null) {
-				return false;
-			}
-		} else if (!value.equals(other.value)) {
-			return false;
-		}
-		return true;
-	}
 }
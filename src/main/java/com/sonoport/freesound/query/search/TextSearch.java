@@ -16,12 +16,13 @@
 package com.sonoport.freesound.query.search;
 
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 import com.sonoport.freesound.query.HTTPRequestMethod;
+import com.sonoport.freesound.query.PageSnapshot;
 import com.sonoport.freesound.query.SoundPagingQuery;
+import com.sonoport.freesound.response.Sound;
 
 /**
  * Class used to represent a Text Search of the freesound.org content library. The class presents a fluent API to allow
@@ -52,7 +53,7 @@ public class TextSearch extends SoundPagingQuery<TextSearch> {
 	private SortOrder sortOrder;
 
 	/** Collection of filters that should be applied as part of the query. */
-	private Set<SearchFilter> filters;
+	private final FilterParameter filters = new FilterParameter();
 
 	/** Whether to group results by the pack to which they belong. */
 	private Boolean groupByPack;
@@ -84,15 +85,15 @@ public class TextSearch extends SoundPagingQuery<TextSearch> {
 	}
 
 	/**
-	 * Add a filter to the query using the Fluent API approach.
+	 * Add a filter to the query using the Fluent API approach. A {@link GeoDistanceFilter} cannot be added alongside
+	 * any other filter.
 	 *
 	 * @param filter The filter to add
 	 * @return The current query
+	 * @throws IllegalArgumentException If the filter is a {@link GeoDistanceFilter} and other filters have been added,
+	 * or the reverse
 	 */
-	public TextSearch filter(final SearchFilter filter) {
-		if (filters == null) {
-			filters = new HashSet<SearchFilter>();
-		}
+	public TextSearch filter(final FilterExpression filter) {
 		filters.add(filter);
 
 		return this;
@@ -121,6 +122,17 @@ public class TextSearch extends SoundPagingQuery<TextSearch> {
 		return this;
 	}
 
+	/**
+	 * Take an immutable snapshot of the search as it currently stands, for the current page, sorted in a given order.
+	 * The sort order of the search itself is left unchanged.
+	 *
+	 * @param order The sort order to apply to the snapshot
+	 * @return Snapshot of the page
+	 */
+	public PageSnapshot<Sound> snapshot(final SortOrder order) {
+		return snapshot().withQueryParameter(SORT_ORDER_PARAMETER, order.getParameterValue());
+	}
+
 	@Override
 	public Map<String, Object> getQueryParameters() {
 		final Map<String, Object> params = super.getQueryParameters();
@@ -142,15 +154,8 @@ public class TextSearch extends SoundPagingQuery<TextSearch> {
 			params.put(GROUP_BY_PACK_PARAMETER, numericBooleanValue);
 		}
 
-		if ((filters != null) && !filters.isEmpty()) {
-			final StringBuilder filterString = new StringBuilder();
-
-			for (final SearchFilter filter : filters) {
-				filterString.append(String.format("%s:%s", filter.getField(), filter.getValue()));
-				filterString.append(' ');
-			}
-
-			params.put("filter", filterString.toString().trim());
+		if (!filters.isEmpty()) {
+			params.put("filter", filters.getValue());
 		}
 
 		return params;
@@ -161,4 +166,25 @@ public class TextSearch extends SoundPagingQuery<TextSearch> {
 		return Collections.emptyMap();
 	}
 
+	/**
+	 * @return the searchString
+	 */
+	public String getSearchString() {
+		return searchString;
+	}
+
+	/**
+	 * @return the sortOrder
+	 */
+	public SortOrder getSortOrder() {
+		return sortOrder;
+	}
+
+	/**
+	 * @return The filters applied to the query, in the order they are sent
+	 */
+	public Set<FilterExpression> getFilters() {
+		return filters.getExpressions();
+	}
+
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.sound;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.sonoport.freesound.query.HTTPRequestMethod;
+import com.sonoport.freesound.query.JSONResponseQuery;
+import com.sonoport.freesound.response.SoundAnalysis;
+import com.sonoport.freesound.response.mapping.SoundAnalysisMapper;
+
+/**
+ * Query used to retrieve the values of the audio descriptors of a sound.
+ *
+ * API documentation at: http://www.freesound.org/docs/api/resources_apiv2.html#sound-analysis
+ */
+public class SoundAnalysisQuery extends JSONResponseQuery<SoundAnalysis> {
+
+	/** Route parameter to be replaced with the identifier of the sound to retrieve the analysis of. */
+	protected static final String SOUND_ID_ROUTE_PARAMETER = "sound_id";
+
+	/** Name of the parameter used to restrict the descriptors returned. */
+	protected static final String DESCRIPTORS_PARAMETER = "descriptors";
+
+	/** Name of the parameter used to request normalised values. */
+	protected static final String NORMALIZED_PARAMETER = "normalized";
+
+	/** Path to the API endpoint. */
+	private static final String PATH = String.format("/sounds/{%s}/analysis/", SOUND_ID_ROUTE_PARAMETER);
+
+	/** Identifier of the sound to retrieve the analysis of. */
+	private final int soundId;
+
+	/** The descriptors to retrieve. If none are specified, freesound will return all of them. */
+	private Set<String> descriptors;
+
+	/** Whether values should be normalised. */
+	private boolean normalized;
+
+	/**
+	 * @param soundId Identifier of the sound to retrieve the analysis of
+	 */
+	public SoundAnalysisQuery(final int soundId) {
+		super(HTTPRequestMethod.GET, PATH, new SoundAnalysisMapper());
+		this.soundId = soundId;
+	}
+
+	/**
+	 * Specify a descriptor to retrieve using the Fluent API approach (e.g. <code>lowlevel.mfcc</code>). This method may
+	 * be called multiple times to retrieve several descriptors.
+	 *
+	 * @param descriptor The descriptor to retrieve
+	 * @return The current query
+	 */
+	public SoundAnalysisQuery includeDescriptor(final String descriptor) {
+		if (descriptors == null) {
+			descriptors = new TreeSet<>();
+		}
+
+		if (descriptor != null) {
+			descriptors.add(descriptor.trim());
+		}
+
+		return this;
+	}
+
+	/**
+	 * Specify whether values should be normalised, using the Fluent API approach.
+	 *
+	 * @param normalized Whether values should be normalised
+	 * @return The current query
+	 */
+	public SoundAnalysisQuery normalized(final boolean normalized) {
+		this.normalized = normalized;
+		return this;
+	}
+
+	@Override
+	public Map<String, String> getRouteParameters() {
+		final Map<String, String> routeParams = new HashMap<>();
+		routeParams.put(SOUND_ID_ROUTE_PARAMETER, String.valueOf(soundId));
+
+		return routeParams;
+	}
+
+	@Override
+	public Map<String, Object> getQueryParameters() {
+		final Map<String, Object> params = new HashMap<>();
+
+		if ((descriptors != null) && !descriptors.isEmpty()) {
+			final StringBuilder descriptorsString = new StringBuilder();
+			for (final String descriptor : descriptors) {
+				if (descriptorsString.length() > 0) {
+					descriptorsString.append(',');
+				}
+				descriptorsString.append(descriptor);
+			}
+
+			params.put(DESCRIPTORS_PARAMETER, descriptorsString.toString());
+		}
+
+		if (normalized) {
+			params.put(NORMALIZED_PARAMETER, "1");
+		}
+
+		return params;
+	}
+
+}
@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.sonoport.freesound.query.HTTPRequestMethod;
+import com.sonoport.freesound.query.HedgeableQuery;
 import com.sonoport.freesound.query.JSONResponseQuery;
 import com.sonoport.freesound.response.Sound;
 import com.sonoport.freesound.response.mapping.SoundMapper;
@@ -30,7 +31,7 @@ import com.sonoport.freesound.response.mapping.SoundMapper;
  *
  * http://www.freesound.org/docs/api/resources_apiv2.html#sound-instance
  */
-public class SoundInstanceQuery extends JSONResponseQuery<Sound> {
+public class SoundInstanceQuery extends JSONResponseQuery<Sound> implements HedgeableQuery {
 
 	/** The name of the path parameter used to determine the sound to retrieve. */
 	protected static final String SOUND_IDENTIFIER_PARAMETER = "sound_id";
@@ -65,4 +66,11 @@ public class SoundInstanceQuery extends JSONResponseQuery<Sound> {
 		return routeParameters;
 	}
 
+	/**
+	 * @return the soundId
+	 */
+	public int getSoundId() {
+		return soundId;
+	}
+
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.sound;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.sonoport.freesound.query.BinaryResponseQuery;
+import com.sonoport.freesound.query.HTTPRequestMethod;
+
+/**
+ * Query class used to retrieve one of the previews of a sound. Previews are referenced by the absolute URIs returned in
+ * {@link com.sonoport.freesound.response.Sound#getPreviews()}, rather than by a path relative to the API endpoint.
+ */
+public class SoundPreviewQuery extends BinaryResponseQuery {
+
+	/**
+	 * @param previewURI The URI of the preview to retrieve
+	 */
+	public SoundPreviewQuery(final String previewURI) {
+		super(HTTPRequestMethod.GET, previewURI);
+	}
+
+	@Override
+	public Map<String, Object> getQueryParameters() {
+		return Collections.emptyMap();
+	}
+
+	@Override
+	public Map<String, String> getRouteParameters() {
+		return Collections.emptyMap();
+	}
+
+}
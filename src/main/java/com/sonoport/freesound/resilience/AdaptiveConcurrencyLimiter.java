@@ -0,0 +1,252 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.resilience;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of requests in flight to the API at once, adjusting the limit to the capacity the API is observed
+ * to have using additive-increase/multiplicative-decrease (AIMD).
+ *
+ * Each request that completes promptly while the limit is at least half used raises the limit by one. The limit is cut
+ * by {@link #BACKOFF_RATIO} when a request is dropped (fails, or is throttled by the API), or when its round trip time
+ * exceeds the minimum recently observed for its route by more than the latency tolerance, indicating that requests are
+ * queueing upstream. Round trip times are compared per route, as the API responds to some routes (e.g. searches) far
+ * more slowly than others.
+ *
+ * The limit is cut at most once per round trip: a congested request that was already in flight when the limit was last
+ * cut does not cut it again, as a single burst of congestion is typically reported by every request that overlapped
+ * it, and cutting once per report would collapse the limit to its minimum.
+ *
+ * Callers block in {@link #acquire()} while the limit is reached, so the limiter works the same whether queries are
+ * made synchronously or from an executor.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+	/** The default limit before any requests have been made. */
+	public static final int DEFAULT_INITIAL_LIMIT = 20;
+
+	/** The default lowest value the limit may fall to. */
+	public static final int DEFAULT_MINIMUM_LIMIT = 1;
+
+	/** The default highest value the limit may rise to. */
+	public static final int DEFAULT_MAXIMUM_LIMIT = 200;
+
+	/** The default multiple of the minimum round trip time above which requests are considered queued. */
+	public static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+
+	/** The factor the limit is multiplied by when congestion is detected. */
+	public static final double BACKOFF_RATIO = 0.9;
+
+	/** The number of round trip times held for each route. */
+	protected static final int RTT_WINDOW_SIZE = 100;
+
+	/** The minimum number of round trip times observed for a route before they are used to detect congestion. */
+	protected static final int MINIMUM_RTT_SAMPLES = 10;
+
+	/** The lowest value the limit may fall to. */
+	private final int minimumLimit;
+
+	/** The highest value the limit may rise to. */
+	private final int maximumLimit;
+
+	/** The multiple of the minimum round trip time above which requests are considered queued. */
+	private final double latencyTolerance;
+
+	/** Recently observed round trip times, keyed on route. */
+	private final ConcurrentMap<String, LatencyWindow> roundTripTimes = new ConcurrentHashMap<>();
+
+	/** Lock guarding the limit and the number of requests in flight. */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** Signalled when a request completes, or the limit rises. */
+	private final Condition slotAvailable = lock.newCondition();
+
+	/** The current limit, held fractionally so that repeated backoff is not lost to rounding. */
+	private double limit;
+
+	/** The number of requests in flight. */
+	private int inFlight;
+
+	/** The time (from {@link System#nanoTime()}) at which the limit was last cut, if {@link #backedOff}. */
+	private long lastBackoffNanos;
+
+	/** Whether the limit has been cut. */
+	private boolean backedOff;
+
+	/**
+	 * No-arg constructor, using the default limits.
+	 */
+	public AdaptiveConcurrencyLimiter() {
+		this(DEFAULT_INITIAL_LIMIT, DEFAULT_MINIMUM_LIMIT, DEFAULT_MAXIMUM_LIMIT, DEFAULT_LATENCY_TOLERANCE);
+	}
+
+	/**
+	 * @param initialLimit The limit before any requests have been made
+	 * @param minimumLimit The lowest value the limit may fall to
+	 * @param maximumLimit The highest value the limit may rise to
+	 * @param latencyTolerance The multiple of the minimum round trip time above which requests are considered queued
+	 */
+	public AdaptiveConcurrencyLimiter(
+			final int initialLimit, final int minimumLimit, final int maximumLimit, final double latencyTolerance) {
+		if (minimumLimit < 1) {
+			throw new IllegalArgumentException("Minimum limit must be greater than 0");
+		} else if ((initialLimit < minimumLimit) || (initialLimit > maximumLimit)) {
+			throw new IllegalArgumentException("Initial limit must be between the minimum and maximum limits");
+		} else if (latencyTolerance <= 1) {
+			throw new IllegalArgumentException("Latency tolerance must be greater than 1");
+		}
+
+		this.limit = initialLimit;
+		this.minimumLimit = minimumLimit;
+		this.maximumLimit = maximumLimit;
+		this.latencyTolerance = latencyTolerance;
+	}
+
+	/**
+	 * Wait until a request may be made. Every successful call must be followed by a call to
+	 * {@link #release(String, boolean, long)} once the request completes.
+	 *
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	public void acquire() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (inFlight >= (int) limit) {
+				slotAvailable.await();
+			}
+
+			inFlight++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Make a request if the limit has not been reached, without waiting.
+	 *
+	 * @return Whether the request may be made
+	 */
+	public boolean tryAcquire() {
+		lock.lock();
+		try {
+			if (inFlight >= (int) limit) {
+				return false;
+			}
+
+			inFlight++;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Record the completion of a request, adjusting the limit accordingly. The limit is only cut if the request was
+	 * made after it was last cut.
+	 *
+	 * @param route The route the request was made to
+	 * @param dropped Whether the request failed, or was throttled by the API
+	 * @param roundTripTimeNanoseconds The round trip time of the request (in nanoseconds)
+	 */
+	public void release(final String route, final boolean dropped, final long roundTripTimeNanoseconds) {
+		boolean congested = dropped;
+		if (!dropped) {
+			final LatencyWindow window = roundTripTimes(route);
+			window.record(roundTripTimeNanoseconds);
+
+			congested = (window.getSampleCount() >= MINIMUM_RTT_SAMPLES)
+					&& (roundTripTimeNanoseconds > (latencyTolerance * window.percentile(0f)));
+		}
+
+		final long now = System.nanoTime();
+		final long madeAt = now - roundTripTimeNanoseconds;
+
+		lock.lock();
+		try {
+			final int inFlightAtCompletion = inFlight--;
+			if (congested) {
+				if (!backedOff || ((madeAt - lastBackoffNanos) >= 0)) {
+					limit = Math.max(minimumLimit, limit * BACKOFF_RATIO);
+					lastBackoffNanos = now;
+					backedOff = true;
+				}
+			} else if ((inFlightAtCompletion * 2) >= limit) {
+				limit = Math.min(maximumLimit, limit + 1);
+			}
+
+			slotAvailable.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return The number of requests currently permitted in flight
+	 */
+	public int getLimit() {
+		lock.lock();
+		try {
+			return (int) limit;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return The number of requests in flight
+	 */
+	public int getInFlight() {
+		lock.lock();
+		try {
+			return inFlight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param route The route
+	 * @return The minimum round trip time (in milliseconds) recently observed for the route, or -1 if none have been
+	 * observed
+	 */
+	public long getMinimumRoundTripTime(final String route) {
+		final LatencyWindow window = roundTripTimes.get(route);
+		return (window != null) ? TimeUnit.NANOSECONDS.toMillis(window.percentile(0f)) : -1;
+	}
+
+	/**
+	 * @param route The route
+	 * @return The round trip times observed for the route, creating the window if necessary
+	 */
+	private LatencyWindow roundTripTimes(final String route) {
+		LatencyWindow window = roundTripTimes.get(route);
+		if (window == null) {
+			window = new LatencyWindow(RTT_WINDOW_SIZE);
+
+			final LatencyWindow existing = roundTripTimes.putIfAbsent(route, window);
+			if (existing != null) {
+				window = existing;
+			}
+		}
+
+		return window;
+	}
+}
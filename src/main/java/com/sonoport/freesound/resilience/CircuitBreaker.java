@@ -0,0 +1,277 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker guarding calls to a single route of the API, so that a degraded route fails fast rather than tying
+ * up connections needed by healthy ones.
+ *
+ * The outcome of the most recent calls is held in a sliding window. Once the window holds enough calls, the circuit is
+ * opened if the proportion of either failed or slow calls reaches its threshold. While open, no calls are permitted.
+ * After the open duration has elapsed the circuit becomes half-open, and a limited number of probe calls are
+ * permitted: if all succeed promptly the circuit is closed again, with an empty window; otherwise it is re-opened.
+ *
+ * Each permission is tagged with the generation of the circuit (incremented on every change of state) in which it was
+ * granted, so that the outcome of a call permitted before the circuit last changed state (e.g. a slow call made while
+ * it was closed, completing once it is half-open) is not mistaken for the outcome of a probe.
+ */
+public class CircuitBreaker {
+
+	/**
+	 * The states of a circuit.
+	 */
+	public enum State {
+
+		/** Calls are permitted, and their outcomes recorded. */
+		CLOSED,
+
+		/** No calls are permitted. */
+		OPEN,
+
+		/** A limited number of probe calls are permitted, to determine whether the route has recovered. */
+		HALF_OPEN;
+	}
+
+	/** Returned by {@link #tryAcquire()} when a call is not permitted. */
+	public static final long REJECTED = -1;
+
+	/** Flag marking a failed call in the window. */
+	private static final byte FAILED = 1;
+
+	/** Flag marking a slow call in the window. */
+	private static final byte SLOW = 2;
+
+	/** The minimum number of calls in the window before the circuit may be opened. */
+	private final int minimumCalls;
+
+	/** The proportion of failed calls at or above which the circuit is opened. */
+	private final float failureRateThreshold;
+
+	/** The duration (in nanoseconds) above which a call is considered slow. */
+	private final long slowCallDurationNanoseconds;
+
+	/** The proportion of slow calls at or above which the circuit is opened. */
+	private final float slowCallRateThreshold;
+
+	/** The period (in nanoseconds) for which the circuit is held open before probe calls are permitted. */
+	private final long openDurationNanoseconds;
+
+	/** The number of probe calls permitted while the circuit is half-open. */
+	private final int halfOpenProbes;
+
+	/** Ring buffer of the outcomes of the most recent calls. */
+	private final byte[] window;
+
+	/** Position in the window at which the next outcome will be written. */
+	private int windowPosition;
+
+	/** The number of outcomes held in the window. */
+	private int windowCalls;
+
+	/** The number of failed calls in the window. */
+	private int failedCalls;
+
+	/** The number of slow calls in the window. */
+	private int slowCalls;
+
+	/** The current state of the circuit. */
+	private State state = State.CLOSED;
+
+	/** The generation of the circuit, incremented each time its state changes. */
+	private long generation;
+
+	/** The time (from {@link System#nanoTime()}) at which the circuit was last opened. */
+	private long openedAt;
+
+	/** The number of probe calls permitted since the circuit became half-open. */
+	private int probesPermitted;
+
+	/** The number of probe calls that have succeeded since the circuit became half-open. */
+	private int probesSucceeded;
+
+	/**
+	 * No-arg constructor, using the default settings.
+	 */
+	public CircuitBreaker() {
+		this(new CircuitBreakerSettings());
+	}
+
+	/**
+	 * @param settings The thresholds and timings governing the breaker
+	 */
+	public CircuitBreaker(final CircuitBreakerSettings settings) {
+		this.minimumCalls = Math.min(settings.getMinimumCalls(), settings.getWindowSize());
+		this.failureRateThreshold = settings.getFailureRateThreshold();
+		this.slowCallDurationNanoseconds = TimeUnit.MILLISECONDS.toNanos(settings.getSlowCallDuration());
+		this.slowCallRateThreshold = settings.getSlowCallRateThreshold();
+		this.openDurationNanoseconds = TimeUnit.MILLISECONDS.toNanos(settings.getOpenDuration());
+		this.halfOpenProbes = settings.getHalfOpenProbes();
+		this.window = new byte[settings.getWindowSize()];
+	}
+
+	/**
+	 * Request permission to make a call. Every permitted call must be followed by a call to
+	 * {@link #record(long, boolean, long)} once its outcome is known, or to {@link #cancel(long)} if it is not made.
+	 *
+	 * @return The generation of the circuit the call is permitted in, or {@link #REJECTED} if it is not permitted
+	 */
+	public synchronized long tryAcquire() {
+		if (state == State.OPEN) {
+			if ((System.nanoTime() - openedAt) < openDurationNanoseconds) {
+				return REJECTED;
+			}
+
+			transition(State.HALF_OPEN);
+			probesPermitted = 0;
+			probesSucceeded = 0;
+		}
+
+		if (state == State.HALF_OPEN) {
+			if (probesPermitted >= halfOpenProbes) {
+				return REJECTED;
+			}
+
+			probesPermitted++;
+		}
+
+		return generation;
+	}
+
+	/**
+	 * Record the outcome of a permitted call. Outcomes of calls permitted in an earlier generation are ignored.
+	 *
+	 * @param permit The generation returned by {@link #tryAcquire()} when the call was permitted
+	 * @param failed Whether the call failed
+	 * @param durationNanoseconds The duration of the call (in nanoseconds)
+	 */
+	public synchronized void record(final long permit, final boolean failed, final long durationNanoseconds) {
+		if (permit != generation) {
+			return;
+		}
+
+		final boolean slow = durationNanoseconds > slowCallDurationNanoseconds;
+
+		if (state == State.HALF_OPEN) {
+			if (failed || slow) {
+				open();
+			} else if (++probesSucceeded >= halfOpenProbes) {
+				close();
+			}
+		} else if (state == State.CLOSED) {
+			addToWindow((byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0)));
+			if ((windowCalls >= minimumCalls)
+					&& ((failedCalls >= (failureRateThreshold * windowCalls))
+							|| (slowCalls >= (slowCallRateThreshold * windowCalls)))) {
+				open();
+			}
+		}
+	}
+
+	/**
+	 * Return the permission granted by {@link #tryAcquire()} for a call that was not made after all.
+	 *
+	 * @param permit The generation returned by {@link #tryAcquire()} when the call was permitted
+	 */
+	public synchronized void cancel(final long permit) {
+		if ((permit == generation) && (state == State.HALF_OPEN) && (probesPermitted > 0)) {
+			probesPermitted--;
+		}
+	}
+
+	/**
+	 * @return The current state of the circuit
+	 */
+	public synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * @return The time (in milliseconds) until probe calls will be permitted, or 0 if the circuit is not open
+	 */
+	public synchronized long getRemainingOpenMilliseconds() {
+		if (state != State.OPEN) {
+			return 0;
+		}
+
+		final long remaining = openDurationNanoseconds - (System.nanoTime() - openedAt);
+		return Math.max(0, TimeUnit.NANOSECONDS.toMillis(remaining));
+	}
+
+	/**
+	 * @return The proportion of failed calls in the window (0 if the window is empty)
+	 */
+	public synchronized float getFailureRate() {
+		return (windowCalls > 0) ? ((float) failedCalls / windowCalls) : 0;
+	}
+
+	/**
+	 * @return The proportion of slow calls in the window (0 if the window is empty)
+	 */
+	public synchronized float getSlowCallRate() {
+		return (windowCalls > 0) ? ((float) slowCalls / windowCalls) : 0;
+	}
+
+	/**
+	 * Add the outcome of a call to the window, displacing the oldest outcome if the window is full.
+	 *
+	 * @param outcome Flags marking the outcome of the call
+	 */
+	private void addToWindow(final byte outcome) {
+		if (windowCalls == window.length) {
+			final byte displaced = window[windowPosition];
+			failedCalls -= displaced & FAILED;
+			slowCalls -= (displaced & SLOW) >> 1;
+		} else {
+			windowCalls++;
+		}
+
+		window[windowPosition] = outcome;
+		failedCalls += outcome & FAILED;
+		slowCalls += (outcome & SLOW) >> 1;
+		windowPosition = (windowPosition + 1) % window.length;
+	}
+
+	/**
+	 * Open the circuit.
+	 */
+	private void open() {
+		transition(State.OPEN);
+		openedAt = System.nanoTime();
+	}
+
+	/**
+	 * Close the circuit, discarding the outcomes of calls made before it was opened.
+	 */
+	private void close() {
+		transition(State.CLOSED);
+		windowPosition = 0;
+		windowCalls = 0;
+		failedCalls = 0;
+		slowCalls = 0;
+	}
+
+	/**
+	 * Change the state of the circuit, starting a new generation.
+	 *
+	 * @param newState The new state
+	 */
+	private void transition(final State newState) {
+		state = newState;
+		generation++;
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.resilience;
+
+import com.sonoport.freesound.FreesoundClientException;
+
+/**
+ * Exception thrown, without any call being made, when a query is submitted to a route whose {@link CircuitBreaker} is
+ * open.
+ */
+@SuppressWarnings("serial")
+public class CircuitBreakerOpenException extends FreesoundClientException {
+
+	/** The route whose circuit is open. */
+	private final String route;
+
+	/** The time (in milliseconds) until probe calls will be permitted. */
+	private final long retryAfterMilliseconds;
+
+	/**
+	 * @param route The route whose circuit is open
+	 * @param retryAfterMilliseconds The time (in milliseconds) until probe calls will be permitted
+	 */
+	public CircuitBreakerOpenException(final String route, final long retryAfterMilliseconds) {
+		super(String.format("Circuit open for %s, retry after %dms", route, retryAfterMilliseconds));
+		this.route = route;
+		this.retryAfterMilliseconds = retryAfterMilliseconds;
+	}
+
+	/**
+	 * @return The route whose circuit is open
+	 */
+	public String getRoute() {
+		return route;
+	}
+
+	/**
+	 * @return The time (in milliseconds) until probe calls will be permitted
+	 */
+	public long getRetryAfterMilliseconds() {
+		return retryAfterMilliseconds;
+	}
+}
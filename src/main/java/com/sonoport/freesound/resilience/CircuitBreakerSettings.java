@@ -0,0 +1,213 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The thresholds and timings governing the behaviour of a {@link CircuitBreaker}. Settings are copied when a breaker is
+ * created, so later changes do not affect existing breakers.
+ */
+public class CircuitBreakerSettings {
+
+	/** The default number of most recent calls over which failure and slow call rates are calculated. */
+	public static final int DEFAULT_WINDOW_SIZE = 20;
+
+	/** The default minimum number of calls in the window before the circuit may be opened. */
+	public static final int DEFAULT_MINIMUM_CALLS = 10;
+
+	/** The default proportion of failed calls at or above which the circuit is opened. */
+	public static final float DEFAULT_FAILURE_RATE_THRESHOLD = 0.5f;
+
+	/** The default duration above which a call is considered slow. */
+	public static final long DEFAULT_SLOW_CALL_DURATION_MILLISECONDS = TimeUnit.SECONDS.toMillis(5);
+
+	/** The default proportion of slow calls at or above which the circuit is opened. */
+	public static final float DEFAULT_SLOW_CALL_RATE_THRESHOLD = 0.5f;
+
+	/** The default period for which the circuit is held open before probe calls are permitted. */
+	public static final long DEFAULT_OPEN_DURATION_MILLISECONDS = TimeUnit.SECONDS.toMillis(30);
+
+	/** The default number of probe calls permitted while the circuit is half-open. */
+	public static final int DEFAULT_HALF_OPEN_PROBES = 3;
+
+	/** The number of most recent calls over which failure and slow call rates are calculated. */
+	private int windowSize = DEFAULT_WINDOW_SIZE;
+
+	/** The minimum number of calls in the window before the circuit may be opened. */
+	private int minimumCalls = DEFAULT_MINIMUM_CALLS;
+
+	/** The proportion of failed calls at or above which the circuit is opened. */
+	private float failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+
+	/** The duration above which a call is considered slow. */
+	private long slowCallDurationMilliseconds = DEFAULT_SLOW_CALL_DURATION_MILLISECONDS;
+
+	/** The proportion of slow calls at or above which the circuit is opened. */
+	private float slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+
+	/** The period for which the circuit is held open before probe calls are permitted. */
+	private long openDurationMilliseconds = DEFAULT_OPEN_DURATION_MILLISECONDS;
+
+	/** The number of probe calls permitted while the circuit is half-open. */
+	private int halfOpenProbes = DEFAULT_HALF_OPEN_PROBES;
+
+	/**
+	 * @param windowSize The number of most recent calls over which failure and slow call rates are calculated
+	 * @return Current instance of settings
+	 */
+	public CircuitBreakerSettings windowSize(final int windowSize) {
+		if (windowSize < 1) {
+			throw new IllegalArgumentException("Window size must be greater than 0");
+		}
+
+		this.windowSize = windowSize;
+		return this;
+	}
+
+	/**
+	 * @param minimumCalls The minimum number of calls in the window before the circuit may be opened
+	 * @return Current instance of settings
+	 */
+	public CircuitBreakerSettings minimumCalls(final int minimumCalls) {
+		if (minimumCalls < 1) {
+			throw new IllegalArgumentException("Minimum number of calls must be greater than 0");
+		}
+
+		this.minimumCalls = minimumCalls;
+		return this;
+	}
+
+	/**
+	 * @param failureRateThreshold The proportion (between 0 and 1) of failed calls at or above which the circuit is
+	 * opened
+	 * @return Current instance of settings
+	 */
+	public CircuitBreakerSettings failureRateThreshold(final float failureRateThreshold) {
+		this.failureRateThreshold = checkRate(failureRateThreshold);
+		return this;
+	}
+
+	/**
+	 * @param slowCallDurationMilliseconds The duration above which a call is considered slow
+	 * @return Current instance of settings
+	 */
+	public CircuitBreakerSettings slowCallDuration(final long slowCallDurationMilliseconds) {
+		if (slowCallDurationMilliseconds < 1) {
+			throw new IllegalArgumentException("Slow call duration must be greater than 0");
+		}
+
+		this.slowCallDurationMilliseconds = slowCallDurationMilliseconds;
+		return this;
+	}
+
+	/**
+	 * @param slowCallRateThreshold The proportion (between 0 and 1) of slow calls at or above which the circuit is
+	 * opened
+	 * @return Current instance of settings
+	 */
+	public CircuitBreakerSettings slowCallRateThreshold(final float slowCallRateThreshold) {
+		this.slowCallRateThreshold = checkRate(slowCallRateThreshold);
+		return this;
+	}
+
+	/**
+	 * @param openDurationMilliseconds The period for which the circuit is held open before probe calls are permitted
+	 * @return Current instance of settings
+	 */
+	public CircuitBreakerSettings openDuration(final long openDurationMilliseconds) {
+		if (openDurationMilliseconds < 0) {
+			throw new IllegalArgumentException("Open duration must not be negative");
+		}
+
+		this.openDurationMilliseconds = openDurationMilliseconds;
+		return this;
+	}
+
+	/**
+	 * @param halfOpenProbes The number of probe calls permitted while the circuit is half-open
+	 * @return Current instance of settings
+	 */
+	public CircuitBreakerSettings halfOpenProbes(final int halfOpenProbes) {
+		if (halfOpenProbes < 1) {
+			throw new IllegalArgumentException("Number of half-open probes must be greater than 0");
+		}
+
+		this.halfOpenProbes = halfOpenProbes;
+		return this;
+	}
+
+	/**
+	 * @param rate The rate to check
+	 * @return The rate, if valid
+	 */
+	private static float checkRate(final float rate) {
+		if (!((rate > 0) && (rate <= 1))) {
+			throw new IllegalArgumentException("Rate threshold must be greater than 0, and no more than 1");
+		}
+
+		return rate;
+	}
+
+	/**
+	 * @return The number of most recent calls over which failure and slow call rates are calculated
+	 */
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	/**
+	 * @return The minimum number of calls in the window before the circuit may be opened
+	 */
+	public int getMinimumCalls() {
+		return minimumCalls;
+	}
+
+	/**
+	 * @return The proportion of failed calls at or above which the circuit is opened
+	 */
+	public float getFailureRateThreshold() {
+		return failureRateThreshold;
+	}
+
+	/**
+	 * @return The duration (in milliseconds) above which a call is considered slow
+	 */
+	public long getSlowCallDuration() {
+		return slowCallDurationMilliseconds;
+	}
+
+	/**
+	 * @return The proportion of slow calls at or above which the circuit is opened
+	 */
+	public float getSlowCallRateThreshold() {
+		return slowCallRateThreshold;
+	}
+
+	/**
+	 * @return The period (in milliseconds) for which the circuit is held open before probe calls are permitted
+	 */
+	public long getOpenDuration() {
+		return openDurationMilliseconds;
+	}
+
+	/**
+	 * @return The number of probe calls permitted while the circuit is half-open
+	 */
+	public int getHalfOpenProbes() {
+		return halfOpenProbes;
+	}
+}
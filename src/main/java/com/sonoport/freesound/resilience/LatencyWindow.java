@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.resilience;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of the most recently observed latencies of a type of call, from which percentiles can be estimated.
+ * Percentiles are calculated from a sorted copy of the window, which is reused until a number of further samples have
+ * been recorded.
+ */
+public class LatencyWindow {
+
+	/** The number of samples recorded after which a previously calculated percentile is recalculated. */
+	private static final int RECALCULATION_INTERVAL = 32;
+
+	/** Ring buffer of the most recent samples (in nanoseconds). */
+	private final long[] samples;
+
+	/** Position in the buffer at which the next sample will be written. */
+	private int position;
+
+	/** The number of samples held. */
+	private int sampleCount;
+
+	/** Sorted copy of the samples, used to calculate percentiles (or null if not yet sorted). */
+	private long[] sorted;
+
+	/** The number of samples recorded since the sorted copy was taken. */
+	private int samplesSinceSort;
+
+	/**
+	 * @param windowSize The number of most recent samples to hold
+	 */
+	public LatencyWindow(final int windowSize) {
+		if (windowSize < 1) {
+			throw new IllegalArgumentException("Window size must be greater than 0");
+		}
+
+		this.samples = new long[windowSize];
+	}
+
+	/**
+	 * @param latencyNanoseconds The observed latency (in nanoseconds)
+	 */
+	public synchronized void record(final long latencyNanoseconds) {
+		samples[position] = latencyNanoseconds;
+		position = (position + 1) % samples.length;
+		sampleCount = Math.min(sampleCount + 1, samples.length);
+		samplesSinceSort++;
+	}
+
+	/**
+	 * Estimate a percentile of the latencies held.
+	 *
+	 * @param percentile The percentile, as a proportion between 0 and 1 (e.g. 0.95)
+	 * @return The estimated latency (in nanoseconds), or -1 if no samples are held
+	 */
+	public synchronized long percentile(final float percentile) {
+		if (sampleCount == 0) {
+			return -1;
+		}
+
+		if ((sorted == null) || (samplesSinceSort >= RECALCULATION_INTERVAL) || (sorted.length != sampleCount)) {
+			sorted = Arrays.copyOf(samples, sampleCount);
+			Arrays.sort(sorted);
+			samplesSinceSort = 0;
+		}
+
+		final int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+
+	/**
+	 * @return The number of samples held
+	 */
+	public synchronized int getSampleCount() {
+		return sampleCount;
+	}
+}
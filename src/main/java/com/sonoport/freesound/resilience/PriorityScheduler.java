@@ -0,0 +1,319 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.resilience;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.sonoport.freesound.query.Priority;
+
+/**
+ * Schedules requests from separate lanes for each {@link Priority}, so that bursts of batch traffic do not delay
+ * interactive requests. The number of requests in flight is governed by an {@link AdaptiveConcurrencyLimiter} (which
+ * may be given a fixed limit); requests beyond the limit wait in the queue for their lane, and are admitted in order
+ * within each lane as requests complete.
+ *
+ * Interactive requests may use every slot, and are admitted ahead of waiting batch requests. Batch requests may only
+ * occupy a share of the slots, leaving the remainder free for interactive requests to take as they arrive. Batch
+ * traffic is still guaranteed progress: while both lanes have requests waiting, at least one batch request is admitted
+ * for every {@link #getInteractiveWeight()} interactive requests, and at least one batch request may always be in
+ * flight.
+ *
+ * Requests in flight cannot be interrupted, so interactive requests preempt batch requests only for the next free slot.
+ */
+public class PriorityScheduler {
+
+	/** The default number of interactive requests admitted for each batch request, while both lanes are waiting. */
+	public static final int DEFAULT_INTERACTIVE_WEIGHT = 4;
+
+	/** The default proportion of the limit that batch requests may occupy. */
+	public static final float DEFAULT_BATCH_SHARE = 0.5f;
+
+	/** The number of waiting times held for each lane. */
+	protected static final int WAIT_WINDOW_SIZE = 1000;
+
+	/** Limiter governing the number of requests in flight. */
+	private final AdaptiveConcurrencyLimiter limiter;
+
+	/** The number of interactive requests admitted for each batch request, while both lanes are waiting. */
+	private final int interactiveWeight;
+
+	/** The proportion of the limit that batch requests may occupy. */
+	private final float batchShare;
+
+	/** Lock guarding the lanes. */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** Signalled when waiting requests have been admitted. */
+	private final Condition admitted = lock.newCondition();
+
+	/** The lanes, one for each priority. */
+	private final Map<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+
+	/** The number of interactive requests admitted while batch requests have been waiting. */
+	private int interactiveAdmittedAheadOfBatch;
+
+	/**
+	 * @param maximumInFlight The fixed number of requests that may be in flight at once
+	 */
+	public PriorityScheduler(final int maximumInFlight) {
+		this(new AdaptiveConcurrencyLimiter(maximumInFlight, maximumInFlight, maximumInFlight,
+				AdaptiveConcurrencyLimiter.DEFAULT_LATENCY_TOLERANCE));
+	}
+
+	/**
+	 * @param limiter Limiter governing the number of requests in flight
+	 */
+	public PriorityScheduler(final AdaptiveConcurrencyLimiter limiter) {
+		this(limiter, DEFAULT_INTERACTIVE_WEIGHT, DEFAULT_BATCH_SHARE);
+	}
+
+	/**
+	 * @param limiter Limiter governing the number of requests in flight
+	 * @param interactiveWeight The number of interactive requests admitted for each batch request, while both lanes
+	 * are waiting
+	 * @param batchShare The proportion (between 0 and 1) of the limit that batch requests may occupy
+	 */
+	public PriorityScheduler(
+			final AdaptiveConcurrencyLimiter limiter, final int interactiveWeight, final float batchShare) {
+		if (interactiveWeight < 1) {
+			throw new IllegalArgumentException("Interactive weight must be greater than 0");
+		} else if (!((batchShare > 0) && (batchShare <= 1))) {
+			throw new IllegalArgumentException("Batch share must be greater than 0, and no more than 1");
+		}
+
+		this.limiter = limiter;
+		this.interactiveWeight = interactiveWeight;
+		this.batchShare = batchShare;
+
+		for (final Priority priority : Priority.values()) {
+			lanes.put(priority, new Lane());
+		}
+	}
+
+	/**
+	 * Wait until a request may be made. Every successful call must be followed by a call to
+	 * {@link #release(Priority, String, boolean, long)} once the request completes.
+	 *
+	 * @param priority The lane of the request
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	public void acquire(final Priority priority) throws InterruptedException {
+		final Lane lane = lanes.get(priority);
+		final Waiter waiter = new Waiter();
+
+		lock.lockInterruptibly();
+		try {
+			lane.waiting.add(waiter);
+			dispatch();
+
+			while (!waiter.admitted) {
+				try {
+					admitted.await();
+				} catch (final InterruptedException e) {
+					if (waiter.admitted) {
+						// Too late to give up the slot, so proceed and leave the interrupt for the caller
+						Thread.currentThread().interrupt();
+						break;
+					}
+
+					lane.waiting.remove(waiter);
+					dispatch();
+					throw e;
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Record the completion of a request, admitting waiting requests in its place.
+	 *
+	 * @param priority The lane of the request
+	 * @param route The route the request was made to
+	 * @param dropped Whether the request failed, or was throttled by the API
+	 * @param roundTripTimeNanoseconds The round trip time of the request (in nanoseconds)
+	 */
+	public void release(
+			final Priority priority, final String route, final boolean dropped, final long roundTripTimeNanoseconds) {
+		lock.lock();
+		try {
+			lanes.get(priority).inFlight--;
+			limiter.release(route, dropped, roundTripTimeNanoseconds);
+			dispatch();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param priority The lane
+	 * @return The number of requests waiting in the lane
+	 */
+	public int getQueueDepth(final Priority priority) {
+		lock.lock();
+		try {
+			return lanes.get(priority).waiting.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param priority The lane
+	 * @return The number of requests from the lane in flight
+	 */
+	public int getInFlight(final Priority priority) {
+		lock.lock();
+		try {
+			return lanes.get(priority).inFlight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param priority The lane
+	 * @return The number of requests admitted from the lane
+	 */
+	public long getAdmitted(final Priority priority) {
+		lock.lock();
+		try {
+			return lanes.get(priority).admitted;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param priority The lane
+	 * @param percentile The percentile, as a proportion between 0 and 1 (e.g. 0.95)
+	 * @return The estimated time (in milliseconds) recently spent waiting by requests in the lane, or -1 if no requests
+	 * have been admitted
+	 */
+	public long getWaitTime(final Priority priority, final float percentile) {
+		final long waitTime = lanes.get(priority).waitTimes.percentile(percentile);
+		return (waitTime >= 0) ? TimeUnit.NANOSECONDS.toMillis(waitTime) : -1;
+	}
+
+	/**
+	 * @return Limiter governing the number of requests in flight
+	 */
+	public AdaptiveConcurrencyLimiter getLimiter() {
+		return limiter;
+	}
+
+	/**
+	 * @return The number of interactive requests admitted for each batch request, while both lanes are waiting
+	 */
+	public int getInteractiveWeight() {
+		return interactiveWeight;
+	}
+
+	/**
+	 * Admit as many waiting requests as the limit allows. Must be called holding the lock.
+	 */
+	private void dispatch() {
+		final Lane interactive = lanes.get(Priority.INTERACTIVE);
+		final Lane batch = lanes.get(Priority.BATCH);
+
+		boolean admittedAny = false;
+		while (true) {
+			final boolean batchEligible = !batch.waiting.isEmpty() && (batch.inFlight < batchSlots());
+
+			final Lane next;
+			if (!interactive.waiting.isEmpty()
+					&& (!batchEligible || (interactiveAdmittedAheadOfBatch < interactiveWeight))) {
+				next = interactive;
+			} else if (batchEligible) {
+				next = batch;
+			} else {
+				break;
+			}
+
+			if (!limiter.tryAcquire()) {
+				break;
+			}
+
+			if (next == batch) {
+				interactiveAdmittedAheadOfBatch = 0;
+			} else if (batchEligible) {
+				interactiveAdmittedAheadOfBatch++;
+			}
+
+			next.admit();
+			admittedAny = true;
+		}
+
+		if (admittedAny) {
+			admitted.signalAll();
+		}
+	}
+
+	/**
+	 * @return The number of slots batch requests may occupy
+	 */
+	private int batchSlots() {
+		return Math.max(1, (int) (limiter.getLimit() * batchShare));
+	}
+
+	/**
+	 * The queue of requests waiting in a lane, and the number admitted.
+	 */
+	private static final class Lane {
+
+		/** Requests waiting to be admitted, in order of arrival. */
+		private final Queue<Waiter> waiting = new ArrayDeque<>();
+
+		/** Recent times spent waiting by requests admitted from the lane. */
+		private final LatencyWindow waitTimes = new LatencyWindow(WAIT_WINDOW_SIZE);
+
+		/** The number of requests from the lane in flight. */
+		private int inFlight;
+
+		/** The number of requests admitted from the lane. */
+		private long admitted;
+
+		/**
+		 * Admit the request at the head of the lane.
+		 */
+		private void admit() {
+			final Waiter waiter = waiting.remove();
+			waiter.admitted = true;
+			waitTimes.record(System.nanoTime() - waiter.arrived);
+			inFlight++;
+			admitted++;
+		}
+	}
+
+	/**
+	 * A request waiting to be admitted. Fields are guarded by the lock of the scheduler.
+	 */
+	private static final class Waiter {
+
+		/** The time (from {@link System#nanoTime()}) at which the request arrived. */
+		private final long arrived = System.nanoTime();
+
+		/** Whether the request has been admitted. */
+		private boolean admitted;
+	}
+}
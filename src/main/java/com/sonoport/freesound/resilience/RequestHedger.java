@@ -0,0 +1,319 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.resilience;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.sonoport.freesound.transport.TransportResponse;
+
+/**
+ * Submits requests with hedging: if no response to a request has arrived within a percentile (by default the 95th) of
+ * the latencies recently observed for its route, a duplicate request is sent and whichever response arrives first is
+ * used. The body of the losing response is closed as soon as it arrives, and a duplicate that has not yet been sent
+ * is cancelled.
+ *
+ * Hedging is limited by a budget, so that it cannot overload the API when every route is slow: each request earns a
+ * fraction (by default 5%) of a hedge, and a duplicate is only sent if a whole hedge has been earned. Up to
+ * {@link #MAXIMUM_BURST} unspent hedges are carried over to absorb bursts. No hedges are sent for a route until
+ * {@link #MINIMUM_SAMPLES} latencies have been observed.
+ */
+public class RequestHedger {
+
+	/** The default percentile of observed latencies after which a duplicate request is sent. */
+	public static final float DEFAULT_PERCENTILE = 0.95f;
+
+	/** The default proportion of additional requests that may be sent as hedges. */
+	public static final float DEFAULT_BUDGET = 0.05f;
+
+	/** The number of latencies held for each route. */
+	public static final int WINDOW_SIZE = 1000;
+
+	/** The minimum number of latencies observed for a route before hedges are sent. */
+	public static final int MINIMUM_SAMPLES = 20;
+
+	/** The maximum number of unspent hedges carried over. */
+	public static final int MAXIMUM_BURST = 10;
+
+	/** Placeholder claimed by the caller once it stops waiting, so that any later response is discarded. */
+	private static final TransportResponse ABANDONED = new TransportResponse(0, null, null);
+
+	/** Executor used to submit requests and their duplicates. */
+	private final ExecutorService executor;
+
+	/** The percentile of observed latencies after which a duplicate request is sent. */
+	private final float percentile;
+
+	/** The proportion of additional requests that may be sent as hedges. */
+	private final float budget;
+
+	/** Recently observed latencies, keyed on route. */
+	private final ConcurrentMap<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+	/** The number of hedges earned but not yet spent. */
+	private double availableHedges;
+
+	/** The number of requests submitted (not counting duplicates). */
+	private final AtomicLong requests = new AtomicLong();
+
+	/** The number of duplicate requests sent. */
+	private final AtomicLong hedgesSent = new AtomicLong();
+
+	/** The number of duplicate requests whose response was used. */
+	private final AtomicLong hedgesWon = new AtomicLong();
+
+	/**
+	 * @param executor Executor used to submit requests and their duplicates
+	 */
+	public RequestHedger(final ExecutorService executor) {
+		this(executor, DEFAULT_PERCENTILE, DEFAULT_BUDGET);
+	}
+
+	/**
+	 * @param executor Executor used to submit requests and their duplicates
+	 * @param percentile The percentile (between 0 and 1) of observed latencies after which a duplicate is sent
+	 * @param budget The proportion (between 0 and 1) of additional requests that may be sent as hedges
+	 */
+	public RequestHedger(final ExecutorService executor, final float percentile, final float budget) {
+		if (!((percentile > 0) && (percentile < 1))) {
+			throw new IllegalArgumentException("Percentile must be greater than 0, and less than 1");
+		} else if (!((budget > 0) && (budget <= 1))) {
+			throw new IllegalArgumentException("Budget must be greater than 0, and no more than 1");
+		}
+
+		this.executor = executor;
+		this.percentile = percentile;
+		this.budget = budget;
+	}
+
+	/**
+	 * Submit a request, sending a duplicate if no response arrives in time and the budget allows.
+	 *
+	 * @param route The route the request is made to, used to group observed latencies
+	 * @param request Submits the request and waits for its response
+	 * @return The first successful response received
+	 * @throws IOException If no successful response is received
+	 */
+	public TransportResponse execute(final String route, final Callable<TransportResponse> request)
+			throws IOException {
+		final LatencyWindow window = latencies(route);
+		final long hedgeDelay = (window.getSampleCount() >= MINIMUM_SAMPLES) ? window.percentile(percentile) : -1;
+		requests.incrementAndGet();
+		earnHedge();
+
+		final CompletionService<TransportResponse> completionService = new ExecutorCompletionService<>(executor);
+		final AtomicReference<TransportResponse> claimed = new AtomicReference<>();
+		final List<Future<TransportResponse>> attempts = new ArrayList<>(2);
+		TransportResponse returned = null;
+		try {
+			attempts.add(completionService.submit(new Attempt(request, window, claimed)));
+
+			Future<TransportResponse> completed = null;
+			if (hedgeDelay >= 0) {
+				completed = completionService.poll(hedgeDelay, TimeUnit.NANOSECONDS);
+				if ((completed == null) && spendHedge()) {
+					hedgesSent.incrementAndGet();
+					attempts.add(completionService.submit(new Attempt(request, window, claimed)));
+				}
+			}
+
+			IOException failure = null;
+			for (int outstanding = attempts.size(); outstanding > 0; outstanding--) {
+				if (completed == null) {
+					completed = completionService.take();
+				}
+
+				try {
+					final TransportResponse response = completed.get();
+					if (response != null) {
+						if (completed != attempts.get(0)) {
+							hedgesWon.incrementAndGet();
+						}
+
+						returned = response;
+						return response;
+					}
+				} catch (final ExecutionException e) {
+					failure = (e.getCause() instanceof IOException)
+							? (IOException) e.getCause() : new IOException("Error submitting request", e.getCause());
+				}
+
+				completed = null;
+			}
+
+			throw (failure != null) ? failure : new IOException("No response received");
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for a response");
+		} finally {
+			for (final Future<TransportResponse> attempt : attempts) {
+				attempt.cancel(true);
+			}
+
+			// A response may have been claimed, but not yet handed back, when the caller stopped waiting
+			if (!claimed.compareAndSet(null, ABANDONED)) {
+				final TransportResponse unreturned = claimed.get();
+				if ((unreturned != returned) && (unreturned.getBody() != null)) {
+					closeQuietly(unreturned);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param route The route
+	 * @return The estimated latency (in nanoseconds) of the route at the hedging percentile, or -1 if no latencies have
+	 * been observed
+	 */
+	public long getHedgeDelay(final String route) {
+		final LatencyWindow window = latencies.get(route);
+		return (window != null) ? window.percentile(percentile) : -1;
+	}
+
+	/**
+	 * @return The number of requests submitted (not counting duplicates)
+	 */
+	public long getRequests() {
+		return requests.get();
+	}
+
+	/**
+	 * @return The number of duplicate requests sent
+	 */
+	public long getHedgesSent() {
+		return hedgesSent.get();
+	}
+
+	/**
+	 * @return The number of duplicate requests whose response was used
+	 */
+	public long getHedgesWon() {
+		return hedgesWon.get();
+	}
+
+	/**
+	 * @param route The route
+	 * @return The latencies observed for the route, creating the window if necessary
+	 */
+	private LatencyWindow latencies(final String route) {
+		LatencyWindow window = latencies.get(route);
+		if (window == null) {
+			window = new LatencyWindow(WINDOW_SIZE);
+
+			final LatencyWindow existing = latencies.putIfAbsent(route, window);
+			if (existing != null) {
+				window = existing;
+			}
+		}
+
+		return window;
+	}
+
+	/**
+	 * Close the body of a response that will not be used, ignoring any errors.
+	 *
+	 * @param response The response
+	 */
+	private static void closeQuietly(final TransportResponse response) {
+		try {
+			response.getBody().close();
+		} catch (final IOException e) {
+			// The response is being discarded
+		}
+	}
+
+	/**
+	 * Add the fraction of a hedge earned by a request to the budget.
+	 */
+	private synchronized void earnHedge() {
+		availableHedges = Math.min(MAXIMUM_BURST, availableHedges + budget);
+	}
+
+	/**
+	 * @return Whether a whole hedge was available, and has been spent
+	 */
+	private synchronized boolean spendHedge() {
+		if (availableHedges < 1) {
+			return false;
+		}
+
+		availableHedges--;
+		return true;
+	}
+
+	/**
+	 * A single submission of a request. Only the first attempt to receive a successful response may claim it; the
+	 * response to any other is closed and discarded.
+	 */
+	private static final class Attempt implements Callable<TransportResponse> {
+
+		/** Submits the request and waits for its response. */
+		private final Callable<TransportResponse> request;
+
+		/** The latencies observed for the route. */
+		private final LatencyWindow window;
+
+		/** The response claimed by the first successful attempt, or a placeholder once the caller stops waiting. */
+		private final AtomicReference<TransportResponse> claimed;
+
+		/**
+		 * @param request Submits the request and waits for its response
+		 * @param window The latencies observed for the route
+		 * @param claimed The response claimed by the first successful attempt, or a placeholder once the caller stops
+		 * waiting
+		 */
+		private Attempt(final Callable<TransportResponse> request, final LatencyWindow window,
+				final AtomicReference<TransportResponse> claimed) {
+			this.request = request;
+			this.window = window;
+			this.claimed = claimed;
+		}
+
+		@Override
+		public TransportResponse call() throws Exception {
+			if (claimed.get() != null) {
+				return null;
+			}
+
+			final long start = System.nanoTime();
+			final TransportResponse response = request.call();
+			window.record(System.nanoTime() - start);
+
+			if (!claimed.compareAndSet(null, response)) {
+				if (response.getBody() != null) {
+					response.getBody().close();
+				}
+
+				return null;
+			}
+
+			return response;
+		}
+	}
+}
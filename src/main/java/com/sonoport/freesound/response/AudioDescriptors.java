@@ -15,6 +15,9 @@
  */
 package com.sonoport.freesound.response;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -23,6 +26,29 @@ import java.util.Set;
  */
 public class AudioDescriptors {
 
+	/**
+	 * The number of values taken by well known multi-dimensional descriptors, keyed on the name of the descriptor
+	 * without any statistic suffix (e.g. <code>lowlevel.mfcc</code> for <code>lowlevel.mfcc.mean</code>). The API
+	 * lists the descriptors available but not their sizes, so these are the sizes produced by freesound's extractor.
+	 */
+	private static final Map<String, Integer> KNOWN_DIMENSION_COUNTS;
+	static {
+		final Map<String, Integer> dimensionCounts = new HashMap<>();
+		dimensionCounts.put("lowlevel.barkbands", Integer.valueOf(27));
+		dimensionCounts.put("lowlevel.erb_bands", Integer.valueOf(40));
+		dimensionCounts.put("lowlevel.gfcc", Integer.valueOf(13));
+		dimensionCounts.put("lowlevel.mfcc", Integer.valueOf(13));
+		dimensionCounts.put("lowlevel.spectral_contrast", Integer.valueOf(6));
+		dimensionCounts.put("lowlevel.spectral_valleys", Integer.valueOf(6));
+		dimensionCounts.put("rhythm.beats_loudness_band_ratio", Integer.valueOf(6));
+		dimensionCounts.put("sfx.tristimulus", Integer.valueOf(3));
+		dimensionCounts.put("tonal.chords_histogram", Integer.valueOf(24));
+		dimensionCounts.put("tonal.hpcp", Integer.valueOf(36));
+		dimensionCounts.put("tonal.thpcp", Integer.valueOf(36));
+
+		KNOWN_DIMENSION_COUNTS = Collections.unmodifiableMap(dimensionCounts);
+	}
+
 	/** Fixed length descriptors that take a single value (e.g. pitch). */
 	private Set<String> fixedLengthOneDimensional;
 
@@ -74,4 +100,58 @@ public class AudioDescriptors {
 	public void setVariableLength(final Set<String> variableLength) {
 		this.variableLength = variableLength;
 	}
+
+	/**
+	 * Determine whether a descriptor is a known fixed length, one-dimensional descriptor.
+	 *
+	 * @param descriptor The name of the descriptor
+	 * @return Whether the descriptor is known
+	 */
+	public boolean isOneDimensional(final String descriptor) {
+		return (fixedLengthOneDimensional != null) && fixedLengthOneDimensional.contains(descriptor);
+	}
+
+	/**
+	 * Determine whether a descriptor is a known fixed length, multi-dimensional descriptor.
+	 *
+	 * @param descriptor The name of the descriptor
+	 * @return Whether the descriptor is known
+	 */
+	public boolean isMultiDimensional(final String descriptor) {
+		return (fixedLengthMultiDimensional != null) && fixedLengthMultiDimensional.contains(descriptor);
+	}
+
+	/**
+	 * Determine the number of values a fixed length descriptor takes.
+	 *
+	 * @param descriptor The name of the descriptor
+	 * @return The number of values (1 for one-dimensional descriptors), or -1 if the descriptor is not a known fixed
+	 *         length descriptor or its size is not known
+	 */
+	public int getDimensionCount(final String descriptor) {
+		if (isOneDimensional(descriptor)) {
+			return 1;
+		} else if (!isMultiDimensional(descriptor)) {
+			return -1;
+		}
+
+		Integer dimensionCount = KNOWN_DIMENSION_COUNTS.get(descriptor);
+		if ((dimensionCount == null) && (descriptor.lastIndexOf('.') > 0)) {
+			dimensionCount = KNOWN_DIMENSION_COUNTS.get(descriptor.substring(0, descriptor.lastIndexOf('.')));
+		}
+
+		return (dimensionCount != null) ? dimensionCount.intValue() : -1;
+	}
+
+	/**
+	 * Determine whether a descriptor is known, of any type.
+	 *
+	 * @param descriptor The name of the descriptor
+	 * @return Whether the descriptor is known
+	 */
+	public boolean contains(final String descriptor) {
+		return isOneDimensional(descriptor)
+				|| isMultiDimensional(descriptor)
+				|| ((variableLength != null) && variableLength.contains(descriptor));
+	}
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.response;
+
+import java.util.List;
+
+/**
+ * Class used to represent a list of items returned by the API where further results are retrieved by following a
+ * cursor (the 'more' URI), rather than by requesting a numbered page.
+ *
+ * @param <I> The type of the items in the results
+ */
+public class CursorPagingResponse<I extends Object> extends Response<List<I>> {
+
+	/** The URI to retrieve further results from (if any). */
+	private String moreResultsURI;
+
+	/**
+	 * @param responseStatus HTTP response status
+	 * @param responseStatusString HTTP response status string
+	 */
+	public CursorPagingResponse(final int responseStatus, final String responseStatusString) {
+		super(responseStatus, responseStatusString);
+	}
+
+	/**
+	 * @return Whether there are further results for the associated query
+	 */
+	public boolean hasMoreResults() {
+		return moreResultsURI != null;
+	}
+
+	/**
+	 * @return the moreResultsURI
+	 */
+	public String getMoreResultsURI() {
+		return moreResultsURI;
+	}
+
+	/**
+	 * @param moreResultsURI the moreResultsURI to set
+	 */
+	public void setMoreResultsURI(final String moreResultsURI) {
+		this.moreResultsURI = moreResultsURI;
+	}
+
+}
@@ -46,6 +46,12 @@ public class Sound {
 	 * that have been geotagged). */
 	private String geotag;
 
+	/** Latitude of the geotag (or <code>NaN</code> if the sound has not been geotagged). */
+	private double latitude = Double.NaN;
+
+	/** Longitude of the geotag (or <code>NaN</code> if the sound has not been geotagged). */
+	private double longitude = Double.NaN;
+
 	/** The date when the sound was uploaded. */
 	private Date created;
 
@@ -204,6 +210,36 @@ public class Sound {
 		this.geotag = geotag;
 	}
 
+	/**
+	 * @return Whether the location of the geotag is known
+	 */
+	public boolean hasLocation() {
+		return !Double.isNaN(getLatitude()) && !Double.isNaN(getLongitude());
+	}
+
+	/**
+	 * @return the latitude (or <code>NaN</code> if the sound has not been geotagged)
+	 */
+	public double getLatitude() {
+		return latitude;
+	}
+
+	/**
+	 * @return the longitude (or <code>NaN</code> if the sound has not been geotagged)
+	 */
+	public double getLongitude() {
+		return longitude;
+	}
+
+	/**
+	 * @param latitude the latitude to set (or <code>NaN</code> if not known)
+	 * @param longitude the longitude to set (or <code>NaN</code> if not known)
+	 */
+	public void setLocation(final double latitude, final double longitude) {
+		this.latitude = latitude;
+		this.longitude = longitude;
+	}
+
 	/**
 	 * @return the created
 	 */
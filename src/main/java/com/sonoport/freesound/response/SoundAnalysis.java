@@ -0,0 +1,172 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.response;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The analysis of a sound, consisting of the values of its audio descriptors. Descriptors are identified by their full
+ * dotted name (e.g. <code>lowlevel.mfcc.mean</code>), and held according to their shape:
+ *
+ * <ul>
+ * <li>Single numeric values (e.g. <code>lowlevel.pitch.mean</code>) - see {@link #getValue(String)}</li>
+ * <li>Vectors of values, whether fixed (e.g. <code>lowlevel.mfcc.mean</code>) or variable length (e.g.
+ * <code>rhythm.beats_position</code>) - see {@link #getVector(String)}</li>
+ * <li>Frames of values, each itself a vector (e.g. <code>lowlevel.mfcc.frames</code>) - see
+ * {@link #getFrames(String)}</li>
+ * <li>Textual values (e.g. <code>tonal.key_key</code>) - see {@link #getString(String)} and
+ * {@link #getStrings(String)}</li>
+ * </ul>
+ *
+ * Numeric values are held in primitive arrays rather than boxed collections, to keep large numbers of analyses compact.
+ */
+public class SoundAnalysis {
+
+	/** Positions of single numeric values in {@link #values}, keyed on descriptor name. */
+	private final Map<String, Integer> valueIndex = new HashMap<>();
+
+	/** Single numeric values. */
+	private double[] values = new double[16];
+
+	/** Vectors of values, keyed on descriptor name. */
+	private final Map<String, float[]> vectors = new HashMap<>();
+
+	/** Frames of values, keyed on descriptor name. */
+	private final Map<String, float[][]> frames = new HashMap<>();
+
+	/** Textual values, keyed on descriptor name. */
+	private final Map<String, String> strings = new HashMap<>();
+
+	/** Lists of textual values, keyed on descriptor name. */
+	private final Map<String, String[]> stringLists = new HashMap<>();
+
+	/**
+	 * @param descriptor Name of the descriptor
+	 * @return Whether a single numeric value is held for the descriptor
+	 */
+	public boolean hasValue(final String descriptor) {
+		return valueIndex.containsKey(descriptor);
+	}
+
+	/**
+	 * @param descriptor Name of the descriptor
+	 * @return The single numeric value of the descriptor, or <code>NaN</code> if none is held
+	 */
+	public double getValue(final String descriptor) {
+		final Integer index = valueIndex.get(descriptor);
+		return (index != null) ? values[index.intValue()] : Double.NaN;
+	}
+
+	/**
+	 * @param descriptor Name of the descriptor
+	 * @param value The single numeric value of the descriptor
+	 */
+	public void setValue(final String descriptor, final double value) {
+		final Integer index = valueIndex.get(descriptor);
+		if (index != null) {
+			values[index.intValue()] = value;
+		} else {
+			final int newIndex = valueIndex.size();
+			if (newIndex == values.length) {
+				values = Arrays.copyOf(values, values.length * 2);
+			}
+
+			values[newIndex] = value;
+			valueIndex.put(descriptor, Integer.valueOf(newIndex));
+		}
+	}
+
+	/**
+	 * @param descriptor Name of the descriptor
+	 * @return The vector of values of the descriptor (or null if none is held)
+	 */
+	public float[] getVector(final String descriptor) {
+		return vectors.get(descriptor);
+	}
+
+	/**
+	 * @param descriptor Name of the descriptor
+	 * @param vector The vector of values of the descriptor
+	 */
+	public void setVector(final String descriptor, final float[] vector) {
+		vectors.put(descriptor, vector);
+	}
+
+	/**
+	 * @param descriptor Name of the descriptor
+	 * @return The frames of values of the descriptor (or null if none are held)
+	 */
+	public float[][] getFrames(final String descriptor) {
+		return frames.get(descriptor);
+	}
+
+	/**
+	 * @param descriptor Name of the descriptor
+	 * @param descriptorFrames The frames of values of the descriptor
+	 */
+	public void setFrames(final String descriptor, final float[][] descriptorFrames) {
+		frames.put(descriptor, descriptorFrames);
+	}
+
+	/**
+	 * @param descriptor Name of the descriptor
+	 * @return The textual value of the descriptor (or null if none is held)
+	 */
+	public String getString(final String descriptor) {
+		return strings.get(descriptor);
+	}
+
+	/**
+	 * @param descriptor Name of the descriptor
+	 * @param value The textual value of the descriptor
+	 */
+	public void setString(final String descriptor, final String value) {
+		strings.put(descriptor, value);
+	}
+
+	/**
+	 * @param descriptor Name of the descriptor
+	 * @return The textual values of the descriptor (or null if none are held)
+	 */
+	public String[] getStrings(final String descriptor) {
+		return stringLists.get(descriptor);
+	}
+
+	/**
+	 * @param descriptor Name of the descriptor
+	 * @param value The textual values of the descriptor
+	 */
+	public void setStrings(final String descriptor, final String[] value) {
+		stringLists.put(descriptor, value);
+	}
+
+	/**
+	 * @return The names of all descriptors held, in alphabetical order
+	 */
+	public Set<String> getDescriptorNames() {
+		final Set<String> names = new TreeSet<>(valueIndex.keySet());
+		names.addAll(vectors.keySet());
+		names.addAll(frames.keySet());
+		names.addAll(strings.keySet());
+		names.addAll(stringLists.keySet());
+
+		return names;
+	}
+}
@@ -43,7 +43,7 @@ public abstract class AbstractUserMapper<R extends User> extends Mapper<JSONObje
 			user = returnType.newInstance();
 
 			user.setUrl(extractFieldValue(source, "url", String.class));
-			user.setUsername(extractFieldValue(source, "username", String.class));
+			user.setUsername(extractInternedString(source, "username"));
 			user.setAbout(extractFieldValue(source, "about", String.class));
 			user.setHomepage(extractFieldValue(source, "home_page", String.class));
 			user.setAvatarURIs(parseDictionary(extractFieldValue(source, "avatar", JSONObject.class)));
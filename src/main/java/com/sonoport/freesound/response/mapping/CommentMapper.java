@@ -25,11 +25,25 @@ import com.sonoport.freesound.response.Comment;
  */
 public class CommentMapper extends Mapper<JSONObject, Comment> {
 
+	/**
+	 * No-arg constructor.
+	 */
+	public CommentMapper() {
+		this(null);
+	}
+
+	/**
+	 * @param stringPool {@link StringPool} used to share repeated string values (may be null)
+	 */
+	public CommentMapper(final StringPool stringPool) {
+		setStringPool(stringPool);
+	}
+
 	@Override
 	public Comment map(final JSONObject source) {
 		final Comment comment = new Comment();
 
-		comment.setUsername(extractFieldValue(source, "username", String.class));
+		comment.setUsername(extractInternedString(source, "username"));
 		comment.setComment(extractFieldValue(source, "comment", String.class));
 		comment.setCreated(parseDate(extractFieldValue(source, "created", String.class)));
 
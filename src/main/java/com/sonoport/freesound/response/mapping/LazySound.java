@@ -0,0 +1,467 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.response.mapping;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.JSONObject;
+
+import com.sonoport.freesound.License;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * {@link Sound} implementation that holds on to the JSON representation of the sound received from freesound, and only
+ * decodes each field the first time it is accessed. Decoded values are memoised, so each field is decoded at most
+ * once even when accessed concurrently from multiple threads. Once every field has been decoded (or explicitly set),
+ * the reference to the JSON representation is released.
+ *
+ * Instances are created by {@link SoundMapper} when configured for lazy mapping.
+ */
+class LazySound extends Sound {
+
+	/** Mask with a bit set for every {@link SoundField}. */
+	static final long ALL_FIELDS = (1L << SoundField.values().length) - 1;
+
+	/** The {@link SoundMapper} used to decode fields. */
+	private final SoundMapper mapper;
+
+	/** The JSON representation of the sound. Released once all fields have been decoded. */
+	private volatile JSONObject source;
+
+	/** Mask of the {@link SoundField}s that have been decoded (or set) so far. */
+	private volatile long decodedFields;
+
+	/** The field currently being decoded (or null if none is). Guarded by the lock on this object. */
+	private SoundField decoding;
+
+	/**
+	 * @param mapper The {@link SoundMapper} used to decode fields
+	 * @param source The JSON representation of the sound
+	 * @param skippedFields Mask of the {@link SoundField}s that should never be decoded
+	 */
+	LazySound(final SoundMapper mapper, final JSONObject source, final long skippedFields) {
+		this.mapper = mapper;
+		this.source = source;
+		this.decodedFields = skippedFields & ALL_FIELDS;
+	}
+
+	/**
+	 * Ensure that a field has been decoded from the JSON representation of the sound.
+	 *
+	 * @param field The field to decode
+	 */
+	private void ensureDecoded(final SoundField field) {
+		if ((decodedFields & field.getMask()) == 0) {
+			synchronized (this) {
+				if ((decodedFields & field.getMask()) == 0) {
+					// Decoding calls back into the relevant setter, which marks the field as decoded
+					decoding = field;
+					try {
+						field.decode(mapper, source, this);
+					} finally {
+						decoding = null;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Record that a field has been decoded (or set), releasing the JSON representation if all fields now have been.
+	 * Must be called whilst holding the lock on this object, after the field value has been set.
+	 *
+	 * @param field The field to mark as decoded
+	 */
+	private void markDecoded(final SoundField field) {
+		decodedFields |= field.getMask();
+
+		if (decodedFields == ALL_FIELDS) {
+			source = null;
+		}
+	}
+
+	@Override
+	public Integer getId() {
+		ensureDecoded(SoundField.ID);
+		return super.getId();
+	}
+
+	@Override
+	public synchronized void setId(final Integer id) {
+		super.setId(id);
+		markDecoded(SoundField.ID);
+	}
+
+	@Override
+	public String getUrl() {
+		ensureDecoded(SoundField.URL);
+		return super.getUrl();
+	}
+
+	@Override
+	public synchronized void setUrl(final String url) {
+		super.setUrl(url);
+		markDecoded(SoundField.URL);
+	}
+
+	@Override
+	public String getName() {
+		ensureDecoded(SoundField.NAME);
+		return super.getName();
+	}
+
+	@Override
+	public synchronized void setName(final String name) {
+		super.setName(name);
+		markDecoded(SoundField.NAME);
+	}
+
+	@Override
+	public Set<String> getTags() {
+		ensureDecoded(SoundField.TAGS);
+		return super.getTags();
+	}
+
+	@Override
+	public synchronized void setTags(final Set<String> tags) {
+		super.setTags(tags);
+		markDecoded(SoundField.TAGS);
+	}
+
+	@Override
+	public String getDescription() {
+		ensureDecoded(SoundField.DESCRIPTION);
+		return super.getDescription();
+	}
+
+	@Override
+	public synchronized void setDescription(final String description) {
+		super.setDescription(description);
+		markDecoded(SoundField.DESCRIPTION);
+	}
+
+	@Override
+	public String getGeotag() {
+		ensureDecoded(SoundField.GEOTAG);
+		return super.getGeotag();
+	}
+
+	@Override
+	public synchronized void setGeotag(final String geotag) {
+		super.setGeotag(geotag);
+		markDecoded(SoundField.GEOTAG);
+	}
+
+	@Override
+	public double getLatitude() {
+		ensureDecoded(SoundField.GEOTAG);
+		return super.getLatitude();
+	}
+
+	@Override
+	public double getLongitude() {
+		ensureDecoded(SoundField.GEOTAG);
+		return super.getLongitude();
+	}
+
+	@Override
+	public synchronized void setLocation(final double latitude, final double longitude) {
+		// Decode first, so that a later decode of the geotag cannot overwrite the location being set - unless this is
+		// the geotag being decoded, in which case the field is only marked as decoded once the geotag itself is set
+		if (decoding != SoundField.GEOTAG) {
+			ensureDecoded(SoundField.GEOTAG);
+		}
+		super.setLocation(latitude, longitude);
+	}
+
+	@Override
+	public Date getCreated() {
+		ensureDecoded(SoundField.CREATED);
+		return super.getCreated();
+	}
+
+	@Override
+	public synchronized void setCreated(final Date created) {
+		super.setCreated(created);
+		markDecoded(SoundField.CREATED);
+	}
+
+	@Override
+	public License getLicense() {
+		ensureDecoded(SoundField.LICENSE);
+		return super.getLicense();
+	}
+
+	@Override
+	public synchronized void setLicense(final License license) {
+		super.setLicense(license);
+		markDecoded(SoundField.LICENSE);
+	}
+
+	@Override
+	public String getType() {
+		ensureDecoded(SoundField.TYPE);
+		return super.getType();
+	}
+
+	@Override
+	public synchronized void setType(final String type) {
+		super.setType(type);
+		markDecoded(SoundField.TYPE);
+	}
+
+	@Override
+	public Integer getChannels() {
+		ensureDecoded(SoundField.CHANNELS);
+		return super.getChannels();
+	}
+
+	@Override
+	public synchronized void setChannels(final Integer channels) {
+		super.setChannels(channels);
+		markDecoded(SoundField.CHANNELS);
+	}
+
+	@Override
+	public Integer getFilesize() {
+		ensureDecoded(SoundField.FILESIZE);
+		return super.getFilesize();
+	}
+
+	@Override
+	public synchronized void setFilesize(final Integer filesize) {
+		super.setFilesize(filesize);
+		markDecoded(SoundField.FILESIZE);
+	}
+
+	@Override
+	public Integer getBitrate() {
+		ensureDecoded(SoundField.BITRATE);
+		return super.getBitrate();
+	}
+
+	@Override
+	public synchronized void setBitrate(final Integer bitrate) {
+		super.setBitrate(bitrate);
+		markDecoded(SoundField.BITRATE);
+	}
+
+	@Override
+	public Integer getBitdepth() {
+		ensureDecoded(SoundField.BITDEPTH);
+		return super.getBitdepth();
+	}
+
+	@Override
+	public synchronized void setBitdepth(final Integer bitdepth) {
+		super.setBitdepth(bitdepth);
+		markDecoded(SoundField.BITDEPTH);
+	}
+
+	@Override
+	public Float getDuration() {
+		ensureDecoded(SoundField.DURATION);
+		return super.getDuration();
+	}
+
+	@Override
+	public synchronized void setDuration(final Float duration) {
+		super.setDuration(duration);
+		markDecoded(SoundField.DURATION);
+	}
+
+	@Override
+	public Float getSamplerate() {
+		ensureDecoded(SoundField.SAMPLERATE);
+		return super.getSamplerate();
+	}
+
+	@Override
+	public synchronized void setSamplerate(final Float samplerate) {
+		super.setSamplerate(samplerate);
+		markDecoded(SoundField.SAMPLERATE);
+	}
+
+	@Override
+	public String getUsername() {
+		ensureDecoded(SoundField.USERNAME);
+		return super.getUsername();
+	}
+
+	@Override
+	public synchronized void setUsername(final String username) {
+		super.setUsername(username);
+		markDecoded(SoundField.USERNAME);
+	}
+
+	@Override
+	public String getPack() {
+		ensureDecoded(SoundField.PACK);
+		return super.getPack();
+	}
+
+	@Override
+	public synchronized void setPack(final String pack) {
+		super.setPack(pack);
+		markDecoded(SoundField.PACK);
+	}
+
+	@Override
+	public String getDownloadURI() {
+		ensureDecoded(SoundField.DOWNLOAD_URI);
+		return super.getDownloadURI();
+	}
+
+	@Override
+	public synchronized void setDownloadURI(final String downloadURI) {
+		super.setDownloadURI(downloadURI);
+		markDecoded(SoundField.DOWNLOAD_URI);
+	}
+
+	@Override
+	public String getBookmarkURI() {
+		ensureDecoded(SoundField.BOOKMARK_URI);
+		return super.getBookmarkURI();
+	}
+
+	@Override
+	public synchronized void setBookmarkURI(final String bookmarkURI) {
+		super.setBookmarkURI(bookmarkURI);
+		markDecoded(SoundField.BOOKMARK_URI);
+	}
+
+	@Override
+	public Map<String, String> getPreviews() {
+		ensureDecoded(SoundField.PREVIEWS);
+		return super.getPreviews();
+	}
+
+	@Override
+	public synchronized void setPreviews(final Map<String, String> previews) {
+		super.setPreviews(previews);
+		markDecoded(SoundField.PREVIEWS);
+	}
+
+	@Override
+	public Map<String, String> getImages() {
+		ensureDecoded(SoundField.IMAGES);
+		return super.getImages();
+	}
+
+	@Override
+	public synchronized void setImages(final Map<String, String> images) {
+		super.setImages(images);
+		markDecoded(SoundField.IMAGES);
+	}
+
+	@Override
+	public Integer getNumberOfDownloads() {
+		ensureDecoded(SoundField.NUMBER_OF_DOWNLOADS);
+		return super.getNumberOfDownloads();
+	}
+
+	@Override
+	public synchronized void setNumberOfDownloads(final Integer numberOfDownloads) {
+		super.setNumberOfDownloads(numberOfDownloads);
+		markDecoded(SoundField.NUMBER_OF_DOWNLOADS);
+	}
+
+	@Override
+	public Float getAverageRating() {
+		ensureDecoded(SoundField.AVERAGE_RATING);
+		return super.getAverageRating();
+	}
+
+	@Override
+	public synchronized void setAverageRating(final Float averageRating) {
+		super.setAverageRating(averageRating);
+		markDecoded(SoundField.AVERAGE_RATING);
+	}
+
+	@Override
+	public Integer getNumberOfRatings() {
+		ensureDecoded(SoundField.NUMBER_OF_RATINGS);
+		return super.getNumberOfRatings();
+	}
+
+	@Override
+	public synchronized void setNumberOfRatings(final Integer numberOfRatings) {
+		super.setNumberOfRatings(numberOfRatings);
+		markDecoded(SoundField.NUMBER_OF_RATINGS);
+	}
+
+	@Override
+	public String getRatingURI() {
+		ensureDecoded(SoundField.RATING_URI);
+		return super.getRatingURI();
+	}
+
+	@Override
+	public synchronized void setRatingURI(final String ratingURI) {
+		super.setRatingURI(ratingURI);
+		markDecoded(SoundField.RATING_URI);
+	}
+
+	@Override
+	public String getCommentsURI() {
+		ensureDecoded(SoundField.COMMENTS_URI);
+		return super.getCommentsURI();
+	}
+
+	@Override
+	public synchronized void setCommentsURI(final String commentsURI) {
+		super.setCommentsURI(commentsURI);
+		markDecoded(SoundField.COMMENTS_URI);
+	}
+
+	@Override
+	public Integer getNumberOfComments() {
+		ensureDecoded(SoundField.NUMBER_OF_COMMENTS);
+		return super.getNumberOfComments();
+	}
+
+	@Override
+	public synchronized void setNumberOfComments(final Integer numberOfComments) {
+		super.setNumberOfComments(numberOfComments);
+		markDecoded(SoundField.NUMBER_OF_COMMENTS);
+	}
+
+	@Override
+	public String getCommentURI() {
+		ensureDecoded(SoundField.COMMENT_URI);
+		return super.getCommentURI();
+	}
+
+	@Override
+	public synchronized void setCommentURI(final String commentURI) {
+		super.setCommentURI(commentURI);
+		markDecoded(SoundField.COMMENT_URI);
+	}
+
+	@Override
+	public String getSimilarSoundsURI() {
+		ensureDecoded(SoundField.SIMILAR_SOUNDS_URI);
+		return super.getSimilarSoundsURI();
+	}
+
+	@Override
+	public synchronized void setSimilarSoundsURI(final String similarSoundsURI) {
+		super.setSimilarSoundsURI(similarSoundsURI);
+		markDecoded(SoundField.SIMILAR_SOUNDS_URI);
+	}
+}
@@ -20,12 +20,13 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 
 import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
 
 /**
@@ -40,6 +41,9 @@ public abstract class Mapper<S extends Object, R extends Object> {
 	/** The date/time format used by freesound. */
 	private static final String FREESOUND_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss";
 
+	/** Optional {@link StringPool} used to share instances of frequently repeated string values. */
+	private StringPool stringPool;
+
 	/**
 	 * Perform the conversion between the two specified types.
 	 *
@@ -48,9 +52,32 @@ public abstract class Mapper<S extends Object, R extends Object> {
 	 */
 	public abstract R map(S source);
 
+	/**
+	 * Return the pooled instance of a string value, if a {@link StringPool} has been configured for this mapper.
+	 *
+	 * @param value The value to intern
+	 * @return The pooled instance, or the original value if no pool is configured
+	 */
+	protected String intern(final String value) {
+		return (stringPool != null) ? stringPool.intern(value) : value;
+	}
+
+	/**
+	 * Extract a named string value from a {@link JSONObject}, returning the pooled instance if a {@link StringPool} has
+	 * been configured for this mapper.
+	 *
+	 * @param jsonObject The {@link JSONObject} being processed
+	 * @param field The field to retrieve
+	 * @return The field value (or null if not found)
+	 */
+	protected String extractInternedString(final JSONObject jsonObject, final String field) {
+		return intern(extractFieldValue(jsonObject, field, String.class));
+	}
+
 	/**
 	 * Extract a named value from a {@link JSONObject}. This method checks whether the value exists and is not an
-	 * instance of <code>JSONObject.NULL</code>.
+	 * instance of <code>JSONObject.NULL</code>. The value is looked up only once, and converted to the requested type
+	 * directly rather than via the typed accessors of {@link JSONObject} (which would each repeat the lookup).
 	 *
 	 * @param jsonObject The {@link JSONObject} being processed
 	 * @param field The field to retrieve
@@ -59,30 +86,56 @@ public abstract class Mapper<S extends Object, R extends Object> {
 	 *
 	 * @param <T> The data type to return
 	 */
-	@SuppressWarnings("unchecked")
 	protected <T extends Object> T extractFieldValue(
 			final JSONObject jsonObject, final String field, final Class<T> fieldType) {
 		T fieldValue = null;
-		if ((jsonObject != null) && jsonObject.has(field) && !jsonObject.isNull(field)) {
-			try {
-				if (fieldType == String.class) {
-					fieldValue = (T) jsonObject.getString(field);
-				} else if (fieldType == Integer.class) {
-					fieldValue = (T) Integer.valueOf(jsonObject.getInt(field));
-				} else if (fieldType == Long.class) {
-					fieldValue = (T) Long.valueOf(jsonObject.getLong(field));
-				} else if (fieldType == Float.class) {
-					fieldValue = (T) Float.valueOf(Double.toString(jsonObject.getDouble(field)));
-				} else if (fieldType == JSONArray.class) {
-					fieldValue = (T) jsonObject.getJSONArray(field);
-				} else if (fieldType == JSONObject.class) {
-					fieldValue = (T) jsonObject.getJSONObject(field);
-				} else {
-					fieldValue = (T) jsonObject.get(field);
+		if (jsonObject != null) {
+			final Object value = jsonObject.opt(field);
+			if ((value != null) && !JSONObject.NULL.equals(value)) {
+				fieldValue = convertFieldValue(value, fieldType);
+			}
+		}
+
+		return fieldValue;
+	}
+
+	/**
+	 * Convert a raw value taken from a {@link JSONObject} into the requested type. Conversions follow the same rules as
+	 * the typed accessors of {@link JSONObject} (e.g. numeric values may be supplied as strings).
+	 *
+	 * @param value The raw value
+	 * @param fieldType The data type to convert to
+	 * @return The converted value (or null if the value cannot be converted)
+	 *
+	 * @param <T> The data type to return
+	 */
+	@SuppressWarnings("unchecked")
+	private <T extends Object> T convertFieldValue(final Object value, final Class<T> fieldType) {
+		T fieldValue = null;
+		try {
+			if (fieldType == String.class) {
+				if (value instanceof String) {
+					fieldValue = (T) value;
 				}
-			} catch (final JSONException | ClassCastException e) {
-				// TODO Log a warning
+			} else if (fieldType == Integer.class) {
+				fieldValue = (T) Integer.valueOf(
+						(value instanceof Number) ? ((Number) value).intValue() : Integer.parseInt((String) value));
+			} else if (fieldType == Long.class) {
+				fieldValue = (T) Long.valueOf(
+						(value instanceof Number) ? ((Number) value).longValue() : Long.parseLong((String) value));
+			} else if (fieldType == Float.class) {
+				final double doubleValue =
+						(value instanceof Number) ? ((Number) value).doubleValue() : Double.parseDouble((String) value);
+				fieldValue = (T) Float.valueOf(Double.toString(doubleValue));
+			} else if ((fieldType == JSONArray.class) || (fieldType == JSONObject.class)) {
+				if (fieldType.isInstance(value)) {
+					fieldValue = (T) value;
+				}
+			} else {
+				fieldValue = (T) value;
 			}
+		} catch (final NumberFormatException | ClassCastException e) {
+			// TODO Log a warning
 		}
 
 		return fieldValue;
@@ -98,7 +151,7 @@ public abstract class Mapper<S extends Object, R extends Object> {
 		final Map<String, String> dictionaryAsMap = new HashMap<>();
 		if (jsonDictionaryObject != null) {
 			for (final String key : JSONObject.getNames(jsonDictionaryObject)) {
-				dictionaryAsMap.put(key, extractFieldValue(jsonDictionaryObject, key, String.class));
+				dictionaryAsMap.put(intern(key), extractFieldValue(jsonDictionaryObject, key, String.class));
 			}
 		}
 
@@ -126,6 +179,30 @@ public abstract class Mapper<S extends Object, R extends Object> {
 		return arrayContents;
 	}
 
+	/**
+	 * Transform a JSON Array into a {@link Set}, interning each element if a {@link StringPool} has been configured for
+	 * this mapper.
+	 *
+	 * @param jsonArray The {@link JSONArray} to convert
+	 * @return Set of values
+	 */
+	protected Set<String> parseInternedSet(final JSONArray jsonArray) {
+		if (jsonArray == null) {
+			return new HashSet<>();
+		}
+
+		final int length = jsonArray.length();
+		final Set<String> setContents = new HashSet<>(Math.max(16, (int) (length / 0.75f) + 1));
+		for (int i = 0; i < length; i++) {
+			final String element = jsonArray.getString(i);
+			if (element != null) {
+				setContents.add(intern(element));
+			}
+		}
+
+		return setContents;
+	}
+
 	/**
 	 * Transform an array of JSON Objects into a {@link List} of DTOs.
 	 *
@@ -173,4 +250,18 @@ public abstract class Mapper<S extends Object, R extends Object> {
 
 		return date;
 	}
+
+	/**
+	 * @return the stringPool
+	 */
+	public StringPool getStringPool() {
+		return stringPool;
+	}
+
+	/**
+	 * @param stringPool the stringPool to set
+	 */
+	public void setStringPool(final StringPool stringPool) {
+		this.stringPool = stringPool;
+	}
 }
@@ -25,6 +25,20 @@ import com.sonoport.freesound.response.Pack;
  */
 public class PackMapper extends Mapper<JSONObject, Pack> {
 
+	/**
+	 * No-arg constructor.
+	 */
+	public PackMapper() {
+		this(null);
+	}
+
+	/**
+	 * @param stringPool {@link StringPool} used to share repeated string values (may be null)
+	 */
+	public PackMapper(final StringPool stringPool) {
+		setStringPool(stringPool);
+	}
+
 	@Override
 	public Pack map(final JSONObject source) {
 		final Pack pack = new Pack();
@@ -34,7 +48,7 @@ public class PackMapper extends Mapper<JSONObject, Pack> {
 		pack.setDescription(extractFieldValue(source, "description", String.class));
 		pack.setCreated(parseDate(extractFieldValue(source, "created", String.class)));
 		pack.setName(extractFieldValue(source, "name", String.class));
-		pack.setUsername(extractFieldValue(source, "username", String.class));
+		pack.setUsername(extractInternedString(source, "username"));
 		pack.setNumberOfSounds(extractFieldValue(source, "num_sounds", Integer.class));
 		pack.setSoundsURI(extractFieldValue(source, "sounds", String.class));
 		pack.setNumberOfDownloads(extractFieldValue(source, "num_downloads", Integer.class));
@@ -59,6 +59,19 @@ public class PagingResponseMapper<I extends Object> extends Mapper<JSONObject, L
 		return items;
 	}
 
+	@Override
+	public void setStringPool(final StringPool stringPool) {
+		super.setStringPool(stringPool);
+		itemMapper.setStringPool(stringPool);
+	}
+
+	/**
+	 * @return the itemMapper
+	 */
+	public Mapper<JSONObject, I> getItemMapper() {
+		return itemMapper;
+	}
+
 	/**
 	 * Retrieve the total number of results for the query from the JSON message.
 	 *
@@ -88,4 +101,14 @@ public class PagingResponseMapper<I extends Object> extends Mapper<JSONObject, L
 	public String extractPreviousPageURI(final JSONObject source) {
 		return extractFieldValue(source, "previous", String.class);
 	}
+
+	/**
+	 * Retrieve the URI to retrieve further results from (if any) for cursor-paged queries from the JSON message.
+	 *
+	 * @param source JSON response from freesound
+	 * @return URI of further results
+	 */
+	public String extractMoreResultsURI(final JSONObject source) {
+		return extractFieldValue(source, "more", String.class);
+	}
 }
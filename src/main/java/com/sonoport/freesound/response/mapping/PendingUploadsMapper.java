@@ -45,4 +45,10 @@ public class PendingUploadsMapper extends Mapper<JSONObject, PendingUploads> {
 		return pendingUploads;
 	}
 
+	@Override
+	public void setStringPool(final StringPool stringPool) {
+		super.setStringPool(stringPool);
+		soundMapper.setStringPool(stringPool);
+	}
+
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.response.mapping;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.sonoport.freesound.response.SoundAnalysis;
+
+/**
+ * Transform the JSON representation of the analysis of a sound into a {@link SoundAnalysis} object. The nested
+ * structure of the response is flattened, so that each descriptor is identified by its full dotted name. Numeric
+ * arrays are copied straight into primitive arrays, without building intermediate boxed collections.
+ */
+public class SoundAnalysisMapper extends Mapper<JSONObject, SoundAnalysis> {
+
+	@Override
+	public SoundAnalysis map(final JSONObject source) {
+		final SoundAnalysis soundAnalysis = new SoundAnalysis();
+		if (source != null) {
+			mapObject(source, null, soundAnalysis);
+		}
+
+		return soundAnalysis;
+	}
+
+	/**
+	 * Map the contents of a JSON object onto the analysis, prefixing the names of its descriptors.
+	 *
+	 * @param jsonObject The object to map
+	 * @param prefix The dotted name of the object (or null at the top level)
+	 * @param soundAnalysis The analysis being populated
+	 */
+	private void mapObject(final JSONObject jsonObject, final String prefix, final SoundAnalysis soundAnalysis) {
+		final String[] keys = JSONObject.getNames(jsonObject);
+		if (keys == null) {
+			return;
+		}
+
+		for (final String key : keys) {
+			final String descriptor = intern((prefix != null) ? (prefix + '.' + key) : key);
+			final Object value = jsonObject.opt(key);
+
+			if (value instanceof JSONObject) {
+				mapObject((JSONObject) value, descriptor, soundAnalysis);
+			} else if (value instanceof JSONArray) {
+				mapArray((JSONArray) value, descriptor, soundAnalysis);
+			} else if (value instanceof Number) {
+				soundAnalysis.setValue(descriptor, ((Number) value).doubleValue());
+			} else if (value instanceof String) {
+				soundAnalysis.setString(descriptor, intern((String) value));
+			}
+		}
+	}
+
+	/**
+	 * Map a JSON array onto the analysis, as a vector, frames or list of strings depending on its contents.
+	 *
+	 * @param jsonArray The array to map
+	 * @param descriptor The dotted name of the descriptor
+	 * @param soundAnalysis The analysis being populated
+	 */
+	private void mapArray(final JSONArray jsonArray, final String descriptor, final SoundAnalysis soundAnalysis) {
+		final int length = jsonArray.length();
+		final Object first = (length > 0) ? jsonArray.opt(0) : null;
+
+		if (first instanceof JSONArray) {
+			final float[][] frames = new float[length][];
+			for (int i = 0; i < length; i++) {
+				frames[i] = toFloatArray(jsonArray.optJSONArray(i));
+			}
+			soundAnalysis.setFrames(descriptor, frames);
+		} else if (first instanceof String) {
+			final String[] values = new String[length];
+			for (int i = 0; i < length; i++) {
+				values[i] = intern(jsonArray.optString(i, null));
+			}
+			soundAnalysis.setStrings(descriptor, values);
+		} else {
+			soundAnalysis.setVector(descriptor, toFloatArray(jsonArray));
+		}
+	}
+
+	/**
+	 * Copy a JSON array of numbers into a primitive array. Missing or non-numeric elements are held as
+	 * <code>NaN</code>.
+	 *
+	 * @param jsonArray The array to copy
+	 * @return The values of the array
+	 */
+	private static float[] toFloatArray(final JSONArray jsonArray) {
+		if (jsonArray == null) {
+			return new float[0];
+		}
+
+		final float[] values = new float[jsonArray.length()];
+		for (int i = 0; i < values.length; i++) {
+			final Object value = jsonArray.opt(i);
+			values[i] = (value instanceof Number) ? ((Number) value).floatValue() : Float.NaN;
+		}
+
+		return values;
+	}
+
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.response.mapping;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.sonoport.freesound.License;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * Enumeration of the fields of the freesound.org JSON representation of a sound, and how each is mapped onto the
+ * corresponding property of a {@link Sound} DTO. Holding the mapping per field allows {@link SoundMapper} to decode
+ * fields individually, rather than always processing the complete record.
+ */
+public enum SoundField {
+
+	/** The sound's unique identifier. */
+	ID("id") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setId(mapper.extractFieldValue(source, "id", Integer.class));
+		}
+	},
+
+	/** The URI for this sound on the Freesound website. */
+	URL("url") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setUrl(mapper.extractFieldValue(source, "url", String.class));
+		}
+	},
+
+	/** The name user gave to the sound. */
+	NAME("name") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setName(mapper.extractFieldValue(source, "name", String.class));
+		}
+	},
+
+	/** An array of tags the user gave to the sound. */
+	TAGS("tags") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setTags(mapper.parseInternedSet(mapper.extractFieldValue(source, "tags", JSONArray.class)));
+		}
+
+		@Override
+		void skip(final Sound sound) {
+			sound.setTags(new HashSet<String>());
+		}
+	},
+
+	/** The description the user gave to the sound. */
+	DESCRIPTION("description") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setDescription(mapper.extractFieldValue(source, "description", String.class));
+		}
+	},
+
+	/** Latitude and longitude of the geotag separated by spaces, also parsed into the location of the sound. */
+	GEOTAG("geotag") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			final String geotag = mapper.extractFieldValue(source, "geotag", String.class);
+
+			// The geotag must be set last, as this marks the field as decoded on lazily mapped sounds, publishing the
+			// location along with it
+			final double[] location = SoundMapper.parseGeotag(geotag);
+			if (location != null) {
+				sound.setLocation(location[0], location[1]);
+			}
+
+			sound.setGeotag(geotag);
+		}
+	},
+
+	/** The date when the sound was uploaded. */
+	CREATED("created") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setCreated(mapper.parseDate(mapper.extractFieldValue(source, "created", String.class)));
+		}
+	},
+
+	/** The license under which the sound is available. */
+	LICENSE("license") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setLicense(License.fromURI(mapper.extractFieldValue(source, "license", String.class)));
+		}
+	},
+
+	/** The type of sound (wav, aif, aiff, mp3, or flac). */
+	TYPE("type") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setType(mapper.extractInternedString(source, "type"));
+		}
+	},
+
+	/** The number of channels. */
+	CHANNELS("channels") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setChannels(mapper.extractFieldValue(source, "channels", Integer.class));
+		}
+	},
+
+	/** The size of the file in bytes. */
+	FILESIZE("filesize") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setFilesize(mapper.extractFieldValue(source, "filesize", Integer.class));
+		}
+	},
+
+	/** The bit rate of the sound in kbps. */
+	BITRATE("bitrate") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setBitrate(mapper.extractFieldValue(source, "bitrate", Integer.class));
+		}
+	},
+
+	/** The bit depth of the sound. */
+	BITDEPTH("bitdepth") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setBitdepth(mapper.extractFieldValue(source, "bitdepth", Integer.class));
+		}
+	},
+
+	/** The duration of the sound in seconds. */
+	DURATION("duration") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setDuration(mapper.extractFieldValue(source, "duration", Float.class));
+		}
+	},
+
+	/** The sample rate of the sound. */
+	SAMPLERATE("samplerate") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setSamplerate(mapper.extractFieldValue(source, "samplerate", Float.class));
+		}
+	},
+
+	/** The username of the uploader of the sound. */
+	USERNAME("username") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setUsername(mapper.extractInternedString(source, "username"));
+		}
+	},
+
+	/** If the sound is part of a pack, this URI points to that pack's API resource. */
+	PACK("pack") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setPack(mapper.extractInternedString(source, "pack"));
+		}
+	},
+
+	/** The URI for retrieving the original sound. */
+	DOWNLOAD_URI("download") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setDownloadURI(mapper.extractFieldValue(source, "download", String.class));
+		}
+	},
+
+	/** The URI for bookmarking the sound. */
+	BOOKMARK_URI("bookmark") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setBookmarkURI(mapper.extractFieldValue(source, "bookmark", String.class));
+		}
+	},
+
+	/** Dictionary containing the URIs for mp3 and ogg versions of the sound. */
+	PREVIEWS("previews") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setPreviews(mapper.parseDictionary(mapper.extractFieldValue(source, "previews", JSONObject.class)));
+		}
+
+		@Override
+		void skip(final Sound sound) {
+			sound.setPreviews(new HashMap<String, String>());
+		}
+	},
+
+	/** Dictionary including the URIs for spectrogram and waveform visualizations of the sound. */
+	IMAGES("images") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setImages(mapper.parseDictionary(mapper.extractFieldValue(source, "images", JSONObject.class)));
+		}
+
+		@Override
+		void skip(final Sound sound) {
+			sound.setImages(new HashMap<String, String>());
+		}
+	},
+
+	/** The number of times the sound was downloaded. */
+	NUMBER_OF_DOWNLOADS("num_downloads") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setNumberOfDownloads(mapper.extractFieldValue(source, "num_downloads", Integer.class));
+		}
+	},
+
+	/** The average rating of the sound. */
+	AVERAGE_RATING("avg_rating") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setAverageRating(mapper.extractFieldValue(source, "avg_rating", Float.class));
+		}
+	},
+
+	/** The number of times the sound was rated. */
+	NUMBER_OF_RATINGS("num_ratings") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setNumberOfRatings(mapper.extractFieldValue(source, "num_ratings", Integer.class));
+		}
+	},
+
+	/** The URI for rating the sound. */
+	RATING_URI("rate") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setRatingURI(mapper.extractFieldValue(source, "rate", String.class));
+		}
+	},
+
+	/** The URI of a paginated list of the comments of the sound. */
+	COMMENTS_URI("comments") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setCommentsURI(mapper.extractFieldValue(source, "comments", String.class));
+		}
+	},
+
+	/** The number of comments. */
+	NUMBER_OF_COMMENTS("num_comments") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setNumberOfComments(mapper.extractFieldValue(source, "num_comments", Integer.class));
+		}
+	},
+
+	/** The URI to comment the sound. */
+	COMMENT_URI("comment") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setCommentURI(mapper.extractFieldValue(source, "comment", String.class));
+		}
+	},
+
+	/** URI pointing to the similarity resource (to get a list of similar sounds). */
+	SIMILAR_SOUNDS_URI("similar_sounds") {
+		@Override
+		void decode(final SoundMapper mapper, final JSONObject source, final Sound sound) {
+			sound.setSimilarSoundsURI(mapper.extractFieldValue(source, "similar_sounds", String.class));
+		}
+	};
+
+	/** Lookup of {@link SoundField} by the name of the field in the JSON representation. */
+	private static final Map<String, SoundField> FIELDS_BY_KEY;
+	static {
+		FIELDS_BY_KEY = new HashMap<String, SoundField>();
+
+		for (final SoundField field : SoundField.values()) {
+			FIELDS_BY_KEY.put(field.getKey(), field);
+		}
+	}
+
+	/** The name of the field in the JSON representation of the sound. */
+	private final String key;
+
+	/** Bit representing this field in a mask of fields. */
+	private final long mask;
+
+	/**
+	 * @param key The name of the field in the JSON representation of the sound
+	 */
+	private SoundField(final String key) {
+		this.key = key;
+		this.mask = 1L << ordinal();
+	}
+
+	/**
+	 * Lookup the appropriate {@link SoundField} based on the name of the field in the JSON representation.
+	 *
+	 * @param key The name of the field
+	 * @return The relevant {@link SoundField} (or null if the name is not recognised)
+	 */
+	public static SoundField fromKey(final String key) {
+		return (key != null) ? FIELDS_BY_KEY.get(key.trim()) : null;
+	}
+
+	/**
+	 * Decode the value of this field from the JSON representation of a sound, and set it on the {@link Sound} DTO.
+	 *
+	 * @param mapper The {@link SoundMapper} performing the mapping
+	 * @param source The JSON representation of the sound
+	 * @param sound The DTO to populate
+	 */
+	abstract void decode(SoundMapper mapper, JSONObject source, Sound sound);
+
+	/**
+	 * Set the value of this field on a {@link Sound} DTO for which it was not requested. Collection fields are given an
+	 * empty collection, as they would be had the field been requested but absent from the response; all other fields
+	 * are left unset.
+	 *
+	 * @param sound The DTO to populate
+	 */
+	void skip(final Sound sound) {
+		// Left unset
+	}
+
+	/**
+	 * @return the key
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * @return the mask
+	 */
+	long getMask() {
+		return mask;
+	}
+}
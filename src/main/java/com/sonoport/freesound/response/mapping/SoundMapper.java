@@ -15,54 +15,164 @@
  */
 package com.sonoport.freesound.response.mapping;
 
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 
-import org.json.JSONArray;
 import org.json.JSONObject;
 
-import com.sonoport.freesound.License;
 import com.sonoport.freesound.response.Sound;
 
 /**
  * Map the freesound.org JSON representation of an individual sound instance to a {@link Sound} DTO.
+ *
+ * By default all fields are decoded eagerly. When configured for lazy mapping, the {@link Sound} returned retains the
+ * JSON representation and decodes each field only when it is first accessed - this is useful when many fields are
+ * requested from the API but only a few are actually read.
+ *
+ * Where the query specified which fields to return, the mapper can be told of these (see
+ * {@link SoundMapper#setRequestedFields(Set)}) so that only those fields are looked up in each record. Fields that were
+ * not requested are left unset, except for collections (tags, previews and images), which are left empty.
  */
 public class SoundMapper extends Mapper<JSONObject, Sound> {
 
+	/** Whether fields should be decoded on first access rather than when the sound is mapped. */
+	private boolean lazy;
+
+	/** The fields to decode from each sound (the mapping plan). All other fields are left unset. */
+	private SoundField[] plan = SoundField.values();
+
+	/** The fields not included in the mapping plan. */
+	private SoundField[] skipped = new SoundField[0];
+
+	/** Mask of the {@link SoundField}s not included in the mapping plan. */
+	private long skippedFields;
+
+	/**
+	 * No-arg constructor.
+	 */
+	public SoundMapper() {
+		this(null);
+	}
+
+	/**
+	 * @param stringPool {@link StringPool} used to share repeated string values (may be null)
+	 */
+	public SoundMapper(final StringPool stringPool) {
+		this(stringPool, false);
+	}
+
+	/**
+	 * @param stringPool {@link StringPool} used to share repeated string values (may be null)
+	 * @param lazy Whether fields should be decoded on first access rather than when the sound is mapped
+	 */
+	public SoundMapper(final StringPool stringPool, final boolean lazy) {
+		setStringPool(stringPool);
+		this.lazy = lazy;
+	}
+
 	@Override
 	public Sound map(final JSONObject source) {
-		final Sound sound = new Sound();
-
-		sound.setId(extractFieldValue(source, "id", Integer.class));
-		sound.setUrl(extractFieldValue(source, "url", String.class));
-		sound.setName(extractFieldValue(source, "name", String.class));
-		sound.setTags(new HashSet<String>(parseArray(extractFieldValue(source, "tags", JSONArray.class))));
-		sound.setDescription(extractFieldValue(source, "description", String.class));
-		sound.setGeotag(extractFieldValue(source, "geotag", String.class));
-		sound.setCreated(parseDate(extractFieldValue(source, "created", String.class)));
-		sound.setLicense(License.fromURI(extractFieldValue(source, "license", String.class)));
-		sound.setType(extractFieldValue(source, "type", String.class));
-		sound.setChannels(extractFieldValue(source, "channels", Integer.class));
-		sound.setFilesize(extractFieldValue(source, "filesize", Integer.class));
-		sound.setBitrate(extractFieldValue(source, "bitrate", Integer.class));
-		sound.setBitdepth(extractFieldValue(source, "bitdepth", Integer.class));
-		sound.setDuration(extractFieldValue(source, "duration", Float.class));
-		sound.setSamplerate(extractFieldValue(source, "samplerate", Float.class));
-		sound.setUsername(extractFieldValue(source, "username", String.class));
-		sound.setPack(extractFieldValue(source, "pack", String.class));
-		sound.setDownloadURI(extractFieldValue(source, "download", String.class));
-		sound.setBookmarkURI(extractFieldValue(source, "bookmark", String.class));
-		sound.setPreviews(parseDictionary(extractFieldValue(source, "previews", JSONObject.class)));
-		sound.setImages(parseDictionary(extractFieldValue(source, "images", JSONObject.class)));
-		sound.setNumberOfDownloads(extractFieldValue(source, "num_downloads", Integer.class));
-		sound.setAverageRating(extractFieldValue(source, "avg_rating", Float.class));
-		sound.setNumberOfRatings(extractFieldValue(source, "num_ratings", Integer.class));
-		sound.setRatingURI(extractFieldValue(source, "rate", String.class));
-		sound.setCommentsURI(extractFieldValue(source, "comments", String.class));
-		sound.setNumberOfComments(extractFieldValue(source, "num_comments", Integer.class));
-		sound.setCommentURI(extractFieldValue(source, "comment", String.class));
-		sound.setSimilarSoundsURI(extractFieldValue(source, "similar_sounds", String.class));
+		final Sound sound;
+		if (lazy) {
+			sound = new LazySound(this, source, skippedFields);
+		} else {
+			sound = new Sound();
+			for (final SoundField field : plan) {
+				field.decode(this, source, sound);
+			}
+		}
+
+		for (final SoundField field : skipped) {
+			field.skip(sound);
+		}
 
 		return sound;
 	}
 
+	/**
+	 * Specify the fields that were requested from the API (i.e. the 'fields' parameter of the query), so that only
+	 * those fields are decoded when mapping. Names that do not correspond to a known {@link SoundField} are ignored.
+	 * Collection fields that were not requested are set to empty collections, rather than left null.
+	 *
+	 * @param fields The names of the fields requested (null or empty to decode all fields)
+	 */
+	public void setRequestedFields(final Set<String> fields) {
+		final Set<SoundField> planFields;
+		if ((fields == null) || fields.isEmpty()) {
+			planFields = EnumSet.allOf(SoundField.class);
+		} else {
+			planFields = EnumSet.noneOf(SoundField.class);
+			for (final String field : fields) {
+				final SoundField soundField = SoundField.fromKey(field);
+				if (soundField != null) {
+					planFields.add(soundField);
+				}
+			}
+		}
+
+		long planMask = 0;
+		for (final SoundField field : planFields) {
+			planMask |= field.getMask();
+		}
+
+		final Set<SoundField> skippedSet = EnumSet.complementOf(EnumSet.copyOf(planFields));
+		this.plan = planFields.toArray(new SoundField[planFields.size()]);
+		this.skipped = skippedSet.toArray(new SoundField[skippedSet.size()]);
+		this.skippedFields = ~planMask & LazySound.ALL_FIELDS;
+	}
+
+	/**
+	 * @return The fields that will be decoded from each sound
+	 */
+	public Set<SoundField> getMappingPlan() {
+		final Set<SoundField> planFields = EnumSet.noneOf(SoundField.class);
+		planFields.addAll(Arrays.asList(plan));
+
+		return planFields;
+	}
+
+	/**
+	 * Parse a geotag in the format used by freesound (latitude and longitude separated by whitespace).
+	 *
+	 * @param geotag The geotag to parse
+	 * @return Array holding the latitude and longitude (or null if the geotag is absent or invalid)
+	 */
+	static double[] parseGeotag(final String geotag) {
+		if (geotag == null) {
+			return null;
+		}
+
+		final String[] parts = geotag.trim().split("\\s+");
+		if (parts.length != 2) {
+			return null;
+		}
+
+		try {
+			final double latitude = Double.parseDouble(parts[0]);
+			final double longitude = Double.parseDouble(parts[1]);
+			if (!(Math.abs(latitude) <= 90) || !(Math.abs(longitude) <= 180)) {
+				return null;
+			}
+
+			return new double[] {latitude, longitude};
+		} catch (final NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return the lazy
+	 */
+	public boolean isLazy() {
+		return lazy;
+	}
+
+	/**
+	 * @param lazy the lazy to set
+	 */
+	public void setLazy(final boolean lazy) {
+		this.lazy = lazy;
+	}
+
 }
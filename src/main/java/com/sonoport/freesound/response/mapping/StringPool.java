@@ -0,0 +1,145 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.response.mapping;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded pool used to share a single instance of frequently repeated string values (usernames, tags, file types etc.)
+ * between the DTOs produced by {@link Mapper}s.
+ *
+ * The pool is split into a number of independently locked stripes, selected by the hash of the value, so that mappers
+ * running in parallel rarely contend with each other. Each stripe holds a bounded number of entries; once full, the
+ * least recently used entry in the stripe is discarded to make room. Discarding an entry never affects correctness - at
+ * worst two equal values end up as separate instances.
+ */
+public class StringPool {
+
+	/** The default maximum number of values held, if none is specified. */
+	public static final int DEFAULT_MAXIMUM_SIZE = 65536;
+
+	/** The default number of stripes, if none is specified. */
+	public static final int DEFAULT_STRIPES = 16;
+
+	/** The independently locked stripes making up the pool. */
+	private final Stripe[] stripes;
+
+	/** Mask used to select a stripe from a hash code. */
+	private final int stripeMask;
+
+	/**
+	 * No-arg constructor.
+	 */
+	public StringPool() {
+		this(DEFAULT_MAXIMUM_SIZE, DEFAULT_STRIPES);
+	}
+
+	/**
+	 * @param maximumSize The maximum number of values to hold across all stripes
+	 * @param stripes The number of stripes to divide the pool into (rounded up to a power of two)
+	 */
+	public StringPool(final int maximumSize, final int stripes) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("Maximum size must be greater than 0");
+		} else if (stripes < 1) {
+			throw new IllegalArgumentException("Number of stripes must be greater than 0");
+		}
+
+		int stripeCount = 1;
+		while (stripeCount < stripes) {
+			stripeCount <<= 1;
+		}
+		final int stripeSize = Math.max(1, maximumSize / stripeCount);
+
+		this.stripes = new Stripe[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			this.stripes[i] = new Stripe(stripeSize);
+		}
+
+		this.stripeMask = stripeCount - 1;
+	}
+
+	/**
+	 * Retrieve the pooled instance equal to a given value, adding the value to the pool if none is held.
+	 *
+	 * @param value The value to intern
+	 * @return The pooled instance (or null if the value was null)
+	 */
+	public String intern(final String value) {
+		if (value == null) {
+			return null;
+		}
+
+		final Stripe stripe = stripes[spread(value.hashCode()) & stripeMask];
+		synchronized (stripe) {
+			final String pooled = stripe.get(value);
+			if (pooled != null) {
+				return pooled;
+			}
+
+			stripe.put(value, value);
+			return value;
+		}
+	}
+
+	/**
+	 * @return The number of values currently held
+	 */
+	public int size() {
+		int size = 0;
+		for (final Stripe stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		}
+
+		return size;
+	}
+
+	/**
+	 * Mix the high bits of a hash code into the low bits used to select a stripe.
+	 *
+	 * @param hashCode The hash code of the value
+	 * @return The spread hash code
+	 */
+	private static int spread(final int hashCode) {
+		return hashCode ^ (hashCode >>> 16);
+	}
+
+	/**
+	 * A single bounded stripe of the pool. Access must be synchronised on the stripe itself.
+	 */
+	@SuppressWarnings("serial")
+	private static final class Stripe extends LinkedHashMap<String, String> {
+
+		/** The maximum number of entries to hold in the stripe. */
+		private final int maximumSize;
+
+		/**
+		 * @param maximumSize The maximum number of entries to hold in the stripe
+		 */
+		private Stripe(final int maximumSize) {
+			super(16, 0.75f, true);
+			this.maximumSize = maximumSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+			return size() > maximumSize;
+		}
+	}
+}
@@ -26,7 +26,15 @@ public class UserMapper extends AbstractUserMapper<User> {
 	 * No-arg constructor.
 	 */
 	public UserMapper() {
+		this(null);
+	}
+
+	/**
+	 * @param stringPool {@link StringPool} used to share repeated string values (may be null)
+	 */
+	public UserMapper(final StringPool stringPool) {
 		super(User.class);
+		setStringPool(stringPool);
 	}
 
 }
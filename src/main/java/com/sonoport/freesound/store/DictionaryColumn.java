@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * The low-cardinality textual fields of a {@link Sound} held by a {@link SoundColumnStore}. Each distinct value is
+ * stored once in a {@link StringDictionary}, with the column itself holding only the integer codes.
+ */
+public enum DictionaryColumn {
+
+	/** The type of sound (wav, aif, aiff, mp3, or flac). */
+	TYPE {
+		@Override
+		protected String extract(final Sound sound) {
+			return sound.getType();
+		}
+	},
+
+	/** The license under which the sound is available, held as the name of the {@link com.sonoport.freesound.License}
+	 * enum constant. */
+	LICENSE {
+		@Override
+		protected String extract(final Sound sound) {
+			return (sound.getLicense() != null) ? sound.getLicense().name() : null;
+		}
+	},
+
+	/** The username of the uploader of the sound. */
+	USERNAME {
+		@Override
+		protected String extract(final Sound sound) {
+			return sound.getUsername();
+		}
+	},
+
+	/** The URI of the pack the sound belongs to. */
+	PACK {
+		@Override
+		protected String extract(final Sound sound) {
+			return sound.getPack();
+		}
+	};
+
+	/**
+	 * Retrieve the value of this column from a {@link Sound}.
+	 *
+	 * @param sound The sound to read
+	 * @return The column value (or null if not present)
+	 */
+	protected abstract String extract(Sound sound);
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * The floating point fields of a {@link Sound} held by a {@link SoundColumnStore}. Missing values are stored as
+ * {@link Float#NaN}.
+ */
+public enum FloatColumn {
+
+	/** The duration of the sound in seconds. */
+	DURATION {
+		@Override
+		protected Float extract(final Sound sound) {
+			return sound.getDuration();
+		}
+	},
+
+	/** The sample rate of the sound. */
+	SAMPLERATE {
+		@Override
+		protected Float extract(final Sound sound) {
+			return sound.getSamplerate();
+		}
+	},
+
+	/** The average rating of the sound. */
+	AVERAGE_RATING {
+		@Override
+		protected Float extract(final Sound sound) {
+			return sound.getAverageRating();
+		}
+	};
+
+	/**
+	 * Retrieve the value of this column from a {@link Sound}.
+	 *
+	 * @param sound The sound to read
+	 * @return The column value (or null if not present)
+	 */
+	protected abstract Float extract(Sound sound);
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * The integer fields of a {@link Sound} held by a {@link SoundColumnStore}. Missing values are stored as
+ * {@link SoundColumnStore#MISSING_INT}.
+ */
+public enum IntColumn {
+
+	/** The sound's unique identifier. */
+	ID {
+		@Override
+		protected Integer extract(final Sound sound) {
+			return sound.getId();
+		}
+	},
+
+	/** The number of channels. */
+	CHANNELS {
+		@Override
+		protected Integer extract(final Sound sound) {
+			return sound.getChannels();
+		}
+	},
+
+	/** The size of the file in bytes. */
+	FILESIZE {
+		@Override
+		protected Integer extract(final Sound sound) {
+			return sound.getFilesize();
+		}
+	},
+
+	/** The bit rate of the sound in kbps. */
+	BITRATE {
+		@Override
+		protected Integer extract(final Sound sound) {
+			return sound.getBitrate();
+		}
+	},
+
+	/** The bit depth of the sound. */
+	BITDEPTH {
+		@Override
+		protected Integer extract(final Sound sound) {
+			return sound.getBitdepth();
+		}
+	},
+
+	/** The number of times the sound was downloaded. */
+	NUMBER_OF_DOWNLOADS {
+		@Override
+		protected Integer extract(final Sound sound) {
+			return sound.getNumberOfDownloads();
+		}
+	},
+
+	/** The number of times the sound was rated. */
+	NUMBER_OF_RATINGS {
+		@Override
+		protected Integer extract(final Sound sound) {
+			return sound.getNumberOfRatings();
+		}
+	},
+
+	/** The number of comments. */
+	NUMBER_OF_COMMENTS {
+		@Override
+		protected Integer extract(final Sound sound) {
+			return sound.getNumberOfComments();
+		}
+	};
+
+	/**
+	 * Retrieve the value of this column from a {@link Sound}.
+	 *
+	 * @param sound The sound to read
+	 * @return The column value (or null if not present)
+	 */
+	protected abstract Integer extract(Sound sound);
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+import java.util.Date;
+
+import com.sonoport.freesound.response.Pack;
+
+/**
+ * The fields of a {@link Pack} held in a {@link Snapshot}.
+ */
+public enum PackSnapshotField implements SnapshotField<Pack> {
+
+	/** Identifier of the pack. */
+	ID("id", SnapshotFieldType.INT) {
+		@Override
+		public Object extract(final Pack pack) {
+			return Integer.valueOf(pack.getId());
+		}
+
+		@Override
+		public void populate(final Pack pack, final Object value) {
+			pack.setId(((Integer) value).intValue());
+		}
+	},
+
+	/** The URI for this pack on the Freesound website. */
+	URL("url", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Pack pack) {
+			return pack.getUrl();
+		}
+
+		@Override
+		public void populate(final Pack pack, final Object value) {
+			pack.setUrl((String) value);
+		}
+	},
+
+	/** The description the user gave to the pack. */
+	DESCRIPTION("description", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Pack pack) {
+			return pack.getDescription();
+		}
+
+		@Override
+		public void populate(final Pack pack, final Object value) {
+			pack.setDescription((String) value);
+		}
+	},
+
+	/** The date when the pack was created. */
+	CREATED("created", SnapshotFieldType.DATE) {
+		@Override
+		public Object extract(final Pack pack) {
+			return pack.getCreated();
+		}
+
+		@Override
+		public void populate(final Pack pack, final Object value) {
+			pack.setCreated((Date) value);
+		}
+	},
+
+	/** The name user gave to the pack. */
+	NAME("name", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Pack pack) {
+			return pack.getName();
+		}
+
+		@Override
+		public void populate(final Pack pack, final Object value) {
+			pack.setName((String) value);
+		}
+	},
+
+	/** Username of the creator of the pack. */
+	USERNAME("username", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Pack pack) {
+			return pack.getUsername();
+		}
+
+		@Override
+		public void populate(final Pack pack, final Object value) {
+			pack.setUsername((String) value);
+		}
+	},
+
+	/** The number of sounds in the pack. */
+	NUMBER_OF_SOUNDS("num_sounds", SnapshotFieldType.INT) {
+		@Override
+		public Object extract(final Pack pack) {
+			return Integer.valueOf(pack.getNumberOfSounds());
+		}
+
+		@Override
+		public void populate(final Pack pack, final Object value) {
+			pack.setNumberOfSounds(((Integer) value).intValue());
+		}
+	},
+
+	/** The URI for a list of sounds in the pack. */
+	SOUNDS_URI("sounds", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Pack pack) {
+			return pack.getSoundsURI();
+		}
+
+		@Override
+		public void populate(final Pack pack, final Object value) {
+			pack.setSoundsURI((String) value);
+		}
+	},
+
+	/** The number of times this pack has been downloaded. */
+	NUMBER_OF_DOWNLOADS("num_downloads", SnapshotFieldType.INT) {
+		@Override
+		public Object extract(final Pack pack) {
+			return Integer.valueOf(pack.getNumberOfDownloads());
+		}
+
+		@Override
+		public void populate(final Pack pack, final Object value) {
+			pack.setNumberOfDownloads(((Integer) value).intValue());
+		}
+	};
+
+	/** The name identifying the field in snapshot files. */
+	private final String name;
+
+	/** The type of value held by the field. */
+	private final SnapshotFieldType type;
+
+	/**
+	 * @param name The name identifying the field in snapshot files
+	 * @param type The type of value held by the field
+	 */
+	private PackSnapshotField(final String name, final SnapshotFieldType type) {
+		this.name = name;
+		this.type = type;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public SnapshotFieldType getType() {
+		return type;
+	}
+}
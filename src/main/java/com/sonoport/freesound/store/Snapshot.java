@@ -0,0 +1,921 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only, memory-mapped snapshot of a collection of DTOs, written and read according to a {@link SnapshotSchema}.
+ *
+ * A snapshot file consists of a header describing the fields present, a section of fixed-width records (one per DTO,
+ * each beginning with a bitmap of absent values), an offset table listing the records in order of their key, and a
+ * heap holding strings and string collections. Repeated strings are stored once in the heap. All values are
+ * little-endian.
+ *
+ * Opening a snapshot maps the file without reading the records, so it is ready for use immediately. Individual values
+ * are read directly from the mapping using the typed accessors (e.g. {@link #getFloat(int, SnapshotField)}), and
+ * records are located by key through a binary search of the offset table; DTOs are only built when requested through
+ * {@link #get(int)} or {@link #find(int)}. Snapshots are safe for use by multiple threads. As a single mapping is used,
+ * files are limited to 2GB.
+ *
+ * @param <T> The DTO held in the snapshot
+ */
+public final class Snapshot<T extends Object> {
+
+	/** Identifies snapshot files. */
+	private static final int MAGIC = 0x46534E50;
+
+	/** Version of the file layout. Revisions of individual schemas are tracked separately. */
+	private static final int FORMAT_VERSION = 1;
+
+	/** The schema the snapshot is read using. */
+	private final SnapshotSchema<T> schema;
+
+	/** Mapping of the snapshot file. */
+	private final ByteBuffer buffer;
+
+	/** Revision of the schema the snapshot was written using. */
+	private final int schemaVersion;
+
+	/** The number of records held. */
+	private final int recordCount;
+
+	/** The size of each record, in bytes. */
+	private final int recordWidth;
+
+	/** Position of the first record within the file. */
+	private final int recordsOffset;
+
+	/** Position of the first entry of the offset table within the file. */
+	private final int offsetTableOffset;
+
+	/** The number of entries in the offset table. */
+	private final int offsetTableSize;
+
+	/** Position of the heap within the file. */
+	private final int heapOffset;
+
+	/** Column number in the file of each schema field (or -1 if absent), keyed on field. */
+	private final Map<SnapshotField<T>, Integer> columns = new HashMap<>();
+
+	/** Position within a record of each column. */
+	private final int[] columnOffsets;
+
+	/** Column number of the key field. */
+	private final int keyColumn;
+
+	/**
+	 * @param schema The schema the snapshot is read using
+	 * @param buffer Mapping of the snapshot file
+	 * @throws IOException If the file is not a snapshot of the schema's DTO, or its layout does not fit its size
+	 */
+	private Snapshot(final SnapshotSchema<T> schema, final ByteBuffer buffer) throws IOException {
+		this.schema = schema;
+		this.buffer = buffer;
+
+		try {
+			if (buffer.getInt() != MAGIC) {
+				throw new IOException("File is not a snapshot");
+			}
+
+			final int formatVersion = buffer.getInt();
+			if (formatVersion != FORMAT_VERSION) {
+				throw new IOException(String.format("Unsupported snapshot format version %d", formatVersion));
+			}
+
+			final String schemaName = readHeaderString(buffer);
+			if (!schema.getName().equals(schemaName)) {
+				throw new IOException(
+						String.format("Snapshot holds '%s' records, not '%s'", schemaName, schema.getName()));
+			}
+			this.schemaVersion = buffer.getInt();
+
+			final Map<String, SnapshotField<T>> fieldsByName = new HashMap<>();
+			for (final SnapshotField<T> field : schema.getFields()) {
+				fieldsByName.put(field.getName(), field);
+				columns.put(field, Integer.valueOf(-1));
+			}
+
+			final int columnCount = buffer.getInt();
+			if ((columnCount < 0) || (columnCount > buffer.remaining())) {
+				throw new IOException(String.format("Invalid snapshot column count %d", columnCount));
+			}
+
+			this.columnOffsets = new int[columnCount];
+			final SnapshotFieldType[] columnTypes = new SnapshotFieldType[columnCount];
+			for (int column = 0; column < columnCount; column++) {
+				final String name = readHeaderString(buffer);
+				final SnapshotFieldType type = SnapshotFieldType.fromCode(buffer.get());
+				if (type == null) {
+					throw new IOException(String.format("Field '%s' is held as an unknown type", name));
+				}
+				columnTypes[column] = type;
+				columnOffsets[column] = buffer.getInt();
+
+				final SnapshotField<T> field = fieldsByName.get(name);
+				if (field != null) {
+					if (field.getType() != type) {
+						throw new IOException(String.format("Field '%s' is held as %s, but the schema expects %s",
+								name, type, field.getType()));
+					}
+					columns.put(field, Integer.valueOf(column));
+				}
+			}
+
+			this.keyColumn = buffer.getInt();
+			this.recordWidth = buffer.getInt();
+			this.recordCount = buffer.getInt();
+			this.recordsOffset = buffer.getInt();
+			this.offsetTableOffset = buffer.getInt();
+			this.offsetTableSize = buffer.getInt();
+			this.heapOffset = buffer.getInt();
+
+			validateLayout(columnTypes);
+		} catch (final BufferUnderflowException e) {
+			throw new IOException("Snapshot header is truncated", e);
+		}
+	}
+
+	/**
+	 * Open a snapshot file via a read-only memory mapping.
+	 *
+	 * @param <T> The DTO held in the snapshot
+	 *
+	 * @param file The file to open
+	 * @param schema The schema to read the snapshot using
+	 * @return The snapshot
+	 * @throws IOException Any errors encountered mapping the file, or if the file is not a snapshot of the schema's DTO
+	 */
+	public static <T extends Object> Snapshot<T> open(final Path file, final SnapshotSchema<T> schema)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			mapping.order(ByteOrder.LITTLE_ENDIAN);
+
+			return new Snapshot<>(schema, mapping);
+		}
+	}
+
+	/**
+	 * Write a collection of DTOs to a snapshot file, replacing any existing file. The snapshot is written to a
+	 * temporary file alongside the target and moved into place once complete, so readers opening the file never see a
+	 * partially written snapshot, and a snapshot already mapped by a reader is left intact.
+	 *
+	 * @param <T> The DTO held in the snapshot
+	 *
+	 * @param file The file to write
+	 * @param schema The schema to write the DTOs using
+	 * @param items The DTOs to write. Each must have a distinct key; DTOs without a key are held, but cannot be
+	 *            located by {@link #find(int)}.
+	 * @throws IOException Any errors encountered writing the file
+	 */
+	public static <T extends Object> void write(
+			final Path file,
+			final SnapshotSchema<T> schema,
+			final Collection<T> items) throws IOException {
+		final List<SnapshotField<T>> fields = schema.getFields();
+		final int bitmapWidth = (fields.size() + 7) / 8;
+
+		final int[] offsets = new int[fields.size()];
+		int recordWidth = bitmapWidth;
+		for (int column = 0; column < fields.size(); column++) {
+			offsets[column] = recordWidth;
+			recordWidth += fields.get(column).getType().getWidth();
+		}
+
+		if (((long) recordWidth * items.size()) > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many items to hold in a single snapshot");
+		}
+
+		final int keyColumn = fields.indexOf(schema.getKeyField());
+		final Heap heap = new Heap();
+		final ByteBuffer records = ByteBuffer.allocate(recordWidth * items.size()).order(ByteOrder.LITTLE_ENDIAN);
+		final Object[] keys = new Object[items.size()];
+
+		int record = 0;
+		for (final T item : items) {
+			final int recordStart = record * recordWidth;
+			for (int column = 0; column < fields.size(); column++) {
+				final Object value = fields.get(column).extract(item);
+				if (value == null) {
+					final int bitmapByte = recordStart + (column / 8);
+					records.put(bitmapByte, (byte) (records.get(bitmapByte) | (1 << (column % 8))));
+				} else {
+					writeValue(records, recordStart + offsets[column], fields.get(column).getType(), value, heap);
+				}
+			}
+
+			keys[record] = fields.get(keyColumn).extract(item);
+			record++;
+		}
+
+		final int[] offsetTable = sortByKey(keys);
+
+		final ByteBuffer header = ByteBuffer.allocate(headerSize(schema)).order(ByteOrder.LITTLE_ENDIAN);
+		final long recordsOffset = header.capacity();
+		final long offsetTableOffset = recordsOffset + records.capacity();
+		final long heapOffset = offsetTableOffset + (4L * offsetTable.length);
+		if ((heapOffset + heap.length()) > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Snapshot would exceed the maximum size of 2GB");
+		}
+
+		header.putInt(MAGIC);
+		header.putInt(FORMAT_VERSION);
+		putHeaderString(header, schema.getName());
+		header.putInt(schema.getVersion());
+		header.putInt(fields.size());
+		for (int column = 0; column < fields.size(); column++) {
+			putHeaderString(header, fields.get(column).getName());
+			header.put(fields.get(column).getType().getCode());
+			header.putInt(offsets[column]);
+		}
+		header.putInt(keyColumn);
+		header.putInt(recordWidth);
+		header.putInt(items.size());
+		header.putInt((int) recordsOffset);
+		header.putInt((int) offsetTableOffset);
+		header.putInt(offsetTable.length);
+		header.putInt((int) heapOffset);
+		header.flip();
+
+		final ByteBuffer table = ByteBuffer.allocate(4 * offsetTable.length).order(ByteOrder.LITTLE_ENDIAN);
+		table.asIntBuffer().put(offsetTable);
+
+		final Path directory = file.toAbsolutePath().getParent();
+		final Path temporary = Files.createTempFile(directory, file.getFileName().toString() + ".", ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+				for (final ByteBuffer section : new ByteBuffer[] {header, records, table, heap.contents()}) {
+					while (section.hasRemaining()) {
+						channel.write(section);
+					}
+				}
+				channel.force(true);
+			}
+
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * @return The number of records held
+	 */
+	public int size() {
+		return recordCount;
+	}
+
+	/**
+	 * @return Revision of the schema the snapshot was written using
+	 */
+	public int getSchemaVersion() {
+		return schemaVersion;
+	}
+
+	/**
+	 * Locate the record with a given key, for schemas with an {@link SnapshotFieldType#INT} key.
+	 *
+	 * @param key The key to find
+	 * @return The record number (or -1 if no record has the key)
+	 */
+	public int indexOf(final int key) {
+		requireKeyType(SnapshotFieldType.INT);
+
+		int low = 0;
+		int high = offsetTableSize - 1;
+		while (low <= high) {
+			final int middle = (low + high) >>> 1;
+			final int record = buffer.getInt(offsetTableOffset + (4 * middle));
+			final int recordKey = buffer.getInt(recordPosition(record) + columnOffsets[keyColumn]);
+
+			if (recordKey < key) {
+				low = middle + 1;
+			} else if (recordKey > key) {
+				high = middle - 1;
+			} else {
+				return record;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Locate the record with a given key, for schemas with a {@link SnapshotFieldType#STRING} key.
+	 *
+	 * @param key The key to find
+	 * @return The record number (or -1 if no record has the key)
+	 */
+	public int indexOf(final String key) {
+		requireKeyType(SnapshotFieldType.STRING);
+		final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+		int low = 0;
+		int high = offsetTableSize - 1;
+		while (low <= high) {
+			final int middle = (low + high) >>> 1;
+			final int record = buffer.getInt(offsetTableOffset + (4 * middle));
+			final int stringPosition = heapOffset + buffer.getInt(recordPosition(record) + columnOffsets[keyColumn]);
+			final int comparison = compareUTF8(stringPosition + 4, buffer.getInt(stringPosition), keyBytes);
+
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return record;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * @param key The key of the DTO, for schemas with an {@link SnapshotFieldType#INT} key
+	 * @return The DTO (or null if no record has the key)
+	 */
+	public T find(final int key) {
+		final int record = indexOf(key);
+		return (record >= 0) ? get(record) : null;
+	}
+
+	/**
+	 * @param key The key of the DTO, for schemas with a {@link SnapshotFieldType#STRING} key
+	 * @return The DTO (or null if no record has the key)
+	 */
+	public T find(final String key) {
+		final int record = indexOf(key);
+		return (record >= 0) ? get(record) : null;
+	}
+
+	/**
+	 * Build the DTO held by a record. Fields absent from the snapshot are left unpopulated.
+	 *
+	 * @param record The record number
+	 * @return The DTO
+	 */
+	public T get(final int record) {
+		final int position = recordPosition(record);
+		final T dto = schema.newInstance();
+
+		for (final SnapshotField<T> field : schema.getFields()) {
+			final int column = columns.get(field).intValue();
+			if ((column >= 0) && !isNull(position, column)) {
+				field.populate(dto, readValue(position + columnOffsets[column], field.getType()));
+			}
+		}
+
+		return dto;
+	}
+
+	/**
+	 * @param record The record number
+	 * @param field The field to check
+	 * @return Whether the record holds no value for the field (including where the field is absent from the snapshot)
+	 */
+	public boolean isNull(final int record, final SnapshotField<T> field) {
+		final int column = column(field);
+		return (column < 0) || isNull(recordPosition(record), column);
+	}
+
+	/**
+	 * @param record The record number
+	 * @param field An {@link SnapshotFieldType#INT} field
+	 * @return The value of the field (or 0 if the record holds no value)
+	 */
+	public int getInt(final int record, final SnapshotField<T> field) {
+		final int position = valuePosition(record, field, SnapshotFieldType.INT);
+		return (position >= 0) ? buffer.getInt(position) : 0;
+	}
+
+	/**
+	 * @param record The record number
+	 * @param field A {@link SnapshotFieldType#LONG} field
+	 * @return The value of the field (or 0 if the record holds no value)
+	 */
+	public long getLong(final int record, final SnapshotField<T> field) {
+		final int position = valuePosition(record, field, SnapshotFieldType.LONG);
+		return (position >= 0) ? buffer.getLong(position) : 0;
+	}
+
+	/**
+	 * @param record The record number
+	 * @param field A {@link SnapshotFieldType#FLOAT} field
+	 * @return The value of the field (or <code>NaN</code> if the record holds no value)
+	 */
+	public float getFloat(final int record, final SnapshotField<T> field) {
+		final int position = valuePosition(record, field, SnapshotFieldType.FLOAT);
+		return (position >= 0) ? buffer.getFloat(position) : Float.NaN;
+	}
+
+	/**
+	 * @param record The record number
+	 * @param field A {@link SnapshotFieldType#DOUBLE} field
+	 * @return The value of the field (or <code>NaN</code> if the record holds no value)
+	 */
+	public double getDouble(final int record, final SnapshotField<T> field) {
+		final int position = valuePosition(record, field, SnapshotFieldType.DOUBLE);
+		return (position >= 0) ? buffer.getDouble(position) : Double.NaN;
+	}
+
+	/**
+	 * @param record The record number
+	 * @param field A {@link SnapshotFieldType#DATE} field
+	 * @return The value of the field, in milliseconds since the epoch (or {@link Long#MIN_VALUE} if the record holds no
+	 *         value)
+	 */
+	public long getTime(final int record, final SnapshotField<T> field) {
+		final int position = valuePosition(record, field, SnapshotFieldType.DATE);
+		return (position >= 0) ? buffer.getLong(position) : Long.MIN_VALUE;
+	}
+
+	/**
+	 * @param record The record number
+	 * @param field A {@link SnapshotFieldType#STRING} field
+	 * @return The value of the field (or null if the record holds no value)
+	 */
+	public String getString(final int record, final SnapshotField<T> field) {
+		final int position = valuePosition(record, field, SnapshotFieldType.STRING);
+		return (position >= 0) ? readString(buffer.getInt(position)) : null;
+	}
+
+	/**
+	 * Check that the columns, records, offset table and heap described by the header lie within the file, in order,
+	 * so that a truncated or corrupt file is rejected when opened rather than failing when its records are read.
+	 *
+	 * @param columnTypes The type of each column
+	 * @throws IOException If the layout is inconsistent
+	 */
+	private void validateLayout(final SnapshotFieldType[] columnTypes) throws IOException {
+		final int bitmapWidth = (columnTypes.length + 7) / 8;
+		if (recordWidth < bitmapWidth) {
+			throw new IOException(String.format("Invalid snapshot record width %d", recordWidth));
+		}
+
+		for (int column = 0; column < columnTypes.length; column++) {
+			if ((columnOffsets[column] < bitmapWidth)
+					|| (((long) columnOffsets[column] + columnTypes[column].getWidth()) > recordWidth)) {
+				throw new IOException(String.format("Column %d lies outside the snapshot record", column));
+			}
+		}
+
+		if ((keyColumn < 0) || (keyColumn >= columnTypes.length)
+				|| (columnTypes[keyColumn] != schema.getKeyField().getType())) {
+			throw new IOException(String.format("Invalid snapshot key column %d", keyColumn));
+		}
+
+		if ((recordCount < 0) || (offsetTableSize < 0) || (offsetTableSize > recordCount)
+				|| (recordsOffset < buffer.position())
+				|| ((recordsOffset + ((long) recordWidth * recordCount)) > offsetTableOffset)
+				|| ((offsetTableOffset + (4L * offsetTableSize)) > heapOffset)
+				|| (heapOffset > buffer.limit())) {
+			throw new IOException(String.format("Snapshot layout does not fit within its %d bytes", buffer.limit()));
+		}
+	}
+
+	/**
+	 * @param field A field of the schema
+	 * @return The column holding the field in this snapshot (or -1 if absent)
+	 */
+	private int column(final SnapshotField<T> field) {
+		final Integer column = columns.get(field);
+		if (column == null) {
+			throw new IllegalArgumentException(String.format("Field '%s' is not part of the schema", field.getName()));
+		}
+
+		return column.intValue();
+	}
+
+	/**
+	 * @param record The record number
+	 * @param field The field to read
+	 * @param type The type of value being read
+	 * @return Position of the value within the file (or -1 if the record holds no value)
+	 */
+	private int valuePosition(final int record, final SnapshotField<T> field, final SnapshotFieldType type) {
+		if (field.getType() != type) {
+			throw new IllegalArgumentException(
+					String.format("Field '%s' holds %s values, not %s", field.getName(), field.getType(), type));
+		}
+
+		final int position = recordPosition(record);
+		final int column = column(field);
+
+		return ((column < 0) || isNull(position, column)) ? -1 : (position + columnOffsets[column]);
+	}
+
+	/**
+	 * @param record The record number
+	 * @return Position of the record within the file
+	 */
+	private int recordPosition(final int record) {
+		if ((record < 0) || (record >= recordCount)) {
+			throw new IndexOutOfBoundsException(String.format("Record %d of %d", record, recordCount));
+		}
+
+		return recordsOffset + (record * recordWidth);
+	}
+
+	/**
+	 * @param recordPosition Position of a record within the file
+	 * @param column A column of the snapshot
+	 * @return Whether the record holds no value for the column
+	 */
+	private boolean isNull(final int recordPosition, final int column) {
+		return (buffer.get(recordPosition + (column / 8)) & (1 << (column % 8))) != 0;
+	}
+
+	/**
+	 * @param type The type of key required
+	 */
+	private void requireKeyType(final SnapshotFieldType type) {
+		if (schema.getKeyField().getType() != type) {
+			throw new IllegalArgumentException(String.format("Snapshot is keyed on %s values, not %s",
+					schema.getKeyField().getType(), type));
+		}
+	}
+
+	/**
+	 * @param position Position of a value within the file
+	 * @param type The type of the value
+	 * @return The value
+	 */
+	private Object readValue(final int position, final SnapshotFieldType type) {
+		switch (type) {
+			case INT:
+				return Integer.valueOf(buffer.getInt(position));
+
+			case LONG:
+				return Long.valueOf(buffer.getLong(position));
+
+			case FLOAT:
+				return Float.valueOf(buffer.getFloat(position));
+
+			case DOUBLE:
+				return Double.valueOf(buffer.getDouble(position));
+
+			case DATE:
+				return new Date(buffer.getLong(position));
+
+			case STRING:
+				return readString(buffer.getInt(position));
+
+			case STRING_SET:
+				final int setPosition = heapOffset + buffer.getInt(position);
+				final int setSize = buffer.getInt(setPosition);
+				final Set<String> set = new HashSet<>(Math.max(4, (setSize * 4) / 3 + 1));
+				for (int i = 0; i < setSize; i++) {
+					set.add(readString(buffer.getInt(setPosition + 4 + (4 * i))));
+				}
+				return set;
+
+			case STRING_MAP:
+				final int mapPosition = heapOffset + buffer.getInt(position);
+				final int mapSize = buffer.getInt(mapPosition);
+				final Map<String, String> map = new HashMap<>(Math.max(4, (mapSize * 4) / 3 + 1));
+				for (int i = 0; i < mapSize; i++) {
+					final int entryPosition = mapPosition + 4 + (8 * i);
+					map.put(readString(buffer.getInt(entryPosition)), readString(buffer.getInt(entryPosition + 4)));
+				}
+				return map;
+
+			default:
+				throw new IllegalStateException(String.format("Unsupported field type %s", type));
+		}
+	}
+
+	/**
+	 * @param heapPosition Position of the string within the heap
+	 * @return The string
+	 */
+	private String readString(final int heapPosition) {
+		final int position = heapOffset + heapPosition;
+		final byte[] bytes = new byte[buffer.getInt(position)];
+
+		final ByteBuffer view = buffer.duplicate();
+		view.position(position + 4);
+		view.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Compare a UTF-8 string held in the file with another, byte by byte. Unsigned byte order of UTF-8 matches code
+	 * point order, and is the order used to build the offset table.
+	 *
+	 * @param position Position of the bytes of the held string
+	 * @param length Length of the held string, in bytes
+	 * @param other The bytes of the string to compare with
+	 * @return The comparison of the held string with the other string
+	 */
+	private int compareUTF8(final int position, final int length, final byte[] other) {
+		final int common = Math.min(length, other.length);
+		for (int i = 0; i < common; i++) {
+			final int comparison = (buffer.get(position + i) & 0xFF) - (other[i] & 0xFF);
+			if (comparison != 0) {
+				return comparison;
+			}
+		}
+
+		return length - other.length;
+	}
+
+	/**
+	 * Write a non-null value into a record.
+	 *
+	 * @param records Buffer holding the records
+	 * @param position Position of the value
+	 * @param type The type of the value
+	 * @param value The value
+	 * @param heap The heap to add variable-length values to
+	 */
+	@SuppressWarnings("unchecked")
+	private static void writeValue(
+			final ByteBuffer records,
+			final int position,
+			final SnapshotFieldType type,
+			final Object value,
+			final Heap heap) {
+		switch (type) {
+			case INT:
+				records.putInt(position, ((Integer) value).intValue());
+				break;
+
+			case LONG:
+				records.putLong(position, ((Long) value).longValue());
+				break;
+
+			case FLOAT:
+				records.putFloat(position, ((Float) value).floatValue());
+				break;
+
+			case DOUBLE:
+				records.putDouble(position, ((Double) value).doubleValue());
+				break;
+
+			case DATE:
+				records.putLong(position, ((Date) value).getTime());
+				break;
+
+			case STRING:
+				records.putInt(position, heap.addString((String) value));
+				break;
+
+			case STRING_SET:
+				records.putInt(position, heap.addSet((Set<String>) value));
+				break;
+
+			case STRING_MAP:
+				records.putInt(position, heap.addMap((Map<String, String>) value));
+				break;
+
+			default:
+				throw new IllegalStateException(String.format("Unsupported field type %s", type));
+		}
+	}
+
+	/**
+	 * Build the offset table, listing records in order of their key.
+	 *
+	 * @param keys The key of each record (null where the record has no key)
+	 * @return Record numbers of the records with keys, in key order
+	 */
+	private static int[] sortByKey(final Object[] keys) {
+		final Integer[] order = new Integer[keys.length];
+		final byte[][] stringKeys = new byte[keys.length][];
+		int keyed = 0;
+		for (int record = 0; record < keys.length; record++) {
+			if (keys[record] != null) {
+				order[keyed++] = Integer.valueOf(record);
+				if (keys[record] instanceof String) {
+					stringKeys[record] = ((String) keys[record]).getBytes(StandardCharsets.UTF_8);
+				}
+			}
+		}
+
+		final Comparator<Integer> byKey = new Comparator<Integer>() {
+			@Override
+			public int compare(final Integer first, final Integer second) {
+				final Object firstKey = keys[first.intValue()];
+				if (firstKey instanceof Integer) {
+					return ((Integer) firstKey).compareTo((Integer) keys[second.intValue()]);
+				}
+
+				final byte[] firstBytes = stringKeys[first.intValue()];
+				final byte[] secondBytes = stringKeys[second.intValue()];
+				final int common = Math.min(firstBytes.length, secondBytes.length);
+				for (int i = 0; i < common; i++) {
+					final int comparison = (firstBytes[i] & 0xFF) - (secondBytes[i] & 0xFF);
+					if (comparison != 0) {
+						return comparison;
+					}
+				}
+
+				return firstBytes.length - secondBytes.length;
+			}
+		};
+		Arrays.sort(order, 0, keyed, byKey);
+
+		final int[] offsetTable = new int[keyed];
+		for (int i = 0; i < keyed; i++) {
+			if ((i > 0) && (byKey.compare(order[i - 1], order[i]) == 0)) {
+				throw new IllegalArgumentException(String.format("Key %s is held more than once", keys[order[i]]));
+			}
+			offsetTable[i] = order[i].intValue();
+		}
+
+		return offsetTable;
+	}
+
+	/**
+	 * @param schema The schema being written
+	 * @return The size of the header describing the schema
+	 */
+	private static int headerSize(final SnapshotSchema<?> schema) {
+		int size = (4 * 3) + headerStringSize(schema.getName()) + (4 * 8);
+		for (final SnapshotField<?> field : schema.getFields()) {
+			size += headerStringSize(field.getName()) + 1 + 4;
+		}
+
+		return size;
+	}
+
+	/**
+	 * @param value A string to be written in the header
+	 * @return The number of bytes occupied by the string
+	 */
+	private static int headerStringSize(final String value) {
+		return 4 + value.getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	/**
+	 * @param header The header being written
+	 * @param value The string to write
+	 */
+	private static void putHeaderString(final ByteBuffer header, final String value) {
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		header.putInt(bytes.length);
+		header.put(bytes);
+	}
+
+	/**
+	 * @param header The header being read
+	 * @return The next string in the header
+	 * @throws IOException If the string's length exceeds the remainder of the header
+	 */
+	private static String readHeaderString(final ByteBuffer header) throws IOException {
+		final int length = header.getInt();
+		if ((length < 0) || (length > header.remaining())) {
+			throw new IOException(String.format("Invalid snapshot header string length %d", length));
+		}
+
+		final byte[] bytes = new byte[length];
+		header.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The heap of a snapshot being written, holding each distinct string once.
+	 */
+	private static final class Heap {
+
+		/** The contents of the heap. */
+		private ByteBuffer contents = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+
+		/** Position within the heap of each string added, keyed on string. */
+		private final Map<String, Integer> strings = new HashMap<>();
+
+		/**
+		 * @param value The string to add
+		 * @return Position of the string within the heap
+		 */
+		private int addString(final String value) {
+			final Integer existing = strings.get(value);
+			if (existing != null) {
+				return existing.intValue();
+			}
+
+			final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			final int position = reserve(4 + bytes.length);
+			contents.putInt(bytes.length);
+			contents.put(bytes);
+			strings.put(value, Integer.valueOf(position));
+
+			return position;
+		}
+
+		/**
+		 * @param values The set to add
+		 * @return Position of the set within the heap
+		 */
+		private int addSet(final Set<String> values) {
+			final int[] positions = new int[values.size()];
+			int i = 0;
+			for (final String value : values) {
+				positions[i++] = addString(value);
+			}
+
+			final int position = reserve(4 + (4 * positions.length));
+			contents.putInt(positions.length);
+			for (final int stringPosition : positions) {
+				contents.putInt(stringPosition);
+			}
+
+			return position;
+		}
+
+		/**
+		 * @param values The map to add
+		 * @return Position of the map within the heap
+		 */
+		private int addMap(final Map<String, String> values) {
+			final int[] positions = new int[2 * values.size()];
+			int i = 0;
+			for (final Map.Entry<String, String> entry : values.entrySet()) {
+				positions[i++] = addString(entry.getKey());
+				positions[i++] = addString(entry.getValue());
+			}
+
+			final int position = reserve(4 + (4 * positions.length));
+			contents.putInt(values.size());
+			for (final int stringPosition : positions) {
+				contents.putInt(stringPosition);
+			}
+
+			return position;
+		}
+
+		/**
+		 * Ensure there is space for a value at the end of the heap.
+		 *
+		 * @param length The length of the value
+		 * @return Position the value will be written at
+		 */
+		private int reserve(final int length) {
+			if (contents.remaining() < length) {
+				final long capacity = Math.max(contents.capacity() * 2L, (long) contents.position() + length);
+				if (capacity > Integer.MAX_VALUE) {
+					throw new IllegalArgumentException("Snapshot would exceed the maximum size of 2GB");
+				}
+
+				final ByteBuffer grown = ByteBuffer.allocate((int) capacity).order(ByteOrder.LITTLE_ENDIAN);
+				contents.flip();
+				grown.put(contents);
+				contents = grown;
+			}
+
+			return contents.position();
+		}
+
+		/**
+		 * @return The number of bytes in the heap
+		 */
+		private int length() {
+			return contents.position();
+		}
+
+		/**
+		 * @return Buffer positioned to read the contents of the heap
+		 */
+		private ByteBuffer contents() {
+			final ByteBuffer view = contents.duplicate();
+			view.flip();
+
+			return view;
+		}
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+/**
+ * A single field of a DTO held in a {@link Snapshot}. Fields are identified in snapshot files by name, so a field may
+ * be added to or removed from a {@link SnapshotSchema} without making existing snapshots unreadable.
+ *
+ * @param <T> The DTO the field belongs to
+ */
+public interface SnapshotField<T extends Object> {
+
+	/**
+	 * @return The name identifying the field in snapshot files
+	 */
+	String getName();
+
+	/**
+	 * @return The type of value held by the field
+	 */
+	SnapshotFieldType getType();
+
+	/**
+	 * Retrieve the value of this field from a DTO.
+	 *
+	 * @param dto The DTO to read
+	 * @return The value, of the class corresponding to the field type (or null if not present)
+	 */
+	Object extract(T dto);
+
+	/**
+	 * Set the value of this field on a DTO.
+	 *
+	 * @param dto The DTO to populate
+	 * @param value The value, of the class corresponding to the field type (never null)
+	 */
+	void populate(T dto, Object value);
+}
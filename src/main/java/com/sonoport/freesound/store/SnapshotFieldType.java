@@ -0,0 +1,90 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+/**
+ * The types of value which can be held in a {@link Snapshot}. Fixed-width types are held directly in the primitive
+ * section of each record; variable-length types are held in the string heap, with the record holding their offset.
+ */
+public enum SnapshotFieldType {
+
+	/** A 32-bit integer, held as an {@link Integer}. */
+	INT(1, 4),
+
+	/** A 64-bit integer, held as a {@link Long}. */
+	LONG(2, 8),
+
+	/** A 32-bit floating point number, held as a {@link Float}. */
+	FLOAT(3, 4),
+
+	/** A 64-bit floating point number, held as a {@link Double}. */
+	DOUBLE(4, 8),
+
+	/** A date, held as a {@link java.util.Date} and stored as milliseconds since the epoch. */
+	DATE(5, 8),
+
+	/** A string, held in the heap. */
+	STRING(6, 4),
+
+	/** A set of strings, held in the heap. */
+	STRING_SET(7, 4),
+
+	/** A map of strings to strings, held in the heap. */
+	STRING_MAP(8, 4);
+
+	/** Code identifying the type in snapshot files. Never reused, so files remain readable as types are added. */
+	private final byte code;
+
+	/** The number of bytes the type occupies in the primitive section of a record. */
+	private final int width;
+
+	/**
+	 * @param code Code identifying the type in snapshot files
+	 * @param width The number of bytes the type occupies in the primitive section of a record
+	 */
+	private SnapshotFieldType(final int code, final int width) {
+		this.code = (byte) code;
+		this.width = width;
+	}
+
+	/**
+	 * @param code Code identifying a type in a snapshot file
+	 * @return The type (or null if the code is not recognised)
+	 */
+	static SnapshotFieldType fromCode(final byte code) {
+		for (final SnapshotFieldType type : values()) {
+			if (type.code == code) {
+				return type;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * @return the code
+	 */
+	byte getCode() {
+		return code;
+	}
+
+	/**
+	 * @return the width
+	 */
+	int getWidth() {
+		return width;
+	}
+}
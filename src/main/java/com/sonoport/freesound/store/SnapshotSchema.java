@@ -0,0 +1,144 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.sonoport.freesound.response.Pack;
+import com.sonoport.freesound.response.Sound;
+import com.sonoport.freesound.response.User;
+
+/**
+ * Describes how a DTO is held in a {@link Snapshot}: the fields stored, the field records are looked up by, and a
+ * version number identifying the revision of the schema. The fields present are recorded in each snapshot file, so a
+ * schema can be revised (adding fields, or removing them) while snapshots written using earlier revisions remain
+ * readable; fields missing from a snapshot are left unpopulated.
+ *
+ * @param <T> The DTO described by the schema
+ */
+public abstract class SnapshotSchema<T extends Object> {
+
+	/** Schema for {@link Sound}s, looked up by sound identifier. */
+	public static final SnapshotSchema<Sound> SOUND = new SnapshotSchema<Sound>(
+			"sound", 1, SoundSnapshotField.ID, Arrays.<SnapshotField<Sound>>asList(SoundSnapshotField.values())) {
+		@Override
+		protected Sound newInstance() {
+			return new Sound();
+		}
+	};
+
+	/** Schema for {@link Pack}s, looked up by pack identifier. */
+	public static final SnapshotSchema<Pack> PACK = new SnapshotSchema<Pack>(
+			"pack", 1, PackSnapshotField.ID, Arrays.<SnapshotField<Pack>>asList(PackSnapshotField.values())) {
+		@Override
+		protected Pack newInstance() {
+			return new Pack();
+		}
+	};
+
+	/** Schema for {@link User}s, looked up by username. */
+	public static final SnapshotSchema<User> USER = new SnapshotSchema<User>(
+			"user", 1, UserSnapshotField.USERNAME, Arrays.<SnapshotField<User>>asList(UserSnapshotField.values())) {
+		@Override
+		protected User newInstance() {
+			return new User();
+		}
+	};
+
+	/** Name identifying the DTO described by the schema. */
+	private final String name;
+
+	/** Revision of the schema. */
+	private final int version;
+
+	/** The field records are looked up by. */
+	private final SnapshotField<T> keyField;
+
+	/** The fields stored. */
+	private final List<SnapshotField<T>> fields;
+
+	/**
+	 * @param name Name identifying the DTO described by the schema
+	 * @param version Revision of the schema
+	 * @param keyField The field records are looked up by, which must be an {@link SnapshotFieldType#INT} or
+	 *            {@link SnapshotFieldType#STRING} field
+	 * @param fields The fields to store, which must include the key field
+	 */
+	protected SnapshotSchema(
+			final String name,
+			final int version,
+			final SnapshotField<T> keyField,
+			final List<SnapshotField<T>> fields) {
+		if ((name == null) || name.isEmpty()) {
+			throw new IllegalArgumentException("Schema must have a name");
+		} else if ((keyField.getType() != SnapshotFieldType.INT) && (keyField.getType() != SnapshotFieldType.STRING)) {
+			throw new IllegalArgumentException("Key field must be an INT or STRING field");
+		} else if (!fields.contains(keyField)) {
+			throw new IllegalArgumentException("Key field must be one of the fields stored");
+		}
+
+		final Set<String> names = new HashSet<>();
+		for (final SnapshotField<T> field : fields) {
+			if (!names.add(field.getName())) {
+				throw new IllegalArgumentException(
+						String.format("Field name '%s' is used more than once", field.getName()));
+			}
+		}
+
+		this.name = name;
+		this.version = version;
+		this.keyField = keyField;
+		this.fields = Collections.unmodifiableList(new ArrayList<>(fields));
+	}
+
+	/**
+	 * @return A new, empty instance of the DTO
+	 */
+	protected abstract T newInstance();
+
+	/**
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the version
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return the keyField
+	 */
+	public SnapshotField<T> getKeyField() {
+		return keyField;
+	}
+
+	/**
+	 * @return the fields
+	 */
+	public List<SnapshotField<T>> getFields() {
+		return fields;
+	}
+}
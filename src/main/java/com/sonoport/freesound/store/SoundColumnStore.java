@@ -0,0 +1,636 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sonoport.freesound.FreesoundClient;
+import com.sonoport.freesound.FreesoundClientException;
+import com.sonoport.freesound.License;
+import com.sonoport.freesound.query.PageSnapshot;
+import com.sonoport.freesound.query.SoundPagingQuery;
+import com.sonoport.freesound.response.PagingResponse;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * In-memory, column-oriented store of {@link Sound} metadata intended for analytics over large numbers of crawled
+ * results.
+ *
+ * Numeric fields are held in primitive arrays (one per column) and low-cardinality textual fields are dictionary
+ * encoded, so scans run over contiguous memory rather than chasing references through individual {@link Sound}
+ * objects. Filter operations return a {@link BitSet} of matching row indexes, which can be combined using the standard
+ * {@link BitSet} operations and then passed to the aggregate methods. A <code>null</code> selection is treated as
+ * meaning 'all rows'.
+ *
+ * Instances are not thread-safe for writes; concurrent reads are safe once ingestion has finished.
+ */
+public class SoundColumnStore {
+
+	/** Value used to represent a missing integer field. */
+	public static final int MISSING_INT = Integer.MIN_VALUE;
+
+	/** Value used to represent a missing creation date. */
+	public static final long MISSING_TIMESTAMP = Long.MIN_VALUE;
+
+	/** The initial number of rows to allocate space for, if none is specified. */
+	private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+	/** The number of rows currently held. */
+	private int size;
+
+	/** The number of rows space is currently allocated for. */
+	private int capacity;
+
+	/** Values of each {@link FloatColumn}, indexed by the column ordinal. */
+	private final float[][] floatColumns;
+
+	/** Values of each {@link IntColumn}, indexed by the column ordinal. */
+	private final int[][] intColumns;
+
+	/** Dictionary codes of each {@link DictionaryColumn}, indexed by the column ordinal. */
+	private final int[][] dictionaryColumns;
+
+	/** The dictionaries used to encode each {@link DictionaryColumn}, indexed by the column ordinal. */
+	private final StringDictionary[] dictionaries;
+
+	/** Creation date of each sound, as milliseconds since the epoch. */
+	private long[] created;
+
+	/**
+	 * No-arg constructor.
+	 */
+	public SoundColumnStore() {
+		this(DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @param initialCapacity The number of rows to initially allocate space for
+	 */
+	public SoundColumnStore(final int initialCapacity) {
+		if (initialCapacity < 1) {
+			throw new IllegalArgumentException("Initial capacity must be greater than 0");
+		}
+
+		capacity = initialCapacity;
+
+		floatColumns = new float[FloatColumn.values().length][capacity];
+		intColumns = new int[IntColumn.values().length][capacity];
+		dictionaryColumns = new int[DictionaryColumn.values().length][capacity];
+		created = new long[capacity];
+
+		dictionaries = new StringDictionary[DictionaryColumn.values().length];
+		for (int i = 0; i < dictionaries.length; i++) {
+			dictionaries[i] = new StringDictionary();
+		}
+	}
+
+	/**
+	 * Add a single {@link Sound} to the store.
+	 *
+	 * @param sound The sound to add
+	 * @return The row index the sound was stored at
+	 */
+	public int add(final Sound sound) {
+		if (size == capacity) {
+			grow(capacity * 2);
+		}
+
+		final int row = size;
+
+		for (final FloatColumn column : FloatColumn.values()) {
+			final Float value = column.extract(sound);
+			floatColumns[column.ordinal()][row] = (value != null) ? value.floatValue() : Float.NaN;
+		}
+
+		for (final IntColumn column : IntColumn.values()) {
+			final Integer value = column.extract(sound);
+			intColumns[column.ordinal()][row] = (value != null) ? value.intValue() : MISSING_INT;
+		}
+
+		for (final DictionaryColumn column : DictionaryColumn.values()) {
+			dictionaryColumns[column.ordinal()][row] = dictionaries[column.ordinal()].encode(column.extract(sound));
+		}
+
+		created[row] = (sound.getCreated() != null) ? sound.getCreated().getTime() : MISSING_TIMESTAMP;
+
+		size++;
+
+		return row;
+	}
+
+	/**
+	 * Add a collection of {@link Sound}s to the store.
+	 *
+	 * @param sounds The sounds to add
+	 */
+	public void addAll(final Collection<Sound> sounds) {
+		if ((size + sounds.size()) > capacity) {
+			grow(Math.max(capacity * 2, size + sounds.size()));
+		}
+
+		for (final Sound sound : sounds) {
+			add(sound);
+		}
+	}
+
+	/**
+	 * Execute a {@link SoundPagingQuery}, adding every page of results to the store. Pages are retrieved using
+	 * snapshots of the query (see {@link SoundPagingQuery#atPage(int)}), so the query itself is not modified.
+	 *
+	 * @param freesoundClient The client to execute the query with
+	 * @param query The query to run
+	 * @return The number of sounds added
+	 *
+	 * @throws FreesoundClientException Any errors encountered executing the query, or an error response being received
+	 */
+	public int ingest(final FreesoundClient freesoundClient, final SoundPagingQuery<?> query)
+			throws FreesoundClientException {
+		final int initialSize = size;
+
+		PageSnapshot<Sound> page = query.snapshot();
+		PagingResponse<Sound> response = (PagingResponse<Sound>) freesoundClient.executeQuery(page);
+		while (true) {
+			if (response.isErrorResponse()) {
+				throw new FreesoundClientException(
+						String.format("Error retrieving sounds to ingest: %s", response.getErrorDetails()));
+			}
+
+			if (response.getResults() != null) {
+				addAll(response.getResults());
+			}
+
+			if (!response.hasNextPage()) {
+				break;
+			}
+
+			page = page.nextPage();
+			response = (PagingResponse<Sound>) freesoundClient.executeQuery(page);
+		}
+
+		return size - initialSize;
+	}
+
+	/**
+	 * Release any unused space allocated for rows.
+	 */
+	public void trimToSize() {
+		if (size < capacity) {
+			grow(Math.max(size, 1));
+		}
+	}
+
+	/**
+	 * Select the rows whose value for a {@link FloatColumn} falls within an (inclusive) range. Rows with a missing value
+	 * never match.
+	 *
+	 * @param column The column to filter on
+	 * @param min The lower bound of the range
+	 * @param max The upper bound of the range
+	 * @return The matching rows
+	 */
+	public BitSet select(final FloatColumn column, final float min, final float max) {
+		final float[] values = floatColumns[column.ordinal()];
+		final long[] words = new long[wordCount()];
+
+		for (int i = 0; i < size; i++) {
+			final float value = values[i];
+			final long match = ((value >= min) & (value <= max)) ? 1L : 0L;
+			words[i >>> 6] |= match << i;
+		}
+
+		return BitSet.valueOf(words);
+	}
+
+	/**
+	 * Select the rows whose value for an {@link IntColumn} falls within an (inclusive) range. Rows with a missing value
+	 * never match, unless the lower bound is {@link SoundColumnStore#MISSING_INT}.
+	 *
+	 * @param column The column to filter on
+	 * @param min The lower bound of the range
+	 * @param max The upper bound of the range
+	 * @return The matching rows
+	 */
+	public BitSet select(final IntColumn column, final int min, final int max) {
+		final int[] values = intColumns[column.ordinal()];
+		final long[] words = new long[wordCount()];
+
+		for (int i = 0; i < size; i++) {
+			final int value = values[i];
+			final long match = ((value >= min) & (value <= max)) ? 1L : 0L;
+			words[i >>> 6] |= match << i;
+		}
+
+		return BitSet.valueOf(words);
+	}
+
+	/**
+	 * Select the rows with a given value for a {@link DictionaryColumn}.
+	 *
+	 * @param column The column to filter on
+	 * @param value The value to match (null matches rows with no value)
+	 * @return The matching rows
+	 */
+	public BitSet select(final DictionaryColumn column, final String value) {
+		final int code = dictionaries[column.ordinal()].lookup(value);
+		if ((value != null) && (code == StringDictionary.NULL_CODE)) {
+			return new BitSet();
+		}
+
+		final int[] codes = dictionaryColumns[column.ordinal()];
+		final long[] words = new long[wordCount()];
+
+		for (int i = 0; i < size; i++) {
+			final long match = (codes[i] == code) ? 1L : 0L;
+			words[i >>> 6] |= match << i;
+		}
+
+		return BitSet.valueOf(words);
+	}
+
+	/**
+	 * Select the rows available under a given {@link License}.
+	 *
+	 * @param license The license to match
+	 * @return The matching rows
+	 */
+	public BitSet select(final License license) {
+		return select(DictionaryColumn.LICENSE, (license != null) ? license.name() : null);
+	}
+
+	/**
+	 * Select the rows created within an (inclusive) date range. Rows with no creation date never match.
+	 *
+	 * @param from The start of the range (or null for no lower bound)
+	 * @param to The end of the range (or null for no upper bound)
+	 * @return The matching rows
+	 */
+	public BitSet selectCreated(final Date from, final Date to) {
+		final long min = (from != null) ? from.getTime() : (MISSING_TIMESTAMP + 1);
+		final long max = (to != null) ? to.getTime() : Long.MAX_VALUE;
+		final long[] words = new long[wordCount()];
+
+		for (int i = 0; i < size; i++) {
+			final long value = created[i];
+			final long match = ((value >= min) & (value <= max)) ? 1L : 0L;
+			words[i >>> 6] |= match << i;
+		}
+
+		return BitSet.valueOf(words);
+	}
+
+	/**
+	 * Count the rows in a selection.
+	 *
+	 * @param selection The selected rows (or null for all rows)
+	 * @return The number of rows
+	 */
+	public int count(final BitSet selection) {
+		return (selection == null) ? size : selection.cardinality();
+	}
+
+	/**
+	 * Sum the values of a {@link FloatColumn} over a selection, ignoring missing values.
+	 *
+	 * @param column The column to aggregate
+	 * @param selection The selected rows (or null for all rows)
+	 * @return The sum of the values
+	 */
+	public double sum(final FloatColumn column, final BitSet selection) {
+		final float[] values = floatColumns[column.ordinal()];
+		double sum = 0;
+
+		if (selection == null) {
+			for (int i = 0; i < size; i++) {
+				final float value = values[i];
+				if (!Float.isNaN(value)) {
+					sum += value;
+				}
+			}
+		} else {
+			for (int i = selection.nextSetBit(0); (i >= 0) && (i < size); i = selection.nextSetBit(i + 1)) {
+				final float value = values[i];
+				if (!Float.isNaN(value)) {
+					sum += value;
+				}
+			}
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Calculate the mean of the values of a {@link FloatColumn} over a selection, ignoring missing values.
+	 *
+	 * @param column The column to aggregate
+	 * @param selection The selected rows (or null for all rows)
+	 * @return The mean value, or {@link Double#NaN} if there are no values
+	 */
+	public double average(final FloatColumn column, final BitSet selection) {
+		final float[] values = floatColumns[column.ordinal()];
+		double sum = 0;
+		int count = 0;
+
+		if (selection == null) {
+			for (int i = 0; i < size; i++) {
+				final float value = values[i];
+				if (!Float.isNaN(value)) {
+					sum += value;
+					count++;
+				}
+			}
+		} else {
+			for (int i = selection.nextSetBit(0); (i >= 0) && (i < size); i = selection.nextSetBit(i + 1)) {
+				final float value = values[i];
+				if (!Float.isNaN(value)) {
+					sum += value;
+					count++;
+				}
+			}
+		}
+
+		return (count > 0) ? (sum / count) : Double.NaN;
+	}
+
+	/**
+	 * Find the minimum value of a {@link FloatColumn} over a selection, ignoring missing values.
+	 *
+	 * @param column The column to aggregate
+	 * @param selection The selected rows (or null for all rows)
+	 * @return The minimum value, or {@link Float#NaN} if there are no values
+	 */
+	public float min(final FloatColumn column, final BitSet selection) {
+		final float[] values = floatColumns[column.ordinal()];
+		float min = Float.POSITIVE_INFINITY;
+		boolean found = false;
+
+		if (selection == null) {
+			for (int i = 0; i < size; i++) {
+				final float value = values[i];
+				if (value < min) {
+					min = value;
+					found = true;
+				}
+			}
+		} else {
+			for (int i = selection.nextSetBit(0); (i >= 0) && (i < size); i = selection.nextSetBit(i + 1)) {
+				final float value = values[i];
+				if (value < min) {
+					min = value;
+					found = true;
+				}
+			}
+		}
+
+		return found ? min : Float.NaN;
+	}
+
+	/**
+	 * Find the maximum value of a {@link FloatColumn} over a selection, ignoring missing values.
+	 *
+	 * @param column The column to aggregate
+	 * @param selection The selected rows (or null for all rows)
+	 * @return The maximum value, or {@link Float#NaN} if there are no values
+	 */
+	public float max(final FloatColumn column, final BitSet selection) {
+		final float[] values = floatColumns[column.ordinal()];
+		float max = Float.NEGATIVE_INFINITY;
+		boolean found = false;
+
+		if (selection == null) {
+			for (int i = 0; i < size; i++) {
+				final float value = values[i];
+				if (value > max) {
+					max = value;
+					found = true;
+				}
+			}
+		} else {
+			for (int i = selection.nextSetBit(0); (i >= 0) && (i < size); i = selection.nextSetBit(i + 1)) {
+				final float value = values[i];
+				if (value > max) {
+					max = value;
+					found = true;
+				}
+			}
+		}
+
+		return found ? max : Float.NaN;
+	}
+
+	/**
+	 * Sum the values of an {@link IntColumn} over a selection, ignoring missing values.
+	 *
+	 * @param column The column to aggregate
+	 * @param selection The selected rows (or null for all rows)
+	 * @return The sum of the values
+	 */
+	public long sum(final IntColumn column, final BitSet selection) {
+		final int[] values = intColumns[column.ordinal()];
+		long sum = 0;
+
+		if (selection == null) {
+			for (int i = 0; i < size; i++) {
+				final int value = values[i];
+				sum += (value != MISSING_INT) ? value : 0;
+			}
+		} else {
+			for (int i = selection.nextSetBit(0); (i >= 0) && (i < size); i = selection.nextSetBit(i + 1)) {
+				final int value = values[i];
+				sum += (value != MISSING_INT) ? value : 0;
+			}
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Calculate the mean of the values of an {@link IntColumn} over a selection, ignoring missing values.
+	 *
+	 * @param column The column to aggregate
+	 * @param selection The selected rows (or null for all rows)
+	 * @return The mean value, or {@link Double#NaN} if there are no values
+	 */
+	public double average(final IntColumn column, final BitSet selection) {
+		final int[] values = intColumns[column.ordinal()];
+		long sum = 0;
+		int count = 0;
+
+		if (selection == null) {
+			for (int i = 0; i < size; i++) {
+				final int value = values[i];
+				if (value != MISSING_INT) {
+					sum += value;
+					count++;
+				}
+			}
+		} else {
+			for (int i = selection.nextSetBit(0); (i >= 0) && (i < size); i = selection.nextSetBit(i + 1)) {
+				final int value = values[i];
+				if (value != MISSING_INT) {
+					sum += value;
+					count++;
+				}
+			}
+		}
+
+		return (count > 0) ? ((double) sum / count) : Double.NaN;
+	}
+
+	/**
+	 * Count the number of rows holding each distinct value of a {@link DictionaryColumn} within a selection.
+	 *
+	 * @param column The column to group by
+	 * @param selection The selected rows (or null for all rows)
+	 * @return Count of rows by value (rows with no value are counted against the <code>null</code> key)
+	 */
+	public Map<String, Integer> countBy(final DictionaryColumn column, final BitSet selection) {
+		final int[] codes = dictionaryColumns[column.ordinal()];
+		final StringDictionary dictionary = dictionaries[column.ordinal()];
+
+		// Slot 0 holds the count of null values, with each code offset by one
+		final int[] counts = new int[dictionary.size() + 1];
+		if (selection == null) {
+			for (int i = 0; i < size; i++) {
+				counts[codes[i] + 1]++;
+			}
+		} else {
+			for (int i = selection.nextSetBit(0); (i >= 0) && (i < size); i = selection.nextSetBit(i + 1)) {
+				counts[codes[i] + 1]++;
+			}
+		}
+
+		final Map<String, Integer> countsByValue = new HashMap<>();
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] > 0) {
+				countsByValue.put(dictionary.decode(i - 1), Integer.valueOf(counts[i]));
+			}
+		}
+
+		return countsByValue;
+	}
+
+	/**
+	 * Retrieve the sound identifiers of the rows in a selection.
+	 *
+	 * @param selection The selected rows (or null for all rows)
+	 * @return Identifiers of the selected sounds, in row order
+	 */
+	public int[] ids(final BitSet selection) {
+		final int[] values = intColumns[IntColumn.ID.ordinal()];
+		if (selection == null) {
+			return Arrays.copyOf(values, size);
+		}
+
+		final int[] ids = new int[count(selection)];
+		int index = 0;
+		for (int i = selection.nextSetBit(0); (i >= 0) && (i < size); i = selection.nextSetBit(i + 1)) {
+			ids[index++] = values[i];
+		}
+
+		return (index == ids.length) ? ids : Arrays.copyOf(ids, index);
+	}
+
+	/**
+	 * @param column The column to read
+	 * @param row The row to read
+	 * @return The value held (or {@link Float#NaN} if missing)
+	 */
+	public float getFloat(final FloatColumn column, final int row) {
+		checkRow(row);
+		return floatColumns[column.ordinal()][row];
+	}
+
+	/**
+	 * @param column The column to read
+	 * @param row The row to read
+	 * @return The value held (or {@link SoundColumnStore#MISSING_INT} if missing)
+	 */
+	public int getInt(final IntColumn column, final int row) {
+		checkRow(row);
+		return intColumns[column.ordinal()][row];
+	}
+
+	/**
+	 * @param column The column to read
+	 * @param row The row to read
+	 * @return The value held (or null if missing)
+	 */
+	public String getString(final DictionaryColumn column, final int row) {
+		checkRow(row);
+		return dictionaries[column.ordinal()].decode(dictionaryColumns[column.ordinal()][row]);
+	}
+
+	/**
+	 * @param row The row to read
+	 * @return The creation date of the sound (or null if missing)
+	 */
+	public Date getCreated(final int row) {
+		checkRow(row);
+		return (created[row] != MISSING_TIMESTAMP) ? new Date(created[row]) : null;
+	}
+
+	/**
+	 * @return The number of rows held
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return The number of 64-bit words required to hold a bitmap of all rows
+	 */
+	private int wordCount() {
+		return (size + 63) >>> 6;
+	}
+
+	/**
+	 * Ensure a row index is within the bounds of the data held.
+	 *
+	 * @param row The row index
+	 */
+	private void checkRow(final int row) {
+		if ((row < 0) || (row >= size)) {
+			throw new IndexOutOfBoundsException(String.format("Row %s is outside range 0-%s", row, size - 1));
+		}
+	}
+
+	/**
+	 * Resize the column arrays.
+	 *
+	 * @param newCapacity The number of rows to allocate space for
+	 */
+	private void grow(final int newCapacity) {
+		for (int i = 0; i < floatColumns.length; i++) {
+			floatColumns[i] = Arrays.copyOf(floatColumns[i], newCapacity);
+		}
+
+		for (int i = 0; i < intColumns.length; i++) {
+			intColumns[i] = Arrays.copyOf(intColumns[i], newCapacity);
+		}
+
+		for (int i = 0; i < dictionaryColumns.length; i++) {
+			dictionaryColumns[i] = Arrays.copyOf(dictionaryColumns[i], newCapacity);
+		}
+
+		created = Arrays.copyOf(created, newCapacity);
+		capacity = newCapacity;
+	}
+}
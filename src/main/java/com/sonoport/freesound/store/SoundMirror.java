@@ -0,0 +1,930 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import com.sonoport.freesound.FreesoundClient;
+import com.sonoport.freesound.FreesoundClientException;
+import com.sonoport.freesound.query.PageSnapshot;
+import com.sonoport.freesound.query.search.FilterExpression;
+import com.sonoport.freesound.query.search.SortOrder;
+import com.sonoport.freesound.query.search.TextSearch;
+import com.sonoport.freesound.query.sound.SoundInstanceQuery;
+import com.sonoport.freesound.response.PagingResponse;
+import com.sonoport.freesound.response.Response;
+import com.sonoport.freesound.response.Sound;
+import com.sonoport.freesound.response.mapping.SoundField;
+
+/**
+ * Persistent local mirror of sound metadata, held in a directory of append-only segment files.
+ *
+ * Each record in a segment holds one version of a sound, preceded by a fixed-size header carrying the sound
+ * identifier, creation date, the time the record was written and a checksum. Updating a sound appends a new record,
+ * which supersedes earlier ones. On opening, only the record headers are scanned to rebuild the in-memory index of
+ * where the latest version of each sound is held, so existing metadata never needs to be downloaded again. A record
+ * left incomplete at the end of the last segment (e.g. by a crash mid-write) is discarded. Segments consisting mostly
+ * of superseded records are reclaimed by {@link #compact()}, which copies their remaining records to the end of the
+ * mirror and deletes them.
+ *
+ * The mirror is populated incrementally by {@link #sync(FreesoundClient, TextSearch)}, which only fetches sounds newer
+ * than those found by the last complete sync of the same search, and kept current by {@link #refresh(FreesoundClient)},
+ * which updates the fields of a sound that change over time. The high water mark of each search is held in a small
+ * file alongside the segments. The mirror is safe for use by multiple threads.
+ */
+public class SoundMirror implements Closeable {
+
+	/** The default size at which a new segment is started, in bytes. */
+	public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+	/** The default age at which a mirrored sound is no longer considered fresh, in milliseconds. */
+	public static final long DEFAULT_MAXIMUM_AGE = TimeUnit.HOURS.toMillis(1);
+
+	/** Size of the header preceding each record: length, sound id, created, synced and checksum. */
+	static final int HEADER_SIZE = 28;
+
+	/** Value written as the creation date of sounds without one. */
+	private static final long NO_DATE = Long.MIN_VALUE;
+
+	/** Prefix of segment file names. */
+	private static final String SEGMENT_PREFIX = "segment-";
+
+	/** Suffix of segment file names. */
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	/** Name of the file holding the high water mark of each search. */
+	private static final String HIGH_WATER_MARKS_FILE = "high-water-marks.properties";
+
+	/** The number of sounds whose volatile fields are refreshed with each request. */
+	private static final int REFRESH_BATCH_SIZE = 100;
+
+	/** The directory holding the segment files. */
+	private final Path directory;
+
+	/** The size at which a new segment is started. */
+	private final long segmentSize;
+
+	/** Open channels to each segment, keyed on segment number. */
+	private final Map<Integer, FileChannel> segments = new ConcurrentHashMap<>();
+
+	/** Location of the latest record of each sound, keyed on sound identifier. */
+	private final Map<Integer, RecordLocation> index = new ConcurrentHashMap<>();
+
+	/** The number of bytes of each segment holding the latest record of a sound. Guarded by <code>this</code>. */
+	private final Map<Integer, Long> liveBytes = new HashMap<>();
+
+	/** Number of the segment currently being appended to. Guarded by <code>this</code>. */
+	private int activeSegment;
+
+	/** Size of the segment currently being appended to. Guarded by <code>this</code>. */
+	private long activeSize;
+
+	/**
+	 * The creation date of the newest sound found by the last complete sync of each search, in milliseconds since the
+	 * epoch, keyed on the search string and filters of the search. Guarded by <code>this</code>.
+	 */
+	private final Map<String, Long> highWaterMarks = new HashMap<>();
+
+	/** The age at which a mirrored sound is no longer considered fresh, in milliseconds. */
+	private volatile long maximumAge = DEFAULT_MAXIMUM_AGE;
+
+	/** The error encountered by the most recent scheduled refresh (or null if it succeeded). */
+	private volatile FreesoundClientException lastRefreshFailure;
+
+	/**
+	 * @param directory The directory to hold the mirror, created if it does not exist
+	 * @throws IOException Any errors encountered opening the segments of an existing mirror
+	 */
+	public SoundMirror(final Path directory) throws IOException {
+		this(directory, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * @param directory The directory to hold the mirror, created if it does not exist
+	 * @param segmentSize The size at which a new segment is started, in bytes
+	 * @throws IOException Any errors encountered opening the segments of an existing mirror
+	 */
+	public SoundMirror(final Path directory, final long segmentSize) throws IOException {
+		if (segmentSize < HEADER_SIZE) {
+			throw new IllegalArgumentException(String.format("Segment size must be at least %d bytes", HEADER_SIZE));
+		}
+
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+
+		Files.createDirectories(directory);
+		readHighWaterMarks();
+
+		final List<Integer> segmentNumbers = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+			for (final Path file : files) {
+				final String name = file.getFileName().toString();
+				try {
+					segmentNumbers.add(Integer.valueOf(
+							name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+				} catch (final NumberFormatException e) {
+					// Not a segment written by the mirror
+				}
+			}
+		}
+		Collections.sort(segmentNumbers);
+
+		try {
+			for (int i = 0; i < segmentNumbers.size(); i++) {
+				final int segmentNumber = segmentNumbers.get(i).intValue();
+				final FileChannel channel = openSegment(segmentNumber);
+				activeSize = scanSegment(segmentNumber, channel, i == (segmentNumbers.size() - 1));
+				activeSegment = segmentNumber;
+			}
+
+			if (segmentNumbers.isEmpty()) {
+				activeSegment = 1;
+				activeSize = 0;
+				openSegment(activeSegment);
+			}
+		} catch (final IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Add a sound to the mirror, superseding any version already held.
+	 *
+	 * @param sound The sound to add
+	 * @throws IOException Any errors encountered writing the sound
+	 */
+	public void put(final Sound sound) throws IOException {
+		if (sound.getId() == null) {
+			throw new IllegalArgumentException("Cannot mirror a sound without an identifier");
+		}
+
+		final byte[] record = SoundRecordCodec.encode(sound);
+		final CRC32 checksum = new CRC32();
+		checksum.update(record);
+
+		final long created = (sound.getCreated() != null) ? sound.getCreated().getTime() : NO_DATE;
+
+		final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + record.length);
+		buffer.putInt(record.length);
+		buffer.putInt(sound.getId().intValue());
+		buffer.putLong(created);
+		final int syncedPosition = buffer.position();
+		buffer.putLong(0);
+		buffer.putInt((int) checksum.getValue());
+		buffer.put(record);
+		buffer.flip();
+
+		synchronized (this) {
+			// Taken under the lock, so that records are written in the order of the times they were written
+			final long synced = System.currentTimeMillis();
+			buffer.putLong(syncedPosition, synced);
+
+			append(sound.getId(), buffer, record.length, synced, (int) checksum.getValue());
+		}
+	}
+
+	/**
+	 * Retrieve the latest version of a sound held by the mirror, regardless of its age.
+	 *
+	 * @param soundId Identifier of the sound
+	 * @return The sound (or null if it is not held)
+	 * @throws IOException Any errors encountered reading the sound, or if its record is corrupt
+	 */
+	public Sound get(final int soundId) throws IOException {
+		RecordLocation location;
+		ByteBuffer buffer;
+		while (true) {
+			location = index.get(Integer.valueOf(soundId));
+			if (location == null) {
+				return null;
+			}
+
+			buffer = ByteBuffer.allocate(location.length);
+			try {
+				final FileChannel channel = segments.get(Integer.valueOf(location.segment));
+				if (channel == null) {
+					throw new ClosedChannelException();
+				}
+				readFully(channel, buffer, location.offset + HEADER_SIZE);
+				break;
+			} catch (final ClosedChannelException e) {
+				// Retry if the segment was deleted by a compaction, which will have moved the record
+				if (index.get(Integer.valueOf(soundId)) == location) {
+					throw e;
+				}
+			}
+		}
+
+		final CRC32 checksum = new CRC32();
+		checksum.update(buffer.array());
+		if ((int) checksum.getValue() != location.checksum) {
+			throw new IOException(String.format("Record for sound %d is corrupt", soundId));
+		}
+
+		return SoundRecordCodec.decode(buffer.array());
+	}
+
+	/**
+	 * @param soundId Identifier of the sound
+	 * @return Whether the mirror holds a version of the sound
+	 */
+	public boolean contains(final int soundId) {
+		return index.containsKey(Integer.valueOf(soundId));
+	}
+
+	/**
+	 * @param soundId Identifier of the sound
+	 * @return Whether the mirror holds a version of the sound written within the maximum age
+	 */
+	public boolean isFresh(final int soundId) {
+		final RecordLocation location = index.get(Integer.valueOf(soundId));
+		return (location != null) && ((System.currentTimeMillis() - location.synced) < maximumAge);
+	}
+
+	/**
+	 * Execute a {@link SoundInstanceQuery}, answering it from the mirror if a fresh version of the sound is held.
+	 * Otherwise the query is sent to freesound.org, and a successful result added to the mirror.
+	 *
+	 * @param freesoundClient The client to execute the query with if necessary
+	 * @param query The query to answer
+	 * @return The response to the query
+	 *
+	 * @throws FreesoundClientException Any errors encountered executing the query, or adding its result to the mirror
+	 */
+	public Response<Sound> executeQuery(final FreesoundClient freesoundClient, final SoundInstanceQuery query)
+			throws FreesoundClientException {
+		if (isFresh(query.getSoundId())) {
+			try {
+				final Sound sound = get(query.getSoundId());
+				if (sound != null) {
+					final Response<Sound> response = new Response<>(200, "OK");
+					response.setResults(sound);
+
+					return response;
+				}
+			} catch (final IOException e) {
+				// Fall back to retrieving the sound again, which replaces the unreadable record
+			}
+		}
+
+		final Response<Sound> response = freesoundClient.executeQuery(query);
+		if (!response.isErrorResponse() && (response.getResults() != null)) {
+			try {
+				put(response.getResults());
+			} catch (final IOException e) {
+				throw new FreesoundClientException("Error adding sound to mirror", e);
+			}
+		}
+
+		return response;
+	}
+
+	/**
+	 * Add the sounds matching a {@link TextSearch} which are newer than any found by the last complete sync of the same
+	 * search (that is, one with the same search string and filters). The search is sorted newest first, and paging
+	 * stops as soon as a sound older than the high water mark of the search is reached, so only new sounds are
+	 * downloaded. The mark is only moved forward once a sync has reached it, so a sync which fails partway is resumed
+	 * from the start by the next. If the search restricts the fields returned, it must include 'id' and 'created'. The
+	 * search itself is not modified: its sort order is overridden in the snapshots taken of it, so it can be reused (or
+	 * shared between threads) afterwards.
+	 *
+	 * @param freesoundClient The client to execute the search with
+	 * @param query The search defining the sounds to mirror
+	 * @return The number of sounds added
+	 *
+	 * @throws FreesoundClientException Any errors encountered executing the search, or writing the sounds
+	 */
+	public int sync(final FreesoundClient freesoundClient, final TextSearch query) throws FreesoundClientException {
+		final String search = searchKey(query);
+		final long mark = highWaterMark(search);
+
+		long newest = mark;
+		int added = 0;
+		PageSnapshot<Sound> page = query.snapshot(SortOrder.CREATED_DESCENDING);
+		PagingResponse<Sound> response = (PagingResponse<Sound>) freesoundClient.executeQuery(page);
+		try {
+			pages: while (true) {
+				if (response.isErrorResponse()) {
+					throw new FreesoundClientException(
+							String.format("Error retrieving sounds to mirror: %s", response.getErrorDetails()));
+				}
+
+				if (response.getResults() != null) {
+					for (final Sound sound : response.getResults()) {
+						final long created = (sound.getCreated() != null) ? sound.getCreated().getTime() : NO_DATE;
+						if (created < mark) {
+							break pages;
+						}
+
+						newest = Math.max(newest, created);
+						if ((sound.getId() != null) && !contains(sound.getId())) {
+							put(sound);
+							added++;
+						}
+					}
+				}
+
+				if (!response.hasNextPage()) {
+					break;
+				}
+
+				page = page.nextPage();
+				response = (PagingResponse<Sound>) freesoundClient.executeQuery(page);
+			}
+
+			if (newest > mark) {
+				raiseHighWaterMark(search, newest);
+			}
+		} catch (final IOException e) {
+			throw new FreesoundClientException("Error adding sounds to mirror", e);
+		}
+
+		return added;
+	}
+
+	/**
+	 * Update the number of downloads, average rating and number of comments of every sound which is no longer fresh.
+	 * Sounds are requested in batches, with only the fields being refreshed returned. A sound written again since its
+	 * batch was requested is left as it is. Once every batch has been applied, the mirror is compacted to reclaim the
+	 * space held by the records replaced.
+	 *
+	 * @param freesoundClient The client to execute the requests with
+	 * @return The number of sounds refreshed
+	 *
+	 * @throws FreesoundClientException Any errors encountered retrieving or writing the sounds
+	 */
+	public int refresh(final FreesoundClient freesoundClient) throws FreesoundClientException {
+		final long now = System.currentTimeMillis();
+		final List<Integer> stale = new ArrayList<>();
+		for (final Map.Entry<Integer, RecordLocation> entry : index.entrySet()) {
+			if ((now - entry.getValue().synced) >= maximumAge) {
+				stale.add(entry.getKey());
+			}
+		}
+		Collections.sort(stale);
+
+		int refreshed = 0;
+		try {
+			for (int start = 0; start < stale.size(); start += REFRESH_BATCH_SIZE) {
+				final List<Integer> batch = stale.subList(start, Math.min(stale.size(), start + REFRESH_BATCH_SIZE));
+				final FilterExpression[] ids = new FilterExpression[batch.size()];
+				for (int i = 0; i < ids.length; i++) {
+					ids[i] = FilterExpression.term(SoundField.ID.getKey(), batch.get(i).toString());
+				}
+
+				final TextSearch search = new TextSearch()
+						.filter(FilterExpression.or(ids))
+						.pageSize(batch.size())
+						.includeField(SoundField.ID.getKey())
+						.includeField(SoundField.NUMBER_OF_DOWNLOADS.getKey())
+						.includeField(SoundField.AVERAGE_RATING.getKey())
+						.includeField(SoundField.NUMBER_OF_COMMENTS.getKey());
+
+				final long requested = System.currentTimeMillis();
+				final PagingResponse<Sound> response = (PagingResponse<Sound>) freesoundClient.executeQuery(search);
+				if (response.isErrorResponse()) {
+					throw new FreesoundClientException(
+							String.format("Error refreshing mirrored sounds: %s", response.getErrorDetails()));
+				}
+
+				if (response.getResults() != null) {
+					for (final Sound update : response.getResults()) {
+						if ((update.getId() != null) && applyRefresh(update, requested)) {
+							refreshed++;
+						}
+					}
+				}
+			}
+
+			compact();
+		} catch (final IOException e) {
+			throw new FreesoundClientException("Error refreshing mirrored sounds", e);
+		}
+
+		return refreshed;
+	}
+
+	/**
+	 * Rewrite the latest records held in segments consisting mostly of superseded records to the end of the mirror,
+	 * and delete those segments. The segment being appended to is never compacted.
+	 *
+	 * @return The number of segments deleted
+	 * @throws IOException Any errors encountered copying records or deleting segments
+	 */
+	public synchronized int compact() throws IOException {
+		final Set<Integer> compacted = new HashSet<>();
+		for (final Map.Entry<Integer, FileChannel> segment : segments.entrySet()) {
+			final int segmentNumber = segment.getKey().intValue();
+			if ((segmentNumber != activeSegment) && ((2 * liveBytes(segmentNumber)) < segment.getValue().size())) {
+				compacted.add(segment.getKey());
+			}
+		}
+
+		if (compacted.isEmpty()) {
+			return 0;
+		}
+
+		for (final Map.Entry<Integer, RecordLocation> entry : index.entrySet()) {
+			final RecordLocation location = entry.getValue();
+			if (compacted.contains(Integer.valueOf(location.segment))) {
+				final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + location.length);
+				readFully(segments.get(Integer.valueOf(location.segment)), buffer, location.offset);
+				buffer.flip();
+
+				append(entry.getKey(), buffer, location.length, location.synced, location.checksum);
+			}
+		}
+
+		// The copies must be durable before the originals are deleted
+		flush();
+
+		for (final Integer segmentNumber : compacted) {
+			segments.remove(segmentNumber).close();
+			liveBytes.remove(segmentNumber);
+			Files.delete(segmentFile(segmentNumber.intValue()));
+		}
+
+		return compacted.size();
+	}
+
+	/**
+	 * Schedule {@link #refresh(FreesoundClient)} to run periodically. A failed refresh does not prevent subsequent ones
+	 * from running; the most recent failure is available from {@link #getLastRefreshFailure()}.
+	 *
+	 * @param executor The executor to run the refreshes on
+	 * @param freesoundClient The client to execute the requests with
+	 * @param period The delay between the end of one refresh and the start of the next
+	 * @param unit The unit of the period
+	 * @return Future which can be used to cancel the refreshes
+	 */
+	public ScheduledFuture<?> scheduleRefresh(
+			final ScheduledExecutorService executor,
+			final FreesoundClient freesoundClient,
+			final long period,
+			final TimeUnit unit) {
+		return executor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					refresh(freesoundClient);
+					lastRefreshFailure = null;
+				} catch (final FreesoundClientException e) {
+					lastRefreshFailure = e;
+				}
+			}
+		}, period, period, unit);
+	}
+
+	/**
+	 * Ensure all sounds written so far are stored durably.
+	 *
+	 * @throws IOException Any errors encountered flushing the segment being appended to
+	 */
+	public synchronized void flush() throws IOException {
+		segments.get(Integer.valueOf(activeSegment)).force(false);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		IOException failure = null;
+		for (final FileChannel channel : segments.values()) {
+			try {
+				channel.close();
+			} catch (final IOException e) {
+				failure = e;
+			}
+		}
+		segments.clear();
+
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * @return Identifiers of the sounds held, in ascending order
+	 */
+	public int[] getSoundIds() {
+		final int[] soundIds = new int[index.size()];
+		int count = 0;
+		for (final Integer soundId : index.keySet()) {
+			if (count == soundIds.length) {
+				break;
+			}
+			soundIds[count++] = soundId.intValue();
+		}
+
+		final int[] result = (count == soundIds.length) ? soundIds : Arrays.copyOf(soundIds, count);
+		Arrays.sort(result);
+
+		return result;
+	}
+
+	/**
+	 * @return The number of sounds held
+	 */
+	public int size() {
+		return index.size();
+	}
+
+	/**
+	 * @param query A search
+	 * @return The creation date of the newest sound found by the last complete sync of the search (or null if it has
+	 * not been synced)
+	 */
+	public Date getHighWaterMark(final TextSearch query) {
+		final long mark = highWaterMark(searchKey(query));
+		return (mark != NO_DATE) ? new Date(mark) : null;
+	}
+
+	/**
+	 * @return the maximumAge, in milliseconds
+	 */
+	public long getMaximumAge() {
+		return maximumAge;
+	}
+
+	/**
+	 * @param maximumAge the maximumAge to set, in milliseconds
+	 */
+	public void setMaximumAge(final long maximumAge) {
+		if (maximumAge < 0) {
+			throw new IllegalArgumentException("Maximum age must not be negative");
+		}
+
+		this.maximumAge = maximumAge;
+	}
+
+	/**
+	 * @return the lastRefreshFailure
+	 */
+	public FreesoundClientException getLastRefreshFailure() {
+		return lastRefreshFailure;
+	}
+
+	/**
+	 * @param query A search
+	 * @return Key identifying the sounds matched by the search, regardless of paging, sorting and the fields returned
+	 */
+	private static String searchKey(final TextSearch query) {
+		final StringBuilder key = new StringBuilder();
+		if (query.getSearchString() != null) {
+			key.append(query.getSearchString().trim());
+		}
+
+		for (final FilterExpression filter : query.getFilters()) {
+			key.append('\n').append(filter.getFilterString());
+		}
+
+		return key.toString();
+	}
+
+	/**
+	 * @param search Key identifying a search
+	 * @return The high water mark of the search, in milliseconds since the epoch (or {@link #NO_DATE} if the search
+	 * has not been synced)
+	 */
+	private synchronized long highWaterMark(final String search) {
+		final Long mark = highWaterMarks.get(search);
+		return (mark != null) ? mark.longValue() : NO_DATE;
+	}
+
+	/**
+	 * Move the high water mark of a search forward, and write the marks of every search to disk.
+	 *
+	 * @param search Key identifying a search
+	 * @param mark The creation date of the newest sound found by the search, in milliseconds since the epoch
+	 * @throws IOException Any errors writing the marks
+	 */
+	private synchronized void raiseHighWaterMark(final String search, final long mark) throws IOException {
+		if (mark <= highWaterMark(search)) {
+			return;
+		}
+		highWaterMarks.put(search, Long.valueOf(mark));
+
+		final Properties properties = new Properties();
+		for (final Map.Entry<String, Long> entry : highWaterMarks.entrySet()) {
+			properties.setProperty(entry.getKey(), entry.getValue().toString());
+		}
+
+		final Path file = directory.resolve(HIGH_WATER_MARKS_FILE);
+		final Path temporary = Files.createTempFile(directory, HIGH_WATER_MARKS_FILE + ".", ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+					OutputStream out = Channels.newOutputStream(channel)) {
+				properties.store(out, "High water mark of each search synced to the mirror");
+				channel.force(true);
+			}
+
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Read the high water mark of each search from disk, if any searches have been synced.
+	 *
+	 * @throws IOException Any errors reading the marks, or if they are corrupt
+	 */
+	private void readHighWaterMarks() throws IOException {
+		final Path file = directory.resolve(HIGH_WATER_MARKS_FILE);
+		if (!Files.exists(file)) {
+			return;
+		}
+
+		final Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(file)) {
+			properties.load(in);
+		}
+
+		for (final String search : properties.stringPropertyNames()) {
+			try {
+				highWaterMarks.put(search, Long.valueOf(properties.getProperty(search)));
+			} catch (final NumberFormatException e) {
+				throw new IOException(String.format("High water mark of search '%s' is corrupt", search), e);
+			}
+		}
+	}
+
+	/**
+	 * Apply the refreshed volatile fields of a sound to the latest version held, unless it has been written again
+	 * since the refresh was requested.
+	 *
+	 * @param update The refreshed fields of the sound
+	 * @param requested The time the refresh was requested
+	 * @return Whether the sound was updated
+	 * @throws IOException Any errors encountered reading or writing the sound
+	 */
+	private synchronized boolean applyRefresh(final Sound update, final long requested) throws IOException {
+		final RecordLocation location = index.get(update.getId());
+		if ((location == null) || (location.synced > requested)) {
+			return false;
+		}
+
+		final Sound sound = get(update.getId().intValue());
+		sound.setNumberOfDownloads(update.getNumberOfDownloads());
+		sound.setAverageRating(update.getAverageRating());
+		sound.setNumberOfComments(update.getNumberOfComments());
+		put(sound);
+
+		return true;
+	}
+
+	/**
+	 * Append a record to the segment being appended to, starting a new segment if it is full, and make it the latest
+	 * record of its sound.
+	 *
+	 * @param soundId Identifier of the sound
+	 * @param buffer The record, preceded by its header
+	 * @param length Length of the record, excluding the header
+	 * @param synced Time the record was written
+	 * @param checksum Checksum of the record
+	 * @throws IOException Any errors encountered writing the record
+	 */
+	private synchronized void append(
+			final Integer soundId,
+			final ByteBuffer buffer,
+			final int length,
+			final long synced,
+			final int checksum) throws IOException {
+		if ((activeSize > 0) && ((activeSize + buffer.remaining()) > segmentSize)) {
+			segments.get(Integer.valueOf(activeSegment)).force(false);
+			activeSegment++;
+			activeSize = 0;
+			openSegment(activeSegment);
+		}
+
+		final long offset = activeSize;
+		final FileChannel channel = segments.get(Integer.valueOf(activeSegment));
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, offset + buffer.position());
+		}
+		activeSize += buffer.limit();
+
+		track(soundId, new RecordLocation(activeSegment, offset, length, synced, checksum));
+	}
+
+	/**
+	 * Make a record the latest of its sound, updating the number of bytes held by latest records in each segment.
+	 *
+	 * @param soundId Identifier of the sound
+	 * @param location Location of the record
+	 */
+	private synchronized void track(final Integer soundId, final RecordLocation location) {
+		final RecordLocation superseded = index.put(soundId, location);
+		if (superseded != null) {
+			addLiveBytes(superseded.segment, -(HEADER_SIZE + superseded.length));
+		}
+		addLiveBytes(location.segment, HEADER_SIZE + location.length);
+	}
+
+	/**
+	 * @param segmentNumber Number of the segment
+	 * @return The number of bytes of the segment holding latest records
+	 */
+	private synchronized long liveBytes(final int segmentNumber) {
+		final Long bytes = liveBytes.get(Integer.valueOf(segmentNumber));
+		return (bytes != null) ? bytes.longValue() : 0;
+	}
+
+	/**
+	 * @param segmentNumber Number of the segment
+	 * @param bytes The number of bytes to add to those of the segment holding latest records (may be negative)
+	 */
+	private synchronized void addLiveBytes(final int segmentNumber, final long bytes) {
+		liveBytes.put(Integer.valueOf(segmentNumber), Long.valueOf(liveBytes(segmentNumber) + bytes));
+	}
+
+	/**
+	 * @param segmentNumber Number of the segment
+	 * @return Path of the file holding the segment
+	 */
+	private Path segmentFile(final int segmentNumber) {
+		return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, segmentNumber, SEGMENT_SUFFIX));
+	}
+
+	/**
+	 * @param segmentNumber Number of the segment
+	 * @return Channel open for reading and writing the segment, created if it does not exist
+	 * @throws IOException Any errors opening the segment
+	 */
+	private FileChannel openSegment(final int segmentNumber) throws IOException {
+		final FileChannel channel = FileChannel.open(segmentFile(segmentNumber),
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		segments.put(Integer.valueOf(segmentNumber), channel);
+
+		return channel;
+	}
+
+	/**
+	 * Read the record headers of a segment, adding each record to the index. An incomplete record at the end of the
+	 * last segment is truncated.
+	 *
+	 * @param segmentNumber Number of the segment
+	 * @param channel Channel open on the segment
+	 * @param last Whether this is the last segment
+	 * @return The size of the valid portion of the segment
+	 * @throws IOException Any errors reading the segment, or if a segment other than the last is incomplete
+	 */
+	private long scanSegment(final int segmentNumber, final FileChannel channel, final boolean last)
+			throws IOException {
+		final long size = channel.size();
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+		long position = 0;
+		while ((position + HEADER_SIZE) <= size) {
+			header.clear();
+			readFully(channel, header, position);
+			header.flip();
+
+			final int length = header.getInt();
+			final int soundId = header.getInt();
+			header.getLong(); // Creation date, not needed to rebuild the index
+			final long synced = header.getLong();
+			final int checksum = header.getInt();
+
+			final long end = position + HEADER_SIZE + length;
+			if ((length < 0) || (end > size)) {
+				break;
+			} else if (last && (end == size) && !checksumMatches(channel, position + HEADER_SIZE, length, checksum)) {
+				// The final record may have been partially written
+				break;
+			}
+
+			track(Integer.valueOf(soundId), new RecordLocation(segmentNumber, position, length, synced, checksum));
+
+			position = end;
+		}
+
+		if (position < size) {
+			if (!last) {
+				throw new IOException(String.format("Segment %d is corrupt at offset %d", segmentNumber, position));
+			}
+
+			channel.truncate(position);
+		}
+
+		return position;
+	}
+
+	/**
+	 * @param channel Channel open on a segment
+	 * @param offset Offset of the record within the segment
+	 * @param length Length of the record
+	 * @param checksum Expected checksum of the record
+	 * @return Whether the record matches its checksum
+	 * @throws IOException Any errors reading the record
+	 */
+	private static boolean checksumMatches(
+			final FileChannel channel,
+			final long offset,
+			final int length,
+			final int checksum) throws IOException {
+		final ByteBuffer record = ByteBuffer.allocate(length);
+		readFully(channel, record, offset);
+
+		final CRC32 crc = new CRC32();
+		crc.update(record.array());
+
+		return (int) crc.getValue() == checksum;
+	}
+
+	/**
+	 * @param channel The channel to read from
+	 * @param buffer The buffer to fill
+	 * @param offset Position within the channel to start reading at
+	 * @throws IOException Any errors reading, or if the end of the channel is reached before the buffer is filled
+	 */
+	private static void readFully(final FileChannel channel, final ByteBuffer buffer, final long offset)
+			throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, offset + buffer.position()) < 0) {
+				throw new EOFException();
+			}
+		}
+	}
+
+	/**
+	 * The location and header details of the latest record of a sound.
+	 */
+	private static final class RecordLocation {
+
+		/** Number of the segment holding the record. */
+		private final int segment;
+
+		/** Offset of the record header within the segment. */
+		private final long offset;
+
+		/** Length of the record, excluding the header. */
+		private final int length;
+
+		/** Time the record was written. */
+		private final long synced;
+
+		/** Checksum of the record. */
+		private final int checksum;
+
+		/**
+		 * @param segment Number of the segment holding the record
+		 * @param offset Offset of the record header within the segment
+		 * @param length Length of the record, excluding the header
+		 * @param synced Time the record was written
+		 * @param checksum Checksum of the record
+		 */
+		private RecordLocation(
+				final int segment,
+				final long offset,
+				final int length,
+				final long synced,
+				final int checksum) {
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+			this.synced = synced;
+			this.checksum = checksum;
+		}
+	}
+}
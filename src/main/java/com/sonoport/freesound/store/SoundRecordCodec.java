@@ -0,0 +1,302 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.sonoport.freesound.License;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * Encodes {@link Sound}s to and from the compact binary records held by a {@link SoundMirror}. Absent values are
+ * preserved, so a decoded sound is indistinguishable from the one encoded.
+ */
+final class SoundRecordCodec {
+
+	/** Version of the record format, written at the start of each record. */
+	static final byte FORMAT_VERSION = 1;
+
+	/** Length written in place of a string, collection or map that is absent. */
+	private static final int NULL_LENGTH = -1;
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private SoundRecordCodec() {
+	}
+
+	/**
+	 * @param sound The sound to encode
+	 * @return The binary record representing the sound
+	 */
+	static byte[] encode(final Sound sound) {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+		final DataOutputStream out = new DataOutputStream(bytes);
+
+		try {
+			out.writeByte(FORMAT_VERSION);
+			writeInteger(out, sound.getId());
+			writeString(out, sound.getUrl());
+			writeString(out, sound.getName());
+			writeStrings(out, sound.getTags());
+			writeString(out, sound.getDescription());
+			writeString(out, sound.getGeotag());
+			out.writeDouble(sound.getLatitude());
+			out.writeDouble(sound.getLongitude());
+			out.writeLong((sound.getCreated() != null) ? sound.getCreated().getTime() : Long.MIN_VALUE);
+			writeString(out, (sound.getLicense() != null) ? sound.getLicense().name() : null);
+			writeString(out, sound.getType());
+			writeInteger(out, sound.getChannels());
+			writeInteger(out, sound.getFilesize());
+			writeInteger(out, sound.getBitrate());
+			writeInteger(out, sound.getBitdepth());
+			writeFloat(out, sound.getDuration());
+			writeFloat(out, sound.getSamplerate());
+			writeString(out, sound.getUsername());
+			writeString(out, sound.getPack());
+			writeString(out, sound.getDownloadURI());
+			writeString(out, sound.getBookmarkURI());
+			writeMap(out, sound.getPreviews());
+			writeMap(out, sound.getImages());
+			writeInteger(out, sound.getNumberOfDownloads());
+			writeFloat(out, sound.getAverageRating());
+			writeInteger(out, sound.getNumberOfRatings());
+			writeString(out, sound.getRatingURI());
+			writeString(out, sound.getCommentsURI());
+			writeInteger(out, sound.getNumberOfComments());
+			writeString(out, sound.getCommentURI());
+			writeString(out, sound.getSimilarSoundsURI());
+		} catch (final IOException e) {
+			// Cannot happen when writing to memory
+			throw new IllegalStateException(e);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * @param record A binary record produced by {@link #encode(Sound)}
+	 * @return The sound represented by the record
+	 *
+	 * @throws IOException If the record is malformed, or of an unsupported version
+	 */
+	static Sound decode(final byte[] record) throws IOException {
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+
+		final byte version = in.readByte();
+		if (version != FORMAT_VERSION) {
+			throw new IOException(String.format("Unsupported sound record version %d", version));
+		}
+
+		final Sound sound = new Sound();
+		sound.setId(readInteger(in));
+		sound.setUrl(readString(in));
+		sound.setName(readString(in));
+		sound.setTags(readStrings(in));
+		sound.setDescription(readString(in));
+		sound.setGeotag(readString(in));
+		sound.setLocation(in.readDouble(), in.readDouble());
+
+		final long created = in.readLong();
+		sound.setCreated((created != Long.MIN_VALUE) ? new Date(created) : null);
+
+		final String license = readString(in);
+		sound.setLicense((license != null) ? License.valueOf(license) : null);
+		sound.setType(readString(in));
+		sound.setChannels(readInteger(in));
+		sound.setFilesize(readInteger(in));
+		sound.setBitrate(readInteger(in));
+		sound.setBitdepth(readInteger(in));
+		sound.setDuration(readFloat(in));
+		sound.setSamplerate(readFloat(in));
+		sound.setUsername(readString(in));
+		sound.setPack(readString(in));
+		sound.setDownloadURI(readString(in));
+		sound.setBookmarkURI(readString(in));
+		sound.setPreviews(readMap(in));
+		sound.setImages(readMap(in));
+		sound.setNumberOfDownloads(readInteger(in));
+		sound.setAverageRating(readFloat(in));
+		sound.setNumberOfRatings(readInteger(in));
+		sound.setRatingURI(readString(in));
+		sound.setCommentsURI(readString(in));
+		sound.setNumberOfComments(readInteger(in));
+		sound.setCommentURI(readString(in));
+		sound.setSimilarSoundsURI(readString(in));
+
+		return sound;
+	}
+
+	/**
+	 * @param out The stream to write to
+	 * @param value The value to write (may be null)
+	 * @throws IOException Any errors writing the value
+	 */
+	private static void writeInteger(final DataOutputStream out, final Integer value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeInt(value.intValue());
+		}
+	}
+
+	/**
+	 * @param in The stream to read from
+	 * @return The value read (may be null)
+	 * @throws IOException Any errors reading the value
+	 */
+	private static Integer readInteger(final DataInputStream in) throws IOException {
+		return in.readBoolean() ? Integer.valueOf(in.readInt()) : null;
+	}
+
+	/**
+	 * @param out The stream to write to
+	 * @param value The value to write (may be null)
+	 * @throws IOException Any errors writing the value
+	 */
+	private static void writeFloat(final DataOutputStream out, final Float value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeFloat(value.floatValue());
+		}
+	}
+
+	/**
+	 * @param in The stream to read from
+	 * @return The value read (may be null)
+	 * @throws IOException Any errors reading the value
+	 */
+	private static Float readFloat(final DataInputStream in) throws IOException {
+		return in.readBoolean() ? Float.valueOf(in.readFloat()) : null;
+	}
+
+	/**
+	 * Write a string as length-prefixed UTF-8. Unlike {@link DataOutputStream#writeUTF(String)}, this places no limit
+	 * on the length of the string.
+	 *
+	 * @param out The stream to write to
+	 * @param value The value to write (may be null)
+	 * @throws IOException Any errors writing the value
+	 */
+	private static void writeString(final DataOutputStream out, final String value) throws IOException {
+		if (value == null) {
+			out.writeInt(NULL_LENGTH);
+		} else {
+			final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * @param in The stream to read from
+	 * @return The value read (may be null)
+	 * @throws IOException Any errors reading the value
+	 */
+	private static String readString(final DataInputStream in) throws IOException {
+		final int length = in.readInt();
+		if (length == NULL_LENGTH) {
+			return null;
+		} else if (length < 0) {
+			throw new IOException(String.format("Invalid string length %d in sound record", length));
+		}
+
+		final byte[] bytes = new byte[length];
+		in.readFully(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param out The stream to write to
+	 * @param values The values to write (may be null)
+	 * @throws IOException Any errors writing the values
+	 */
+	private static void writeStrings(final DataOutputStream out, final Set<String> values) throws IOException {
+		if (values == null) {
+			out.writeInt(NULL_LENGTH);
+		} else {
+			out.writeInt(values.size());
+			for (final String value : values) {
+				writeString(out, value);
+			}
+		}
+	}
+
+	/**
+	 * @param in The stream to read from
+	 * @return The values read (may be null)
+	 * @throws IOException Any errors reading the values
+	 */
+	private static Set<String> readStrings(final DataInputStream in) throws IOException {
+		final int size = in.readInt();
+		if (size == NULL_LENGTH) {
+			return null;
+		}
+
+		final Set<String> values = new HashSet<>(Math.max(4, (size * 4) / 3 + 1));
+		for (int i = 0; i < size; i++) {
+			values.add(readString(in));
+		}
+
+		return values;
+	}
+
+	/**
+	 * @param out The stream to write to
+	 * @param values The map to write (may be null)
+	 * @throws IOException Any errors writing the map
+	 */
+	private static void writeMap(final DataOutputStream out, final Map<String, String> values) throws IOException {
+		if (values == null) {
+			out.writeInt(NULL_LENGTH);
+		} else {
+			out.writeInt(values.size());
+			for (final Map.Entry<String, String> entry : values.entrySet()) {
+				writeString(out, entry.getKey());
+				writeString(out, entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * @param in The stream to read from
+	 * @return The map read (may be null)
+	 * @throws IOException Any errors reading the map
+	 */
+	private static Map<String, String> readMap(final DataInputStream in) throws IOException {
+		final int size = in.readInt();
+		if (size == NULL_LENGTH) {
+			return null;
+		}
+
+		final Map<String, String> values = new HashMap<>(Math.max(4, (size * 4) / 3 + 1));
+		for (int i = 0; i < size; i++) {
+			values.put(readString(in), readString(in));
+		}
+
+		return values;
+	}
+}
@@ -0,0 +1,460 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+import com.sonoport.freesound.License;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * The fields of a {@link Sound} held in a {@link Snapshot}.
+ */
+public enum SoundSnapshotField implements SnapshotField<Sound> {
+
+	/** Identifier of the sound. */
+	ID("id", SnapshotFieldType.INT) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getId();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setId((Integer) value);
+		}
+	},
+
+	/** The URI for this sound on the Freesound website. */
+	URL("url", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getUrl();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setUrl((String) value);
+		}
+	},
+
+	/** The name user gave to the sound. */
+	NAME("name", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getName();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setName((String) value);
+		}
+	},
+
+	/** The tags the user gave to the sound. */
+	TAGS("tags", SnapshotFieldType.STRING_SET) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getTags();
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void populate(final Sound sound, final Object value) {
+			sound.setTags((Set<String>) value);
+		}
+	},
+
+	/** The description the user gave to the sound. */
+	DESCRIPTION("description", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getDescription();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setDescription((String) value);
+		}
+	},
+
+	/** Latitude and longitude of the geotag, separated by a space. */
+	GEOTAG("geotag", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getGeotag();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setGeotag((String) value);
+		}
+	},
+
+	/** Latitude of the geotag. */
+	LATITUDE("latitude", SnapshotFieldType.DOUBLE) {
+		@Override
+		public Object extract(final Sound sound) {
+			return Double.isNaN(sound.getLatitude()) ? null : Double.valueOf(sound.getLatitude());
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setLocation(((Double) value).doubleValue(), sound.getLongitude());
+		}
+	},
+
+	/** Longitude of the geotag. */
+	LONGITUDE("longitude", SnapshotFieldType.DOUBLE) {
+		@Override
+		public Object extract(final Sound sound) {
+			return Double.isNaN(sound.getLongitude()) ? null : Double.valueOf(sound.getLongitude());
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setLocation(sound.getLatitude(), ((Double) value).doubleValue());
+		}
+	},
+
+	/** The date when the sound was uploaded. */
+	CREATED("created", SnapshotFieldType.DATE) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getCreated();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setCreated((Date) value);
+		}
+	},
+
+	/** The license under which the sound is available, held as the name of the {@link License} constant. */
+	LICENSE("license", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Sound sound) {
+			return (sound.getLicense() != null) ? sound.getLicense().name() : null;
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setLicense(License.valueOf((String) value));
+		}
+	},
+
+	/** The type of sound (wav, aif, aiff, mp3, or flac). */
+	TYPE("type", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getType();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setType((String) value);
+		}
+	},
+
+	/** The number of channels. */
+	CHANNELS("channels", SnapshotFieldType.INT) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getChannels();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setChannels((Integer) value);
+		}
+	},
+
+	/** The size of the file in bytes. */
+	FILESIZE("filesize", SnapshotFieldType.INT) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getFilesize();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setFilesize((Integer) value);
+		}
+	},
+
+	/** The bit rate of the sound. */
+	BITRATE("bitrate", SnapshotFieldType.INT) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getBitrate();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setBitrate((Integer) value);
+		}
+	},
+
+	/** The bit depth of the sound. */
+	BITDEPTH("bitdepth", SnapshotFieldType.INT) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getBitdepth();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setBitdepth((Integer) value);
+		}
+	},
+
+	/** The duration of the sound in seconds. */
+	DURATION("duration", SnapshotFieldType.FLOAT) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getDuration();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setDuration((Float) value);
+		}
+	},
+
+	/** The samplerate of the sound. */
+	SAMPLERATE("samplerate", SnapshotFieldType.FLOAT) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getSamplerate();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setSamplerate((Float) value);
+		}
+	},
+
+	/** The username of the uploader of the sound. */
+	USERNAME("username", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getUsername();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setUsername((String) value);
+		}
+	},
+
+	/** The URI of the pack the sound belongs to. */
+	PACK("pack", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getPack();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setPack((String) value);
+		}
+	},
+
+	/** The URI for retrieving the original sound. */
+	DOWNLOAD_URI("download", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getDownloadURI();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setDownloadURI((String) value);
+		}
+	},
+
+	/** The URI for bookmarking the sound. */
+	BOOKMARK_URI("bookmark", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getBookmarkURI();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setBookmarkURI((String) value);
+		}
+	},
+
+	/** URIs of the previews of the sound. */
+	PREVIEWS("previews", SnapshotFieldType.STRING_MAP) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getPreviews();
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void populate(final Sound sound, final Object value) {
+			sound.setPreviews((Map<String, String>) value);
+		}
+	},
+
+	/** URIs of the visual representations of the sound. */
+	IMAGES("images", SnapshotFieldType.STRING_MAP) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getImages();
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void populate(final Sound sound, final Object value) {
+			sound.setImages((Map<String, String>) value);
+		}
+	},
+
+	/** The number of times the sound was downloaded. */
+	NUMBER_OF_DOWNLOADS("num_downloads", SnapshotFieldType.INT) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getNumberOfDownloads();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setNumberOfDownloads((Integer) value);
+		}
+	},
+
+	/** The average rating of the sound. */
+	AVERAGE_RATING("avg_rating", SnapshotFieldType.FLOAT) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getAverageRating();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setAverageRating((Float) value);
+		}
+	},
+
+	/** The number of times the sound was rated. */
+	NUMBER_OF_RATINGS("num_ratings", SnapshotFieldType.INT) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getNumberOfRatings();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setNumberOfRatings((Integer) value);
+		}
+	},
+
+	/** The URI for rating the sound. */
+	RATING_URI("rate", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getRatingURI();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setRatingURI((String) value);
+		}
+	},
+
+	/** The URI of a paginated list of the comments of the sound. */
+	COMMENTS_URI("comments", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getCommentsURI();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setCommentsURI((String) value);
+		}
+	},
+
+	/** The number of comments. */
+	NUMBER_OF_COMMENTS("num_comments", SnapshotFieldType.INT) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getNumberOfComments();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setNumberOfComments((Integer) value);
+		}
+	},
+
+	/** The URI to comment the sound. */
+	COMMENT_URI("comment", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getCommentURI();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setCommentURI((String) value);
+		}
+	},
+
+	/** URI pointing to the similarity resource. */
+	SIMILAR_SOUNDS_URI("similar_sounds", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final Sound sound) {
+			return sound.getSimilarSoundsURI();
+		}
+
+		@Override
+		public void populate(final Sound sound, final Object value) {
+			sound.setSimilarSoundsURI((String) value);
+		}
+	};
+
+	/** The name identifying the field in snapshot files. */
+	private final String name;
+
+	/** The type of value held by the field. */
+	private final SnapshotFieldType type;
+
+	/**
+	 * @param name The name identifying the field in snapshot files
+	 * @param type The type of value held by the field
+	 */
+	private SoundSnapshotField(final String name, final SnapshotFieldType type) {
+		this.name = name;
+		this.type = type;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public SnapshotFieldType getType() {
+		return type;
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary used to encode repeated string values as dense integer codes. Codes are allocated sequentially from 0 in
+ * the order values are first seen; <code>null</code> is always encoded as {@link StringDictionary#NULL_CODE}.
+ */
+public class StringDictionary {
+
+	/** The code used to represent a <code>null</code> value. */
+	public static final int NULL_CODE = -1;
+
+	/** Lookup of code by value. */
+	private final Map<String, Integer> codesByValue = new HashMap<>();
+
+	/** Lookup of value by code. */
+	private final List<String> valuesByCode = new ArrayList<>();
+
+	/**
+	 * Retrieve the code for a value, allocating a new one if the value has not been seen before.
+	 *
+	 * @param value The value to encode
+	 * @return The code representing the value
+	 */
+	public int encode(final String value) {
+		if (value == null) {
+			return NULL_CODE;
+		}
+
+		Integer code = codesByValue.get(value);
+		if (code == null) {
+			code = Integer.valueOf(valuesByCode.size());
+			codesByValue.put(value, code);
+			valuesByCode.add(value);
+		}
+
+		return code.intValue();
+	}
+
+	/**
+	 * Retrieve the code for a value without allocating a new one.
+	 *
+	 * @param value The value to look up
+	 * @return The code representing the value, or {@link StringDictionary#NULL_CODE} if the value is null or unknown
+	 */
+	public int lookup(final String value) {
+		if (value == null) {
+			return NULL_CODE;
+		}
+
+		final Integer code = codesByValue.get(value);
+		return (code != null) ? code.intValue() : NULL_CODE;
+	}
+
+	/**
+	 * Retrieve the value represented by a code.
+	 *
+	 * @param code The code to decode
+	 * @return The value (or null if the code is {@link StringDictionary#NULL_CODE})
+	 */
+	public String decode(final int code) {
+		return (code == NULL_CODE) ? null : valuesByCode.get(code);
+	}
+
+	/**
+	 * @return The number of distinct (non-null) values in the dictionary
+	 */
+	public int size() {
+		return valuesByCode.size();
+	}
+}
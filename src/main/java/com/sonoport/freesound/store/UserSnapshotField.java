@@ -0,0 +1,222 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+import java.util.Date;
+import java.util.Map;
+
+import com.sonoport.freesound.response.User;
+
+/**
+ * The fields of a {@link User} held in a {@link Snapshot}.
+ */
+public enum UserSnapshotField implements SnapshotField<User> {
+
+	/** The username. */
+	USERNAME("username", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final User user) {
+			return user.getUsername();
+		}
+
+		@Override
+		public void populate(final User user, final Object value) {
+			user.setUsername((String) value);
+		}
+	},
+
+	/** The URI for this user on the Freesound website. */
+	URL("url", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final User user) {
+			return user.getUrl();
+		}
+
+		@Override
+		public void populate(final User user, final Object value) {
+			user.setUrl((String) value);
+		}
+	},
+
+	/** The 'about' text of the user's profile. */
+	ABOUT("about", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final User user) {
+			return user.getAbout();
+		}
+
+		@Override
+		public void populate(final User user, final Object value) {
+			user.setAbout((String) value);
+		}
+	},
+
+	/** The URI of the user's homepage. */
+	HOMEPAGE("home_page", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final User user) {
+			return user.getHomepage();
+		}
+
+		@Override
+		public void populate(final User user, final Object value) {
+			user.setHomepage((String) value);
+		}
+	},
+
+	/** URIs of the user's avatar, in different sizes. */
+	AVATAR_URIS("avatar", SnapshotFieldType.STRING_MAP) {
+		@Override
+		public Object extract(final User user) {
+			return user.getAvatarURIs();
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void populate(final User user, final Object value) {
+			user.setAvatarURIs((Map<String, String>) value);
+		}
+	},
+
+	/** The date when the user joined Freesound. */
+	DATE_JOINED("date_joined", SnapshotFieldType.DATE) {
+		@Override
+		public Object extract(final User user) {
+			return user.getDateJoined();
+		}
+
+		@Override
+		public void populate(final User user, final Object value) {
+			user.setDateJoined((Date) value);
+		}
+	},
+
+	/** The number of sounds uploaded by the user. */
+	NUMBER_OF_SOUNDS("num_sounds", SnapshotFieldType.INT) {
+		@Override
+		public Object extract(final User user) {
+			return user.getNumberOfSounds();
+		}
+
+		@Override
+		public void populate(final User user, final Object value) {
+			user.setNumberOfSounds((Integer) value);
+		}
+	},
+
+	/** The URI for a list of sounds by the user. */
+	SOUNDS_URI("sounds", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final User user) {
+			return user.getSoundsURI();
+		}
+
+		@Override
+		public void populate(final User user, final Object value) {
+			user.setSoundsURI((String) value);
+		}
+	},
+
+	/** The number of packs by the user. */
+	NUMBER_OF_PACKS("num_packs", SnapshotFieldType.INT) {
+		@Override
+		public Object extract(final User user) {
+			return user.getNumberOfPacks();
+		}
+
+		@Override
+		public void populate(final User user, final Object value) {
+			user.setNumberOfPacks((Integer) value);
+		}
+	},
+
+	/** The URI for a list of packs by the user. */
+	PACKS_URI("packs", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final User user) {
+			return user.getPacksURI();
+		}
+
+		@Override
+		public void populate(final User user, final Object value) {
+			user.setPacksURI((String) value);
+		}
+	},
+
+	/** The number of forum posts by the user. */
+	NUMBER_OF_POSTS("num_posts", SnapshotFieldType.INT) {
+		@Override
+		public Object extract(final User user) {
+			return user.getNumberOfPosts();
+		}
+
+		@Override
+		public void populate(final User user, final Object value) {
+			user.setNumberOfPosts((Integer) value);
+		}
+	},
+
+	/** The number of comments that the user made in other users' sounds. */
+	NUMBER_OF_COMMENTS("num_comments", SnapshotFieldType.INT) {
+		@Override
+		public Object extract(final User user) {
+			return user.getNumberOfComments();
+		}
+
+		@Override
+		public void populate(final User user, final Object value) {
+			user.setNumberOfComments((Integer) value);
+		}
+	},
+
+	/** The URI for a list of bookmark categories by the user. */
+	BOOKMARK_CATEGORIES_URI("bookmark_categories", SnapshotFieldType.STRING) {
+		@Override
+		public Object extract(final User user) {
+			return user.getBookmarkCategoriesURI();
+		}
+
+		@Override
+		public void populate(final User user, final Object value) {
+			user.setBookmarkCategoriesURI((String) value);
+		}
+	};
+
+	/** The name identifying the field in snapshot files. */
+	private final String name;
+
+	/** The type of value held by the field. */
+	private final SnapshotFieldType type;
+
+	/**
+	 * @param name The name identifying the field in snapshot files
+	 * @param type The type of value held by the field
+	 */
+	private UserSnapshotField(final String name, final SnapshotFieldType type) {
+		this.name = name;
+		this.type = type;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public SnapshotFieldType getType() {
+		return type;
+	}
+}
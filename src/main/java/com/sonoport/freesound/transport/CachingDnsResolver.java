@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.transport;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+
+/**
+ * {@link DnsResolver} holding the addresses of each host resolved for a fixed period, so that new connections do not
+ * wait on name resolution. Addresses are resolved by the system resolver; failures to resolve a host are not cached.
+ */
+public class CachingDnsResolver implements DnsResolver {
+
+	/** The default period for which resolved addresses are held, if none is specified. */
+	public static final long DEFAULT_TIME_TO_LIVE_MILLISECONDS = TimeUnit.MINUTES.toMillis(5);
+
+	/** The resolver used to look up hosts not held in the cache. */
+	private final DnsResolver delegate;
+
+	/** The period for which resolved addresses are held. */
+	private final long timeToLiveMilliseconds;
+
+	/** Resolved addresses, keyed by host name. */
+	private final ConcurrentMap<String, Resolution> resolutions = new ConcurrentHashMap<>();
+
+	/**
+	 * No-arg constructor.
+	 */
+	public CachingDnsResolver() {
+		this(DEFAULT_TIME_TO_LIVE_MILLISECONDS);
+	}
+
+	/**
+	 * @param timeToLiveMilliseconds The period for which resolved addresses are held
+	 */
+	public CachingDnsResolver(final long timeToLiveMilliseconds) {
+		this(SystemDefaultDnsResolver.INSTANCE, timeToLiveMilliseconds);
+	}
+
+	/**
+	 * @param delegate The resolver used to look up hosts not held in the cache
+	 * @param timeToLiveMilliseconds The period for which resolved addresses are held
+	 */
+	public CachingDnsResolver(final DnsResolver delegate, final long timeToLiveMilliseconds) {
+		if (timeToLiveMilliseconds < 1) {
+			throw new IllegalArgumentException("Time to live must be greater than 0");
+		}
+
+		this.delegate = delegate;
+		this.timeToLiveMilliseconds = timeToLiveMilliseconds;
+	}
+
+	@Override
+	public InetAddress[] resolve(final String host) throws UnknownHostException {
+		final long now = System.currentTimeMillis();
+
+		final Resolution cached = resolutions.get(host);
+		if ((cached != null) && (cached.expires > now)) {
+			return cached.addresses.clone();
+		}
+
+		final InetAddress[] addresses = delegate.resolve(host);
+		resolutions.put(host, new Resolution(addresses.clone(), now + timeToLiveMilliseconds));
+
+		return addresses;
+	}
+
+	/**
+	 * @param host The host name
+	 * @return Whether unexpired addresses for the host are held
+	 */
+	public boolean isCached(final String host) {
+		final Resolution cached = resolutions.get(host);
+		return (cached != null) && (cached.expires > System.currentTimeMillis());
+	}
+
+	/**
+	 * Discard all resolved addresses.
+	 */
+	public void clear() {
+		resolutions.clear();
+	}
+
+	/**
+	 * The addresses of a host, and the time at which they expire.
+	 */
+	private static final class Resolution {
+
+		/** The resolved addresses. */
+		private final InetAddress[] addresses;
+
+		/** The time (in milliseconds since the epoch) after which the addresses must be resolved again. */
+		private final long expires;
+
+		/**
+		 * @param addresses The resolved addresses
+		 * @param expires The time after which the addresses must be resolved again
+		 */
+		private Resolution(final InetAddress[] addresses, final long expires) {
+			this.addresses = addresses;
+			this.expires = expires;
+		}
+	}
+}
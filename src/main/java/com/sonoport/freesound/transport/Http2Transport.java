@@ -0,0 +1,465 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.transport;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dns;
+import okhttp3.FormBody;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * {@link HttpTransport} speaking HTTP/2 through OkHttp, so that any number of concurrent requests to a host share a
+ * single connection as multiplexed streams rather than each needing a connection of its own. The number of requests
+ * in progress to a host at once is limited to the configured maximum; further requests wait for one to complete. If
+ * the server advertises a lower limit on concurrent streams, OkHttp opens further connections to carry the excess.
+ *
+ * OkHttp is an optional dependency of this library, and must be added to the classpath of applications using this
+ * transport.
+ *
+ * HTTPS requests offer HTTP/2 through ALPN, and are made over HTTP/1.1 if the server does not select it. ALPN is
+ * available to OkHttp on Java 9 and later and on Java 8u252 and later; on older JVMs (including Java 7) Conscrypt
+ * must be installed as the preferred security provider for HTTP/2 to be negotiated, and HTTP/1.1 is used otherwise.
+ * Plain HTTP URLs are assumed to support HTTP/2 without upgrade (h2c with prior knowledge).
+ *
+ * Every request asks for a gzip or deflate encoded response, which is decoded as it is read, and the size of each body
+ * is recorded in the {@link TransferMetrics} of the transport once closed. File uploads are streamed from disk.
+ */
+public class Http2Transport implements HttpTransport {
+
+	/** The default maximum number of requests in progress to a single host at once. */
+	public static final int DEFAULT_MAXIMUM_CONCURRENT_STREAMS = 100;
+
+	/** Name of the HTTP Header giving the encoding of the body of a response. */
+	private static final String HTTP_CONTENT_ENCODING_HEADER = "Content-Encoding";
+
+	/** The content type of files uploaded. */
+	private static final MediaType FILE_CONTENT_TYPE = MediaType.parse("application/octet-stream");
+
+	/** The maximum number of requests in progress to a single host at once. */
+	private final int maximumConcurrentStreams;
+
+	/** Resolver used to look up the addresses of hosts. */
+	private final CachingDnsResolver dnsResolver = new CachingDnsResolver();
+
+	/** The client used for HTTPS requests, negotiating HTTP/2 or HTTP/1.1 through ALPN. */
+	private final OkHttpClient client;
+
+	/** The client used for plain HTTP requests, sharing the connections and threads of {@link #client}. */
+	private final OkHttpClient cleartextClient;
+
+	/** Permits for the requests to each origin, keyed on scheme, host and port. */
+	private final ConcurrentMap<String, Semaphore> streams = new ConcurrentHashMap<>();
+
+	/** Totals of the data transferred. */
+	private final TransferMetrics transferMetrics = new TransferMetrics();
+
+	/**
+	 * No-arg constructor, using the default limit on concurrent requests and timeouts.
+	 */
+	public Http2Transport() {
+		this(DEFAULT_MAXIMUM_CONCURRENT_STREAMS);
+	}
+
+	/**
+	 * @param maximumConcurrentStreams The maximum number of requests in progress to a single host at once
+	 */
+	public Http2Transport(final int maximumConcurrentStreams) {
+		this(
+				maximumConcurrentStreams,
+				HttpClientTransport.DEFAULT_CONNECT_TIMEOUT_MILLISECONDS,
+				HttpClientTransport.DEFAULT_SOCKET_TIMEOUT_MILLISECONDS);
+	}
+
+	/**
+	 * @param maximumConcurrentStreams The maximum number of requests in progress to a single host at once
+	 * @param connectTimeoutMilliseconds The time allowed to establish a connection
+	 * @param responseTimeoutMilliseconds The time allowed to wait for each part of a response
+	 */
+	public Http2Transport(
+			final int maximumConcurrentStreams,
+			final int connectTimeoutMilliseconds,
+			final int responseTimeoutMilliseconds) {
+		this(maximumConcurrentStreams, buildClient(connectTimeoutMilliseconds, responseTimeoutMilliseconds));
+	}
+
+	/**
+	 * Build the transport on a configured OkHttp client, whose timeouts and TLS settings are used. Its protocols and
+	 * DNS are replaced, so that HTTP/2 is offered and host names are resolved through the cache of the transport.
+	 *
+	 * @param maximumConcurrentStreams The maximum number of requests in progress to a single host at once
+	 * @param client The OkHttp client to build on
+	 */
+	public Http2Transport(final int maximumConcurrentStreams, final OkHttpClient client) {
+		if (maximumConcurrentStreams < 1) {
+			throw new IllegalArgumentException("Maximum number of concurrent streams must be greater than 0");
+		}
+
+		this.maximumConcurrentStreams = maximumConcurrentStreams;
+		this.client = client.newBuilder()
+				.protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+				.dns(new CachingDns())
+				.build();
+		this.cleartextClient = this.client.newBuilder()
+				.protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE))
+				.build();
+	}
+
+	@Override
+	public TransportResponse execute(final TransportRequest request) throws IOException {
+		final Request httpRequest = buildRequest(request);
+
+		final Semaphore permits = permits(httpRequest.url());
+		try {
+			permits.acquire();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for a stream");
+		}
+
+		Response response = null;
+		InputStream body = null;
+		try {
+			response = client(httpRequest.url()).newCall(httpRequest).execute();
+			body = new ReleasingInputStream(response.body().byteStream(), permits);
+
+			return new TransportResponse(
+					response.code(),
+					response.message(),
+					HttpClientTransport.decode(body, response.header(HTTP_CONTENT_ENCODING_HEADER), transferMetrics));
+		} catch (final IOException | RuntimeException e) {
+			if (body != null) {
+				try {
+					body.close();
+				} catch (final IOException suppressed) {
+					e.addSuppressed(suppressed);
+				}
+			} else {
+				if (response != null) {
+					response.close();
+				}
+				permits.release();
+			}
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Resolve the host of the URL into the DNS cache, then establish a connection to it by making a HEAD request. If
+	 * the host speaks HTTP/2 that connection is able to carry any number of requests; otherwise further requests are
+	 * made at once, so that up to the number of connections requested are established.
+	 *
+	 * @param url A URL on the host requests will be submitted to
+	 * @param connections The number of connections to establish, if the host does not speak HTTP/2
+	 * @throws IOException Any errors encountered resolving the host or establishing connections
+	 */
+	@Override
+	public void warmUp(final String url, final int connections) throws IOException {
+		if (connections < 1) {
+			throw new IllegalArgumentException("Number of connections must be greater than 0");
+		}
+
+		final HttpUrl httpUrl = parse(url);
+		dnsResolver.resolve(httpUrl.host());
+
+		final OkHttpClient originClient = client(httpUrl);
+		final Request head = new Request.Builder().url(httpUrl).head().build();
+		try (Response response = originClient.newCall(head).execute()) {
+			if ((response.protocol() != Protocol.HTTP_1_1) || (connections == 1)) {
+				return;
+			}
+		}
+
+		final CountDownLatch complete = new CountDownLatch(connections - 1);
+		final AtomicReference<IOException> failure = new AtomicReference<>();
+		for (int i = 1; i < connections; i++) {
+			originClient.newCall(head).enqueue(new Callback() {
+				@Override
+				public void onResponse(final Call call, final Response response) {
+					response.close();
+					complete.countDown();
+				}
+
+				@Override
+				public void onFailure(final Call call, final IOException e) {
+					failure.compareAndSet(null, e);
+					complete.countDown();
+				}
+			});
+		}
+
+		try {
+			complete.await();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted establishing connections");
+		}
+
+		if (failure.get() != null) {
+			throw failure.get();
+		}
+	}
+
+	@Override
+	public void shutdown() throws IOException {
+		client.dispatcher().executorService().shutdown();
+		client.connectionPool().evictAll();
+	}
+
+	/**
+	 * @return The number of connections currently held open
+	 */
+	public int getOpenConnections() {
+		return client.connectionPool().connectionCount();
+	}
+
+	/**
+	 * @return Resolver used to look up the addresses of hosts
+	 */
+	public CachingDnsResolver getDnsResolver() {
+		return dnsResolver;
+	}
+
+	/**
+	 * @return Totals of the data transferred by the transport
+	 */
+	public TransferMetrics getTransferMetrics() {
+		return transferMetrics;
+	}
+
+	/**
+	 * @param url A URL
+	 * @return The client used for requests to the URL
+	 */
+	private OkHttpClient client(final HttpUrl url) {
+		return url.isHttps() ? client : cleartextClient;
+	}
+
+	/**
+	 * @param url A URL
+	 * @return The permits for requests to the origin of the URL
+	 */
+	private Semaphore permits(final HttpUrl url) {
+		final String origin = String.format("%s://%s:%d", url.scheme(), url.host(), url.port());
+
+		final Semaphore permits = streams.get(origin);
+		if (permits != null) {
+			return permits;
+		}
+
+		final Semaphore created = new Semaphore(maximumConcurrentStreams);
+		final Semaphore existing = streams.putIfAbsent(origin, created);
+
+		return (existing != null) ? existing : created;
+	}
+
+	/**
+	 * Build the OkHttp client used by default, with TLS sessions held for resumption.
+	 *
+	 * @param connectTimeoutMilliseconds The time allowed to establish a connection
+	 * @param responseTimeoutMilliseconds The time allowed to wait for each part of a response
+	 * @return The client
+	 */
+	private static OkHttpClient buildClient(
+			final int connectTimeoutMilliseconds, final int responseTimeoutMilliseconds) {
+		if ((connectTimeoutMilliseconds < 1) || (responseTimeoutMilliseconds < 1)) {
+			throw new IllegalArgumentException("Timeouts must be greater than 0");
+		}
+
+		final X509TrustManager trustManager;
+		final SSLContext sslContext;
+		try {
+			final TrustManagerFactory trustManagerFactory =
+					TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+			trustManagerFactory.init((KeyStore) null);
+			trustManager = (X509TrustManager) trustManagerFactory.getTrustManagers()[0];
+
+			sslContext = SSLContext.getInstance("TLS");
+			sslContext.init(null, new TrustManager[] {trustManager}, null);
+		} catch (final GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to initialise TLS", e);
+		}
+		sslContext.getClientSessionContext().setSessionTimeout(HttpClientTransport.TLS_SESSION_TIMEOUT_SECONDS);
+
+		return new OkHttpClient.Builder()
+				.connectTimeout(connectTimeoutMilliseconds, TimeUnit.MILLISECONDS)
+				.readTimeout(responseTimeoutMilliseconds, TimeUnit.MILLISECONDS)
+				.writeTimeout(responseTimeoutMilliseconds, TimeUnit.MILLISECONDS)
+				.sslSocketFactory(sslContext.getSocketFactory(), trustManager)
+				.build();
+	}
+
+	/**
+	 * @param url A URL
+	 * @return The URL parsed by OkHttp
+	 * @throws IOException If the URL is not an absolute HTTP or HTTPS URL
+	 */
+	private static HttpUrl parse(final String url) throws IOException {
+		final HttpUrl httpUrl = HttpUrl.parse(url);
+		if (httpUrl == null) {
+			throw new IOException(String.format("Invalid URL: %s", url));
+		}
+
+		return httpUrl;
+	}
+
+	/**
+	 * Build the OkHttp request representing a transport request.
+	 *
+	 * @param request The transport request
+	 * @return The OkHttp request
+	 * @throws IOException If the URL is invalid
+	 */
+	private static Request buildRequest(final TransportRequest request) throws IOException {
+		final HttpUrl url = parse(request.getUrl());
+
+		final Request.Builder httpRequest = new Request.Builder();
+		for (final Entry<String, String> header : request.getHeaders().entrySet()) {
+			httpRequest.header(header.getKey(), header.getValue());
+		}
+
+		// Setting the header stops OkHttp decoding responses itself, so that the bytes received can be counted
+		httpRequest.header(HttpClientTransport.HTTP_ACCEPT_ENCODING_HEADER, HttpClientTransport.ENCODINGS_TO_ACCEPT);
+
+		switch (request.getMethod()) {
+			case POST:
+				return httpRequest.url(url).post(buildForm(request.getParameters())).build();
+
+			case GET:
+			default:
+				final HttpUrl.Builder query = url.newBuilder();
+				for (final Entry<String, Object> parameter : request.getParameters().entrySet()) {
+					query.addQueryParameter(parameter.getKey(), String.valueOf(parameter.getValue()));
+				}
+
+				return httpRequest.url(query.build()).get().build();
+		}
+	}
+
+	/**
+	 * Build the body of a POST request from its parameters. If any parameter is a {@link File}, a multipart body is
+	 * built so that the file can be uploaded; otherwise a URL encoded form is used.
+	 *
+	 * @param parameters The parameters of the request
+	 * @return The body of the request
+	 */
+	private static RequestBody buildForm(final Map<String, Object> parameters) {
+		boolean multipart = false;
+		for (final Object value : parameters.values()) {
+			multipart |= value instanceof File;
+		}
+
+		if (multipart) {
+			final MultipartBody.Builder form = new MultipartBody.Builder().setType(MultipartBody.FORM);
+			for (final Entry<String, Object> parameter : parameters.entrySet()) {
+				if (parameter.getValue() instanceof File) {
+					final File file = (File) parameter.getValue();
+					form.addFormDataPart(
+							parameter.getKey(), file.getName(), RequestBody.create(FILE_CONTENT_TYPE, file));
+				} else {
+					form.addFormDataPart(parameter.getKey(), String.valueOf(parameter.getValue()));
+				}
+			}
+
+			return form.build();
+		}
+
+		final FormBody.Builder form = new FormBody.Builder();
+		for (final Entry<String, Object> parameter : parameters.entrySet()) {
+			form.add(parameter.getKey(), String.valueOf(parameter.getValue()));
+		}
+
+		return form.build();
+	}
+
+	/**
+	 * {@link Dns} resolving host names through the cache of the transport.
+	 */
+	private final class CachingDns implements Dns {
+
+		@Override
+		public List<InetAddress> lookup(final String hostname) throws UnknownHostException {
+			return Arrays.asList(dnsResolver.resolve(hostname));
+		}
+	}
+
+	/**
+	 * Stream of the body of a response, releasing the permit held for its request once closed.
+	 */
+	private static final class ReleasingInputStream extends FilterInputStream {
+
+		/** The permits the request holds one of. */
+		private final Semaphore permits;
+
+		/** Whether the permit has been released. */
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		/**
+		 * @param in The body of the response
+		 * @param permits The permits the request holds one of
+		 */
+		private ReleasingInputStream(final InputStream in, final Semaphore permits) {
+			super(in);
+			this.permits = permits;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				if (released.compareAndSet(false, true)) {
+					permits.release();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,602 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PushbackInputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLContexts;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicNameValuePair;
+
+/**
+ * {@link HttpTransport} built directly on Apache HttpClient, negotiating compressed responses with the server.
+ *
+ * Every request asks for a gzip or deflate encoded response. Compressed bodies are decoded as they are read by the
+ * caller, so a large response is never held in memory in either its compressed or decompressed form. The number of
+ * bytes received over the network and the number once decoded are recorded in the {@link TransferMetrics} of the
+ * transport when each response body is closed.
+ *
+ * Host names are resolved through a {@link CachingDnsResolver}, and TLS sessions are held by an SSL context belonging
+ * to the transport so that reconnections to the API resume an existing session rather than performing a full
+ * handshake. {@link #warmUp(String, int)} may be used to establish pooled connections before the first request.
+ *
+ * Connecting, waiting for data and waiting for a connection from the pool are all bounded by timeouts, which default
+ * to the connect and socket timeouts used by Unirest.
+ */
+public class HttpClientTransport implements HttpTransport {
+
+	/** The default maximum number of connections to hold open in total. */
+	public static final int DEFAULT_MAXIMUM_CONNECTIONS = 200;
+
+	/** The default maximum number of connections to hold open to a single host. */
+	public static final int DEFAULT_MAXIMUM_CONNECTIONS_PER_ROUTE = 20;
+
+	/** Name of the HTTP Header listing the content encodings to be accepted. */
+	protected static final String HTTP_ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+
+	/** The content encodings the transport will accept. */
+	protected static final String ENCODINGS_TO_ACCEPT = "gzip, deflate";
+
+	/** The period for which TLS sessions are held for resumption. */
+	public static final int TLS_SESSION_TIMEOUT_SECONDS = (int) TimeUnit.HOURS.toSeconds(1);
+
+	/** The default time allowed to establish a connection (matching that used by Unirest). */
+	public static final int DEFAULT_CONNECT_TIMEOUT_MILLISECONDS = 10000;
+
+	/** The default time allowed between packets of data being received (matching that used by Unirest). */
+	public static final int DEFAULT_SOCKET_TIMEOUT_MILLISECONDS = 60000;
+
+	/** The default time allowed to wait for a connection to become available in the pool. */
+	public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLISECONDS = 10000;
+
+	/** Pool of connections used to make requests. */
+	private final PoolingHttpClientConnectionManager connectionManager;
+
+	/** Resolver used to look up the addresses of hosts. */
+	private final CachingDnsResolver dnsResolver = new CachingDnsResolver();
+
+	/** The maximum number of connections to hold open to a single host. */
+	private final int maximumConnectionsPerRoute;
+
+	/** The timeouts applied to each request. */
+	private final RequestConfig requestConfig;
+
+	/** The client used to make requests. */
+	private final CloseableHttpClient httpClient;
+
+	/** Totals of the data transferred. */
+	private final TransferMetrics transferMetrics = new TransferMetrics();
+
+	/**
+	 * No-arg constructor, using the default connection pool size and timeouts.
+	 */
+	public HttpClientTransport() {
+		this(DEFAULT_MAXIMUM_CONNECTIONS, DEFAULT_MAXIMUM_CONNECTIONS_PER_ROUTE);
+	}
+
+	/**
+	 * @param maximumConnections The maximum number of connections to hold open in total
+	 * @param maximumConnectionsPerRoute The maximum number of connections to hold open to a single host
+	 */
+	public HttpClientTransport(final int maximumConnections, final int maximumConnectionsPerRoute) {
+		this(
+				maximumConnections,
+				maximumConnectionsPerRoute,
+				DEFAULT_CONNECT_TIMEOUT_MILLISECONDS,
+				DEFAULT_SOCKET_TIMEOUT_MILLISECONDS,
+				DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLISECONDS);
+	}
+
+	/**
+	 * @param maximumConnections The maximum number of connections to hold open in total
+	 * @param maximumConnectionsPerRoute The maximum number of connections to hold open to a single host
+	 * @param connectTimeoutMilliseconds The time allowed to establish a connection
+	 * @param socketTimeoutMilliseconds The time allowed between packets of data being received
+	 * @param connectionRequestTimeoutMilliseconds The time allowed to wait for a connection from the pool
+	 */
+	public HttpClientTransport(
+			final int maximumConnections,
+			final int maximumConnectionsPerRoute,
+			final int connectTimeoutMilliseconds,
+			final int socketTimeoutMilliseconds,
+			final int connectionRequestTimeoutMilliseconds) {
+		if ((maximumConnections < 1) || (maximumConnectionsPerRoute < 1)) {
+			throw new IllegalArgumentException("Maximum number of connections must be greater than 0");
+		}
+		if ((connectTimeoutMilliseconds < 1)
+				|| (socketTimeoutMilliseconds < 1)
+				|| (connectionRequestTimeoutMilliseconds < 1)) {
+			throw new IllegalArgumentException("Timeouts must be greater than 0");
+		}
+
+		final SSLContext sslContext = SSLContexts.createDefault();
+		sslContext.getClientSessionContext().setSessionTimeout(TLS_SESSION_TIMEOUT_SECONDS);
+
+		final Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+				.register("http", PlainConnectionSocketFactory.getSocketFactory())
+				.register("https", new SSLConnectionSocketFactory(
+						sslContext, SSLConnectionSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER))
+				.build();
+
+		this.connectionManager = new PoolingHttpClientConnectionManager(socketFactories, dnsResolver);
+		this.connectionManager.setMaxTotal(maximumConnections);
+		this.connectionManager.setDefaultMaxPerRoute(maximumConnectionsPerRoute);
+		this.maximumConnectionsPerRoute = maximumConnectionsPerRoute;
+
+		this.requestConfig = RequestConfig.custom()
+				.setConnectTimeout(connectTimeoutMilliseconds)
+				.setSocketTimeout(socketTimeoutMilliseconds)
+				.setConnectionRequestTimeout(connectionRequestTimeoutMilliseconds)
+				.build();
+
+		// Compression is handled here rather than by HttpClient, so that the bytes received can be counted
+		this.httpClient = HttpClientBuilder.create()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(requestConfig)
+				.disableContentCompression()
+				.build();
+	}
+
+	@Override
+	public TransportResponse execute(final TransportRequest request) throws IOException {
+		final HttpRequestBase httpRequest = buildRequest(request);
+		for (final Entry<String, String> header : request.getHeaders().entrySet()) {
+			httpRequest.setHeader(header.getKey(), header.getValue());
+		}
+		httpRequest.setHeader(HTTP_ACCEPT_ENCODING_HEADER, ENCODINGS_TO_ACCEPT);
+
+		final CloseableHttpResponse response = httpClient.execute(httpRequest);
+		try {
+			final HttpEntity entity = response.getEntity();
+
+			final InputStream body;
+			if (entity != null) {
+				final Header contentEncoding = entity.getContentEncoding();
+				body = decode(entity.getContent(), (contentEncoding != null) ? contentEncoding.getValue() : null);
+			} else {
+				body = decode(new ByteArrayInputStream(new byte[0]), null);
+			}
+
+			return new TransportResponse(
+					response.getStatusLine().getStatusCode(), response.getStatusLine().getReasonPhrase(), body);
+		} catch (final IOException | RuntimeException e) {
+			response.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Resolve the host of the URL into the DNS cache, then open connections to it (completing the TLS handshake for
+	 * secure connections) and return them to the pool. The number of connections opened is limited to the maximum
+	 * number of connections per host.
+	 *
+	 * @param url A URL on the host requests will be submitted to
+	 * @param connections The number of connections to establish
+	 * @throws IOException Any errors encountered resolving the host or establishing connections
+	 */
+	@Override
+	public void warmUp(final String url, final int connections) throws IOException {
+		if (connections < 1) {
+			throw new IllegalArgumentException("Number of connections must be greater than 0");
+		}
+
+		final HttpRoute route = route(url);
+		dnsResolver.resolve(route.getTargetHost().getHostName());
+
+		final HttpClientContext context = HttpClientContext.create();
+		final List<HttpClientConnection> leased = new ArrayList<>();
+		try {
+			// Connections are all leased before any is released, so that each one leased is distinct
+			for (int i = 0; i < Math.min(connections, maximumConnectionsPerRoute); i++) {
+				final HttpClientConnection connection = lease(route);
+				leased.add(connection);
+
+				if (!connection.isOpen()) {
+					connectionManager.connect(connection, route, requestConfig.getConnectTimeout(), context);
+					connectionManager.routeComplete(connection, route, context);
+
+					// Binds the streams of the new connection, which are otherwise only bound by sending a request and
+					// are needed when the pool checks the connection for staleness
+					connection.flush();
+				}
+			}
+		} finally {
+			for (final HttpClientConnection connection : leased) {
+				connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	@Override
+	public void shutdown() throws IOException {
+		httpClient.close();
+	}
+
+	/**
+	 * @return The timeouts applied to each request
+	 */
+	public RequestConfig getRequestConfig() {
+		return requestConfig;
+	}
+
+	/**
+	 * @return The number of open connections held in the pool, ready for use
+	 */
+	public int getIdleConnections() {
+		return connectionManager.getTotalStats().getAvailable();
+	}
+
+	/**
+	 * @return Resolver used to look up the addresses of hosts
+	 */
+	public CachingDnsResolver getDnsResolver() {
+		return dnsResolver;
+	}
+
+	/**
+	 * @return Totals of the data transferred by the transport
+	 */
+	public TransferMetrics getTransferMetrics() {
+		return transferMetrics;
+	}
+
+	/**
+	 * Wrap the body of a response so that it is decoded as it is read, and its size recorded once it is closed.
+	 *
+	 * @param content The body of the response, as received
+	 * @param contentEncoding The encoding of the body (or null if not encoded)
+	 * @return Stream of the decoded body
+	 * @throws IOException Any errors reading the start of the body
+	 */
+	InputStream decode(final InputStream content, final String contentEncoding) throws IOException {
+		return decode(content, contentEncoding, transferMetrics);
+	}
+
+	/**
+	 * Wrap the body of a response so that it is decoded as it is read, and its size recorded once it is closed.
+	 *
+	 * @param content The body of the response, as received
+	 * @param contentEncoding The encoding of the body (or null if not encoded)
+	 * @param transferMetrics The metrics to record the size of the body in
+	 * @return Stream of the decoded body
+	 * @throws IOException Any errors reading the start of the body
+	 */
+	static InputStream decode(
+			final InputStream content, final String contentEncoding, final TransferMetrics transferMetrics)
+			throws IOException {
+		final CountingInputStream wire = new CountingInputStream(content);
+		final String encoding =
+				(contentEncoding != null) ? contentEncoding.trim().toLowerCase(Locale.ROOT) : "identity";
+
+		final InputStream decoded;
+		switch (encoding) {
+			case "gzip":
+			case "x-gzip":
+				decoded = new GZIPInputStream(wire);
+				break;
+
+			case "deflate":
+				decoded = inflate(wire);
+				break;
+
+			case "identity":
+			case "":
+				decoded = wire;
+				break;
+
+			default:
+				wire.close();
+				throw new IOException(String.format("Unsupported content encoding: %s", contentEncoding));
+		}
+
+		return new MeteredInputStream(decoded, wire, decoded != wire, transferMetrics);
+	}
+
+	/**
+	 * Wrap a 'deflate' encoded body so that it is inflated as it is read. The encoding is specified to be a zlib
+	 * stream, but some servers send raw deflate data without the zlib wrapper, so the first bytes are examined to
+	 * determine which has been received.
+	 *
+	 * @param content The encoded body
+	 * @return Stream of the inflated body
+	 * @throws IOException Any errors reading the start of the body
+	 */
+	private static InputStream inflate(final InputStream content) throws IOException {
+		final PushbackInputStream pushback = new PushbackInputStream(content, 2);
+		final int first = pushback.read();
+		final int second = (first != -1) ? pushback.read() : -1;
+		if (second != -1) {
+			pushback.unread(second);
+		}
+		if (first != -1) {
+			pushback.unread(first);
+		}
+
+		final boolean zlibWrapped =
+				((first & 0x0F) == 8) && (second != -1) && ((((first << 8) | second) % 31) == 0);
+
+		return new InflaterInputStream(pushback, new Inflater(!zlibWrapped));
+	}
+
+	/**
+	 * Determine the route HttpClient will use for requests to a URL, so that connections established in advance are
+	 * pooled against the same route as those made for requests.
+	 *
+	 * @param url The URL
+	 * @return The route to the host of the URL
+	 * @throws IOException If the URL is invalid
+	 */
+	private static HttpRoute route(final String url) throws IOException {
+		final HttpHost host;
+		try {
+			host = URIUtils.extractHost(new URI(url));
+		} catch (final URISyntaxException e) {
+			throw new IOException(String.format("Invalid URL: %s", url), e);
+		}
+
+		if (host == null) {
+			throw new IOException(String.format("Invalid URL: %s", url));
+		}
+
+		final HttpHost target = (host.getPort() > 0) ? host : new HttpHost(
+				host.getHostName(), DefaultSchemePortResolver.INSTANCE.resolve(host), host.getSchemeName());
+
+		return new HttpRoute(target, null, "https".equalsIgnoreCase(target.getSchemeName()));
+	}
+
+	/**
+	 * Lease a connection from the pool.
+	 *
+	 * @param route The route the connection is required for
+	 * @return The connection, which may or may not be open
+	 * @throws IOException If no connection could be leased
+	 */
+	private HttpClientConnection lease(final HttpRoute route) throws IOException {
+		try {
+			return connectionManager.requestConnection(route, null)
+					.get(requestConfig.getConnectionRequestTimeout(), TimeUnit.MILLISECONDS);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for a connection");
+		} catch (final ExecutionException e) {
+			throw new IOException("Error leasing a connection", e.getCause());
+		}
+	}
+
+	/**
+	 * Build the HttpClient request representing a transport request.
+	 *
+	 * @param request The transport request
+	 * @return The HttpClient request
+	 * @throws IOException If the URL is invalid
+	 */
+	static HttpRequestBase buildRequest(final TransportRequest request) throws IOException {
+		switch (request.getMethod()) {
+			case POST:
+				final HttpPost post = new HttpPost(request.getUrl());
+				if (!request.getParameters().isEmpty()) {
+					post.setEntity(buildForm(request));
+				}
+
+				return post;
+
+			case GET:
+			default:
+				try {
+					final URIBuilder uri = new URIBuilder(request.getUrl());
+					for (final Entry<String, Object> parameter : request.getParameters().entrySet()) {
+						uri.addParameter(parameter.getKey(), String.valueOf(parameter.getValue()));
+					}
+
+					return new HttpGet(uri.build());
+				} catch (final URISyntaxException e) {
+					throw new IOException(String.format("Invalid URL: %s", request.getUrl()), e);
+				}
+		}
+	}
+
+	/**
+	 * Build the body of a POST request from its parameters. If any parameter is a {@link File}, a multipart body is
+	 * built so that the file can be uploaded; otherwise a URL encoded form is used.
+	 *
+	 * @param request The transport request
+	 * @return The body of the request
+	 */
+	private static HttpEntity buildForm(final TransportRequest request) {
+		boolean multipart = false;
+		for (final Object value : request.getParameters().values()) {
+			multipart |= value instanceof File;
+		}
+
+		if (multipart) {
+			final MultipartEntityBuilder form = MultipartEntityBuilder.create();
+			for (final Entry<String, Object> parameter : request.getParameters().entrySet()) {
+				if (parameter.getValue() instanceof File) {
+					form.addBinaryBody(parameter.getKey(), (File) parameter.getValue());
+				} else {
+					form.addTextBody(parameter.getKey(), String.valueOf(parameter.getValue()),
+							ContentType.create("text/plain", StandardCharsets.UTF_8));
+				}
+			}
+
+			return form.build();
+		}
+
+		final List<NameValuePair> fields = new ArrayList<>();
+		for (final Entry<String, Object> parameter : request.getParameters().entrySet()) {
+			fields.add(new BasicNameValuePair(parameter.getKey(), String.valueOf(parameter.getValue())));
+		}
+
+		return new UrlEncodedFormEntity(fields, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Stream counting the bytes read through it.
+	 */
+	private static final class CountingInputStream extends FilterInputStream {
+
+		/** The number of bytes read. */
+		private long count;
+
+		/**
+		 * @param in The stream to count
+		 */
+		private CountingInputStream(final InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			final int read = super.read();
+			if (read != -1) {
+				count++;
+			}
+
+			return read;
+		}
+
+		@Override
+		public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+			final int read = super.read(buffer, offset, length);
+			if (read > 0) {
+				count += read;
+			}
+
+			return read;
+		}
+
+		@Override
+		public long skip(final long n) throws IOException {
+			final long skipped = super.skip(n);
+			count += skipped;
+
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+
+	/**
+	 * Stream of a decoded response body, recording the size of the body in {@link TransferMetrics} once closed.
+	 */
+	private static final class MeteredInputStream extends FilterInputStream {
+
+		/** Count of the bytes received over the network. */
+		private final CountingInputStream wire;
+
+		/** Count of the decoded bytes. */
+		private final CountingInputStream decoded;
+
+		/** Whether the body was compressed. */
+		private final boolean compressed;
+
+		/** The metrics to record the size of the body in. */
+		private final TransferMetrics transferMetrics;
+
+		/** Whether the stream has been closed. */
+		private boolean closed;
+
+		/**
+		 * @param decoded Stream of the decoded body
+		 * @param wire Count of the bytes received over the network
+		 * @param compressed Whether the body was compressed
+		 * @param transferMetrics The metrics to record the size of the body in
+		 */
+		private MeteredInputStream(
+				final InputStream decoded,
+				final CountingInputStream wire,
+				final boolean compressed,
+				final TransferMetrics transferMetrics) {
+			this(new CountingInputStream(decoded), wire, compressed, transferMetrics);
+		}
+
+		/**
+		 * @param decoded Count of the decoded bytes
+		 * @param wire Count of the bytes received over the network
+		 * @param compressed Whether the body was compressed
+		 * @param transferMetrics The metrics to record the size of the body in
+		 */
+		private MeteredInputStream(
+				final CountingInputStream decoded,
+				final CountingInputStream wire,
+				final boolean compressed,
+				final TransferMetrics transferMetrics) {
+			super(decoded);
+			this.decoded = decoded;
+			this.wire = wire;
+			this.compressed = compressed;
+			this.transferMetrics = transferMetrics;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!closed) {
+				closed = true;
+				transferMetrics.record(compressed, wire.count, decoded.count);
+			}
+
+			super.close();
+		}
+	}
+}
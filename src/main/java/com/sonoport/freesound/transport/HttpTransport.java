@@ -0,0 +1,55 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.transport;
+
+import java.io.IOException;
+
+/**
+ * The mechanism used by {@link com.sonoport.freesound.FreesoundClient} to exchange HTTP requests and responses with the
+ * freesound API. {@link HttpClientTransport} is used unless another implementation is supplied to the client, allowing
+ * alternative HTTP stacks (e.g. one multiplexing requests over HTTP/2 connections) to be used without changes to the
+ * client or queries.
+ *
+ * Implementations must be safe for use by multiple threads at once.
+ */
+public interface HttpTransport {
+
+	/**
+	 * Submit a request and wait for the response.
+	 *
+	 * @param request The request to submit
+	 * @return The response received. The caller is responsible for closing its body.
+	 * @throws IOException Any errors encountered submitting the request or receiving the response
+	 */
+	TransportResponse execute(TransportRequest request) throws IOException;
+
+	/**
+	 * Prepare the transport to submit requests to a given host, so that the first requests made do not pay the cost of
+	 * name resolution and connection establishment. Blocks until the transport is prepared.
+	 *
+	 * @param url A URL on the host requests will be submitted to
+	 * @param connections The number of connections to establish
+	 * @throws IOException Any errors encountered preparing the transport
+	 */
+	void warmUp(String url, int connections) throws IOException;
+
+	/**
+	 * Release any resources (connections, background threads etc.) held by the transport.
+	 *
+	 * @throws IOException Any errors encountered releasing resources
+	 */
+	void shutdown() throws IOException;
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.transport;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running totals of the responses received by an {@link HttpTransport}, and the number of bytes transferred, both as
+ * received over the network (possibly compressed) and once decoded. Totals are recorded once the body of each response
+ * has been closed.
+ */
+public class TransferMetrics {
+
+	/** The number of responses received. */
+	private final AtomicLong responses = new AtomicLong();
+
+	/** The number of responses received with a compressed body. */
+	private final AtomicLong compressedResponses = new AtomicLong();
+
+	/** The number of body bytes received over the network. */
+	private final AtomicLong bytesOnWire = new AtomicLong();
+
+	/** The number of body bytes once decoded. */
+	private final AtomicLong bytesDecoded = new AtomicLong();
+
+	/**
+	 * Record the transfer of the body of a response.
+	 *
+	 * @param compressed Whether the body was compressed
+	 * @param wireBytes The number of bytes received over the network
+	 * @param decodedBytes The number of bytes once decoded
+	 */
+	public void record(final boolean compressed, final long wireBytes, final long decodedBytes) {
+		responses.incrementAndGet();
+		if (compressed) {
+			compressedResponses.incrementAndGet();
+		}
+
+		bytesOnWire.addAndGet(wireBytes);
+		bytesDecoded.addAndGet(decodedBytes);
+	}
+
+	/**
+	 * @return The number of responses received
+	 */
+	public long getResponses() {
+		return responses.get();
+	}
+
+	/**
+	 * @return The number of responses received with a compressed body
+	 */
+	public long getCompressedResponses() {
+		return compressedResponses.get();
+	}
+
+	/**
+	 * @return The number of body bytes received over the network
+	 */
+	public long getBytesOnWire() {
+		return bytesOnWire.get();
+	}
+
+	/**
+	 * @return The number of body bytes once decoded
+	 */
+	public long getBytesDecoded() {
+		return bytesDecoded.get();
+	}
+
+	/**
+	 * @return The ratio of decoded bytes to bytes received over the network (1 if nothing has been received)
+	 */
+	public double getCompressionRatio() {
+		final long wire = bytesOnWire.get();
+		return (wire > 0) ? ((double) bytesDecoded.get() / wire) : 1;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"TransferMetrics[responses=%d, compressedResponses=%d, bytesOnWire=%d, bytesDecoded=%d]",
+				getResponses(), getCompressedResponses(), getBytesOnWire(), getBytesDecoded());
+	}
+}
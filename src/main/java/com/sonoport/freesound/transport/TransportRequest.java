@@ -0,0 +1,85 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.transport;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.sonoport.freesound.query.HTTPRequestMethod;
+
+/**
+ * An HTTP request to be submitted by an {@link HttpTransport}. The URL is complete apart from the parameters, which are
+ * sent in the query string of GET requests and as form fields of POST requests.
+ */
+public final class TransportRequest {
+
+	/** The HTTP method of the request. */
+	private final HTTPRequestMethod method;
+
+	/** The URL to submit the request to. */
+	private final String url;
+
+	/** The headers to send with the request. */
+	private final Map<String, String> headers;
+
+	/** The parameters to send with the request. */
+	private final Map<String, Object> parameters;
+
+	/**
+	 * @param method The HTTP method of the request
+	 * @param url The URL to submit the request to
+	 * @param headers The headers to send with the request
+	 * @param parameters The parameters to send with the request (may be null)
+	 */
+	public TransportRequest(
+			final HTTPRequestMethod method,
+			final String url,
+			final Map<String, String> headers,
+			final Map<String, Object> parameters) {
+		this.method = method;
+		this.url = url;
+		this.headers = (headers != null) ? headers : Collections.<String, String>emptyMap();
+		this.parameters = (parameters != null) ? parameters : Collections.<String, Object>emptyMap();
+	}
+
+	/**
+	 * @return the method
+	 */
+	public HTTPRequestMethod getMethod() {
+		return method;
+	}
+
+	/**
+	 * @return the url
+	 */
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * @return the headers
+	 */
+	public Map<String, String> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * @return the parameters
+	 */
+	public Map<String, Object> getParameters() {
+		return parameters;
+	}
+}
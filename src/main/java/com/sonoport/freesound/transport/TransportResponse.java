@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.transport;
+
+import java.io.InputStream;
+
+/**
+ * An HTTP response received by an {@link HttpTransport}. The body is exposed as a stream, so that it can be consumed
+ * as it arrives; whoever consumes it is responsible for closing it.
+ */
+public final class TransportResponse {
+
+	/** The HTTP status code of the response. */
+	private final int status;
+
+	/** The text associated with the status code. */
+	private final String statusText;
+
+	/** The body of the response. */
+	private final InputStream body;
+
+	/**
+	 * @param status The HTTP status code of the response
+	 * @param statusText The text associated with the status code
+	 * @param body The body of the response (may be null if there is none)
+	 */
+	public TransportResponse(final int status, final String statusText, final InputStream body) {
+		this.status = status;
+		this.statusText = statusText;
+		this.body = body;
+	}
+
+	/**
+	 * @return the status
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return the statusText
+	 */
+	public String getStatusText() {
+		return statusText;
+	}
+
+	/**
+	 * @return the body
+	 */
+	public InputStream getBody() {
+		return body;
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.Map.Entry;
+
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.Unirest;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.HttpRequest;
+import com.mashape.unirest.request.HttpRequestWithBody;
+
+/**
+ * {@link HttpTransport} using the Unirest library, which maintains a pool of HTTP/1.1 connections. As each connection
+ * carries one request at a time, the number of requests that can be in progress at once is limited by the size of the
+ * pool.
+ *
+ * Unirest holds its configuration statically, so all instances of this class share the same connection pool, and its
+ * size can only be configured for the whole JVM using {@link #setConnectionPoolSize(int, int)}. Use
+ * {@link HttpClientTransport} where each client requires a pool of its own, or {@link Http2Transport} to multiplex
+ * requests over a single connection.
+ */
+public class UnirestTransport implements HttpTransport {
+
+	/**
+	 * No-arg constructor, leaving the Unirest connection pool at its default size.
+	 */
+	public UnirestTransport() {
+		// Use Unirest defaults
+	}
+
+	/**
+	 * Set the size of the connection pool shared by every {@link UnirestTransport} (and any other user of Unirest) in
+	 * the JVM.
+	 *
+	 * @param maximumConnections The maximum number of connections to hold open in total
+	 * @param maximumConnectionsPerRoute The maximum number of connections to hold open to a single host
+	 */
+	public static void setConnectionPoolSize(final int maximumConnections, final int maximumConnectionsPerRoute) {
+		if ((maximumConnections < 1) || (maximumConnectionsPerRoute < 1)) {
+			throw new IllegalArgumentException("Maximum number of connections must be greater than 0");
+		}
+
+		Unirest.setConcurrency(maximumConnections, maximumConnectionsPerRoute);
+	}
+
+	@Override
+	public TransportResponse execute(final TransportRequest transportRequest) throws IOException {
+		final HttpRequest request;
+		switch (transportRequest.getMethod()) {
+			case POST:
+				request = Unirest.post(transportRequest.getUrl());
+
+				if (!transportRequest.getParameters().isEmpty()) {
+					((HttpRequestWithBody) request).fields(transportRequest.getParameters());
+				}
+
+				break;
+
+			case GET:
+			default:
+				request = Unirest.get(transportRequest.getUrl());
+
+				if (!transportRequest.getParameters().isEmpty()) {
+					request.queryString(transportRequest.getParameters());
+				}
+		}
+
+		for (final Entry<String, String> header : transportRequest.getHeaders().entrySet()) {
+			request.header(header.getKey(), header.getValue());
+		}
+
+		try {
+			final HttpResponse<InputStream> response = request.asBinary();
+
+			return new TransportResponse(response.getStatus(), response.getStatusText(), response.getBody());
+		} catch (final UnirestException e) {
+			throw new IOException("Error submitting request", e);
+		}
+	}
+
+	/**
+	 * Unirest provides no access to its connection pool, so only the name of the host is resolved (and held in the
+	 * JVM's address cache); connections are established by the first requests made.
+	 *
+	 * @param url A URL on the host requests will be submitted to
+	 * @param connections The number of connections to establish (ignored)
+	 * @throws IOException If the URL is invalid or the host name cannot be resolved
+	 */
+	@Override
+	public void warmUp(final String url, final int connections) throws IOException {
+		final String host;
+		try {
+			host = URI.create(url).getHost();
+		} catch (final IllegalArgumentException e) {
+			throw new IOException(String.format("Invalid URL: %s", url), e);
+		}
+
+		if (host == null) {
+			throw new IOException(String.format("Invalid URL: %s", url));
+		}
+
+		InetAddress.getAllByName(host);
+	}
+
+	@Override
+	public void shutdown() throws IOException {
+		Unirest.shutdown();
+	}
+}
@@ -16,14 +16,22 @@
 package com.sonoport.freesound;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import mockit.Delegate;
 import mockit.Expectations;
@@ -35,20 +43,41 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.mashape.unirest.http.HttpResponse;
-import com.mashape.unirest.http.JsonNode;
 import com.mashape.unirest.http.Unirest;
 import com.mashape.unirest.request.GetRequest;
 import com.mashape.unirest.request.HttpRequestWithBody;
 import com.sonoport.freesound.query.BinaryResponseQuery;
+import com.sonoport.freesound.query.CursorSnapshot;
 import com.sonoport.freesound.query.HTTPRequestMethod;
 import com.sonoport.freesound.query.JSONResponseQuery;
+import com.sonoport.freesound.query.PageSnapshot;
+import com.sonoport.freesound.query.PagingQuery;
+import com.sonoport.freesound.query.Priority;
 import com.sonoport.freesound.query.oauth2.AccessTokenQuery;
 import com.sonoport.freesound.query.oauth2.OAuth2AccessTokenRequest;
 import com.sonoport.freesound.query.oauth2.RefreshOAuth2AccessTokenRequest;
+import com.sonoport.freesound.query.other.AvailableAudioDescriptorsQuery;
+import com.sonoport.freesound.query.search.CombinedSearch;
+import com.sonoport.freesound.query.search.TextSearch;
+import com.sonoport.freesound.query.sound.SoundInstanceQuery;
+import com.sonoport.freesound.query.sound.SoundPreviewQuery;
+import com.sonoport.freesound.resilience.AdaptiveConcurrencyLimiter;
+import com.sonoport.freesound.resilience.CircuitBreaker;
+import com.sonoport.freesound.resilience.CircuitBreakerOpenException;
+import com.sonoport.freesound.resilience.CircuitBreakerSettings;
+import com.sonoport.freesound.resilience.PriorityScheduler;
+import com.sonoport.freesound.resilience.RequestHedger;
 import com.sonoport.freesound.response.AccessTokenDetails;
+import com.sonoport.freesound.response.AudioDescriptors;
+import com.sonoport.freesound.response.CursorPagingResponse;
+import com.sonoport.freesound.response.PagingResponse;
 import com.sonoport.freesound.response.Response;
 import com.sonoport.freesound.response.Sound;
 import com.sonoport.freesound.response.mapping.SoundMapper;
+import com.sonoport.freesound.transport.HttpTransport;
+import com.sonoport.freesound.transport.TransportRequest;
+import com.sonoport.freesound.transport.TransportResponse;
+import com.sonoport.freesound.transport.UnirestTransport;
 
 /**
  * Unit tests to ensure the correct operation of {@link FreesoundClient}.
@@ -76,6 +105,9 @@ public class FreesoundClientTest {
 	/** Path to use in queries for tests. */
 	private static final String TEST_PATH = String.format("/test/{%s}", ROUTE_ELEMENT);
 
+	/** URL queries using {@link #TEST_PATH} are expected to be submitted to. */
+	private static final String EXPANDED_TEST_URL = FreesoundClient.API_ENDPOINT + "/test/" + ROUTE_ELEMENT_VALUE;
+
 	/** OAuth2 authorisation code. */
 	private static final String OAUTH_AUTHORISATION_CODE = "abc123";
 
@@ -105,52 +137,344 @@ public class FreesoundClientTest {
 	private FreesoundClient freesoundClient;
 
 	/**
-	 * Configure the instance of {@link FreesoundClient} with its dependencies.
+	 * Configure the instance of {@link FreesoundClient} with its dependencies. The {@link UnirestTransport} is used so
+	 * that the requests made can be verified against a mock {@link Unirest}.
 	 */
 	@Before
 	public void configureClient() {
-		freesoundClient = new FreesoundClient(CLIENT_ID, CLIENT_SECRET);
+		freesoundClient = new FreesoundClient(CLIENT_ID, CLIENT_SECRET, null, new UnirestTransport());
 	}
 
 	/**
-	 * Ensure that instances of {@link FreesoundClient} are created correctly with default options set.
+	 * Ensure that the default Accept and User-Agent headers are sent with requests, along with the credential.
 	 *
-	 * @param mockUnirest Mock {@link Unirest} object
+	 * @param mockTransport Mock {@link HttpTransport}
+	 * @throws Exception Any exceptions thrown in test
 	 */
-	@SuppressWarnings("static-access")
 	@Test
-	public void defaultHeadersSetCorrectly(@Mocked final Unirest mockUnirest) {
-		new FreesoundClient(CLIENT_ID, CLIENT_SECRET);
+	public void defaultHeadersSetCorrectly(@Mocked final HttpTransport mockTransport) throws Exception {
+		new FreesoundClient(CLIENT_ID, CLIENT_SECRET, null, mockTransport).executeQuery(new TestBinaryResponseQuery());
 
 		new Verifications() {
 			{
-				mockUnirest.setDefaultHeader(
-						FreesoundClient.HTTP_ACCEPT_HEADER, FreesoundClient.CONTENT_TYPES_TO_ACCEPT);
-				mockUnirest.setDefaultHeader(
-						FreesoundClient.HTTP_USER_AGENT_HEADER, FreesoundClient.DEFAULT_USER_AGENT_STRING);
+				TransportRequest request;
+				mockTransport.execute(request = withCapture());
+
+				assertEquals(
+						FreesoundClient.CONTENT_TYPES_TO_ACCEPT,
+						request.getHeaders().get(FreesoundClient.HTTP_ACCEPT_HEADER));
+				assertEquals(
+						FreesoundClient.DEFAULT_USER_AGENT_STRING,
+						request.getHeaders().get(FreesoundClient.HTTP_USER_AGENT_HEADER));
+				assertEquals(
+						"Token " + CLIENT_SECRET, request.getHeaders().get(FreesoundClient.HTTP_AUTHORIZATION_HEADER));
 			}
 		};
 	}
 
 	/**
-	 * Ensure that instances of {@link FreesoundClient} are created correctly with a custom User-Agent string specified.
+	 * Ensure that a custom User-Agent string is sent with requests when specified.
 	 *
-	 * @param mockUnirest Mock {@link Unirest} object
+	 * @param mockTransport Mock {@link HttpTransport}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void headersSetCorrectlyWithCustomUserAgent(@Mocked final HttpTransport mockTransport) throws Exception {
+		new FreesoundClient(CLIENT_ID, CLIENT_SECRET, USER_AGENT_STRING, mockTransport)
+				.executeQuery(new TestBinaryResponseQuery());
+
+		new Verifications() {
+			{
+				TransportRequest request;
+				mockTransport.execute(request = withCapture());
+
+				assertEquals(
+						FreesoundClient.CONTENT_TYPES_TO_ACCEPT,
+						request.getHeaders().get(FreesoundClient.HTTP_ACCEPT_HEADER));
+				assertEquals(USER_AGENT_STRING, request.getHeaders().get(FreesoundClient.HTTP_USER_AGENT_HEADER));
+			}
+		};
+	}
+
+	/**
+	 * Ensure that no credential is sent with requests to hosts outside of the API, such as those serving previews.
+	 *
+	 * @param mockTransport Mock {@link HttpTransport}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void noCredentialSentOutsideAPI(@Mocked final HttpTransport mockTransport) throws Exception {
+		new FreesoundClient(CLIENT_ID, CLIENT_SECRET, null, mockTransport)
+				.executeQuery(new SoundPreviewQuery("http://cdn.freesound.org/previews/1/1-hq.mp3"));
+
+		new Verifications() {
+			{
+				TransportRequest request;
+				mockTransport.execute(request = withCapture());
+
+				assertEquals("http://cdn.freesound.org/previews/1/1-hq.mp3", request.getUrl());
+				assertFalse(request.getHeaders().containsKey(FreesoundClient.HTTP_AUTHORIZATION_HEADER));
+				assertEquals(
+						FreesoundClient.DEFAULT_USER_AGENT_STRING,
+						request.getHeaders().get(FreesoundClient.HTTP_USER_AGENT_HEADER));
+			}
+		};
+	}
+
+	/**
+	 * Ensure that errors raised by the transport are reported as {@link FreesoundClientException}s.
+	 *
+	 * @param mockTransport Mock {@link HttpTransport}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test (expected = FreesoundClientException.class)
+	public void transportFailure(@Mocked final HttpTransport mockTransport) throws Exception {
+		new Expectations() {
+			{
+				mockTransport.execute(withInstanceOf(TransportRequest.class)); result = new IOException();
+			}
+		};
+
+		new FreesoundClient(CLIENT_ID, CLIENT_SECRET, null, mockTransport).executeQuery(new TestBinaryResponseQuery());
+	}
+
+	/**
+	 * Ensure that once failures open the circuit for a route, further queries to it fail without being submitted, while
+	 * queries to other routes are unaffected.
+	 *
+	 * @param mockTransport Mock {@link HttpTransport}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void openCircuitFailsFast(@Mocked final HttpTransport mockTransport) throws Exception {
+		new Expectations() {
+			{
+				mockTransport.execute(withInstanceOf(TransportRequest.class));
+				result = new IOException(); result = new TransportResponse(503, "Service Unavailable", json(""));
+				result = new TransportResponse(200, "OK", json(""));
+			}
+		};
+
+		final FreesoundClient client = new FreesoundClient(CLIENT_ID, CLIENT_SECRET, null, mockTransport);
+		client.setCircuitBreakerSettings(new CircuitBreakerSettings().windowSize(2).minimumCalls(2));
+
+		try {
+			client.executeQuery(new TestBinaryResponseQuery());
+			fail("Transport failure should have been reported");
+		} catch (final FreesoundClientException e) {
+			assertFalse(e instanceof CircuitBreakerOpenException);
+		}
+		client.executeQuery(new TestBinaryResponseQuery());
+		assertEquals(CircuitBreaker.State.OPEN, client.getCircuitBreaker(TEST_PATH).getState());
+
+		try {
+			client.executeQuery(new TestBinaryResponseQuery());
+			fail("Open circuit should have been reported");
+		} catch (final CircuitBreakerOpenException e) {
+			assertEquals(TEST_PATH, e.getRoute());
+		}
+
+		client.executeQuery(new SoundPreviewQuery("https://cdn.freesound.org/previews/1/1-hq.mp3"));
+		assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitBreaker("https://cdn.freesound.org").getState());
+
+		new Verifications() {
+			{
+				mockTransport.execute(withInstanceOf(TransportRequest.class)); times = 3;
+			}
+		};
+	}
+
+	/**
+	 * Ensure that routes are not guarded by circuit breakers unless settings have been provided.
+	 *
+	 * @param mockTransport Mock {@link HttpTransport}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void circuitBreakingDisabledByDefault(@Mocked final HttpTransport mockTransport) throws Exception {
+		new Expectations() {
+			{
+				mockTransport.execute(withInstanceOf(TransportRequest.class));
+				result = new TransportResponse(503, "Service Unavailable", json(""));
+			}
+		};
+
+		final FreesoundClient client = new FreesoundClient(CLIENT_ID, CLIENT_SECRET, null, mockTransport);
+		for (int i = 0; i < 30; i++) {
+			assertTrue(client.executeQuery(new TestBinaryResponseQuery()).isErrorResponse());
+		}
+
+		assertNull(client.getCircuitBreaker(TEST_PATH));
+	}
+
+	/**
+	 * Ensure that only queries marked as hedgeable are submitted through the {@link RequestHedger}.
+	 *
+	 * @param mockTransport Mock {@link HttpTransport}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void hedgeableQueriesHedged(@Mocked final HttpTransport mockTransport) throws Exception {
+		new Expectations() {
+			{
+				mockTransport.execute(withInstanceOf(TransportRequest.class));
+				result = new TransportResponse(200, "OK", json("{\"id\":1}"));
+				result = new TransportResponse(200, "OK", json(""));
+			}
+		};
+
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final FreesoundClient client = new FreesoundClient(CLIENT_ID, CLIENT_SECRET, null, mockTransport);
+			client.setRequestHedger(new RequestHedger(executor));
+
+			assertEquals(Integer.valueOf(1), client.executeQuery(new SoundInstanceQuery(1)).getResults().getId());
+			client.executeQuery(new TestBinaryResponseQuery());
+
+			assertEquals(1, client.getRequestHedger().getRequests());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Ensure that throttled requests reduce the concurrency limit, and that every request releases its slot.
+	 *
+	 * @param mockTransport Mock {@link HttpTransport}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void throttlingReducesConcurrencyLimit(@Mocked final HttpTransport mockTransport) throws Exception {
+		new Expectations() {
+			{
+				mockTransport.execute(withInstanceOf(TransportRequest.class));
+				result = new TransportResponse(429, "Too Many Requests", json("")); result = new IOException();
+			}
+		};
+
+		final FreesoundClient client = new FreesoundClient(CLIENT_ID, CLIENT_SECRET, null, mockTransport);
+		client.setConcurrencyLimiter(new AdaptiveConcurrencyLimiter(10, 1, 100, 2.0));
+
+		client.executeQuery(new TestBinaryResponseQuery());
+		assertEquals(9, client.getConcurrencyLimiter().getLimit());
+
+		try {
+			client.executeQuery(new TestBinaryResponseQuery());
+			fail("Transport failure should have been reported");
+		} catch (final FreesoundClientException e) {
+			assertEquals(8, client.getConcurrencyLimiter().getLimit());
+			assertEquals(0, client.getConcurrencyLimiter().getInFlight());
+		}
+	}
+
+	/**
+	 * Ensure that a request holds its slot in the concurrency limiter until the body of its response is closed.
+	 *
+	 * @param mockTransport Mock {@link HttpTransport}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void slotHeldUntilBodyClosed(@Mocked final HttpTransport mockTransport) throws Exception {
+		new Expectations() {
+			{
+				mockTransport.execute(withInstanceOf(TransportRequest.class));
+				result = new TransportResponse(200, "OK", json("")); result = new TransportResponse(200, "OK", null);
+			}
+		};
+
+		final FreesoundClient client = new FreesoundClient(CLIENT_ID, CLIENT_SECRET, null, mockTransport);
+		client.setConcurrencyLimiter(new AdaptiveConcurrencyLimiter(10, 1, 100, 2.0));
+
+		final InputStream body = client.executeQuery(new TestBinaryResponseQuery()).getResults();
+		assertEquals(1, client.getConcurrencyLimiter().getInFlight());
+
+		body.close();
+		body.close();
+		assertEquals(0, client.getConcurrencyLimiter().getInFlight());
+
+		client.executeQuery(new TestBinaryResponseQuery());
+		assertEquals(0, client.getConcurrencyLimiter().getInFlight());
+	}
+
+	/**
+	 * Ensure that requests are scheduled in the lane for the priority of their query, and take precedence over any
+	 * concurrency limiter.
+	 *
+	 * @param mockTransport Mock {@link HttpTransport}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void requestsScheduledByPriority(@Mocked final HttpTransport mockTransport) throws Exception {
+		new Expectations() {
+			{
+				mockTransport.execute(withInstanceOf(TransportRequest.class));
+				result = new TransportResponse(200, "OK", json(""));
+			}
+		};
+
+		final FreesoundClient client = new FreesoundClient(CLIENT_ID, CLIENT_SECRET, null, mockTransport);
+		client.setConcurrencyLimiter(new AdaptiveConcurrencyLimiter());
+		client.setPriorityScheduler(new PriorityScheduler(2));
+
+		final TestBinaryResponseQuery batchQuery = new TestBinaryResponseQuery();
+		batchQuery.setPriority(Priority.BATCH);
+		client.executeQuery(batchQuery).getResults().close();
+		client.executeQuery(new TestBinaryResponseQuery()).getResults().close();
+
+		final PriorityScheduler scheduler = client.getPriorityScheduler();
+		assertEquals(1, scheduler.getAdmitted(Priority.BATCH));
+		assertEquals(1, scheduler.getAdmitted(Priority.INTERACTIVE));
+		assertEquals(0, scheduler.getInFlight(Priority.BATCH));
+		assertEquals(0, client.getConcurrencyLimiter().getInFlight());
+	}
+
+	/**
+	 * Ensure that warming up the client prepares connections to the API, and that the client then reports itself ready.
+	 *
+	 * @param mockTransport Mock {@link HttpTransport}
+	 * @throws Exception Any exceptions thrown in test
 	 */
-	@SuppressWarnings("static-access")
 	@Test
-	public void headersSetCorrectlyWithCustomUserAgent(@Mocked final Unirest mockUnirest) {
-		new FreesoundClient(CLIENT_ID, CLIENT_SECRET, USER_AGENT_STRING);
+	public void warmUpSignalsReadiness(@Mocked final HttpTransport mockTransport) throws Exception {
+		final FreesoundClient client = new FreesoundClient(CLIENT_ID, CLIENT_SECRET, null, mockTransport);
+		assertFalse(client.isReady());
+		assertFalse(client.awaitReady(1, TimeUnit.MILLISECONDS));
+
+		client.warmUp(4);
+
+		assertTrue(client.isReady());
+		assertTrue(client.awaitReady(1, TimeUnit.MILLISECONDS));
 
 		new Verifications() {
 			{
-				mockUnirest.setDefaultHeader(
-						FreesoundClient.HTTP_ACCEPT_HEADER, FreesoundClient.CONTENT_TYPES_TO_ACCEPT);
-				mockUnirest.setDefaultHeader(FreesoundClient.HTTP_USER_AGENT_HEADER, USER_AGENT_STRING);
+				mockTransport.warmUp(FreesoundClient.API_ENDPOINT, 4);
 			}
 		};
 	}
 
+	/**
+	 * Ensure that a client whose warm up fails does not report itself as ready.
+	 *
+	 * @param mockTransport Mock {@link HttpTransport}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void failedWarmUpNotReady(@Mocked final HttpTransport mockTransport) throws Exception {
+		new Expectations() {
+			{
+				mockTransport.warmUp(anyString, anyInt); result = new IOException();
+			}
+		};
+
+		final FreesoundClient client = new FreesoundClient(CLIENT_ID, CLIENT_SECRET, null, mockTransport);
+		try {
+			client.warmUp(4);
+			fail("Warm up should have failed");
+		} catch (final FreesoundClientException e) {
+			assertFalse(client.isReady());
+		}
+	}
+
 	/**
 	 * Ensure calls to {@link FreesoundClient#shutdown()} correctly close down all background processes. This is
 	 * primarily aimed at ensuring that {@link Unirest#shutdown()} is called.
@@ -205,15 +529,14 @@ public class FreesoundClientTest {
 	public void executeGetQuery(
 			@Mocked final Unirest mockUnirest,
 			@Mocked final GetRequest mockGetRequest,
-			@Mocked final HttpResponse<JsonNode> mockHttpResponse,
+			@Mocked final HttpResponse<InputStream> mockHttpResponse,
 			@Mocked final SoundMapper mockResultsMapper) throws Exception {
 		final Sound sound = new Sound();
 		new Expectations() {
 			{
-				mockUnirest.get(FreesoundClient.API_ENDPOINT + TEST_PATH); result = mockGetRequest;
+				mockUnirest.get(EXPANDED_TEST_URL); result = mockGetRequest;
 
 				mockGetRequest.header("Authorization", "Token " + CLIENT_SECRET);
-				mockGetRequest.routeParam(ROUTE_ELEMENT, ROUTE_ELEMENT_VALUE);
 				mockGetRequest.queryString(with(new Delegate<HashMap<String, Object>>() {
 					@SuppressWarnings("unused")
 					void checkRequestParameters(final Map<String, Object> queryParameters) {
@@ -223,9 +546,10 @@ public class FreesoundClientTest {
 					}
 				}));
 
-				mockGetRequest.asJson(); result = mockHttpResponse;
+				mockGetRequest.asBinary(); result = mockHttpResponse;
 				mockHttpResponse.getStatus(); result = 200;
-				mockResultsMapper.map(mockHttpResponse.getBody().getObject()); result = sound;
+				mockHttpResponse.getBody(); result = json("{}");
+				mockResultsMapper.map(withInstanceOf(JSONObject.class)); result = sound;
 			}
 		};
 
@@ -251,15 +575,14 @@ public class FreesoundClientTest {
 	public void executePostQuery(
 			@Mocked final Unirest mockUnirest,
 			@Mocked final HttpRequestWithBody mockPostRequest,
-			@Mocked final HttpResponse<JsonNode> mockHttpResponse,
+			@Mocked final HttpResponse<InputStream> mockHttpResponse,
 			@Mocked final SoundMapper mockResultsMapper) throws Exception {
 		final Sound sound = new Sound();
 		new Expectations() {
 			{
-				mockUnirest.post(FreesoundClient.API_ENDPOINT + TEST_PATH); result = mockPostRequest;
+				mockUnirest.post(EXPANDED_TEST_URL); result = mockPostRequest;
 
 				mockPostRequest.header("Authorization", "Token " + CLIENT_SECRET);
-				mockPostRequest.routeParam(ROUTE_ELEMENT, ROUTE_ELEMENT_VALUE);
 				mockPostRequest.fields(with(new Delegate<HashMap<String, Object>>() {
 					@SuppressWarnings("unused")
 					void checkRequestParameters(final Map<String, Object> queryParameters) {
@@ -269,9 +592,10 @@ public class FreesoundClientTest {
 					}
 				}));
 
-				mockPostRequest.asJson(); result = mockHttpResponse;
+				mockPostRequest.asBinary(); result = mockHttpResponse;
 				mockHttpResponse.getStatus(); result = 200;
-				mockResultsMapper.map(mockHttpResponse.getBody().getObject()); result = sound;
+				mockHttpResponse.getBody(); result = json("{}");
+				mockResultsMapper.map(withInstanceOf(JSONObject.class)); result = sound;
 			}
 		};
 
@@ -301,10 +625,9 @@ public class FreesoundClientTest {
 			@Mocked final InputStream mockInputStream) throws Exception {
 		new Expectations() {
 			{
-				mockUnirest.get(FreesoundClient.API_ENDPOINT + TEST_PATH); result = mockGetRequest;
+				mockUnirest.get(EXPANDED_TEST_URL); result = mockGetRequest;
 
 				mockGetRequest.header("Authorization", "Token " + CLIENT_SECRET);
-				mockGetRequest.routeParam(ROUTE_ELEMENT, ROUTE_ELEMENT_VALUE);
 				mockGetRequest.queryString(with(new Delegate<HashMap<String, Object>>() {
 					@SuppressWarnings("unused")
 					void checkRequestParameters(final Map<String, Object> queryParameters) {
@@ -341,7 +664,7 @@ public class FreesoundClientTest {
 	public void requestAccessToken(
 			@Mocked final Unirest mockUnirest,
 			@Mocked final HttpRequestWithBody mockTokenRequest,
-			@Mocked final HttpResponse<JsonNode> mockHttpResponse) throws Exception {
+			@Mocked final HttpResponse<InputStream> mockHttpResponse) throws Exception {
 		new Expectations() {
 			{
 				mockUnirest.post(FreesoundClient.API_ENDPOINT + AccessTokenQuery.OAUTH_TOKEN_ENDPOINT_PATH);
@@ -361,9 +684,9 @@ public class FreesoundClientTest {
 					}
 				}));
 
-				mockTokenRequest.asJson(); result = mockHttpResponse;
+				mockTokenRequest.asBinary(); result = mockHttpResponse;
 				mockHttpResponse.getStatus(); result = 200;
-				mockHttpResponse.getBody().getObject(); result = OAUTH_TOKEN_DETAILS_JSON;
+				mockHttpResponse.getBody(); result = json(OAUTH_TOKEN_DETAILS_JSON.toString());
 			}
 		};
 
@@ -392,7 +715,7 @@ public class FreesoundClientTest {
 	public void refreshAccessToken(
 			@Mocked final Unirest mockUnirest,
 			@Mocked final HttpRequestWithBody mockTokenRequest,
-			@Mocked final HttpResponse<JsonNode> mockHttpResponse) throws Exception {
+			@Mocked final HttpResponse<InputStream> mockHttpResponse) throws Exception {
 		new Expectations() {
 			{
 				mockUnirest.post(FreesoundClient.API_ENDPOINT + AccessTokenQuery.OAUTH_TOKEN_ENDPOINT_PATH);
@@ -412,9 +735,9 @@ public class FreesoundClientTest {
 					}
 				}));
 
-				mockTokenRequest.asJson(); result = mockHttpResponse;
+				mockTokenRequest.asBinary(); result = mockHttpResponse;
 				mockHttpResponse.getStatus(); result = 200;
-				mockHttpResponse.getBody().getObject(); result = OAUTH_TOKEN_DETAILS_JSON;
+				mockHttpResponse.getBody(); result = json(OAUTH_TOKEN_DETAILS_JSON.toString());
 			}
 		};
 
@@ -442,14 +765,13 @@ public class FreesoundClientTest {
 	public void unexpected500Response(
 			@Mocked final Unirest mockUnirest,
 			@Mocked final GetRequest mockGetRequest,
-			@Mocked final HttpResponse<JsonNode> mockHttpResponse,
+			@Mocked final HttpResponse<InputStream> mockHttpResponse,
 			@Mocked final SoundMapper mockResultsMapper) throws Exception {
 		new Expectations() {
 			{
-				mockUnirest.get(FreesoundClient.API_ENDPOINT + TEST_PATH); result = mockGetRequest;
+				mockUnirest.get(EXPANDED_TEST_URL); result = mockGetRequest;
 
 				mockGetRequest.header("Authorization", "Token " + CLIENT_SECRET);
-				mockGetRequest.routeParam(ROUTE_ELEMENT, ROUTE_ELEMENT_VALUE);
 				mockGetRequest.queryString(with(new Delegate<HashMap<String, Object>>() {
 					@SuppressWarnings("unused")
 					void checkRequestParameters(final Map<String, Object> queryParameters) {
@@ -459,8 +781,8 @@ public class FreesoundClientTest {
 					}
 				}));
 
-				mockGetRequest.asJson(); result = mockHttpResponse;
-				mockHttpResponse.getBody(); result = "<html><body><h1>500 Error</h1></body></html>";
+				mockGetRequest.asBinary(); result = mockHttpResponse;
+				mockHttpResponse.getBody(); result = json("<html><body><h1>500 Error</h1></body></html>");
 			}
 		};
 
@@ -468,6 +790,143 @@ public class FreesoundClientTest {
 		freesoundClient.executeQuery(query);
 	}
 
+	/**
+	 * Test that queries for resources referenced by absolute URIs (such as sound previews) are submitted to that URI,
+	 * rather than relative to the API endpoint, and without the credential used for the API.
+	 *
+	 * @param mockUnirest Mock version of the {@link Unirest} library
+	 * @param mockGetRequest Mock {@link GetRequest}
+	 * @param mockHttpResponse Mock {@link HttpResponse}
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@SuppressWarnings("static-access")
+	@Test
+	public void executeAbsoluteURIQuery(
+			@Mocked final Unirest mockUnirest,
+			@Mocked final GetRequest mockGetRequest,
+			@Mocked final HttpResponse<InputStream> mockHttpResponse) throws Exception {
+		final String previewURI = "https://www.freesound.org/data/previews/42/42937_50975-hq.mp3";
+		final InputStream preview = new ByteArrayInputStream(new byte[] {1, 2, 3});
+
+		new Expectations() {
+			{
+				mockUnirest.get(previewURI); result = mockGetRequest;
+				mockGetRequest.header("Authorization", anyString); times = 0;
+				mockGetRequest.asBinary(); result = mockHttpResponse;
+				mockHttpResponse.getStatus(); result = 200;
+				mockHttpResponse.getBody(); result = preview;
+			}
+		};
+
+		final Response<InputStream> response = freesoundClient.executeQuery(new SoundPreviewQuery(previewURI));
+
+		assertSame(preview, response.getResults());
+	}
+
+	/**
+	 * Test that the next page of a {@link PagingQuery} is retrieved using a snapshot of the query, with the query only
+	 * advanced once the page has been retrieved.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void nextPageUsesSnapshot() throws Exception {
+		final TextSearch query = new TextSearch("drill");
+		final PagingResponse<Sound> response = new PagingResponse<>(200, "OK");
+
+		new Expectations(freesoundClient) {
+			{
+				freesoundClient.executeQuery(with(new Delegate<PageSnapshot<Sound>>() {
+					@SuppressWarnings("unused")
+					void checkPage(final PageSnapshot<Sound> page) {
+						assertEquals(2, page.getPage());
+						assertEquals(1, query.getPage());
+					}
+				}));
+				result = response;
+			}
+		};
+
+		assertSame(response, freesoundClient.nextPage(query));
+		assertEquals(2, query.getPage());
+	}
+
+	/**
+	 * Test that the available audio descriptors are only retrieved from the API once.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void audioDescriptorsCached() throws Exception {
+		final Response<AudioDescriptors> response = new Response<>(200, "OK");
+		response.setResults(new AudioDescriptors());
+
+		new Expectations(freesoundClient) {
+			{
+				freesoundClient.executeQuery(withInstanceOf(AvailableAudioDescriptorsQuery.class));
+				result = response;
+				times = 1;
+			}
+		};
+
+		final AudioDescriptors audioDescriptors = freesoundClient.getAudioDescriptors();
+
+		assertSame(response.getResults(), audioDescriptors);
+		assertSame(audioDescriptors, freesoundClient.getAudioDescriptors());
+	}
+
+	/**
+	 * Test that requesting more results from a cursor-paged query follows the cursor of the previous response, without
+	 * modifying the query.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void moreResultsFollowsCursor() throws Exception {
+		final CombinedSearch query = new CombinedSearch().searchString("piano");
+
+		final CursorPagingResponse<Sound> firstPage = new CursorPagingResponse<>(200, "OK");
+		firstPage.setMoreResultsURI("https://www.freesound.org/apiv2/search/combined/?query=piano&more_from=abc");
+		final CursorPagingResponse<Sound> secondPage = new CursorPagingResponse<>(200, "OK");
+
+		new Expectations(freesoundClient) {
+			{
+				freesoundClient.executeQuery(withInstanceOf(CursorSnapshot.class)); result = secondPage;
+			}
+		};
+
+		assertSame(secondPage, freesoundClient.moreResults(query, firstPage));
+		assertFalse(query.isFollowingCursor());
+
+		new Verifications() {
+			{
+				final CursorSnapshot<?> snapshot;
+				freesoundClient.executeQuery(snapshot = withCapture());
+				assertEquals("abc", snapshot.getQueryParameters().get("more_from"));
+				assertEquals("piano", snapshot.getQueryParameters().get("query"));
+			}
+		};
+	}
+
+	/**
+	 * Test that requesting more results when none are available fails.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test (expected = FreesoundClientException.class)
+	public void noMoreResults() throws Exception {
+		freesoundClient.moreResults(new CombinedSearch(), new CursorPagingResponse<Sound>(200, "OK"));
+	}
+
+	/**
+	 * @param content JSON content
+	 * @return Stream of the content, as returned in the body of a response
+	 */
+	private static InputStream json(final String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
 	/**
 	 * Simple {@link JSONResponseQuery} subclass for using in tests.
 	 */
@@ -87,4 +87,26 @@ public class LicenseTest {
 		assertNull(License.fromDescription(null));
 		assertNull(License.fromURI(null));
 	}
+
+	/**
+	 * Ensure that URIs are resolved regardless of scheme, 'www.' host prefix or license version.
+	 */
+	@Test
+	public void schemeAndVersionVariants() {
+		assertEquals(License.CC_ATTRIBUTION, License.fromURI("https://creativecommons.org/licenses/by/4.0/"));
+		assertEquals(
+				License.CC_ATTRIBUTION_NONCOMMERCIAL, License.fromURI("https://creativecommons.org/licenses/by-nc/4.0"));
+		assertEquals(License.CC_0, License.fromURI("http://www.creativecommons.org/publicdomain/zero/1.0/"));
+		assertEquals(License.CC_ATTRIBUTION, License.fromURI("http://creativecommons.org/licenses/by"));
+	}
+
+	/**
+	 * Ensure that licenses sharing a common prefix with a known license are not mistakenly matched.
+	 */
+	@Test
+	public void unknownLicenseVariants() {
+		assertNull(License.fromURI("http://creativecommons.org/licenses/by-sa/3.0/"));
+		assertNull(License.fromURI("http://creativecommons.org/licenses/sampling+/1.0/"));
+		assertNull(License.fromURI("http://creativecommons.org/licenses/"));
+	}
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Unit tests to ensure the correct operation of {@link RouteTemplate}.
+ */
+public class RouteTemplateTest {
+
+	/**
+	 * Ensure that parameters are substituted into the template in the correct positions.
+	 */
+	@Test
+	public void expandParameters() {
+		final RouteTemplate template = RouteTemplate.compile("/users/{username}/bookmark_categories/{category_id}/");
+
+		final Map<String, String> parameters = new HashMap<>();
+		parameters.put("username", "bob");
+		parameters.put("category_id", "12");
+
+		assertEquals("/users/bob/bookmark_categories/12/", template.expand(parameters));
+
+		parameters.put("username", "alice");
+		assertEquals("/users/alice/bookmark_categories/12/", template.expand(parameters));
+	}
+
+	/**
+	 * Ensure that parameter values are encoded in the same way as by Unirest.
+	 */
+	@Test
+	public void encodeParameterValues() {
+		final RouteTemplate template = RouteTemplate.compile("/users/{username}/");
+
+		assertEquals("/users/big%20bob/", template.expand(Collections.singletonMap("username", "big bob")));
+	}
+
+	/**
+	 * Ensure that templates without parameters are returned unchanged.
+	 */
+	@Test
+	public void templateWithoutParameters() {
+		final RouteTemplate template = RouteTemplate.compile("/search/text/");
+
+		assertEquals("/search/text/", template.expand(null));
+		assertEquals("/search/text/", template.expand(Collections.<String, String>emptyMap()));
+	}
+
+	/**
+	 * Ensure that an error is raised if a parameter in the template is not given a value.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void missingParameter() {
+		RouteTemplate.compile("/sounds/{sound_id}/").expand(Collections.<String, String>emptyMap());
+	}
+
+	/**
+	 * Ensure that an error is raised if a parameter is given that does not appear in the template.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownParameter() {
+		final Map<String, String> parameters = new HashMap<>();
+		parameters.put("sound_id", "1");
+		parameters.put("pack_id", "2");
+
+		RouteTemplate.compile("/sounds/{sound_id}/").expand(parameters);
+	}
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests to ensure the correct operation of {@link DiskCache}.
+ */
+public class DiskCacheTest {
+
+	/** Directory holding the cache under test. */
+	private Path directory;
+
+	/**
+	 * Create an empty directory to hold the cache.
+	 *
+	 * @throws Exception Any exceptions thrown
+	 */
+	@Before
+	public void createDirectory() throws Exception {
+		directory = Files.createTempDirectory("disk-cache");
+	}
+
+	/**
+	 * Remove the directory holding the cache, and everything in it.
+	 *
+	 * @throws Exception Any exceptions thrown
+	 */
+	@After
+	public void removeDirectory() throws Exception {
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes)
+					throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(final Path dir, final IOException e) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Ensure that content is loaded on the first request, and served from disk thereafter.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void loadOnceThenServeFromDisk() throws Exception {
+		final DiskCache cache = new DiskCache(directory, 1024);
+		final CountingLoader loader = new CountingLoader("preview");
+
+		assertEquals("preview", read(cache.open("a", loader)));
+		assertEquals("preview", StandardCharsets.UTF_8.decode(cache.read("a", loader)).toString());
+
+		assertEquals(1, loader.count.get());
+		assertTrue(cache.contains("a"));
+		assertEquals(1, cache.getEntryCount());
+		assertEquals(7, cache.getTotalBytes());
+	}
+
+	/**
+	 * Ensure that the least recently used entries are evicted once the total size exceeds the limit.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void evictLeastRecentlyUsedBySize() throws Exception {
+		final DiskCache cache = new DiskCache(directory, 25);
+
+		cache.read("a", new CountingLoader("0123456789"));
+		cache.read("b", new CountingLoader("0123456789"));
+		cache.read("a", new CountingLoader("unused"));
+		cache.read("c", new CountingLoader("0123456789"));
+
+		assertTrue(cache.contains("a"));
+		assertFalse(cache.contains("b"));
+		assertTrue(cache.contains("c"));
+		assertEquals(20, cache.getTotalBytes());
+	}
+
+	/**
+	 * Ensure that an entry larger than the limit is still served, even though it displaces everything else.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void oversizedEntryIsRetained() throws Exception {
+		final DiskCache cache = new DiskCache(directory, 5);
+
+		cache.read("a", new CountingLoader("abc"));
+		assertEquals("0123456789", StandardCharsets.UTF_8.decode(cache.read("b", new CountingLoader("0123456789")))
+				.toString());
+
+		assertFalse(cache.contains("a"));
+		assertTrue(cache.contains("b"));
+	}
+
+	/**
+	 * Ensure that entries written by a previous instance are adopted when the directory is reopened.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void reopenExistingCache() throws Exception {
+		final DiskCache cache = new DiskCache(directory, 1024);
+		cache.read("a", new CountingLoader("first"));
+		cache.read("b", new CountingLoader("second"));
+
+		final DiskCache reopened = new DiskCache(directory, 1024);
+		final CountingLoader loader = new CountingLoader("unused");
+
+		assertEquals(2, reopened.getEntryCount());
+		assertEquals(11, reopened.getTotalBytes());
+		assertEquals("second", read(reopened.open("b", loader)));
+		assertEquals(0, loader.count.get());
+	}
+
+	/**
+	 * Ensure that a failed load leaves no entry behind, and the error is reported to the caller.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void failedLoadIsNotCached() throws Exception {
+		final DiskCache cache = new DiskCache(directory, 1024);
+
+		try {
+			cache.read("a", new DiskCache.Loader() {
+				@Override
+				public void load(final OutputStream out) throws IOException {
+					out.write(1);
+					throw new IOException("Connection reset");
+				}
+			});
+			fail("Expected IOException");
+		} catch (final IOException e) {
+			assertEquals("Connection reset", e.getMessage());
+		}
+
+		assertFalse(cache.contains("a"));
+		assertEquals(0, cache.getTotalBytes());
+		assertEquals("retry", read(cache.open("a", new CountingLoader("retry"))));
+	}
+
+	/**
+	 * Ensure that concurrent requests for the same missing entry result in a single load.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void concurrentRequestsLoadOnce() throws Exception {
+		final DiskCache cache = new DiskCache(directory, 1024);
+		final CountDownLatch loadStarted = new CountDownLatch(1);
+		final CountDownLatch releaseLoad = new CountDownLatch(1);
+		final AtomicInteger loads = new AtomicInteger();
+
+		final DiskCache.Loader slowLoader = new DiskCache.Loader() {
+			@Override
+			public void load(final OutputStream out) throws IOException {
+				loads.incrementAndGet();
+				loadStarted.countDown();
+				try {
+					releaseLoad.await(5, TimeUnit.SECONDS);
+				} catch (final InterruptedException e) {
+					throw new IOException(e);
+				}
+				out.write("shared".getBytes(StandardCharsets.UTF_8));
+			}
+		};
+
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				results.add(executor.submit(new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						return read(cache.open("a", slowLoader));
+					}
+				}));
+			}
+
+			assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+			Thread.sleep(100);
+			releaseLoad.countDown();
+
+			for (final Future<String> result : results) {
+				assertEquals("shared", result.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, loads.get());
+	}
+
+	/**
+	 * Ensure that, with memory mapping enabled, repeated reads of an entry share a single mapping.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void mappedReads() throws Exception {
+		final DiskCache cache = new DiskCache(directory, 1024);
+		cache.setMaximumMappings(1);
+
+		final ByteBuffer first = cache.read("a", new CountingLoader("mapped"));
+		first.get();
+		final ByteBuffer second = cache.read("a", new CountingLoader("unused"));
+
+		assertTrue(second.isDirect());
+		assertTrue(second.isReadOnly());
+		assertEquals(0, second.position());
+		assertEquals("mapped", StandardCharsets.UTF_8.decode(second).toString());
+	}
+
+	/**
+	 * Ensure that an entry whose file is removed from outside the cache is loaded again when next requested.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void entryDeletedOutsideCacheIsReloaded() throws Exception {
+		final DiskCache cache = new DiskCache(directory, 1024);
+		cache.read("a", new CountingLoader("original"));
+		cache.read("b", new CountingLoader("original"));
+		deleteEntryFiles();
+
+		final CountingLoader loader = new CountingLoader("reloaded");
+		assertEquals("reloaded", StandardCharsets.UTF_8.decode(cache.read("a", loader)).toString());
+		assertEquals(1, loader.count.get());
+
+		assertEquals("reloaded", read(cache.open("b", loader)));
+		assertEquals(2, loader.count.get());
+		assertEquals(16, cache.getTotalBytes());
+	}
+
+	/**
+	 * Ensure that entries can be removed explicitly.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void removeEntry() throws Exception {
+		final DiskCache cache = new DiskCache(directory, 1024);
+		cache.read("a", new CountingLoader("content"));
+
+		assertTrue(cache.remove("a"));
+		assertFalse(cache.remove("a"));
+		assertFalse(cache.contains("a"));
+		assertEquals(0, cache.getTotalBytes());
+	}
+
+	/**
+	 * Delete the files holding the entries of the cache, leaving the cache unaware of their removal.
+	 *
+	 * @throws IOException Any errors deleting the files
+	 */
+	private void deleteEntryFiles() throws IOException {
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes)
+					throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Read the whole of a stream as a string.
+	 *
+	 * @param in The stream, which is closed once read
+	 * @return The content of the stream
+	 * @throws IOException Any errors reading the stream
+	 */
+	private static String read(final InputStream in) throws IOException {
+		try (InputStream stream = in) {
+			final StringBuilder content = new StringBuilder();
+			int read;
+			while ((read = stream.read()) != -1) {
+				content.append((char) read);
+			}
+
+			return content.toString();
+		}
+	}
+
+	/**
+	 * {@link DiskCache.Loader} writing fixed content, counting the number of times it is used.
+	 */
+	private static final class CountingLoader implements DiskCache.Loader {
+
+		/** The content to write. */
+		private final String content;
+
+		/** The number of times the loader has been used. */
+		private final AtomicInteger count = new AtomicInteger();
+
+		/**
+		 * @param content The content to write
+		 */
+		private CountingLoader(final String content) {
+			this.content = content;
+		}
+
+		@Override
+		public void load(final OutputStream out) throws IOException {
+			count.incrementAndGet();
+			out.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import mockit.Delegate;
+import mockit.Expectations;
+import mockit.Mocked;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sonoport.freesound.FreesoundClient;
+import com.sonoport.freesound.query.sound.SoundImageQuery;
+import com.sonoport.freesound.response.Response;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * Unit tests to ensure the correct operation of {@link ImageCache}.
+ */
+public class ImageCacheTest {
+
+	/** Directory holding the disk tier of the cache under test. */
+	private Path directory;
+
+	/**
+	 * Create an empty directory to hold the disk tier.
+	 *
+	 * @throws Exception Any exceptions thrown
+	 */
+	@Before
+	public void createDirectory() throws Exception {
+		directory = Files.createTempDirectory("image-cache");
+	}
+
+	/**
+	 * Remove the directory holding the disk tier, and everything in it.
+	 *
+	 * @throws Exception Any exceptions thrown
+	 */
+	@After
+	public void removeDirectory() throws Exception {
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes)
+					throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(final Path dir, final IOException e) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Ensure that an image is downloaded once, and then served from memory without touching the disk tier.
+	 *
+	 * @param mockClient Mock {@link FreesoundClient}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void serveFromMemory(@Mocked final FreesoundClient mockClient) throws Exception {
+		final Sound sound = sound(1);
+		expectDownloads(mockClient, 1);
+
+		final ImageCache imageCache = new ImageCache(mockClient, new DiskCache(directory, 1024));
+		assertEquals("image-1", decode(imageCache.readImage(sound, ImageCache.WAVEFORM_MEDIUM)));
+
+		imageCache.getDiskCache().remove(imageURI(1));
+
+		final ByteBuffer image = imageCache.readImage(sound, ImageCache.WAVEFORM_MEDIUM);
+		assertTrue(image.isReadOnly());
+		assertEquals("image-1", decode(image));
+	}
+
+	/**
+	 * Ensure that images evicted from memory are served from the disk tier.
+	 *
+	 * @param mockClient Mock {@link FreesoundClient}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void fallBackToDisk(@Mocked final FreesoundClient mockClient) throws Exception {
+		expectDownloads(mockClient, 2);
+
+		final ImageCache imageCache = new ImageCache(mockClient, new DiskCache(directory, 1024), 10);
+		imageCache.readImage(sound(1), ImageCache.WAVEFORM_MEDIUM);
+		imageCache.readImage(sound(2), ImageCache.WAVEFORM_MEDIUM);
+
+		assertFalse(imageCache.isInMemory(sound(1), ImageCache.WAVEFORM_MEDIUM));
+		assertTrue(imageCache.isInMemory(sound(2), ImageCache.WAVEFORM_MEDIUM));
+		assertEquals(7, imageCache.getMemoryBytes());
+
+		assertEquals("image-1", decode(imageCache.readImage(sound(1), ImageCache.WAVEFORM_MEDIUM)));
+		assertTrue(imageCache.isInMemory(sound(1), ImageCache.WAVEFORM_MEDIUM));
+	}
+
+	/**
+	 * Ensure that the images for a page of sounds are retrieved in parallel, skipping sounds without the image.
+	 *
+	 * @param mockClient Mock {@link FreesoundClient}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void prefetchPage(@Mocked final FreesoundClient mockClient) throws Exception {
+		final Sound withoutImages = new Sound();
+		withoutImages.setId(Integer.valueOf(3));
+		expectDownloads(mockClient, 2);
+
+		final ImageCache imageCache = new ImageCache(mockClient, new DiskCache(directory, 1024));
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			final Map<Integer, Future<ByteBuffer>> images = imageCache.prefetch(
+					Arrays.asList(sound(1), sound(2), withoutImages), ImageCache.WAVEFORM_MEDIUM, executor);
+
+			assertEquals(Arrays.asList(Integer.valueOf(1), Integer.valueOf(2)), Arrays.asList(
+					images.keySet().toArray(new Integer[0])));
+			assertEquals("image-1", decode(images.get(Integer.valueOf(1)).get(5, TimeUnit.SECONDS)));
+			assertEquals("image-2", decode(images.get(Integer.valueOf(2)).get(5, TimeUnit.SECONDS)));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Set up expectations that a given number of images are downloaded, each returning content naming the sound the
+	 * image belongs to.
+	 *
+	 * @param mockClient Mock {@link FreesoundClient}
+	 * @param downloads The number of downloads expected
+	 * @throws Exception Any exceptions thrown
+	 */
+	private static void expectDownloads(final FreesoundClient mockClient, final int downloads) throws Exception {
+		new Expectations() {
+			{
+				mockClient.executeQuery(withInstanceOf(SoundImageQuery.class));
+				result = new Delegate<Response<InputStream>>() {
+					@SuppressWarnings("unused")
+					Response<InputStream> download(final SoundImageQuery query) {
+						final String path = query.getPath();
+						final String soundId = path.substring(path.lastIndexOf('/') + 1, path.indexOf('_'));
+
+						final Response<InputStream> response = new Response<>(200, "OK");
+						response.setResults(new ByteArrayInputStream(
+								("image-" + soundId).getBytes(StandardCharsets.UTF_8)));
+						return response;
+					}
+				};
+				times = downloads;
+			}
+		};
+	}
+
+	/**
+	 * @param id Sound identifier
+	 * @return Sound with a medium waveform image
+	 */
+	private static Sound sound(final int id) {
+		final Sound sound = new Sound();
+		sound.setId(Integer.valueOf(id));
+		sound.setImages(Collections.singletonMap(ImageCache.WAVEFORM_MEDIUM, imageURI(id)));
+
+		return sound;
+	}
+
+	/**
+	 * @param id Sound identifier
+	 * @return URI of the medium waveform image of the sound
+	 */
+	private static String imageURI(final int id) {
+		return String.format("https://www.freesound.org/data/displays/0/%d_1_wave_M.png", id);
+	}
+
+	/**
+	 * @param image Encoded image
+	 * @return The image content as a string
+	 */
+	private static String decode(final ByteBuffer image) {
+		return StandardCharsets.UTF_8.decode(image).toString();
+	}
+}
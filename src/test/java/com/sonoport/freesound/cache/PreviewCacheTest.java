@@ -0,0 +1,168 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+
+import mockit.Expectations;
+import mockit.Mocked;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sonoport.freesound.FreesoundClient;
+import com.sonoport.freesound.FreesoundClientException;
+import com.sonoport.freesound.query.sound.SoundPreviewQuery;
+import com.sonoport.freesound.response.Response;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * Unit tests to ensure the correct operation of {@link PreviewCache}.
+ */
+public class PreviewCacheTest {
+
+	/** URI of the preview used in tests. */
+	private static final String PREVIEW_URI = "https://www.freesound.org/data/previews/42/42937_50975-hq.mp3";
+
+	/** Directory holding the cache under test. */
+	private Path directory;
+
+	/** Sound used in tests. */
+	private Sound sound;
+
+	/**
+	 * Create an empty directory to hold the cache, and a sound with a single preview.
+	 *
+	 * @throws Exception Any exceptions thrown
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("preview-cache");
+
+		final Map<String, String> previews = new HashMap<>();
+		previews.put(PreviewCache.PREVIEW_HQ_MP3, PREVIEW_URI);
+
+		sound = new Sound();
+		sound.setId(Integer.valueOf(42937));
+		sound.setPreviews(previews);
+	}
+
+	/**
+	 * Remove the directory holding the cache, and everything in it.
+	 *
+	 * @throws Exception Any exceptions thrown
+	 */
+	@After
+	public void removeDirectory() throws Exception {
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes)
+					throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(final Path dir, final IOException e) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Ensure that a preview is downloaded once, and served from the cache on subsequent requests.
+	 *
+	 * @param mockClient Mock {@link FreesoundClient}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void downloadPreviewOnce(@Mocked final FreesoundClient mockClient) throws Exception {
+		final Response<InputStream> response = new Response<>(200, "OK");
+		response.setResults(new ByteArrayInputStream("ID3".getBytes(StandardCharsets.UTF_8)));
+
+		new Expectations() {
+			{
+				mockClient.executeQuery(withInstanceOf(SoundPreviewQuery.class)); result = response; times = 1;
+			}
+		};
+
+		final PreviewCache previewCache = new PreviewCache(mockClient, new DiskCache(directory, 1024));
+
+		assertEquals("ID3", StandardCharsets.UTF_8.decode(
+				previewCache.readPreview(sound, PreviewCache.PREVIEW_HQ_MP3)).toString());
+		assertTrue(previewCache.isCached(sound, PreviewCache.PREVIEW_HQ_MP3));
+
+		try (InputStream preview = previewCache.openPreview(sound, PreviewCache.PREVIEW_HQ_MP3)) {
+			assertEquals('I', preview.read());
+		}
+	}
+
+	/**
+	 * Ensure that error responses from the API are reported to the caller, and nothing is cached.
+	 *
+	 * @param mockClient Mock {@link FreesoundClient}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void errorResponseNotCached(@Mocked final FreesoundClient mockClient) throws Exception {
+		final Response<InputStream> response = new Response<>(404, "Not Found");
+		response.setErrorDetails("Not found");
+
+		new Expectations() {
+			{
+				mockClient.executeQuery(withInstanceOf(SoundPreviewQuery.class)); result = response;
+			}
+		};
+
+		final PreviewCache previewCache = new PreviewCache(mockClient, new DiskCache(directory, 1024));
+
+		try {
+			previewCache.readPreview(sound, PreviewCache.PREVIEW_HQ_MP3);
+			fail("Expected FreesoundClientException");
+		} catch (final FreesoundClientException e) {
+			assertTrue(e.getMessage().contains(PREVIEW_URI));
+		}
+
+		assertEquals(0, previewCache.getDiskCache().getEntryCount());
+	}
+
+	/**
+	 * Ensure that requests for a preview the sound does not have are rejected.
+	 *
+	 * @param mockClient Mock {@link FreesoundClient}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownPreview(@Mocked final FreesoundClient mockClient) throws Exception {
+		new PreviewCache(mockClient, new DiskCache(directory, 1024)).readPreview(sound, PreviewCache.PREVIEW_LQ_OGG);
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.index;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import mockit.Expectations;
+import mockit.Mocked;
+
+import org.junit.Test;
+
+import com.sonoport.freesound.FreesoundClient;
+import com.sonoport.freesound.query.PageSnapshot;
+import com.sonoport.freesound.query.search.TextSearch;
+import com.sonoport.freesound.response.PagingResponse;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * Unit tests to ensure the correct operation of {@link GeoIndex}.
+ */
+public class GeoIndexTest {
+
+	/**
+	 * Ensure that bounding box queries return the sounds within the box, including boxes crossing the 180th meridian.
+	 */
+	@Test
+	public void boundingBox() {
+		final GeoIndex index = new GeoIndex();
+		index.add(1, 51.5074, -0.1278);
+		index.add(2, 48.8566, 2.3522);
+		index.add(3, 40.7128, -74.0060);
+		index.add(4, -17.7134, 178.0650);
+		index.add(5, -14.2756, -170.7020);
+
+		assertArrayEquals(new int[] {1, 2}, index.withinBoundingBox(45, -5, 55, 5));
+		assertArrayEquals(new int[] {4, 5}, index.withinBoundingBox(-20, 170, -10, -165));
+		assertArrayEquals(new int[0], index.withinBoundingBox(0, 0, 10, 10));
+	}
+
+	/**
+	 * Ensure that radius queries return the sounds within the given distance, closest first.
+	 */
+	@Test
+	public void withinRadius() {
+		final GeoIndex index = new GeoIndex();
+		index.add(1, 51.5074, -0.1278);
+		index.add(2, 48.8566, 2.3522);
+		index.add(3, 40.7128, -74.0060);
+
+		final List<Neighbour> results = index.withinRadius(50.0, 1.0, 250);
+
+		assertEquals(2, results.size());
+		assertEquals(2, results.get(0).getSoundId());
+		assertEquals(1, results.get(1).getSoundId());
+
+		// London to Paris is roughly 344km
+		assertEquals(343.5, GeoIndex.distanceKm(51.5074, -0.1278, 48.8566, 2.3522), 1.0);
+	}
+
+	/**
+	 * Ensure that radius and nearest neighbour queries agree with an exhaustive search over randomly placed sounds.
+	 */
+	@Test
+	public void matchesExhaustiveSearch() {
+		final Random random = new Random(42);
+		final GeoIndex index = new GeoIndex(2.5);
+		final double[][] locations = new double[2000][];
+		for (int i = 0; i < locations.length; i++) {
+			locations[i] = new double[] {(random.nextDouble() * 170) - 85, (random.nextDouble() * 360) - 180};
+			index.add(i, locations[i][0], locations[i][1]);
+		}
+
+		final double latitude = 10.0;
+		final double longitude = 179.5;
+		final List<Neighbour> expected = new ArrayList<>();
+		for (int i = 0; i < locations.length; i++) {
+			final double distance = GeoIndex.distanceKm(latitude, longitude, locations[i][0], locations[i][1]);
+			expected.add(new Neighbour(i, (float) distance));
+		}
+		Collections.sort(expected);
+
+		assertEquals(expected.subList(0, 10), index.nearest(latitude, longitude, 10));
+
+		int withinRadius = 0;
+		while (expected.get(withinRadius).getDistance() <= 1500) {
+			withinRadius++;
+		}
+		assertEquals(expected.subList(0, withinRadius), index.withinRadius(latitude, longitude, 1500));
+	}
+
+	/**
+	 * Ensure that sounds can be moved and removed, and that sounds without a location are not added.
+	 */
+	@Test
+	public void addAndRemoveSounds() {
+		final GeoIndex index = new GeoIndex();
+
+		final Sound located = new Sound();
+		located.setId(Integer.valueOf(1));
+		located.setLocation(1.5, 1.5);
+
+		final Sound unlocated = new Sound();
+		unlocated.setId(Integer.valueOf(2));
+
+		assertEquals(1, index.addAll(Arrays.asList(located, unlocated)));
+		index.add(1, -30, 100);
+
+		assertEquals(1, index.size());
+		assertArrayEquals(new int[0], index.withinBoundingBox(0, 0, 2, 2));
+		assertArrayEquals(new int[] {1}, index.withinBoundingBox(-31, 99, -29, 101));
+
+		assertTrue(index.remove(1));
+		assertFalse(index.remove(1));
+		assertEquals(0, index.size());
+	}
+
+	/**
+	 * Ensure that all pages of results from a query are added to the index.
+	 *
+	 * @param mockClient Mock {@link FreesoundClient}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void seedFromQuery(@Mocked final FreesoundClient mockClient) throws Exception {
+		final TextSearch query = new TextSearch("birds");
+
+		final Sound first = new Sound();
+		first.setId(Integer.valueOf(10));
+		first.setLocation(41.3851, 2.1734);
+
+		final Sound second = new Sound();
+		second.setId(Integer.valueOf(11));
+
+		final PagingResponse<Sound> firstPage = new PagingResponse<>(200, "OK");
+		firstPage.setResults(Arrays.asList(first));
+		firstPage.setNextPageURI("https://www.freesound.org/apiv2/search/text/?page=2");
+
+		final PagingResponse<Sound> secondPage = new PagingResponse<>(200, "OK");
+		secondPage.setResults(Arrays.asList(second));
+
+		new Expectations() {
+			{
+				@SuppressWarnings("unchecked")
+				final PageSnapshot<Sound> anyPage = withInstanceOf(PageSnapshot.class);
+				mockClient.executeQuery(anyPage); result = firstPage; result = secondPage;
+			}
+		};
+
+		final GeoIndex index = new GeoIndex();
+		assertEquals(1, index.seed(mockClient, query));
+		assertEquals(10, index.nearest(0, 0, 1).get(0).getSoundId());
+	}
+
+	/**
+	 * Ensure that invalid coordinates are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectInvalidLatitude() {
+		new GeoIndex().add(1, 90.5, 0);
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests to ensure the correct operation of {@link PostingList}.
+ */
+public class PostingListTest {
+
+	/**
+	 * Ensure that postings are read back in the order written, and that small gaps are compactly encoded.
+	 */
+	@Test
+	public void postingsRoundTrip() {
+		final PostingList postingList = new PostingList();
+		for (int document = 0; document < 1000; document++) {
+			postingList.add(document * 3, (document % 5) + 1);
+		}
+		postingList.add(1000000, 300);
+
+		final PostingList.Cursor cursor = postingList.cursor();
+		for (int document = 0; document < 1000; document++) {
+			assertTrue(cursor.next());
+			assertEquals(document * 3, cursor.document());
+			assertEquals((document % 5) + 1, cursor.frequency());
+		}
+		assertTrue(cursor.next());
+		assertEquals(1000000, cursor.document());
+		assertEquals(300, cursor.frequency());
+		assertFalse(cursor.next());
+
+		assertEquals(1001, postingList.getDocumentFrequency());
+		assertEquals(2005, postingList.getEncodedLength());
+	}
+
+	/**
+	 * Ensure that superseded documents are no longer counted in the document frequency, but keep their postings.
+	 */
+	@Test
+	public void supersededDocumentsNotCounted() {
+		final PostingList postingList = new PostingList();
+		postingList.add(1, 1);
+		postingList.add(4, 2);
+
+		assertEquals(1, postingList.supersede());
+		assertEquals(0, postingList.supersede());
+		assertEquals(0, postingList.getDocumentFrequency());
+		assertTrue(postingList.cursor().next());
+	}
+
+	/**
+	 * Ensure that documents must be added in ascending order.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectOutOfOrderDocument() {
+		final PostingList postingList = new PostingList();
+		postingList.add(5, 1);
+		postingList.add(5, 1);
+	}
+}
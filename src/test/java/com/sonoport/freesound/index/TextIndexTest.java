@@ -0,0 +1,247 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sonoport.freesound.License;
+import com.sonoport.freesound.query.search.FilterExpression;
+import com.sonoport.freesound.query.search.NumericField;
+import com.sonoport.freesound.query.search.SortOrder;
+import com.sonoport.freesound.query.search.TextSearch;
+import com.sonoport.freesound.response.PagingResponse;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * Unit tests to ensure the correct operation of {@link TextIndex}.
+ */
+public class TextIndexTest {
+
+	/** Index under test. */
+	private TextIndex index;
+
+	/**
+	 * Populate the index with a small set of sounds.
+	 */
+	@Before
+	public void populateIndex() {
+		index = new TextIndex();
+
+		index.add(sound(1, "Electric drill", "Electric drill drilling into metal, drill bit slipping", "alice", 2.0f,
+				100, License.CC_0, "drill", "metal"));
+		index.add(sound(2, "Dog barking", "A small dog barking in the garden", "bob", 5.0f, 10,
+				License.CC_ATTRIBUTION, "dog", "animal"));
+		index.add(sound(3, "Hand drill", "Slow hand drill on wood", "carol", 8.0f, 50,
+				License.CC_0, "drill", "wood"));
+		index.add(sound(4, "Drum loop", "Drum loop at 120bpm", "alice", null, null, null, "drum", "loop"));
+	}
+
+	/**
+	 * Ensure that matches are ranked by BM25 score, with more frequent occurrences of a term ranked higher.
+	 */
+	@Test
+	public void rankByScore() {
+		final PagingResponse<Sound> response = index.search(new TextSearch("drill"));
+
+		assertEquals(2, response.getCount());
+		assertEquals(Arrays.asList(1, 3), ids(response));
+		assertFalse(response.hasNextPage());
+	}
+
+	/**
+	 * Ensure that every term of the search string must be present, and terms prefixed with '-' must be absent.
+	 */
+	@Test
+	public void requiredAndExcludedTerms() {
+		assertEquals(Arrays.asList(3), ids(index.search(new TextSearch("Drill WOOD"))));
+		assertEquals(Arrays.asList(1), ids(index.search(new TextSearch("drill -wood"))));
+		assertEquals(Arrays.asList(4, 1), ids(index.search(new TextSearch("alice"))));
+		assertTrue(ids(index.search(new TextSearch("drill unknown"))).isEmpty());
+	}
+
+	/**
+	 * Ensure that the filters of a search are applied locally.
+	 */
+	@Test
+	public void filtersApplied() {
+		assertEquals(Arrays.asList(3), ids(index.search(new TextSearch("drill").filter(FilterExpression.tag("wood")))));
+		assertEquals(Arrays.asList(1, 3),
+				ids(index.search(new TextSearch().filter(FilterExpression.license(License.CC_0)))));
+		assertEquals(Arrays.asList(2, 3), ids(index.search(new TextSearch()
+				.filter(FilterExpression.range(NumericField.DURATION, 4, null)))));
+		assertEquals(Arrays.asList(1, 2), ids(index.search(new TextSearch()
+				.filter(FilterExpression.or(FilterExpression.term("username", "bob"),
+						FilterExpression.and(FilterExpression.tag("metal"), FilterExpression.not(
+								FilterExpression.tag("wood"))))))));
+		assertEquals(Arrays.asList(1), ids(index.search(new TextSearch()
+				.filter(FilterExpression.geoDistance(41.0, 2.0, 10)))));
+	}
+
+	/**
+	 * Ensure that results follow the sort order of the search, with sounds missing the sort value placed last.
+	 */
+	@Test
+	public void sortOrders() {
+		assertEquals(Arrays.asList(3, 2, 1, 4),
+				ids(index.search(new TextSearch().sortOrder(SortOrder.DURATION_DESCENDING))));
+		assertEquals(Arrays.asList(1, 2, 3, 4),
+				ids(index.search(new TextSearch().sortOrder(SortOrder.DURATION_ASCENDING))));
+		assertEquals(Arrays.asList(1, 3, 2, 4),
+				ids(index.search(new TextSearch().sortOrder(SortOrder.DOWNLOADS_DESCENDING))));
+		assertEquals(Arrays.asList(4, 3, 2, 1),
+				ids(index.search(new TextSearch().sortOrder(SortOrder.CREATED_DESCENDING))));
+	}
+
+	/**
+	 * Ensure that the page and page size of the search are respected.
+	 */
+	@Test
+	public void paging() {
+		final TextSearch query = new TextSearch().sortOrder(SortOrder.DURATION_ASCENDING).pageSize(3);
+
+		final PagingResponse<Sound> firstPage = index.search(query);
+		assertEquals(4, firstPage.getCount());
+		assertEquals(Arrays.asList(1, 2, 3), ids(firstPage));
+		assertTrue(firstPage.hasNextPage());
+		assertFalse(firstPage.hasPreviousPage());
+
+		final PagingResponse<Sound> secondPage = index.search(query.page(2));
+		assertEquals(Arrays.asList(4), ids(secondPage));
+		assertFalse(secondPage.hasNextPage());
+		assertTrue(secondPage.hasPreviousPage());
+	}
+
+	/**
+	 * Ensure that replaced and removed sounds no longer match, including after the index has been compacted.
+	 */
+	@Test
+	public void replaceAndRemove() {
+		index.add(sound(1, "Cordless screwdriver", null, "alice", 1.0f, 1, License.CC_0));
+		assertEquals(Arrays.asList(3), ids(index.search(new TextSearch("drill"))));
+
+		assertTrue(index.remove(3));
+		assertFalse(index.remove(3));
+		assertTrue(ids(index.search(new TextSearch("drill"))).isEmpty());
+
+		for (int i = 0; i < 3000; i++) {
+			index.add(sound(100, "Version " + i, null, "dave", 1.0f, i, License.CC_0));
+		}
+		assertEquals(4, index.size());
+		assertEquals(Arrays.asList(100), ids(index.search(new TextSearch("2999"))));
+		assertTrue(ids(index.search(new TextSearch("1500"))).isEmpty());
+
+		// Superseded versions keep their terms only until the index is compacted
+		assertTrue(index.getTermCount() < 1100);
+	}
+
+	/**
+	 * Ensure that completions are restricted to the prefix and ordered by how common the term is.
+	 */
+	@Test
+	public void completion() {
+		assertEquals(Arrays.asList("drill", "drilling", "drum"), index.complete("Dr", 5));
+		assertEquals(Arrays.asList("drill"), index.complete("dr", 1));
+		assertTrue(index.complete("zz", 5).isEmpty());
+	}
+
+	/**
+	 * Ensure that completions count only the sounds currently held, so replacing sounds does not inflate their terms,
+	 * and terms found only in removed sounds are not suggested.
+	 */
+	@Test
+	public void completionIgnoresSupersededSounds() {
+		for (int i = 0; i < 3; i++) {
+			index.add(sound(4, "Drum loop", "Drum loop at 120bpm", "alice", null, null, null, "drum", "loop"));
+		}
+		assertEquals(Arrays.asList("drill", "drilling", "drum"), index.complete("dr", 5));
+
+		index.remove(3);
+		assertTrue(index.complete("wo", 5).isEmpty());
+		assertTrue(ids(index.search(new TextSearch("wood"))).isEmpty());
+	}
+
+	/**
+	 * Ensure that fields which cannot be evaluated locally are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void unsupportedFilterField() {
+		index.search(new TextSearch().filter(FilterExpression.term("md5", "abc")));
+	}
+
+	/**
+	 * @param response A search response
+	 * @return The identifiers of the sounds in the response, in order
+	 */
+	private static List<Integer> ids(final PagingResponse<Sound> response) {
+		final List<Integer> ids = new ArrayList<>();
+		for (final Sound sound : response.getResults()) {
+			ids.add(sound.getId());
+		}
+
+		return ids;
+	}
+
+	/**
+	 * Build a {@link Sound} with the fields used in these tests.
+	 *
+	 * @param id Sound identifier
+	 * @param name Name
+	 * @param description Description
+	 * @param username Uploader
+	 * @param duration Duration
+	 * @param downloads Number of downloads
+	 * @param license License
+	 * @param tags Tags
+	 * @return The sound
+	 */
+	private static Sound sound(
+			final int id,
+			final String name,
+			final String description,
+			final String username,
+			final Float duration,
+			final Integer downloads,
+			final License license,
+			final String... tags) {
+		final Sound sound = new Sound();
+		sound.setId(Integer.valueOf(id));
+		sound.setName(name);
+		sound.setDescription(description);
+		sound.setUsername(username);
+		sound.setDuration(duration);
+		sound.setNumberOfDownloads(downloads);
+		sound.setLicense(license);
+		sound.setTags(new HashSet<>(Arrays.asList(tags)));
+		sound.setCreated(new Date(id * 1000L));
+		if (id == 1) {
+			sound.setLocation(41.0, 2.0);
+		}
+
+		return sound;
+	}
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.index;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.sonoport.freesound.response.SoundAnalysis;
+
+/**
+ * Unit tests to ensure the correct operation of {@link VectorIndex}.
+ */
+public class VectorIndexTest {
+
+	/** Dimension of the vectors used in tests. */
+	private static final int DIMENSION = 4;
+
+	/**
+	 * Ensure that an untrained index returns exact nearest neighbours, closest first.
+	 */
+	@Test
+	public void exactSearchBeforeTraining() {
+		final VectorIndex index = new VectorIndex(2);
+		index.add(1, new float[] {0, 0});
+		index.add(2, new float[] {1, 1});
+		index.add(3, new float[] {5, 5});
+
+		final List<Neighbour> results = index.search(new float[] {0.9f, 0.9f}, 2);
+
+		assertEquals(2, results.size());
+		assertEquals(2, results.get(0).getSoundId());
+		assertEquals(1, results.get(1).getSoundId());
+		assertEquals(0.02f, results.get(0).getDistance(), 0.0001f);
+	}
+
+	/**
+	 * Ensure that adding a vector for a sound already held replaces the existing vector.
+	 */
+	@Test
+	public void addReplacesExistingVector() {
+		final VectorIndex index = new VectorIndex(2);
+		index.add(1, new float[] {0, 0});
+		index.add(1, new float[] {3, 3});
+
+		assertEquals(1, index.size());
+		assertArrayEquals(new float[] {3, 3}, index.getVector(1), 0f);
+	}
+
+	/**
+	 * Ensure that similar sound searches exclude the sound itself, and report sounds not held.
+	 */
+	@Test
+	public void searchSimilar() {
+		final VectorIndex index = new VectorIndex(2);
+		index.add(1, new float[] {0, 0});
+		index.add(2, new float[] {1, 1});
+
+		final List<Neighbour> results = index.searchSimilar(1, 5);
+		assertEquals(1, results.size());
+		assertEquals(2, results.get(0).getSoundId());
+
+		assertNull(index.searchSimilar(99, 5));
+	}
+
+	/**
+	 * Ensure that vectors are taken from a {@link SoundAnalysis}.
+	 */
+	@Test
+	public void addFromAnalysis() {
+		final SoundAnalysis soundAnalysis = new SoundAnalysis();
+		soundAnalysis.setVector("lowlevel.mfcc.mean", new float[] {1, 2});
+
+		final VectorIndex index = new VectorIndex(2);
+		assertTrue(index.add(7, soundAnalysis, "lowlevel.mfcc.mean"));
+		assertFalse(index.add(8, soundAnalysis, "lowlevel.barkbands.mean"));
+		assertEquals(1, index.size());
+	}
+
+	/**
+	 * Ensure that vectors of the wrong dimension are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongDimension() {
+		new VectorIndex(DIMENSION).add(1, new float[] {1, 2});
+	}
+
+	/**
+	 * Ensure that a trained index finds the nearest neighbours of well separated clusters, including vectors added
+	 * after training.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void searchAfterTraining() throws Exception {
+		final VectorIndex index = clusteredIndex();
+		index.train(4, 10);
+		index.setProbes(1);
+
+		assertTrue(index.isTrained());
+		assertEquals(400, index.size());
+
+		index.add(1000, new float[] {30.1f, 30.1f, 30.1f, 30.1f});
+
+		final List<Neighbour> results = index.search(new float[] {30, 30, 30, 30}, 5);
+		assertEquals(5, results.size());
+		for (final Neighbour neighbour : results) {
+			assertTrue((neighbour.getSoundId() >= 300) || (neighbour.getSoundId() == 1000));
+		}
+	}
+
+	/**
+	 * Ensure that an index can be written to and read back from a file.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void saveAndLoad() throws Exception {
+		final VectorIndex index = clusteredIndex();
+		index.train(4, 5);
+		index.setProbes(2);
+
+		final Path file = Files.createTempFile("vector-index", ".bin");
+		try {
+			index.save(file);
+			final VectorIndex loaded = VectorIndex.load(file);
+
+			assertEquals(index.size(), loaded.size());
+			assertEquals(DIMENSION, loaded.getDimension());
+			assertEquals(2, loaded.getProbes());
+			assertTrue(loaded.isTrained());
+			assertArrayEquals(index.getVector(123), loaded.getVector(123), 0f);
+			assertEquals(
+					index.search(new float[] {10, 10, 10, 10}, 3),
+					loaded.search(new float[] {10, 10, 10, 10}, 3));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Ensure that a truncated index file is rejected, rather than failing part way through being read.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void rejectTruncatedFile() throws Exception {
+		final VectorIndex index = clusteredIndex();
+		index.train(4, 5);
+
+		final Path file = Files.createTempFile("vector-index", ".bin");
+		try {
+			index.save(file);
+			final byte[] content = Files.readAllBytes(file);
+
+			for (final int length : new int[] {30, content.length - 4}) {
+				Files.write(file, Arrays.copyOf(content, length));
+				try {
+					VectorIndex.load(file);
+					fail(String.format("Index truncated to %d bytes should have been rejected", length));
+				} catch (final IOException e) {
+					// Expected
+				}
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Build an index of 400 vectors in four well separated clusters, with sound identifiers 0-99 in the first cluster,
+	 * 100-199 in the second and so on.
+	 *
+	 * @return The index
+	 */
+	private static VectorIndex clusteredIndex() {
+		final Random random = new Random(42);
+		final VectorIndex index = new VectorIndex(DIMENSION);
+		for (int id = 0; id < 400; id++) {
+			final float centre = (id / 100) * 10;
+			final float[] vector = new float[DIMENSION];
+			for (int d = 0; d < DIMENSION; d++) {
+				vector[d] = centre + random.nextFloat();
+			}
+			index.add(id, vector);
+		}
+
+		return index;
+	}
+}
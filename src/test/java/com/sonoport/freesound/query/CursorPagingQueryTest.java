@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Unit tests to ensure that common code associated with queries whose results are paged using a cursor operates
+ * correctly.
+ *
+ * @param <R> The data type returned in the list of results
+ * @param <T> The subclass of {@link CursorPagingQuery} under test
+ */
+public abstract class CursorPagingQueryTest<R extends Object, T extends CursorPagingQuery<T, R>>
+		extends JSONResponseQueryTest<T> {
+
+	/** Cursor URI to use in tests. */
+	private static final String CURSOR =
+			"https://www.freesound.org/apiv2/search/combined/?page_size=3&more_from=abc%3D1&query=piano+keys";
+
+	/**
+	 * Ensure that the Fluent API method correctly populates the page size.
+	 */
+	@Test
+	public void fluentAPICorrectlyPopulatesPageSize() {
+		final T query = newQueryInstance();
+		query.pageSize(50);
+
+		assertEquals(50, query.getPageSize());
+		assertEquals(Integer.valueOf(50), query.getQueryParameters().get("page_size"));
+	}
+
+	/**
+	 * Ensure that we cannot set the page size to a value larger than the maximum specified by the API.
+	 */
+	@Test (expected = IllegalArgumentException.class)
+	public void cannotSetPageSizeLargerThanMaximum() {
+		newQueryInstance().pageSize(PagingQuery.MAXIMUM_PAGE_SIZE + 1);
+	}
+
+	/**
+	 * Ensure that we cannot specify a page size less than 1.
+	 */
+	@Test (expected = IllegalArgumentException.class)
+	public void cannotSetPageSizeLessThanOne() {
+		newQueryInstance().pageSize(0);
+	}
+
+	/**
+	 * Ensure that the parameters of a cursor are decoded and included in the query parameters, without overriding the
+	 * page size specified on the query.
+	 */
+	@Test
+	public void cursorParametersIncluded() {
+		final T query = newQueryInstance();
+		assertFalse(query.isFollowingCursor());
+
+		query.pageSize(10).setCursor(CURSOR);
+		assertTrue(query.isFollowingCursor());
+
+		final Map<String, Object> params = query.getQueryParameters();
+		assertEquals("abc=1", params.get("more_from"));
+		assertEquals(Integer.valueOf(10), params.get("page_size"));
+	}
+
+	/**
+	 * Ensure that clearing the cursor returns the query to the first page.
+	 */
+	@Test
+	public void cursorCleared() {
+		final T query = newQueryInstance();
+		query.setCursor(CURSOR);
+		query.setCursor(null);
+
+		assertFalse(query.isFollowingCursor());
+		assertFalse(query.getQueryParameters().containsKey("more_from"));
+	}
+
+	/**
+	 * Ensure that a snapshot at a cursor includes the parameters of the cursor, without overriding the page size of the
+	 * query, and leaves the query itself unchanged.
+	 */
+	@Test
+	public void snapshotAtCursor() {
+		final T query = newQueryInstance();
+		query.pageSize(10);
+
+		final CursorSnapshot<R> snapshot = query.atCursor(CURSOR);
+		query.pageSize(20);
+
+		assertFalse(query.isFollowingCursor());
+		assertEquals(CURSOR, snapshot.getMoreResultsURI());
+		assertEquals(10, snapshot.getPageSize());
+		assertEquals("abc=1", snapshot.getQueryParameters().get("more_from"));
+		assertEquals(Integer.valueOf(10), snapshot.getQueryParameters().get("page_size"));
+		assertEquals(query.getPath(), snapshot.getPath());
+	}
+
+	/**
+	 * Ensure that a snapshot at a cursor replaces the parameters of any cursor the query was following, including in
+	 * snapshots derived from it.
+	 */
+	@Test
+	public void snapshotReplacesCursor() {
+		final T query = newQueryInstance();
+		query.setCursor(CURSOR);
+
+		final CursorSnapshot<R> snapshot = query.atCursor(CURSOR.replace("abc%3D1", "def"));
+		final CursorSnapshot<R> derived = snapshot.atCursor(CURSOR.replace("abc%3D1", "ghi"));
+
+		assertEquals("def", snapshot.getQueryParameters().get("more_from"));
+		assertEquals("ghi", derived.getQueryParameters().get("more_from"));
+		assertEquals("abc=1", query.getQueryParameters().get("more_from"));
+	}
+
+	/**
+	 * Ensure that the parameters of a cursor snapshot cannot be modified.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void snapshotParametersUnmodifiable() {
+		newQueryInstance().atCursor(CURSOR).getQueryParameters().put("more_from", "def");
+	}
+
+	/**
+	 * Ensure that invalid cursors are rejected.
+	 */
+	@Test (expected = IllegalArgumentException.class)
+	public void invalidCursor() {
+		newQueryInstance().setCursor("not a uri");
+	}
+}
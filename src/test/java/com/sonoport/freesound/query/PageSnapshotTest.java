@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.sonoport.freesound.query.search.SortOrder;
+import com.sonoport.freesound.query.search.TextSearch;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * Unit tests to ensure the correct operation of {@link PageSnapshot}.
+ */
+public class PageSnapshotTest {
+
+	/**
+	 * Ensure that a snapshot captures the parameters of the query at the time it is taken, and is unaffected by later
+	 * changes to the query.
+	 */
+	@Test
+	public void snapshotIsolatedFromQuery() {
+		final TextSearch query = new TextSearch("drill").sortOrder(SortOrder.DURATION_DESCENDING).pageSize(50);
+		final PageSnapshot<Sound> snapshot = query.atPage(3);
+
+		query.searchString("hammer").page(7);
+
+		assertEquals(3, snapshot.getPage());
+		assertEquals(50, snapshot.getPageSize());
+		assertEquals("drill", snapshot.getQueryParameters().get("query"));
+		assertEquals(Integer.valueOf(3), snapshot.getQueryParameters().get(PagingQuery.PAGE_PARAMETER));
+		assertEquals(query.getPath(), snapshot.getPath());
+		assertEquals(7, query.getPage());
+	}
+
+	/**
+	 * Ensure that snapshots of other pages are derived from the captured parameters, sharing them where possible.
+	 */
+	@Test
+	public void derivePages() {
+		final TextSearch query = new TextSearch("drill");
+		final PageSnapshot<Sound> first = query.snapshot();
+		query.searchString("hammer");
+
+		final PageSnapshot<Sound> second = first.nextPage();
+		final Map<String, Object> parameters = second.getQueryParameters();
+
+		assertEquals(2, second.getPage());
+		assertEquals("drill", parameters.get("query"));
+		assertEquals(Integer.valueOf(2), parameters.get(PagingQuery.PAGE_PARAMETER));
+		assertEquals(Integer.valueOf(1), first.getQueryParameters().get(PagingQuery.PAGE_PARAMETER));
+		assertEquals(1, second.previousPage().getPage());
+
+		assertNotSame(first.getQueryParameters(), parameters);
+		assertSame(parameters, second.getQueryParameters());
+		assertSame(first.getRouteParameters(), second.getRouteParameters());
+	}
+
+	/**
+	 * Ensure that snapshots, and pages derived from them, keep the priority the query had when the snapshot was taken.
+	 */
+	@Test
+	public void snapshotKeepsPriority() {
+		final TextSearch query = new TextSearch("drill");
+		query.setPriority(Priority.BATCH);
+		final PageSnapshot<Sound> snapshot = query.snapshot();
+
+		query.setPriority(Priority.INTERACTIVE);
+
+		assertEquals(Priority.BATCH, snapshot.getPriority());
+		assertEquals(Priority.BATCH, snapshot.nextPage().getPriority());
+	}
+
+	/**
+	 * Ensure that a parameter can be replaced in a derived snapshot, leaving the query and the original snapshot as
+	 * they were, and that the replacement carries over to other pages.
+	 */
+	@Test
+	public void replaceParameter() {
+		final TextSearch query = new TextSearch("drill").sortOrder(SortOrder.DURATION_DESCENDING);
+		final PageSnapshot<Sound> snapshot = query.atPage(2);
+
+		final PageSnapshot<Sound> newest = query.snapshot(SortOrder.CREATED_DESCENDING).atPage(2);
+		final PageSnapshot<Sound> renamed = snapshot.withQueryParameter("query", "hammer");
+
+		assertEquals("created_desc", newest.getQueryParameters().get("sort"));
+		assertEquals("created_desc", newest.nextPage().getQueryParameters().get("sort"));
+		assertEquals("hammer", renamed.getQueryParameters().get("query"));
+		assertEquals(Integer.valueOf(2), renamed.getQueryParameters().get(PagingQuery.PAGE_PARAMETER));
+		assertEquals("drill", snapshot.getQueryParameters().get("query"));
+		assertEquals(SortOrder.DURATION_DESCENDING, query.getSortOrder());
+	}
+
+	/**
+	 * Ensure that the parameters of a snapshot cannot be modified.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void parametersUnmodifiable() {
+		new TextSearch("drill").snapshot().getQueryParameters().put(PagingQuery.PAGE_PARAMETER, Integer.valueOf(5));
+	}
+
+	/**
+	 * Ensure that snapshots of invalid pages are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectInvalidPage() {
+		new TextSearch("drill").snapshot().previousPage();
+	}
+}
@@ -15,9 +15,12 @@
  */
 package com.sonoport.freesound.query;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -25,6 +28,8 @@ import java.util.Set;
 import org.junit.Test;
 
 import com.sonoport.freesound.response.Sound;
+import com.sonoport.freesound.response.mapping.SoundField;
+import com.sonoport.freesound.response.mapping.SoundMapper;
 
 /**
  * Unit tests to ensure the common code within {@link SoundPagingQuery} is operating correctly.
@@ -73,4 +78,28 @@ public abstract class SoundPagingQueryTest<T extends SoundPagingQuery<T>> extend
 		assertTrue(fieldsParameterValues.contains(FIELD_2));
 	}
 
+	/**
+	 * Ensure that the fields requested are passed on to the {@link SoundMapper} as its mapping plan.
+	 */
+	@Test
+	public void requestedFieldsDefineMappingPlan() {
+		final T query = newQueryInstance();
+		assertEquals(EnumSet.allOf(SoundField.class), query.getSoundMapper().getMappingPlan());
+
+		query.includeField(FIELD_1).includeFields(new HashSet<>(Arrays.asList(FIELD_2)));
+		assertEquals(EnumSet.of(SoundField.ID, SoundField.NAME), query.getSoundMapper().getMappingPlan());
+	}
+
+	/**
+	 * Ensure that requesting lazy mapping using the Fluent API configures the underlying {@link SoundMapper}.
+	 */
+	@Test
+	public void specifyLazyMappingUsingFluentAPI() {
+		final T query = newQueryInstance();
+		assertFalse(query.getSoundMapper().isLazy());
+
+		query.lazyMapping(true);
+		assertTrue(query.getSoundMapper().isLazy());
+	}
+
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.sonoport.freesound.query.CursorPagingQueryTest;
+import com.sonoport.freesound.response.CursorPagingResponse;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * Unit tests to ensure the correct operation of {@link CombinedSearch}.
+ */
+public class CombinedSearchTest extends CursorPagingQueryTest<Sound, CombinedSearch> {
+
+	/** URI of further results in test response. */
+	private static final String MORE_RESULTS_URI =
+			"https://www.freesound.org/apiv2/search/combined/?query=piano&page_size=2&more_from=abc";
+
+	/**
+	 * Test that the query parameter names and values are correctly provided when requested.
+	 */
+	@Test
+	public void correctQueryParametersCreated() {
+		final CombinedSearch query = new CombinedSearch()
+				.searchString("piano")
+				.filter(FilterExpression.tag("grand"))
+				.target(new DescriptorTarget.Builder().descriptor("lowlevel.pitch.mean", 220).build())
+				.descriptorsFilter(FilterExpression.range("lowlevel.pitch_salience.mean", 0.5, null))
+				.includeField("id");
+
+		final Map<String, Object> params = query.getQueryParameters();
+		assertEquals("piano", params.get("query"));
+		assertEquals("tag:grand", params.get("filter"));
+		assertEquals("lowlevel.pitch.mean:220", params.get("target"));
+		assertEquals("lowlevel.pitch_salience.mean:[0.5 TO *]", params.get("descriptors_filter"));
+		assertEquals("id", params.get("fields"));
+	}
+
+	/**
+	 * Test that responses are processed into a {@link CursorPagingResponse} with the cursor populated.
+	 */
+	@Test
+	public void processResponse() {
+		final JSONObject json = new JSONObject(
+				"{ \"results\": [ { \"id\": 1 }, { \"id\": 2 } ], \"more\": \"" + MORE_RESULTS_URI + "\" }");
+
+		final CursorPagingResponse<Sound> response = new CombinedSearch().processResponse(200, "OK", json);
+
+		assertTrue(response.hasMoreResults());
+		assertEquals(MORE_RESULTS_URI, response.getMoreResultsURI());
+		assertEquals(2, response.getResults().size());
+		assertEquals(Integer.valueOf(2), response.getResults().get(1).getId());
+	}
+
+	/**
+	 * Test that the last page of results is identified as having no further results.
+	 */
+	@Test
+	public void processLastResponse() {
+		final JSONObject json = new JSONObject("{ \"results\": [ { \"id\": 1 } ], \"more\": null }");
+
+		assertFalse(new CombinedSearch().processResponse(200, "OK", json).hasMoreResults());
+	}
+
+	/**
+	 * Test that no route parameters are generated for these queries.
+	 */
+	@Test
+	public void correctRouteParametersCreated() {
+		assertTrue(new CombinedSearch().getRouteParameters().isEmpty());
+	}
+
+	@Override
+	protected CombinedSearch newQueryInstance() {
+		return new CombinedSearch();
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.sonoport.freesound.query.SoundPagingQueryTest;
+
+/**
+ * Unit tests to ensure the correct operation of {@link ContentSearch}.
+ */
+public class ContentSearchTest extends SoundPagingQueryTest<ContentSearch> {
+
+	/** Target to use in tests. */
+	private static final DescriptorTarget TARGET =
+			new DescriptorTarget.Builder().descriptor("lowlevel.pitch.mean", 220).build();
+
+	/**
+	 * Test that specifying a descriptor target populates the query parameters correctly.
+	 */
+	@Test
+	public void descriptorTarget() {
+		final ContentSearch query = new ContentSearch();
+		assertSame(query, query.target(TARGET));
+
+		assertEquals("lowlevel.pitch.mean:220", query.getQueryParameters().get("target"));
+	}
+
+	/**
+	 * Test that specifying a sound as the target populates the query parameters correctly.
+	 */
+	@Test
+	public void soundTarget() {
+		final ContentSearch query = new ContentSearch().target(1234);
+
+		assertEquals("1234", query.getQueryParameters().get("target"));
+	}
+
+	/**
+	 * Test that descriptor filters are serialised in a consistent order.
+	 */
+	@Test
+	public void descriptorsFilter() {
+		final ContentSearch query = new ContentSearch(TARGET)
+				.descriptorsFilter(FilterExpression.range("lowlevel.pitch.mean", 219.9, 220.1))
+				.descriptorsFilter(FilterExpression.range("lowlevel.average_loudness", 0.5, null));
+
+		final Map<String, Object> params = query.getQueryParameters();
+		assertEquals(
+				"lowlevel.average_loudness:[0.5 TO *] lowlevel.pitch.mean:[219.9 TO 220.1]",
+				params.get("descriptors_filter"));
+	}
+
+	/**
+	 * Test that no parameters are added for elements that have not been specified.
+	 */
+	@Test
+	public void noTargetOrFilter() {
+		final Map<String, Object> params = new ContentSearch().getQueryParameters();
+
+		assertFalse(params.containsKey("target"));
+		assertFalse(params.containsKey("descriptors_filter"));
+	}
+
+	/**
+	 * Test that no route parameters are generated for these queries.
+	 */
+	@Test
+	public void correctRouteParametersCreated() {
+		assertTrue(new ContentSearch(TARGET).getRouteParameters().isEmpty());
+	}
+
+	@Override
+	protected ContentSearch newQueryInstance() {
+		return new ContentSearch();
+	}
+
+}
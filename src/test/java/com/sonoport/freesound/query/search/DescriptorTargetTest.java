@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sonoport.freesound.response.AudioDescriptors;
+
+/**
+ * Unit tests to ensure the correct operation of {@link DescriptorTarget}s.
+ */
+public class DescriptorTargetTest {
+
+	/** One-dimensional descriptor used in tests. */
+	private static final String PITCH = "lowlevel.pitch.mean";
+
+	/** Multi-dimensional descriptor used in tests. */
+	private static final String MFCC = "lowlevel.mfcc.mean";
+
+	/** The available descriptors to validate targets against. */
+	private AudioDescriptors audioDescriptors;
+
+	/**
+	 * Set up the available descriptors.
+	 */
+	@Before
+	public void createAudioDescriptors() {
+		audioDescriptors = new AudioDescriptors();
+		audioDescriptors.setFixedLengthOneDimensional(new HashSet<>(Arrays.asList(PITCH)));
+		audioDescriptors.setFixedLengthMultiDimensional(new HashSet<>(Arrays.asList(MFCC)));
+		audioDescriptors.setVariableLength(Collections.<String>emptySet());
+	}
+
+	/**
+	 * Test that targets are serialised with their descriptors in a consistent order.
+	 */
+	@Test
+	public void targetSerialisedInNameOrder() {
+		final DescriptorTarget target =
+				new DescriptorTarget.Builder().descriptor(PITCH, 220).descriptor(MFCC, new double[] {1.5, -2}).build();
+
+		assertEquals(MFCC + ":[1.5,-2] " + PITCH + ":220", target.getTargetString());
+	}
+
+	/**
+	 * Test that targets using known descriptors pass validation.
+	 */
+	@Test
+	public void validTarget() {
+		final DescriptorTarget target = new DescriptorTarget.Builder().descriptor(PITCH, 220.5).build(audioDescriptors);
+
+		assertEquals(PITCH + ":220.5", target.getTargetString());
+	}
+
+	/**
+	 * Test that targets using unknown descriptors fail validation.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownDescriptor() {
+		new DescriptorTarget.Builder().descriptor("lowlevel.unknown", 1).build(audioDescriptors);
+	}
+
+	/**
+	 * Test that targets specifying the wrong number of dimensions for a descriptor fail validation.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongDimensions() {
+		new DescriptorTarget.Builder().descriptor(MFCC, 1).build(audioDescriptors);
+	}
+
+	/**
+	 * Test that targets specifying the wrong number of values for a multi-dimensional descriptor fail validation,
+	 * while descriptors of unknown size are not checked.
+	 */
+	@Test
+	public void wrongVectorLength() {
+		final double[] mfcc = new double[13];
+		new DescriptorTarget.Builder().descriptor(MFCC, mfcc).build(audioDescriptors);
+
+		try {
+			new DescriptorTarget.Builder().descriptor(MFCC, new double[] {1.5, -2}).build(audioDescriptors);
+			fail("MFCC target of the wrong length should have been rejected");
+		} catch (final IllegalArgumentException e) {
+			// Expected
+		}
+
+		audioDescriptors.getFixedLengthMultiDimensional().add("lowlevel.unsized.mean");
+		new DescriptorTarget.Builder().descriptor("lowlevel.unsized.mean", new double[] {1, 2}).build(audioDescriptors);
+		assertEquals(-1, audioDescriptors.getDimensionCount("lowlevel.unsized.mean"));
+		assertEquals(13, audioDescriptors.getDimensionCount(MFCC));
+		assertEquals(1, audioDescriptors.getDimensionCount(PITCH));
+	}
+
+	/**
+	 * Test that an empty target cannot be built.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void emptyTarget() {
+		new DescriptorTarget.Builder().build();
+	}
+
+	/**
+	 * Test that non-finite values are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void nonFiniteValue() {
+		new DescriptorTarget.Builder().descriptor(PITCH, Double.POSITIVE_INFINITY);
+	}
+}
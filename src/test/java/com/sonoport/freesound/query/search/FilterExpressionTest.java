@@ -0,0 +1,178 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.sonoport.freesound.License;
+
+/**
+ * Unit tests to ensure the correct operation of {@link FilterExpression}s.
+ */
+public class FilterExpressionTest {
+
+	/**
+	 * Test that terms are only quoted when they contain characters with a special meaning.
+	 */
+	@Test
+	public void termsQuotedWhenRequired() {
+		assertEquals("tag:drum", FilterExpression.tag("drum").getFilterString());
+		assertEquals("tag:\"field recording\"", FilterExpression.tag("field recording").getFilterString());
+		assertEquals("username:\"a\\\"b\"", FilterExpression.term("username", "a\"b").getFilterString());
+	}
+
+	/**
+	 * Test that license filters use the description of the license.
+	 */
+	@Test
+	public void licenseFilter() {
+		assertEquals(
+				"license:\"" + License.CC_0.getDescription() + '"',
+				FilterExpression.license(License.CC_0).getFilterString());
+	}
+
+	/**
+	 * Test that ranges are correctly serialised, including open-ended ranges.
+	 */
+	@Test
+	public void rangeFilters() {
+		assertEquals("duration:[1.5 TO 5]", FilterExpression.range(NumericField.DURATION, 1.5, 5).getFilterString());
+		assertEquals("avg_rating:[3 TO *]", FilterExpression.range(NumericField.AVERAGE_RATING, 3, null).toString());
+		assertEquals(
+				"samplerate:[* TO 44100]", FilterExpression.range(NumericField.SAMPLERATE, null, 44100).toString());
+	}
+
+	/**
+	 * Test that a range cannot be created with its bounds reversed.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void reversedRange() {
+		FilterExpression.range(NumericField.DURATION, 5, 1);
+	}
+
+	/**
+	 * Test that a range cannot be created with no bounds.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void unboundedRange() {
+		FilterExpression.range(NumericField.DURATION, null, null);
+	}
+
+	/**
+	 * Test that a range cannot be created with a non-finite bound.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void nonFiniteRange() {
+		FilterExpression.range(NumericField.DURATION, Double.NaN, 1);
+	}
+
+	/**
+	 * Test that compound expressions are serialised in the same form regardless of the order of their operands.
+	 */
+	@Test
+	public void compoundExpressionsAreCanonical() {
+		final FilterExpression first = FilterExpression.or(FilterExpression.tag("drum"), FilterExpression.tag("bass"));
+		final FilterExpression second = FilterExpression.or(FilterExpression.tag("bass"), FilterExpression.tag("drum"));
+
+		assertEquals("(tag:bass OR tag:drum)", first.getFilterString());
+		assertEquals(first, second);
+		assertEquals(first.hashCode(), second.hashCode());
+	}
+
+	/**
+	 * Test that nested and negated expressions are correctly serialised.
+	 */
+	@Test
+	public void nestedExpressions() {
+		final FilterExpression expression = FilterExpression.and(
+				FilterExpression.range(NumericField.DURATION, 1, 5),
+				FilterExpression.or(FilterExpression.tag("drum"), FilterExpression.tag("percussion")),
+				FilterExpression.not(FilterExpression.tag("loop")));
+
+		assertEquals(
+				"((tag:drum OR tag:percussion) AND -tag:loop AND duration:[1 TO 5])", expression.getFilterString());
+
+		final CompoundFilter compound = (CompoundFilter) expression;
+		assertEquals(CompoundFilter.Operator.AND, compound.getOperator());
+		assertEquals(3, compound.getOperands().size());
+	}
+
+	/**
+	 * Test that combining a single expression returns it unchanged.
+	 */
+	@Test
+	public void singleOperand() {
+		final FilterExpression tag = FilterExpression.tag("drum");
+		assertSame(tag, FilterExpression.and(tag));
+	}
+
+	/**
+	 * Test that expressions built through the typed API are equal to the equivalent raw {@link SearchFilter}.
+	 */
+	@Test
+	public void typedExpressionEqualsRawFilter() {
+		assertEquals(new SearchFilter("tag", "drum"), FilterExpression.tag("drum"));
+	}
+
+	/**
+	 * Test that geographic filters are correctly serialised.
+	 */
+	@Test
+	public void geoFilters() {
+		assertEquals(
+				"{!geofilt sfield=geotag pt=41.3833,2.1833 d=10}",
+				FilterExpression.geoDistance(41.3833, 2.1833, 10).getFilterString());
+		assertEquals(
+				"geotag:\"Intersects(-74.093 41.042 -69.347 44.558)\"",
+				FilterExpression.geoBoundingBox(41.042, -74.093, 44.558, -69.347).getFilterString());
+	}
+
+	/**
+	 * Test that geographic filters cannot be created with invalid coordinates.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidLatitude() {
+		FilterExpression.geoDistance(91, 0, 10);
+	}
+
+	/**
+	 * Test that distance filters cannot be combined with other expressions, as the API does not support this.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void geoDistanceCannotBeCombined() {
+		FilterExpression.and(FilterExpression.geoDistance(0, 0, 10), FilterExpression.tag("drum"));
+	}
+
+	/**
+	 * Test that expressions are ordered by their serialised form.
+	 */
+	@Test
+	public void naturalOrdering() {
+		final List<FilterExpression> expressions = Arrays.<FilterExpression>asList(
+				FilterExpression.tag("b"), FilterExpression.tag("a"), FilterExpression.range(NumericField.ID, 1, 2));
+		Collections.sort(expressions);
+
+		assertEquals("id:[1 TO 2]", expressions.get(0).getFilterString());
+		assertEquals("tag:a", expressions.get(1).getFilterString());
+	}
+}
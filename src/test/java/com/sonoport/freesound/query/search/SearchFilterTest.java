@@ -51,4 +51,28 @@ public class SearchFilterTest {
 		assertNotEquals(searchFilter1, searchFilter2);
 		assertNotEquals(searchFilter1, null);
 	}
+
+	/**
+	 * Test that the filter is serialised in the format expected by the API.
+	 */
+	@Test
+	public void filterString() {
+		assertEquals(FIELD_1 + ':' + VALUE_1, new SearchFilter(FIELD_1, VALUE_1).getFilterString());
+	}
+
+	/**
+	 * Test that a filter cannot be created without a field.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void missingField() {
+		new SearchFilter(null, VALUE_1);
+	}
+
+	/**
+	 * Test that a filter cannot be created without a value.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void missingValue() {
+		new SearchFilter(FIELD_1, " ");
+	}
 }
@@ -21,7 +21,6 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Map;
-import java.util.Set;
 
 import mockit.Deencapsulation;
 
@@ -107,7 +106,7 @@ public class TextSearchTest extends SoundPagingQueryTest<TextSearch> {
 		final TextSearch updatedQuery = originalQuery.filter(FILTER);
 
 		assertSame(originalQuery, updatedQuery);
-		final Set<SearchFilter> filters = Deencapsulation.getField(originalQuery, "filters");
+		final FilterParameter filters = Deencapsulation.getField(originalQuery, "filters");
 
 		assertTrue(filters.contains(FILTER));
 	}
@@ -132,6 +131,51 @@ public class TextSearchTest extends SoundPagingQueryTest<TextSearch> {
 		assertEquals(expectedFilter, queryParameters.get("filter"));
 	}
 
+	/**
+	 * Test that multiple filters are serialised in the same order regardless of the order in which they were added.
+	 */
+	@Test
+	public void filtersSerialisedDeterministically() {
+		final FilterExpression range = FilterExpression.range(NumericField.DURATION, 1, 5);
+		final FilterExpression tag = FilterExpression.tag("drum");
+
+		final TextSearch firstQuery = new TextSearch(SEARCH_STRING).filter(FILTER).filter(range).filter(tag);
+		final TextSearch secondQuery = new TextSearch(SEARCH_STRING).filter(tag).filter(FILTER).filter(range);
+
+		final String expectedFilter = "duration:[1 TO 5] " + FILTER_FIELD + ':' + FILTER_VALUE + " tag:drum";
+		assertEquals(expectedFilter, firstQuery.getQueryParameters().get("filter"));
+		assertEquals(expectedFilter, secondQuery.getQueryParameters().get("filter"));
+	}
+
+	/**
+	 * Test that the cached filter parameter is rebuilt when a new filter is added.
+	 */
+	@Test
+	public void filterParameterUpdatedWhenFilterAdded() {
+		final TextSearch query = new TextSearch(SEARCH_STRING).filter(FILTER);
+		assertEquals(FILTER_FIELD + ':' + FILTER_VALUE, query.getQueryParameters().get("filter"));
+
+		query.filter(FilterExpression.tag("drum"));
+		assertEquals(FILTER_FIELD + ':' + FILTER_VALUE + " tag:drum", query.getQueryParameters().get("filter"));
+	}
+
+	/**
+	 * Test that a geographic distance filter cannot be applied alongside other filters, as the API does not support
+	 * this.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void geoDistanceFilterCannotBeCombined() {
+		new TextSearch().filter(FilterExpression.tag("drum")).filter(FilterExpression.geoDistance(0, 0, 10));
+	}
+
+	/**
+	 * Test that other filters cannot be applied alongside a geographic distance filter.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void filterCannotBeAddedToGeoDistanceFilter() {
+		new TextSearch().filter(FilterExpression.geoDistance(0, 0, 10)).filter(FilterExpression.tag("drum"));
+	}
+
 	/**
 	 * Test that no route parameters are generated for these queries.
 	 */
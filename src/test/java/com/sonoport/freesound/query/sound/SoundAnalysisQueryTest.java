@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.sound;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.sonoport.freesound.query.JSONResponseQueryTest;
+
+/**
+ * Unit tests to ensure the correct operation of {@link SoundAnalysisQuery}.
+ */
+public class SoundAnalysisQueryTest extends JSONResponseQueryTest<SoundAnalysisQuery> {
+
+	/** Sound identifier to use in tests. */
+	private static final int SOUND_ID = 12345;
+
+	/**
+	 * Ensure that instances of {@link SoundAnalysisQuery} are constructed correctly.
+	 */
+	@Test
+	public void soundAnalysisQueryCorrectlyCreated() {
+		final SoundAnalysisQuery query = new SoundAnalysisQuery(SOUND_ID);
+
+		assertTrue(query.getRouteParameters().size() == 1);
+		assertEquals(
+				String.valueOf(SOUND_ID), query.getRouteParameters().get(SoundAnalysisQuery.SOUND_ID_ROUTE_PARAMETER));
+		assertTrue(query.getQueryParameters().isEmpty());
+	}
+
+	/**
+	 * Ensure that the descriptors to retrieve and normalisation option are passed as query parameters.
+	 */
+	@Test
+	public void queryParametersFromFluentAPI() {
+		final SoundAnalysisQuery query = new SoundAnalysisQuery(SOUND_ID);
+		final SoundAnalysisQuery updatedQuery =
+				query.includeDescriptor("lowlevel.pitch").includeDescriptor("lowlevel.mfcc").normalized(true);
+
+		assertSame(query, updatedQuery);
+
+		final Map<String, Object> params = query.getQueryParameters();
+		assertEquals("lowlevel.mfcc,lowlevel.pitch", params.get(SoundAnalysisQuery.DESCRIPTORS_PARAMETER));
+		assertEquals("1", params.get(SoundAnalysisQuery.NORMALIZED_PARAMETER));
+	}
+
+	@Override
+	protected SoundAnalysisQuery newQueryInstance() {
+		return new SoundAnalysisQuery(SOUND_ID);
+	}
+}
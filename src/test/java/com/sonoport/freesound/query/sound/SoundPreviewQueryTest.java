@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.query.sound;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.sonoport.freesound.query.BinaryResponseQueryTest;
+
+/**
+ * Unit tests to ensure the correct operation of the {@link SoundPreviewQuery} query class.
+ */
+public class SoundPreviewQueryTest extends BinaryResponseQueryTest<SoundPreviewQuery> {
+
+	/** Preview URI to use in tests. */
+	private static final String PREVIEW_URI = "https://www.freesound.org/data/previews/42/42937_50975-hq.mp3";
+
+	/**
+	 * Ensure that {@link SoundPreviewQuery} objects are correctly created.
+	 */
+	@Test
+	public void soundPreviewQueryCreatedCorrectly() {
+		final SoundPreviewQuery query = newQueryInstance();
+
+		assertEquals(PREVIEW_URI, query.getPath());
+		assertTrue(query.getQueryParameters().isEmpty());
+		assertTrue(query.getRouteParameters().isEmpty());
+	}
+
+	@Override
+	protected SoundPreviewQuery newQueryInstance() {
+		return new SoundPreviewQuery(PREVIEW_URI);
+	}
+}
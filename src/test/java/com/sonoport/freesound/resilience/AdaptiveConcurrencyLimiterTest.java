@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.resilience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit tests to ensure the correct operation of {@link AdaptiveConcurrencyLimiter}.
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+	/** Route used in tests. */
+	private static final String ROUTE = "/sounds/{sound_id}";
+
+	/** Round trip time of a prompt request. */
+	private static final long PROMPT = TimeUnit.MILLISECONDS.toNanos(50);
+
+	/**
+	 * Ensure that the limit rises while requests complete promptly and the limit is being used.
+	 */
+	@Test
+	public void additiveIncrease() {
+		final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 6, 2.0);
+
+		for (int i = 0; i < 4; i++) {
+			assertTrue(limiter.tryAcquire());
+		}
+		assertFalse(limiter.tryAcquire());
+
+		limiter.release(ROUTE, false, PROMPT);
+		limiter.release(ROUTE, false, PROMPT);
+		assertEquals(6, limiter.getLimit());
+		assertEquals(2, limiter.getInFlight());
+
+		limiter.release(ROUTE, false, PROMPT);
+		assertEquals(6, limiter.getLimit());
+	}
+
+	/**
+	 * Ensure that the limit does not rise while it is not being used.
+	 */
+	@Test
+	public void noIncreaseWhenIdle() {
+		final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 2.0);
+
+		for (int i = 0; i < 20; i++) {
+			assertTrue(limiter.tryAcquire());
+			limiter.release(ROUTE, false, PROMPT);
+		}
+
+		assertEquals(10, limiter.getLimit());
+	}
+
+	/**
+	 * Ensure that the limit is cut when requests are dropped, but not below the minimum.
+	 */
+	@Test
+	public void multiplicativeDecrease() {
+		final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 5, 100, 2.0);
+
+		assertTrue(limiter.tryAcquire());
+		limiter.release(ROUTE, true, PROMPT);
+		assertEquals(9, limiter.getLimit());
+
+		for (int i = 0; i < 20; i++) {
+			assertTrue(limiter.tryAcquire());
+			limiter.release(ROUTE, true, 0);
+		}
+		assertEquals(5, limiter.getLimit());
+	}
+
+	/**
+	 * Ensure that requests which were already in flight when the limit was cut do not cut it again.
+	 */
+	@Test
+	public void decreaseOncePerRoundTrip() {
+		final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 2.0);
+		for (int i = 0; i < 5; i++) {
+			assertTrue(limiter.tryAcquire());
+		}
+
+		for (int i = 0; i < 4; i++) {
+			limiter.release(ROUTE, true, PROMPT);
+		}
+		assertEquals(9, limiter.getLimit());
+
+		assertTrue(limiter.tryAcquire());
+		limiter.release(ROUTE, true, 0);
+		assertEquals(8, limiter.getLimit());
+	}
+
+	/**
+	 * Ensure that the limit is cut when the round trip time of a route rises well above its minimum, and that round
+	 * trip times of other routes are not compared.
+	 */
+	@Test
+	public void latencyIndicatesCongestion() {
+		final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 2.0);
+		for (int i = 0; i < AdaptiveConcurrencyLimiter.MINIMUM_RTT_SAMPLES; i++) {
+			assertTrue(limiter.tryAcquire());
+			limiter.release(ROUTE, false, PROMPT);
+		}
+		assertEquals(50, limiter.getMinimumRoundTripTime(ROUTE));
+
+		assertTrue(limiter.tryAcquire());
+		limiter.release("/search/text/", false, 10 * PROMPT);
+		assertEquals(10, limiter.getLimit());
+
+		assertTrue(limiter.tryAcquire());
+		limiter.release(ROUTE, false, 10 * PROMPT);
+		assertEquals(9, limiter.getLimit());
+	}
+
+	/**
+	 * Ensure that callers wait while the limit is reached, and proceed once a request completes.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void acquireWaitsForSlot() throws Exception {
+		final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 2.0);
+		limiter.acquire();
+
+		final CountDownLatch acquired = new CountDownLatch(1);
+		final Thread waiter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					limiter.acquire();
+					acquired.countDown();
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		waiter.start();
+
+		assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+		limiter.release(ROUTE, false, PROMPT);
+		assertTrue(acquired.await(5, TimeUnit.SECONDS));
+		assertEquals(1, limiter.getInFlight());
+	}
+
+	/**
+	 * Ensure that an initial limit outside the permitted range is rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectInvalidInitialLimit() {
+		new AdaptiveConcurrencyLimiter(200, 1, 100, 2.0);
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.resilience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.sonoport.freesound.resilience.CircuitBreaker.State;
+
+/**
+ * Unit tests to ensure the correct operation of {@link CircuitBreaker}.
+ */
+public class CircuitBreakerTest {
+
+	/** Duration of a prompt call. */
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+	/** Duration of a slow call. */
+	private static final long SLOW = TimeUnit.SECONDS.toNanos(10);
+
+	/**
+	 * Ensure that the circuit is opened once the failure rate over the window reaches the threshold, and not before the
+	 * minimum number of calls has been made.
+	 */
+	@Test
+	public void opensOnFailureRate() {
+		final CircuitBreaker breaker = new CircuitBreaker(
+				new CircuitBreakerSettings().windowSize(4).minimumCalls(4).failureRateThreshold(0.5f));
+
+		call(breaker, true, FAST);
+		call(breaker, true, FAST);
+		call(breaker, false, FAST);
+		assertEquals(State.CLOSED, breaker.getState());
+
+		call(breaker, false, FAST);
+		assertEquals(State.OPEN, breaker.getState());
+		assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+		assertTrue(breaker.getRemainingOpenMilliseconds() > 0);
+	}
+
+	/**
+	 * Ensure that old outcomes leave the window as new calls are made.
+	 */
+	@Test
+	public void slidingWindow() {
+		final CircuitBreaker breaker = new CircuitBreaker(
+				new CircuitBreakerSettings().windowSize(4).minimumCalls(4).failureRateThreshold(0.5f));
+
+		call(breaker, true, FAST);
+		for (int i = 0; i < 6; i++) {
+			call(breaker, false, FAST);
+		}
+		call(breaker, true, FAST);
+
+		assertEquals(0.25f, breaker.getFailureRate(), 0.0001f);
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	/**
+	 * Ensure that the circuit is opened once the slow call rate reaches the threshold, even if every call succeeds.
+	 */
+	@Test
+	public void opensOnSlowCallRate() {
+		final CircuitBreaker breaker = new CircuitBreaker(new CircuitBreakerSettings()
+				.windowSize(3).minimumCalls(3).slowCallDuration(1000).slowCallRateThreshold(1));
+
+		call(breaker, false, SLOW);
+		call(breaker, false, SLOW);
+		assertEquals(State.CLOSED, breaker.getState());
+
+		call(breaker, false, SLOW);
+		assertEquals(State.OPEN, breaker.getState());
+		assertEquals(1f, breaker.getSlowCallRate(), 0.0001f);
+	}
+
+	/**
+	 * Ensure that once the open duration has elapsed a limited number of probes are permitted, and that the circuit is
+	 * closed when they all succeed.
+	 */
+	@Test
+	public void halfOpenProbesClose() {
+		final CircuitBreaker breaker = openBreaker(2);
+
+		final long firstProbe = breaker.tryAcquire();
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		final long secondProbe = breaker.tryAcquire();
+		assertTrue(secondProbe != CircuitBreaker.REJECTED);
+		assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+
+		breaker.record(firstProbe, false, FAST);
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		breaker.record(secondProbe, false, FAST);
+		assertEquals(State.CLOSED, breaker.getState());
+		assertEquals(0f, breaker.getFailureRate(), 0.0001f);
+	}
+
+	/**
+	 * Ensure that a failed or slow probe re-opens the circuit.
+	 */
+	@Test
+	public void halfOpenProbeFailureReopens() {
+		final CircuitBreaker failedProbe = openBreaker(2);
+		failedProbe.record(failedProbe.tryAcquire(), true, FAST);
+		assertEquals(State.OPEN, failedProbe.getState());
+
+		final CircuitBreaker slowProbe = openBreaker(2);
+		slowProbe.record(slowProbe.tryAcquire(), false, SLOW);
+		assertEquals(State.OPEN, slowProbe.getState());
+	}
+
+	/**
+	 * Ensure that a probe permitted but not made is returned, so that another may be made in its place.
+	 */
+	@Test
+	public void cancelledProbeReturned() {
+		final CircuitBreaker breaker = openBreaker(1);
+
+		final long probe = breaker.tryAcquire();
+		assertTrue(probe != CircuitBreaker.REJECTED);
+		assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+		breaker.cancel(probe);
+
+		call(breaker, false, FAST);
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	/**
+	 * Ensure that the outcome of a call permitted before the circuit changed state is not taken as the outcome of a
+	 * probe, and that its permission is not returned as a probe's.
+	 */
+	@Test
+	public void staleOutcomeIgnored() {
+		final CircuitBreaker breaker = new CircuitBreaker(new CircuitBreakerSettings()
+				.windowSize(1).minimumCalls(1).openDuration(0).slowCallDuration(1000).halfOpenProbes(1));
+		final long stale = breaker.tryAcquire();
+		call(breaker, true, FAST);
+		assertEquals(State.OPEN, breaker.getState());
+
+		final long probe = breaker.tryAcquire();
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		breaker.record(stale, false, FAST);
+		breaker.cancel(stale);
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+
+		breaker.record(probe, false, FAST);
+		assertEquals(State.CLOSED, breaker.getState());
+		breaker.record(stale, true, FAST);
+		assertEquals(0f, breaker.getFailureRate(), 0.0001f);
+	}
+
+	/**
+	 * Ensure that invalid settings are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectInvalidRate() {
+		new CircuitBreakerSettings().failureRateThreshold(1.5f);
+	}
+
+	/**
+	 * Build a breaker that has been opened, with no open duration so that probes are permitted immediately.
+	 *
+	 * @param halfOpenProbes The number of probe calls to permit
+	 * @return The breaker
+	 */
+	private static CircuitBreaker openBreaker(final int halfOpenProbes) {
+		final CircuitBreaker breaker = new CircuitBreaker(new CircuitBreakerSettings()
+				.windowSize(1).minimumCalls(1).openDuration(0).slowCallDuration(1000).halfOpenProbes(halfOpenProbes));
+		call(breaker, true, FAST);
+
+		return breaker;
+	}
+
+	/**
+	 * Make a call through a breaker, which must be permitted.
+	 *
+	 * @param breaker The breaker
+	 * @param failed Whether the call fails
+	 * @param duration The duration of the call (in nanoseconds)
+	 */
+	private static void call(final CircuitBreaker breaker, final boolean failed, final long duration) {
+		final long permit = breaker.tryAcquire();
+		assertTrue(permit != CircuitBreaker.REJECTED);
+		breaker.record(permit, failed, duration);
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.resilience;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Unit tests to ensure the correct operation of {@link LatencyWindow}.
+ */
+public class LatencyWindowTest {
+
+	/**
+	 * Ensure that percentiles are estimated from the samples held.
+	 */
+	@Test
+	public void percentiles() {
+		final LatencyWindow window = new LatencyWindow(100);
+		assertEquals(-1, window.percentile(0.95f));
+
+		for (int i = 100; i > 0; i--) {
+			window.record(i);
+		}
+
+		assertEquals(100, window.getSampleCount());
+		assertEquals(50, window.percentile(0.5f));
+		assertEquals(95, window.percentile(0.95f));
+		assertEquals(100, window.percentile(1f));
+	}
+
+	/**
+	 * Ensure that the oldest samples leave the window as new ones are recorded.
+	 */
+	@Test
+	public void slidingWindow() {
+		final LatencyWindow window = new LatencyWindow(4);
+		for (int i = 1; i <= 4; i++) {
+			window.record(1000);
+		}
+		assertEquals(1000, window.percentile(0.5f));
+
+		for (int i = 1; i <= 64; i++) {
+			window.record(10);
+		}
+
+		assertEquals(4, window.getSampleCount());
+		assertEquals(10, window.percentile(1f));
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.resilience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.sonoport.freesound.query.Priority;
+
+/**
+ * Unit tests to ensure the correct operation of {@link PriorityScheduler}.
+ */
+public class PrioritySchedulerTest {
+
+	/** Route used in tests. */
+	private static final String ROUTE = "/users/{username}/sounds";
+
+	/** Round trip time of requests in tests. */
+	private static final long ROUND_TRIP_TIME = 1000000L;
+
+	/** The maximum time (in milliseconds) to wait for waiting requests to reach an expected state. */
+	private static final long TIMEOUT = 5000;
+
+	/** Names of waiting requests, in the order they were admitted. */
+	private final List<String> admissions = Collections.synchronizedList(new ArrayList<String>());
+
+	/**
+	 * Ensure that waiting interactive requests are admitted ahead of batch requests that arrived before them.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void interactiveAdmittedFirst() throws Exception {
+		final PriorityScheduler scheduler = new PriorityScheduler(new AdaptiveConcurrencyLimiter(1, 1, 1, 2.0), 4, 1f);
+		scheduler.acquire(Priority.INTERACTIVE);
+
+		waitFor(scheduler, Priority.BATCH, "batch");
+		waitFor(scheduler, Priority.INTERACTIVE, "interactive");
+
+		scheduler.release(Priority.INTERACTIVE, ROUTE, false, ROUND_TRIP_TIME);
+		awaitAdmissions(1);
+		scheduler.release(Priority.INTERACTIVE, ROUTE, false, ROUND_TRIP_TIME);
+		awaitAdmissions(2);
+
+		assertEquals(Arrays.asList("interactive", "batch"), admissions);
+	}
+
+	/**
+	 * Ensure that batch requests are admitted in proportion to their weight while interactive requests are waiting, so
+	 * that they are not starved.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void batchNotStarved() throws Exception {
+		final PriorityScheduler scheduler = new PriorityScheduler(new AdaptiveConcurrencyLimiter(1, 1, 1, 2.0), 2, 1f);
+		scheduler.acquire(Priority.INTERACTIVE);
+
+		waitFor(scheduler, Priority.BATCH, "batch");
+		for (int i = 1; i <= 3; i++) {
+			waitFor(scheduler, Priority.INTERACTIVE, "interactive" + i);
+		}
+		assertEquals(3, scheduler.getQueueDepth(Priority.INTERACTIVE));
+
+		Priority running = Priority.INTERACTIVE;
+		for (int i = 1; i <= 4; i++) {
+			scheduler.release(running, ROUTE, false, ROUND_TRIP_TIME);
+			awaitAdmissions(i);
+			running = admissions.get(i - 1).startsWith("batch") ? Priority.BATCH : Priority.INTERACTIVE;
+		}
+
+		assertEquals(Arrays.asList("interactive1", "interactive2", "batch", "interactive3"), admissions);
+		assertEquals(1, scheduler.getAdmitted(Priority.BATCH));
+		assertTrue(scheduler.getWaitTime(Priority.BATCH, 1f) >= 0);
+	}
+
+	/**
+	 * Ensure that batch requests cannot occupy more than their share of the limit, leaving slots free for interactive
+	 * requests.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void batchLimitedToShare() throws Exception {
+		final PriorityScheduler scheduler =
+				new PriorityScheduler(new AdaptiveConcurrencyLimiter(4, 4, 4, 2.0), 4, 0.5f);
+
+		scheduler.acquire(Priority.BATCH);
+		scheduler.acquire(Priority.BATCH);
+		waitFor(scheduler, Priority.BATCH, "batch");
+
+		scheduler.acquire(Priority.INTERACTIVE);
+		scheduler.acquire(Priority.INTERACTIVE);
+		assertEquals(2, scheduler.getInFlight(Priority.INTERACTIVE));
+		assertEquals(2, scheduler.getInFlight(Priority.BATCH));
+		assertEquals(1, scheduler.getQueueDepth(Priority.BATCH));
+
+		scheduler.release(Priority.BATCH, ROUTE, false, ROUND_TRIP_TIME);
+		awaitAdmissions(1);
+		assertEquals(0, scheduler.getQueueDepth(Priority.BATCH));
+	}
+
+	/**
+	 * Ensure that a request interrupted while waiting leaves its lane.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void interruptedWaiterLeavesLane() throws Exception {
+		final PriorityScheduler scheduler = new PriorityScheduler(1);
+		scheduler.acquire(Priority.INTERACTIVE);
+
+		final Thread waiter = waitFor(scheduler, Priority.BATCH, "batch");
+		waiter.interrupt();
+		waiter.join(TIMEOUT);
+
+		assertEquals(0, scheduler.getQueueDepth(Priority.BATCH));
+		assertEquals(Arrays.asList("batch interrupted"), admissions);
+
+		scheduler.release(Priority.INTERACTIVE, ROUTE, false, ROUND_TRIP_TIME);
+		scheduler.acquire(Priority.BATCH);
+		assertEquals(1, scheduler.getInFlight(Priority.BATCH));
+	}
+
+	/**
+	 * Ensure that an invalid batch share is rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectInvalidBatchShare() {
+		new PriorityScheduler(new AdaptiveConcurrencyLimiter(), 4, 0f);
+	}
+
+	/**
+	 * Start a thread waiting to be admitted by the scheduler, which records its name once admitted, and wait until it
+	 * is queued.
+	 *
+	 * @param scheduler The scheduler
+	 * @param priority The lane to wait in
+	 * @param name The name of the request
+	 * @return The waiting thread
+	 * @throws InterruptedException If interrupted while waiting for the request to be queued
+	 */
+	private Thread waitFor(final PriorityScheduler scheduler, final Priority priority, final String name)
+			throws InterruptedException {
+		final int queueDepth = scheduler.getQueueDepth(priority);
+		final Thread waiter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					scheduler.acquire(priority);
+					admissions.add(name);
+				} catch (final InterruptedException e) {
+					admissions.add(name + " interrupted");
+				}
+			}
+		});
+		waiter.start();
+
+		final long deadline = System.currentTimeMillis() + TIMEOUT;
+		while ((scheduler.getQueueDepth(priority) == queueDepth) && (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(1);
+		}
+		assertEquals(queueDepth + 1, scheduler.getQueueDepth(priority));
+
+		return waiter;
+	}
+
+	/**
+	 * Wait until a number of waiting requests have been admitted.
+	 *
+	 * @param count The number of requests
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	private void awaitAdmissions(final int count) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + TIMEOUT;
+		while ((admissions.size() < count) && (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(1);
+		}
+		assertEquals(count, admissions.size());
+	}
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.resilience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sonoport.freesound.transport.TransportResponse;
+
+/**
+ * Unit tests to ensure the correct operation of {@link RequestHedger}.
+ */
+public class RequestHedgerTest {
+
+	/** Route used in tests. */
+	private static final String ROUTE = "/sounds/{sound_id}";
+
+	/** Executor used by the hedger. */
+	private ExecutorService executor;
+
+	/** Hedger under test. */
+	private RequestHedger hedger;
+
+	/**
+	 * Create the hedger under test.
+	 */
+	@Before
+	public void createHedger() {
+		executor = Executors.newCachedThreadPool();
+		hedger = new RequestHedger(executor);
+	}
+
+	/**
+	 * Shut down the executor used by the hedger.
+	 */
+	@After
+	public void shutdownExecutor() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Ensure that no duplicates are sent until enough latencies have been observed for the route.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void noHedgeWithoutLatencies() throws Exception {
+		final ScriptedRequest request = new ScriptedRequest(100);
+
+		assertEquals("0", body(hedger.execute(ROUTE, request)));
+		assertEquals(1, request.invocations.get());
+		assertEquals(0, hedger.getHedgesSent());
+		assertEquals(-1, hedger.getHedgeDelay("/packs/{pack_id}"));
+	}
+
+	/**
+	 * Ensure that a duplicate is sent for a slow request, that the first response received is used, and that the slow
+	 * request is cancelled (or its response closed, if it arrives regardless).
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void slowRequestHedged() throws Exception {
+		prime();
+		final ScriptedRequest request = new ScriptedRequest(500);
+
+		assertEquals("1", body(hedger.execute(ROUTE, request)));
+		assertEquals(1, hedger.getHedgesSent());
+		assertEquals(1, hedger.getHedgesWon());
+
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+		final AtomicBoolean loserClosed = request.closed.get(Integer.valueOf(0));
+		assertTrue((loserClosed == null) || loserClosed.get());
+		assertFalse(request.closed.get(Integer.valueOf(1)).get());
+	}
+
+	/**
+	 * Ensure that duplicates are not sent once the budget has been spent.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void hedgesLimitedByBudget() throws Exception {
+		prime();
+		final ScriptedRequest request = new ScriptedRequest(200, 0, 200);
+
+		assertEquals("1", body(hedger.execute(ROUTE, request)));
+		assertEquals("2", body(hedger.execute(ROUTE, request)));
+
+		assertEquals(1, hedger.getHedgesSent());
+		assertEquals(RequestHedger.MINIMUM_SAMPLES + 2, hedger.getRequests());
+	}
+
+	/**
+	 * Ensure that failures are reported once every attempt has failed.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test(expected = IOException.class)
+	public void failureReported() throws Exception {
+		hedger.execute(ROUTE, new Callable<TransportResponse>() {
+			@Override
+			public TransportResponse call() throws IOException {
+				throw new IOException();
+			}
+		});
+	}
+
+	/**
+	 * Ensure that a response claimed by an attempt, but not handed back because the caller was interrupted, is closed.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void unreturnedResponseClosed() throws Exception {
+		final ScriptedRequest request = new ScriptedRequest();
+		final RequestHedger directHedger = new RequestHedger(new DirectExecutorService());
+
+		// The attempt runs, and claims its response, before the caller waits for it
+		Thread.currentThread().interrupt();
+		try {
+			directHedger.execute(ROUTE, request);
+		} catch (final InterruptedIOException e) {
+			assertTrue(Thread.interrupted());
+		}
+
+		assertEquals(1, request.invocations.get());
+		assertTrue(request.closed.get(Integer.valueOf(0)).get());
+	}
+
+	/**
+	 * Ensure that invalid budgets are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectInvalidBudget() {
+		new RequestHedger(executor, 0.95f, 0);
+	}
+
+	/**
+	 * Submit enough prompt requests to establish the latency of the route, and earn a single hedge.
+	 *
+	 * @throws Exception Any exceptions thrown
+	 */
+	private void prime() throws Exception {
+		final ScriptedRequest request = new ScriptedRequest();
+		for (int i = 0; i < RequestHedger.MINIMUM_SAMPLES; i++) {
+			hedger.execute(ROUTE, request);
+		}
+	}
+
+	/**
+	 * @param response A response
+	 * @return The body of the response
+	 * @throws IOException Any errors reading the body
+	 */
+	private static String body(final TransportResponse response) throws IOException {
+		final byte[] content = new byte[response.getBody().available()];
+		response.getBody().read(content);
+
+		return new String(content, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Executor running each task in the thread that submits it.
+	 */
+	private static final class DirectExecutorService extends AbstractExecutorService {
+
+		/** Whether the executor has been shut down. */
+		private volatile boolean shutdown;
+
+		@Override
+		public void execute(final Runnable command) {
+			command.run();
+		}
+
+		@Override
+		public void shutdown() {
+			shutdown = true;
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			shutdown = true;
+			return Collections.emptyList();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return shutdown;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return shutdown;
+		}
+
+		@Override
+		public boolean awaitTermination(final long timeout, final TimeUnit unit) {
+			return shutdown;
+		}
+	}
+
+	/**
+	 * Request responding after a scripted delay, with a body containing the number of the invocation.
+	 */
+	private static final class ScriptedRequest implements Callable<TransportResponse> {
+
+		/** The delay (in milliseconds) before responding to each invocation; later invocations are not delayed. */
+		private final long[] delays;
+
+		/** The number of invocations made. */
+		private final AtomicInteger invocations = new AtomicInteger();
+
+		/** Whether the body of the response to each invocation has been closed. */
+		private final Map<Integer, AtomicBoolean> closed = new ConcurrentHashMap<>();
+
+		/**
+		 * @param delays The delay (in milliseconds) before responding to each invocation
+		 */
+		private ScriptedRequest(final long... delays) {
+			this.delays = delays;
+		}
+
+		@Override
+		public TransportResponse call() throws Exception {
+			final int invocation = invocations.getAndIncrement();
+			if (invocation < delays.length) {
+				Thread.sleep(delays[invocation]);
+			}
+
+			final AtomicBoolean bodyClosed = new AtomicBoolean();
+			closed.put(Integer.valueOf(invocation), bodyClosed);
+
+			final byte[] content = String.valueOf(invocation).getBytes(StandardCharsets.UTF_8);
+			return new TransportResponse(200, "OK", new ByteArrayInputStream(content) {
+				@Override
+				public void close() {
+					bodyClosed.set(true);
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.response.mapping;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.sonoport.freesound.response.SoundAnalysis;
+
+/**
+ * Unit tests to ensure the correct operation of {@link SoundAnalysisMapper}.
+ *
+ * Test data is located at <code>/src/test/resources/sound-analysis.json</code>.
+ */
+public class SoundAnalysisMapperTest extends MapperTest {
+
+	/** Tolerance used when comparing values. */
+	private static final float DELTA = 0.0001f;
+
+	/** Instance of {@link SoundAnalysisMapper} to use in tests. */
+	private final SoundAnalysisMapper mapper = new SoundAnalysisMapper();
+
+	/**
+	 * Ensure that a correctly formatted JSON message is flattened into a {@link SoundAnalysis} object, with each value
+	 * held according to its shape.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void soundAnalysisMapping() throws Exception {
+		final JSONObject soundAnalysisJSON = readJSONFile("/sound-analysis.json");
+
+		final SoundAnalysis soundAnalysis = mapper.map(soundAnalysisJSON);
+
+		assertEquals(0.91, soundAnalysis.getValue("lowlevel.average_loudness"), DELTA);
+		assertEquals(220.5, soundAnalysis.getValue("lowlevel.pitch.mean"), DELTA);
+
+		assertArrayEquals(
+				new float[] {-680.5f, 110.25f, -9.5f, 25f}, soundAnalysis.getVector("lowlevel.mfcc.mean"), DELTA);
+		assertArrayEquals(new float[] {0.5f, 1.0f, 1.5f}, soundAnalysis.getVector("rhythm.beats_position"), DELTA);
+
+		final float[][] frames = soundAnalysis.getFrames("lowlevel.mfcc.frames");
+		assertEquals(2, frames.length);
+		assertArrayEquals(new float[] {-650f, 120f}, frames[1], DELTA);
+
+		assertEquals("C", soundAnalysis.getString("tonal.key_key"));
+		assertArrayEquals(new String[] {"C", "G", "Am", "F"}, soundAnalysis.getStrings("tonal.chords_progression"));
+
+		assertEquals(7, soundAnalysis.getDescriptorNames().size());
+	}
+
+	/**
+	 * Ensure that descriptors not present in the response are reported as missing.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void missingDescriptors() throws Exception {
+		final SoundAnalysis soundAnalysis = mapper.map(readJSONFile("/sound-analysis.json"));
+
+		assertFalse(soundAnalysis.hasValue("lowlevel.spectral_centroid.mean"));
+		assertTrue(Double.isNaN(soundAnalysis.getValue("lowlevel.spectral_centroid.mean")));
+		assertNull(soundAnalysis.getVector("lowlevel.pitch.mean"));
+		assertNull(soundAnalysis.getFrames("lowlevel.mfcc.mean"));
+	}
+}
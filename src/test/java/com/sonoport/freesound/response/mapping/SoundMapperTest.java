@@ -16,14 +16,24 @@
 package com.sonoport.freesound.response.mapping;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import mockit.Deencapsulation;
+
 import org.json.JSONObject;
 import org.junit.Test;
 
@@ -160,6 +170,85 @@ public class SoundMapperTest extends MapperTest {
 
 		final Sound sound = mapper.map(jsonSound);
 
+		assertSoundMatchesFile(sound);
+	}
+
+	/**
+	 * Ensure that a lazily mapped {@link Sound} decodes fields on first access, and that the values match those of an
+	 * eagerly mapped one.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void parseSoundRecordLazily() throws Exception {
+		final JSONObject jsonSound = readJSONFile("/sound.json");
+
+		final Sound sound = new SoundMapper(null, true).map(jsonSound);
+
+		assertEquals(0L, ((Long) Deencapsulation.getField(sound, "decodedFields")).longValue());
+
+		assertEquals(ID, sound.getId());
+		assertEquals(SoundField.ID.getMask(), ((Long) Deencapsulation.getField(sound, "decodedFields")).longValue());
+		assertNotNull(Deencapsulation.getField(sound, "source"));
+
+		assertSoundMatchesFile(sound);
+		assertNull(Deencapsulation.getField(sound, "source"));
+	}
+
+	/**
+	 * Ensure that explicitly setting a value on a lazily mapped {@link Sound} takes precedence over the JSON value.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void setValueOnLazySound() throws Exception {
+		final Sound sound = new SoundMapper(null, true).map(readJSONFile("/sound.json"));
+
+		sound.setName("Renamed");
+
+		assertEquals("Renamed", sound.getName());
+		assertEquals(URL, sound.getUrl());
+	}
+
+	/**
+	 * Ensure that only the requested fields are mapped when a mapping plan has been specified, both eagerly and lazily,
+	 * and that collection fields which were not requested are left empty.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void parseRequestedFieldsOnly() throws Exception {
+		final JSONObject jsonSound = readJSONFile("/sound.json");
+		final Set<String> requestedFields = new HashSet<>(Arrays.asList("id", "previews", "unknown"));
+
+		final SoundMapper projectingMapper = new SoundMapper();
+		projectingMapper.setRequestedFields(requestedFields);
+		assertEquals(EnumSet.of(SoundField.ID, SoundField.PREVIEWS), projectingMapper.getMappingPlan());
+
+		final Sound sound = projectingMapper.map(jsonSound);
+		assertEquals(ID, sound.getId());
+		compareMaps(PREVIEWS, sound.getPreviews());
+		assertNull(sound.getName());
+		assertNull(sound.getLicense());
+		assertTrue(sound.getTags().isEmpty());
+		assertTrue(sound.getImages().isEmpty());
+
+		projectingMapper.setLazy(true);
+		final Sound lazySound = projectingMapper.map(jsonSound);
+		assertNull(lazySound.getName());
+		assertTrue(lazySound.getTags().isEmpty());
+		assertTrue(lazySound.getImages().isEmpty());
+		assertEquals(ID, lazySound.getId());
+		compareMaps(PREVIEWS, lazySound.getPreviews());
+		assertNull(Deencapsulation.getField(lazySound, "source"));
+	}
+
+	/**
+	 * Compare a {@link Sound} against the values held in <code>/sound.json</code>.
+	 *
+	 * @param sound The sound to check
+	 */
+	private void assertSoundMatchesFile(final Sound sound) {
 		 assertEquals(ID, sound.getId());
 		 assertEquals(URL, sound.getUrl());
 		 assertEquals(NAME, sound.getName());
@@ -191,4 +280,98 @@ public class SoundMapperTest extends MapperTest {
 		 assertEquals(SIMILAR_SOUNDS_URI, sound.getSimilarSoundsURI());
 	}
 
+	/**
+	 * Ensure that repeated string values are shared between sounds when a {@link StringPool} is configured.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void repeatedValuesSharedWhenPoolConfigured() throws Exception {
+		final SoundMapper pooledMapper = new SoundMapper(new StringPool());
+
+		final Sound firstSound = pooledMapper.map(readJSONFile("/sound.json"));
+		final Sound secondSound = pooledMapper.map(readJSONFile("/sound.json"));
+
+		assertEquals(TAGS, secondSound.getTags());
+		assertSame(firstSound.getUsername(), secondSound.getUsername());
+		assertSame(firstSound.getType(), secondSound.getType());
+		assertSame(firstSound.getPack(), secondSound.getPack());
+
+		final String firstTag = firstSound.getTags().iterator().next();
+		for (final String tag : secondSound.getTags()) {
+			if (tag.equals(firstTag)) {
+				assertSame(firstTag, tag);
+			}
+		}
+	}
+
+	/**
+	 * Ensure that the geotag of a sound is parsed into a location, both eagerly and lazily, and that sounds without a
+	 * geotag have no location.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void parseGeotagLocation() throws Exception {
+		final JSONObject jsonSound = readJSONFile("/sound.json");
+		assertFalse(mapper.map(jsonSound).hasLocation());
+
+		jsonSound.put("geotag", "41.3851 2.1734");
+
+		final Sound sound = mapper.map(jsonSound);
+		assertTrue(sound.hasLocation());
+		assertEquals(41.3851, sound.getLatitude(), 0.000001);
+		assertEquals(2.1734, sound.getLongitude(), 0.000001);
+
+		final Sound lazySound = new SoundMapper(null, true).map(jsonSound);
+		assertEquals(41.3851, lazySound.getLatitude(), 0.000001);
+		assertEquals("41.3851 2.1734", lazySound.getGeotag());
+	}
+
+	/**
+	 * Ensure that the location is set before the geotag when decoding, as setting the geotag marks the field as decoded
+	 * on lazily mapped sounds and so publishes the location to other threads. A location set explicitly on a lazily
+	 * mapped sound must still take precedence over that of the geotag.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void locationSetBeforeGeotag() throws Exception {
+		final JSONObject jsonSound = readJSONFile("/sound.json");
+		jsonSound.put("geotag", "41.3851 2.1734");
+
+		final List<String> setters = new ArrayList<>();
+		final Sound recordingSound = new Sound() {
+			@Override
+			public void setGeotag(final String geotag) {
+				setters.add("geotag");
+			}
+
+			@Override
+			public void setLocation(final double latitude, final double longitude) {
+				setters.add("location");
+			}
+		};
+		SoundField.GEOTAG.decode(mapper, jsonSound, recordingSound);
+		assertEquals(Arrays.asList("location", "geotag"), setters);
+
+		final Sound lazySound = new SoundMapper(null, true).map(jsonSound);
+		lazySound.setLocation(1.0, 2.0);
+		assertEquals(1.0, lazySound.getLatitude(), 0.000001);
+		assertEquals("41.3851 2.1734", lazySound.getGeotag());
+	}
+
+	/**
+	 * Ensure that malformed or out of range geotags are not treated as locations.
+	 */
+	@Test
+	public void rejectInvalidGeotags() {
+		assertNull(SoundMapper.parseGeotag(null));
+		assertNull(SoundMapper.parseGeotag("41.3851"));
+		assertNull(SoundMapper.parseGeotag("north south"));
+		assertNull(SoundMapper.parseGeotag("91.0 2.0"));
+		assertNull(SoundMapper.parseGeotag("41.0 -181.0"));
+		assertEquals(-33.8688, SoundMapper.parseGeotag(" -33.8688   151.2093 ")[0], 0.000001);
+	}
+
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.response.mapping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests to ensure the correct operation of {@link StringPool}.
+ */
+public class StringPoolTest {
+
+	/**
+	 * Ensure that equal values are resolved to a single instance.
+	 */
+	@Test
+	public void equalValuesShareInstance() {
+		final StringPool pool = new StringPool();
+
+		final String first = new String("field-recording");
+		final String second = new String("field-recording");
+		assertNotSame(first, second);
+
+		assertSame(first, pool.intern(first));
+		assertSame(first, pool.intern(second));
+		assertEquals(1, pool.size());
+	}
+
+	/**
+	 * Ensure that null values are passed through without being pooled.
+	 */
+	@Test
+	public void nullValue() {
+		final StringPool pool = new StringPool();
+
+		assertNull(pool.intern(null));
+		assertEquals(0, pool.size());
+	}
+
+	/**
+	 * Ensure that the number of values held does not exceed the configured maximum.
+	 */
+	@Test
+	public void sizeIsBounded() {
+		final StringPool pool = new StringPool(64, 4);
+
+		for (int i = 0; i < 10000; i++) {
+			pool.intern("value-" + i);
+		}
+
+		assertTrue(pool.size() <= 64);
+	}
+
+	/**
+	 * Ensure that invalid configurations are rejected.
+	 */
+	@Test (expected = IllegalArgumentException.class)
+	public void invalidMaximumSize() {
+		new StringPool(0, 4);
+	}
+}
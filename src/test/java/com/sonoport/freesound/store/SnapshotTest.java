@@ -0,0 +1,302 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sonoport.freesound.License;
+import com.sonoport.freesound.response.Pack;
+import com.sonoport.freesound.response.Sound;
+import com.sonoport.freesound.response.User;
+
+/**
+ * Unit tests to ensure the correct operation of {@link Snapshot}.
+ */
+public class SnapshotTest {
+
+	/** File to hold the snapshot under test. */
+	private Path file;
+
+	/**
+	 * Create a file to hold the snapshot.
+	 *
+	 * @throws Exception Any exceptions thrown creating the file
+	 */
+	@Before
+	public void createFile() throws Exception {
+		file = Files.createTempFile("snapshot", ".bin");
+	}
+
+	/**
+	 * Remove the snapshot file.
+	 *
+	 * @throws Exception Any exceptions thrown removing the file
+	 */
+	@After
+	public void removeFile() throws Exception {
+		Files.deleteIfExists(file);
+	}
+
+	/**
+	 * Ensure that sounds are read back intact, both as DTOs and through the typed accessors.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void soundRoundTrip() throws Exception {
+		final Sound sound = new Sound();
+		sound.setId(Integer.valueOf(42));
+		sound.setName("Elec hand drill");
+		sound.setTags(new HashSet<>(Arrays.asList("drill", "metal")));
+		sound.setLicense(License.CC_ATTRIBUTION);
+		sound.setCreated(new Date(1234567890L));
+		sound.setDuration(Float.valueOf(2.5f));
+		sound.setLocation(41.0, 2.0);
+		sound.setPreviews(Collections.singletonMap("preview-hq-mp3", "http://example.com/42.mp3"));
+		sound.setUsername("AGFX");
+
+		final Sound emptySound = new Sound();
+		emptySound.setId(Integer.valueOf(7));
+
+		Snapshot.write(file, SnapshotSchema.SOUND, Arrays.asList(sound, emptySound));
+		final Snapshot<Sound> snapshot = Snapshot.open(file, SnapshotSchema.SOUND);
+
+		assertEquals(2, snapshot.size());
+		assertEquals(1, snapshot.getSchemaVersion());
+
+		final Sound read = snapshot.find(42);
+		assertEquals(sound.getName(), read.getName());
+		assertEquals(sound.getTags(), read.getTags());
+		assertSame(License.CC_ATTRIBUTION, read.getLicense());
+		assertEquals(sound.getCreated(), read.getCreated());
+		assertEquals(sound.getDuration(), read.getDuration());
+		assertEquals(41.0, read.getLatitude(), 0);
+		assertEquals(2.0, read.getLongitude(), 0);
+		assertEquals(sound.getPreviews(), read.getPreviews());
+		assertNull(read.getUrl());
+		assertNull(read.getChannels());
+
+		final Sound readEmpty = snapshot.find(7);
+		assertNull(readEmpty.getName());
+		assertFalse(readEmpty.hasLocation());
+		assertNull(snapshot.find(8));
+
+		final int record = snapshot.indexOf(42);
+		assertEquals(2.5f, snapshot.getFloat(record, SoundSnapshotField.DURATION), 0);
+		assertEquals("AGFX", snapshot.getString(record, SoundSnapshotField.USERNAME));
+		assertEquals(1234567890L, snapshot.getTime(record, SoundSnapshotField.CREATED));
+		assertTrue(snapshot.isNull(snapshot.indexOf(7), SoundSnapshotField.DURATION));
+		assertTrue(Float.isNaN(snapshot.getFloat(snapshot.indexOf(7), SoundSnapshotField.DURATION)));
+	}
+
+	/**
+	 * Ensure that records can be located by key among many, for both integer and string keys.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void randomAccessByKey() throws Exception {
+		final List<Pack> packs = new ArrayList<>();
+		final List<User> users = new ArrayList<>();
+		for (int i = 999; i >= 0; i--) {
+			final Pack pack = new Pack();
+			pack.setId(i * 7);
+			pack.setName("Pack " + i);
+			pack.setNumberOfSounds(i);
+			packs.add(pack);
+
+			final User user = new User();
+			user.setUsername(((i % 2) == 0) ? ("user" + i) : ("\u00fcser" + i));
+			user.setNumberOfSounds(Integer.valueOf(i));
+			users.add(user);
+		}
+
+		final Path userFile = Files.createTempFile("snapshot", ".bin");
+		try {
+			Snapshot.write(file, SnapshotSchema.PACK, packs);
+			Snapshot.write(userFile, SnapshotSchema.USER, users);
+
+			final Snapshot<Pack> packSnapshot = Snapshot.open(file, SnapshotSchema.PACK);
+			final Snapshot<User> userSnapshot = Snapshot.open(userFile, SnapshotSchema.USER);
+			for (int i = 0; i < 1000; i++) {
+				assertEquals("Pack " + i, packSnapshot.find(i * 7).getName());
+				final String username = users.get(999 - i).getUsername();
+				assertEquals(Integer.valueOf(i), userSnapshot.find(username).getNumberOfSounds());
+			}
+
+			assertEquals(-1, packSnapshot.indexOf(1));
+			assertNull(userSnapshot.find("nobody"));
+		} finally {
+			Files.delete(userFile);
+		}
+	}
+
+	/**
+	 * Ensure that snapshots written using an earlier revision of a schema can be read, with fields missing from the
+	 * snapshot left unpopulated.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void readEarlierSchemaRevision() throws Exception {
+		final SnapshotSchema<Sound> original = new SnapshotSchema<Sound>("sound", 0, SoundSnapshotField.ID,
+				Arrays.<SnapshotField<Sound>>asList(SoundSnapshotField.ID, SoundSnapshotField.NAME)) {
+			@Override
+			protected Sound newInstance() {
+				return new Sound();
+			}
+		};
+
+		final Sound sound = new Sound();
+		sound.setId(Integer.valueOf(1));
+		sound.setName("Drill");
+		sound.setDuration(Float.valueOf(1.0f));
+
+		Snapshot.write(file, original, Arrays.asList(sound));
+		final Snapshot<Sound> snapshot = Snapshot.open(file, SnapshotSchema.SOUND);
+
+		assertEquals(0, snapshot.getSchemaVersion());
+		assertEquals("Drill", snapshot.find(1).getName());
+		assertNull(snapshot.find(1).getDuration());
+		assertTrue(snapshot.isNull(0, SoundSnapshotField.DURATION));
+	}
+
+	/**
+	 * Ensure that repeated strings are only stored once.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void repeatedStringsStoredOnce() throws Exception {
+		final char[] description = new char[1000];
+		Arrays.fill(description, 'x');
+
+		final List<Sound> sounds = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			final Sound sound = new Sound();
+			sound.setId(Integer.valueOf(i));
+			sound.setDescription(new String(description));
+			sounds.add(sound);
+		}
+
+		Snapshot.write(file, SnapshotSchema.SOUND, sounds);
+
+		assertTrue(Files.size(file) < 50000);
+		assertEquals(new String(description), Snapshot.open(file, SnapshotSchema.SOUND).find(99).getDescription());
+	}
+
+	/**
+	 * Ensure that a snapshot cannot be read using the schema of a different DTO.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test(expected = IOException.class)
+	public void rejectDifferentSchema() throws Exception {
+		Snapshot.write(file, SnapshotSchema.PACK, Arrays.asList(new Pack()));
+		Snapshot.open(file, SnapshotSchema.SOUND);
+	}
+
+	/**
+	 * Ensure that a truncated snapshot is rejected when opened, whether the header or the records are cut short.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void rejectTruncatedSnapshot() throws Exception {
+		Snapshot.write(file, SnapshotSchema.PACK, packs(100));
+		final byte[] content = Files.readAllBytes(file);
+
+		for (final int length : new int[] {10, content.length / 2}) {
+			Files.write(file, Arrays.copyOf(content, length));
+			try {
+				Snapshot.open(file, SnapshotSchema.PACK);
+				fail(String.format("Snapshot truncated to %d bytes should have been rejected", length));
+			} catch (final IOException e) {
+				// Expected
+			}
+		}
+	}
+
+	/**
+	 * Ensure that writing a snapshot replaces the file as a whole, leaving a snapshot already opened from it intact.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void rewriteLeavesOpenSnapshotIntact() throws Exception {
+		Snapshot.write(file, SnapshotSchema.PACK, packs(100));
+		final Snapshot<Pack> original = Snapshot.open(file, SnapshotSchema.PACK);
+
+		Snapshot.write(file, SnapshotSchema.PACK, packs(1));
+
+		assertEquals(100, original.size());
+		assertEquals("Pack 99", original.find(99).getName());
+		assertEquals(1, Snapshot.open(file, SnapshotSchema.PACK).size());
+		assertEquals(1, file.toAbsolutePath().getParent().toFile().list(new FilenameFilter() {
+			@Override
+			public boolean accept(final File directory, final String name) {
+				return name.startsWith(file.getFileName().toString());
+			}
+		}).length);
+	}
+
+	/**
+	 * Ensure that DTOs sharing a key are rejected.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectDuplicateKeys() throws Exception {
+		Snapshot.write(file, SnapshotSchema.PACK, Arrays.asList(new Pack(), new Pack()));
+	}
+
+	/**
+	 * @param count The number of packs to create
+	 * @return Packs with IDs (and names numbered) from 0
+	 */
+	private static List<Pack> packs(final int count) {
+		final List<Pack> packs = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			final Pack pack = new Pack();
+			pack.setId(i);
+			pack.setName("Pack " + i);
+			packs.add(pack);
+		}
+
+		return packs;
+	}
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.Map;
+
+import mockit.Expectations;
+import mockit.Mocked;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sonoport.freesound.FreesoundClient;
+import com.sonoport.freesound.License;
+import com.sonoport.freesound.query.PageSnapshot;
+import com.sonoport.freesound.query.search.TextSearch;
+import com.sonoport.freesound.response.PagingResponse;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * Unit tests to ensure the correct operation of {@link SoundColumnStore}.
+ */
+public class SoundColumnStoreTest {
+
+	/** Store under test. Initial capacity is deliberately small to exercise growth of the columns. */
+	private SoundColumnStore store;
+
+	/**
+	 * Populate the store with a small set of sounds.
+	 */
+	@Before
+	public void populateStore() {
+		store = new SoundColumnStore(2);
+
+		store.add(sound(1, 1.5f, 44100f, 10, "wav", License.CC_0, "alice", new Date(1000L)));
+		store.add(sound(2, 3.0f, 48000f, 20, "mp3", License.CC_ATTRIBUTION, "bob", new Date(2000L)));
+		store.add(sound(3, 12.0f, 44100f, 30, "wav", License.CC_0, "alice", new Date(3000L)));
+		store.add(sound(4, null, null, null, null, null, null, null));
+	}
+
+	/**
+	 * Ensure float range filters select the correct rows, and exclude missing values.
+	 */
+	@Test
+	public void floatRangeFilter() {
+		final BitSet selection = store.select(FloatColumn.DURATION, 1.0f, 5.0f);
+
+		assertArrayEquals(new int[] {1, 2}, store.ids(selection));
+		assertEquals(2, store.count(selection));
+	}
+
+	/**
+	 * Ensure integer range filters select the correct rows, and exclude missing values.
+	 */
+	@Test
+	public void intRangeFilter() {
+		final BitSet selection = store.select(IntColumn.NUMBER_OF_DOWNLOADS, 15, Integer.MAX_VALUE);
+
+		assertArrayEquals(new int[] {2, 3}, store.ids(selection));
+	}
+
+	/**
+	 * Ensure dictionary encoded columns can be filtered on, including values that have never been seen.
+	 */
+	@Test
+	public void dictionaryFilter() {
+		assertArrayEquals(new int[] {1, 3}, store.ids(store.select(DictionaryColumn.TYPE, "wav")));
+		assertArrayEquals(new int[] {2}, store.ids(store.select(License.CC_ATTRIBUTION)));
+		assertArrayEquals(new int[] {4}, store.ids(store.select(DictionaryColumn.USERNAME, null)));
+		assertTrue(store.select(DictionaryColumn.TYPE, "flac").isEmpty());
+	}
+
+	/**
+	 * Ensure filters on creation date respect open-ended ranges.
+	 */
+	@Test
+	public void createdFilter() {
+		assertArrayEquals(new int[] {2, 3}, store.ids(store.selectCreated(new Date(1500L), null)));
+		assertArrayEquals(new int[] {1, 2, 3}, store.ids(store.selectCreated(null, null)));
+	}
+
+	/**
+	 * Ensure that aggregates are correctly calculated over combined selections.
+	 */
+	@Test
+	public void aggregatesOverSelection() {
+		final BitSet selection = store.select(DictionaryColumn.USERNAME, "alice");
+		selection.and(store.select(FloatColumn.SAMPLERATE, 44100f, 44100f));
+
+		assertEquals(13.5, store.sum(FloatColumn.DURATION, selection), 0.0001);
+		assertEquals(6.75, store.average(FloatColumn.DURATION, selection), 0.0001);
+		assertEquals(1.5f, store.min(FloatColumn.DURATION, selection), 0.0001f);
+		assertEquals(12.0f, store.max(FloatColumn.DURATION, selection), 0.0001f);
+		assertEquals(40L, store.sum(IntColumn.NUMBER_OF_DOWNLOADS, selection));
+	}
+
+	/**
+	 * Ensure that aggregates over all rows ignore missing values.
+	 */
+	@Test
+	public void aggregatesOverAllRows() {
+		assertEquals(4, store.count(null));
+		assertEquals(20.0, store.average(IntColumn.NUMBER_OF_DOWNLOADS, null), 0.0001);
+		assertEquals(16.5, store.sum(FloatColumn.DURATION, null), 0.0001);
+
+		final Map<String, Integer> countsByType = store.countBy(DictionaryColumn.TYPE, null);
+		assertEquals(Integer.valueOf(2), countsByType.get("wav"));
+		assertEquals(Integer.valueOf(1), countsByType.get("mp3"));
+		assertEquals(Integer.valueOf(1), countsByType.get(null));
+	}
+
+	/**
+	 * Ensure individual values can be read back, with missing values represented appropriately.
+	 */
+	@Test
+	public void readIndividualValues() {
+		assertEquals(48000f, store.getFloat(FloatColumn.SAMPLERATE, 1), 0.0001f);
+		assertEquals("bob", store.getString(DictionaryColumn.USERNAME, 1));
+		assertEquals(new Date(2000L), store.getCreated(1));
+
+		assertTrue(Float.isNaN(store.getFloat(FloatColumn.DURATION, 3)));
+		assertEquals(SoundColumnStore.MISSING_INT, store.getInt(IntColumn.NUMBER_OF_DOWNLOADS, 3));
+		assertNull(store.getString(DictionaryColumn.TYPE, 3));
+		assertNull(store.getCreated(3));
+	}
+
+	/**
+	 * Ensure that all pages of results from a query are ingested.
+	 *
+	 * @param mockClient Mock {@link FreesoundClient}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void ingestAllPages(@Mocked final FreesoundClient mockClient) throws Exception {
+		final TextSearch query = new TextSearch("drill");
+
+		final PagingResponse<Sound> firstPage = new PagingResponse<>(200, "OK");
+		firstPage.setResults(Arrays.asList(sound(10, 1f, 44100f, 1, "wav", License.CC_0, "carol", null)));
+		firstPage.setNextPageURI("https://www.freesound.org/apiv2/search/text/?page=2");
+
+		final PagingResponse<Sound> secondPage = new PagingResponse<>(200, "OK");
+		secondPage.setResults(Arrays.asList(sound(11, 2f, 44100f, 2, "wav", License.CC_0, "carol", null)));
+
+		new Expectations() {
+			{
+				@SuppressWarnings("unchecked")
+				final PageSnapshot<Sound> anyPage = withInstanceOf(PageSnapshot.class);
+				mockClient.executeQuery(anyPage); result = firstPage; result = secondPage;
+			}
+		};
+
+		final SoundColumnStore newStore = new SoundColumnStore();
+		assertEquals(2, newStore.ingest(mockClient, query));
+		assertArrayEquals(new int[] {10, 11}, newStore.ids(null));
+		assertEquals(1, query.getPage());
+	}
+
+	/**
+	 * Build a {@link Sound} with the fields used in these tests.
+	 *
+	 * @param id Sound identifier
+	 * @param duration Duration
+	 * @param samplerate Sample rate
+	 * @param downloads Number of downloads
+	 * @param type File type
+	 * @param license License
+	 * @param username Uploader
+	 * @param created Creation date
+	 * @return The sound
+	 */
+	private static Sound sound(
+			final int id,
+			final Float duration,
+			final Float samplerate,
+			final Integer downloads,
+			final String type,
+			final License license,
+			final String username,
+			final Date created) {
+		final Sound sound = new Sound();
+		sound.setId(Integer.valueOf(id));
+		sound.setDuration(duration);
+		sound.setSamplerate(samplerate);
+		sound.setNumberOfDownloads(downloads);
+		sound.setType(type);
+		sound.setLicense(license);
+		sound.setUsername(username);
+		sound.setCreated(created);
+
+		return sound;
+	}
+}
@@ -0,0 +1,498 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+
+import mockit.Delegate;
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sonoport.freesound.FreesoundClient;
+import com.sonoport.freesound.FreesoundClientException;
+import com.sonoport.freesound.License;
+import com.sonoport.freesound.query.PageSnapshot;
+import com.sonoport.freesound.query.search.FilterExpression;
+import com.sonoport.freesound.query.search.SortOrder;
+import com.sonoport.freesound.query.search.TextSearch;
+import com.sonoport.freesound.query.sound.SoundInstanceQuery;
+import com.sonoport.freesound.response.PagingResponse;
+import com.sonoport.freesound.response.Response;
+import com.sonoport.freesound.response.Sound;
+
+/**
+ * Unit tests to ensure the correct operation of {@link SoundMirror}.
+ */
+public class SoundMirrorTest {
+
+	/** Directory holding the mirror under test. */
+	private Path directory;
+
+	/**
+	 * Create an empty directory to hold the mirror.
+	 *
+	 * @throws Exception Any exceptions thrown creating the directory
+	 */
+	@Before
+	public void createDirectory() throws Exception {
+		directory = Files.createTempDirectory("sound-mirror");
+	}
+
+	/**
+	 * Remove the mirror directory and its segments.
+	 *
+	 * @throws Exception Any exceptions thrown removing the directory
+	 */
+	@After
+	public void removeDirectory() throws Exception {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (final Path file : files) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(directory);
+	}
+
+	/**
+	 * Ensure that sounds written to the mirror are read back intact, and remain available after it is reopened.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void soundsPersistAcrossRestarts() throws Exception {
+		final Sound sound = sound(1, 1000L);
+		sound.setName("Drill");
+		sound.setTags(new HashSet<>(Arrays.asList("drill", "metal")));
+		sound.setLicense(License.CC_0);
+		sound.setDuration(Float.valueOf(2.5f));
+		sound.setGeotag("41.0 2.0");
+		sound.setLocation(41.0, 2.0);
+		sound.setPreviews(Collections.singletonMap("preview-hq-mp3", "http://example.com/1.mp3"));
+
+		try (SoundMirror mirror = new SoundMirror(directory)) {
+			mirror.put(sound);
+			mirror.put(sound(2, 3000L));
+		}
+
+		try (SoundMirror mirror = new SoundMirror(directory)) {
+			assertEquals(2, mirror.size());
+
+			final Sound mirrored = mirror.get(1);
+			assertEquals("Drill", mirrored.getName());
+			assertEquals(sound.getTags(), mirrored.getTags());
+			assertSame(License.CC_0, mirrored.getLicense());
+			assertEquals(Float.valueOf(2.5f), mirrored.getDuration());
+			assertEquals(41.0, mirrored.getLatitude(), 0);
+			assertEquals(sound.getPreviews(), mirrored.getPreviews());
+			assertEquals(new Date(1000L), mirrored.getCreated());
+			assertNull(mirrored.getUrl());
+			assertNull(mirrored.getChannels());
+			assertNull(mirror.get(3));
+		}
+	}
+
+	/**
+	 * Ensure that later versions of a sound supersede earlier ones, including across segments.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void laterVersionsSupersedeEarlier() throws Exception {
+		try (SoundMirror mirror = new SoundMirror(directory, 128)) {
+			for (int i = 0; i < 5; i++) {
+				final Sound sound = sound(1, 1000L);
+				sound.setNumberOfDownloads(Integer.valueOf(i));
+				mirror.put(sound);
+			}
+			assertEquals(Integer.valueOf(4), mirror.get(1).getNumberOfDownloads());
+		}
+
+		try (SoundMirror mirror = new SoundMirror(directory, 128)) {
+			assertEquals(1, mirror.size());
+			assertEquals(Integer.valueOf(4), mirror.get(1).getNumberOfDownloads());
+		}
+	}
+
+	/**
+	 * Ensure that a record left incomplete at the end of the last segment is discarded when the mirror is reopened.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void incompleteRecordDiscarded() throws Exception {
+		try (SoundMirror mirror = new SoundMirror(directory)) {
+			mirror.put(sound(1, 1000L));
+			mirror.put(sound(2, 2000L));
+		}
+
+		final Path segment = directory.resolve("segment-00000001.log");
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 5);
+		}
+
+		try (SoundMirror mirror = new SoundMirror(directory)) {
+			assertTrue(mirror.contains(1));
+			assertFalse(mirror.contains(2));
+
+			mirror.put(sound(3, 3000L));
+		}
+
+		try (SoundMirror mirror = new SoundMirror(directory)) {
+			assertEquals(2, mirror.size());
+			assertTrue(mirror.contains(3));
+		}
+	}
+
+	/**
+	 * Ensure that a sync stops paging as soon as it reaches sounds older than those found by the last sync of the
+	 * search, and sorts the pages it requests newest first without changing the sort order of the search.
+	 *
+	 * @param mockClient Mock {@link FreesoundClient}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void syncStopsAtHighWaterMark(@Mocked final FreesoundClient mockClient) throws Exception {
+		final TextSearch query = new TextSearch("drill");
+
+		final PagingResponse<Sound> initialPage = page(false, sound(2, 2000L), sound(1, 1000L));
+		final PagingResponse<Sound> firstPage = page(true, sound(4, 4000L), sound(3, 3000L), sound(2, 2000L),
+				sound(5, 1500L));
+
+		new Expectations() {
+			{
+				@SuppressWarnings("unchecked")
+				final PageSnapshot<Sound> anyPage = withInstanceOf(PageSnapshot.class);
+				mockClient.executeQuery(anyPage); returns(initialPage, firstPage); times = 2;
+			}
+		};
+
+		try (SoundMirror mirror = new SoundMirror(directory)) {
+			assertEquals(2, mirror.sync(mockClient, query));
+			assertEquals(new Date(2000L), mirror.getHighWaterMark(query));
+
+			assertEquals(2, mirror.sync(mockClient, query));
+			assertEquals(4, mirror.size());
+			assertFalse(mirror.contains(5));
+			assertEquals(new Date(4000L), mirror.getHighWaterMark(query));
+			assertNull(query.getSortOrder());
+		}
+
+		new Verifications() {
+			{
+				final PageSnapshot<?> page;
+				mockClient.executeQuery(page = withCapture());
+				assertEquals("created_desc", page.getQueryParameters().get("sort"));
+			}
+		};
+	}
+
+	/**
+	 * Ensure that the high water mark is not moved by a sync which fails before reaching it, so the next sync pages
+	 * back down to it again.
+	 *
+	 * @param mockClient Mock {@link FreesoundClient}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void failedSyncResumedFromStart(@Mocked final FreesoundClient mockClient) throws Exception {
+		final TextSearch query = new TextSearch("drill");
+
+		final PagingResponse<Sound> initialPage = page(false, sound(1, 1000L));
+		final PagingResponse<Sound> firstPage = page(true, sound(3, 3000L));
+		final PagingResponse<Sound> failedPage = new PagingResponse<>(503, "Service Unavailable");
+		final PagingResponse<Sound> secondPage = page(false, sound(2, 2000L), sound(1, 1000L));
+
+		new Expectations() {
+			{
+				@SuppressWarnings("unchecked")
+				final PageSnapshot<Sound> anyPage = withInstanceOf(PageSnapshot.class);
+				mockClient.executeQuery(anyPage);
+				returns(initialPage, firstPage, failedPage, firstPage, secondPage);
+			}
+		};
+
+		try (SoundMirror mirror = new SoundMirror(directory)) {
+			mirror.sync(mockClient, query);
+
+			try {
+				mirror.sync(mockClient, query);
+				fail("Failed page not reported");
+			} catch (final FreesoundClientException e) {
+				assertEquals(new Date(1000L), mirror.getHighWaterMark(query));
+			}
+
+			assertEquals(1, mirror.sync(mockClient, query));
+			assertTrue(mirror.contains(2));
+			assertEquals(new Date(3000L), mirror.getHighWaterMark(query));
+		}
+	}
+
+	/**
+	 * Ensure that each search keeps its own high water mark, which sounds added by other means do not move, and that
+	 * the marks are kept when the mirror is reopened.
+	 *
+	 * @param mockClient Mock {@link FreesoundClient}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void highWaterMarkKeptPerSearch(@Mocked final FreesoundClient mockClient) throws Exception {
+		final TextSearch query = new TextSearch("drill");
+
+		new Expectations() {
+			{
+				@SuppressWarnings("unchecked")
+				final PageSnapshot<Sound> anyPage = withInstanceOf(PageSnapshot.class);
+				mockClient.executeQuery(anyPage); result = page(false, sound(1, 1000L));
+			}
+		};
+
+		try (SoundMirror mirror = new SoundMirror(directory)) {
+			mirror.sync(mockClient, query);
+			mirror.put(sound(2, 2000L));
+
+			assertEquals(new Date(1000L), mirror.getHighWaterMark(query));
+			assertNull(mirror.getHighWaterMark(new TextSearch("dog")));
+			assertNull(mirror.getHighWaterMark(new TextSearch("drill").filter(FilterExpression.tag("metal"))));
+		}
+
+		try (SoundMirror mirror = new SoundMirror(directory)) {
+			final TextSearch reordered = new TextSearch("drill").sortOrder(SortOrder.DURATION_ASCENDING).pageSize(5);
+			assertEquals(new Date(1000L), mirror.getHighWaterMark(reordered));
+		}
+	}
+
+	/**
+	 * Ensure that sound instance queries are answered from the mirror only while the mirrored sound is fresh.
+	 *
+	 * @param mockClient Mock {@link FreesoundClient}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void instanceQueriesServedWhenFresh(@Mocked final FreesoundClient mockClient) throws Exception {
+		final SoundInstanceQuery query = new SoundInstanceQuery(1);
+
+		final Sound updated = sound(1, 1000L);
+		updated.setName("Updated");
+		final Response<Sound> response = new Response<>(200, "OK");
+		response.setResults(updated);
+
+		new Expectations() {
+			{
+				mockClient.executeQuery(query); result = response; times = 1;
+			}
+		};
+
+		try (SoundMirror mirror = new SoundMirror(directory)) {
+			mirror.put(sound(1, 1000L));
+			assertNull(mirror.executeQuery(mockClient, query).getResults().getName());
+
+			mirror.setMaximumAge(0);
+			assertSame(response, mirror.executeQuery(mockClient, query));
+			assertEquals("Updated", mirror.get(1).getName());
+		}
+	}
+
+	/**
+	 * Ensure that a refresh updates only the volatile fields of stale sounds.
+	 *
+	 * @param mockClient Mock {@link FreesoundClient}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void refreshUpdatesVolatileFields(@Mocked final FreesoundClient mockClient) throws Exception {
+		final Sound update = new Sound();
+		update.setId(Integer.valueOf(1));
+		update.setNumberOfDownloads(Integer.valueOf(50));
+		update.setAverageRating(Float.valueOf(4.5f));
+		update.setNumberOfComments(Integer.valueOf(3));
+
+		final PagingResponse<Sound> response = new PagingResponse<>(200, "OK");
+		response.setResults(Arrays.asList(update));
+
+		new Expectations() {
+			{
+				mockClient.executeQuery(withInstanceOf(TextSearch.class)); result = response; times = 1;
+			}
+		};
+
+		try (SoundMirror mirror = new SoundMirror(directory)) {
+			final Sound sound = sound(1, 1000L);
+			sound.setName("Drill");
+			sound.setNumberOfDownloads(Integer.valueOf(10));
+			mirror.put(sound);
+
+			assertEquals(0, mirror.refresh(mockClient));
+
+			mirror.setMaximumAge(0);
+			assertEquals(1, mirror.refresh(mockClient));
+
+			final Sound refreshed = mirror.get(1);
+			assertEquals("Drill", refreshed.getName());
+			assertEquals(Integer.valueOf(50), refreshed.getNumberOfDownloads());
+			assertEquals(Float.valueOf(4.5f), refreshed.getAverageRating());
+			assertEquals(Integer.valueOf(3), refreshed.getNumberOfComments());
+		}
+	}
+
+	/**
+	 * Ensure that a refresh leaves alone sounds written again since their batch was requested, rather than replacing
+	 * the newer record with one built from the older version.
+	 *
+	 * @param mockClient Mock {@link FreesoundClient}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void refreshLeavesNewerRecords(@Mocked final FreesoundClient mockClient) throws Exception {
+		final Sound update = new Sound();
+		update.setId(Integer.valueOf(1));
+		update.setNumberOfDownloads(Integer.valueOf(50));
+
+		final PagingResponse<Sound> response = new PagingResponse<>(200, "OK");
+		response.setResults(Arrays.asList(update));
+
+		try (final SoundMirror mirror = new SoundMirror(directory)) {
+			new Expectations() {
+				{
+					mockClient.executeQuery(withInstanceOf(TextSearch.class));
+					result = new Delegate<PagingResponse<Sound>>() {
+						@SuppressWarnings("unused")
+						PagingResponse<Sound> refresh(final TextSearch query) throws Exception {
+							// The sound is retrieved in full while the refresh is in flight
+							Thread.sleep(5);
+							final Sound retrieved = sound(1, 1000L);
+							retrieved.setName("Retrieved");
+							retrieved.setNumberOfDownloads(Integer.valueOf(60));
+							mirror.put(retrieved);
+
+							return response;
+						}
+					};
+				}
+			};
+
+			mirror.put(sound(1, 1000L));
+			mirror.setMaximumAge(0);
+			assertEquals(0, mirror.refresh(mockClient));
+
+			final Sound sound = mirror.get(1);
+			assertEquals("Retrieved", sound.getName());
+			assertEquals(Integer.valueOf(60), sound.getNumberOfDownloads());
+		}
+	}
+
+	/**
+	 * Ensure that compaction deletes segments consisting mostly of superseded records, keeping the latest version of
+	 * every sound, including after the mirror is reopened.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void compactionReclaimsSupersededRecords() throws Exception {
+		try (SoundMirror mirror = new SoundMirror(directory, 256)) {
+			mirror.put(sound(2, 2000L));
+			for (int i = 0; i < 20; i++) {
+				final Sound sound = sound(1, 1000L);
+				sound.setNumberOfDownloads(Integer.valueOf(i));
+				mirror.put(sound);
+			}
+
+			final int segmentCount = segmentCount();
+			assertTrue(segmentCount > 2);
+
+			final int deleted = mirror.compact();
+			assertTrue(deleted > 0);
+			assertEquals(segmentCount - deleted, segmentCount());
+			assertTrue(segmentCount() <= 2);
+			assertEquals(0, mirror.compact());
+
+			assertEquals(Integer.valueOf(19), mirror.get(1).getNumberOfDownloads());
+			assertEquals(new Date(2000L), mirror.get(2).getCreated());
+		}
+
+		try (SoundMirror mirror = new SoundMirror(directory, 256)) {
+			assertEquals(2, mirror.size());
+			assertEquals(Integer.valueOf(19), mirror.get(1).getNumberOfDownloads());
+			assertTrue(mirror.contains(2));
+		}
+	}
+
+	/**
+	 * @return The number of segment files in the mirror directory
+	 * @throws Exception Any exceptions thrown listing the directory
+	 */
+	private int segmentCount() throws Exception {
+		int count = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.log")) {
+			for (@SuppressWarnings("unused") final Path file : files) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Build a successful page of search results.
+	 *
+	 * @param hasNextPage Whether a further page follows
+	 * @param sounds The sounds on the page
+	 * @return The page
+	 */
+	private static PagingResponse<Sound> page(final boolean hasNextPage, final Sound... sounds) {
+		final PagingResponse<Sound> page = new PagingResponse<>(200, "OK");
+		page.setResults(Arrays.asList(sounds));
+		if (hasNextPage) {
+			page.setNextPageURI("https://www.freesound.org/apiv2/search/text/?page=2");
+		}
+
+		return page;
+	}
+
+	/**
+	 * Build a {@link Sound} with an identifier and creation date.
+	 *
+	 * @param id Sound identifier
+	 * @param created Creation date, in milliseconds since the epoch
+	 * @return The sound
+	 */
+	private static Sound sound(final int id, final long created) {
+		final Sound sound = new Sound();
+		sound.setId(Integer.valueOf(id));
+		sound.setCreated(new Date(created));
+
+		return sound;
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.transport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetAddress;
+
+import mockit.Expectations;
+import mockit.Mocked;
+
+import org.apache.http.conn.DnsResolver;
+import org.junit.Test;
+
+/**
+ * Unit tests to ensure the correct operation of {@link CachingDnsResolver}.
+ */
+public class CachingDnsResolverTest {
+
+	/** Host name used in tests. */
+	private static final String HOST = "www.freesound.org";
+
+	/**
+	 * Ensure that a host is only resolved once while its addresses are held.
+	 *
+	 * @param mockDelegate Mock {@link DnsResolver}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void resolvedOnce(@Mocked final DnsResolver mockDelegate) throws Exception {
+		final InetAddress[] addresses = new InetAddress[] {InetAddress.getByAddress(HOST, new byte[] {10, 0, 0, 1})};
+		new Expectations() {
+			{
+				mockDelegate.resolve(HOST); result = addresses; times = 1;
+			}
+		};
+
+		final CachingDnsResolver resolver = new CachingDnsResolver(mockDelegate, 60000);
+		assertFalse(resolver.isCached(HOST));
+
+		assertArrayEquals(addresses, resolver.resolve(HOST));
+		assertTrue(resolver.isCached(HOST));
+		assertArrayEquals(addresses, resolver.resolve(HOST));
+	}
+
+	/**
+	 * Ensure that clearing the cache causes hosts to be resolved again.
+	 *
+	 * @param mockDelegate Mock {@link DnsResolver}
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void clearedCacheResolvesAgain(@Mocked final DnsResolver mockDelegate) throws Exception {
+		final InetAddress[] addresses = new InetAddress[] {InetAddress.getByAddress(HOST, new byte[] {10, 0, 0, 1})};
+		new Expectations() {
+			{
+				mockDelegate.resolve(HOST); result = addresses; times = 2;
+			}
+		};
+
+		final CachingDnsResolver resolver = new CachingDnsResolver(mockDelegate, 60000);
+		resolver.resolve(HOST);
+		resolver.clear();
+
+		assertFalse(resolver.isCached(HOST));
+		resolver.resolve(HOST);
+	}
+
+	/**
+	 * Ensure that an invalid time to live is rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectInvalidTimeToLive() {
+		new CachingDnsResolver(0);
+	}
+}
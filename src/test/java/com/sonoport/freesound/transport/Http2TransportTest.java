@@ -0,0 +1,469 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+import okio.Buffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sonoport.freesound.query.HTTPRequestMethod;
+
+/**
+ * Unit tests to ensure the correct operation of {@link Http2Transport}, against a local server accepting HTTP/2 either
+ * in cleartext (h2c) or negotiated over TLS through ALPN.
+ */
+public class Http2TransportTest {
+
+	/** The time taken by the local server to respond to each request. */
+	private static final long RESPONSE_DELAY_MILLISECONDS = 200;
+
+	/** User-Agent string sent with requests. */
+	private static final String USER_AGENT = "Http2TransportTest";
+
+	/** Local server standing in for an HTTP/2 server. */
+	private MockWebServer server;
+
+	/** Transport under test. */
+	private Http2Transport transport;
+
+	/** The number of requests currently being handled by the local server. */
+	private final AtomicInteger openRequests = new AtomicInteger();
+
+	/** The peak number of requests handled by the local server at once. */
+	private final AtomicInteger maximumOpenRequests = new AtomicInteger();
+
+	/** The protocols of the connections requests were made over. */
+	private final List<Protocol> protocols = Collections.synchronizedList(new ArrayList<Protocol>());
+
+	/**
+	 * Create the local server.
+	 */
+	@Before
+	public void createServer() {
+		server = new MockWebServer();
+	}
+
+	/**
+	 * Stop the local server and the transport.
+	 *
+	 * @throws Exception Any exceptions thrown
+	 */
+	@After
+	public void stopServer() throws Exception {
+		if (transport != null) {
+			transport.shutdown();
+		}
+		server.shutdown();
+	}
+
+	/**
+	 * Ensure that concurrent requests are multiplexed over a single connection, with no more in progress at once than
+	 * the configured maximum.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void concurrentRequestsMultiplexed() throws Exception {
+		startCleartext(RESPONSE_DELAY_MILLISECONDS);
+		transport = new Http2Transport(4, 1000, 5000);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(12);
+		try {
+			final List<Future<String>> responses = new ArrayList<>();
+			for (int i = 0; i < 12; i++) {
+				final String query = String.valueOf(i);
+				responses.add(executor.submit(new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						return get("/echo", Collections.<String, Object>singletonMap("query", query));
+					}
+				}));
+			}
+
+			for (int i = 0; i < 12; i++) {
+				assertEquals(String.format("GET /echo?query=%d %s null ", i, USER_AGENT), responses.get(i).get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(4, maximumOpenRequests.get());
+		assertEquals(1, transport.getOpenConnections());
+		assertEquals(12, server.getRequestCount());
+	}
+
+	/**
+	 * Ensure that HTTP/2 is negotiated through ALPN for HTTPS URLs, with the requests sharing a single connection.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void http2NegotiatedOverTLS() throws Exception {
+		transport = new Http2Transport(10, startSecure(Protocol.HTTP_2, Protocol.HTTP_1_1));
+
+		assertEquals(String.format("GET /echo %s null ", USER_AGENT), get("/echo", null));
+		assertEquals(String.format("GET /echo %s null ", USER_AGENT), get("/echo", null));
+
+		assertEquals(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_2), protocols);
+		assertEquals(1, transport.getOpenConnections());
+	}
+
+	/**
+	 * Ensure that requests to an HTTPS server that does not select HTTP/2 are made over HTTP/1.1.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void fallbackToHttp11OverTLS() throws Exception {
+		transport = new Http2Transport(10, startSecure(Protocol.HTTP_1_1));
+
+		assertEquals(String.format("GET /echo %s null ", USER_AGENT), get("/echo", null));
+		assertEquals(Collections.singletonList(Protocol.HTTP_1_1), protocols);
+	}
+
+	/**
+	 * Ensure that compressed responses are requested over HTTP/2, decoded as they are read and recorded in the
+	 * transfer metrics of the transport.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void compressedResponseDecoded() throws Exception {
+		final StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			content.append("Compressible content ");
+		}
+
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+			gzip.write(content.toString().getBytes(StandardCharsets.UTF_8));
+		}
+
+		transport = new Http2Transport(10, startSecure(Protocol.HTTP_2, Protocol.HTTP_1_1));
+		server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(final RecordedRequest request) {
+				return new MockResponse()
+						.setHeader("Content-Encoding", "gzip")
+						.setBody(new Buffer().write(compressed.toByteArray()));
+			}
+		});
+
+		assertEquals(content.toString(), get("/compressed", null));
+
+		assertEquals("gzip, deflate", server.takeRequest().getHeader("Accept-Encoding"));
+		assertEquals(Collections.singletonList(Protocol.HTTP_2), protocols);
+
+		final TransferMetrics metrics = transport.getTransferMetrics();
+		assertEquals(1, metrics.getResponses());
+		assertEquals(1, metrics.getCompressedResponses());
+		assertEquals(compressed.size(), metrics.getBytesOnWire());
+		assertEquals(content.length(), metrics.getBytesDecoded());
+	}
+
+	/**
+	 * Ensure that POST requests are submitted with their parameters as a URL encoded form.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void formParameters() throws Exception {
+		startCleartext(0);
+		transport = new Http2Transport(10, 1000, 5000);
+
+		final TransportResponse response = transport.execute(new TransportRequest(
+				HTTPRequestMethod.POST,
+				server.url("/echo").toString(),
+				headers(),
+				Collections.<String, Object>singletonMap("rating", Integer.valueOf(5))));
+
+		assertEquals(200, response.getStatus());
+		assertEquals(
+				String.format("POST /echo %s application/x-www-form-urlencoded rating=5", USER_AGENT),
+				read(response.getBody()));
+	}
+
+	/**
+	 * Ensure that files are uploaded over HTTP/2 as part of a multipart form.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void fileUploaded() throws Exception {
+		final File file = File.createTempFile("upload", ".wav");
+		try {
+			Files.write(file.toPath(), "sound data".getBytes(StandardCharsets.UTF_8));
+
+			startCleartext(0);
+			transport = new Http2Transport(10, 1000, 5000);
+
+			final Map<String, Object> parameters = new HashMap<>();
+			parameters.put("audiofile", file);
+			parameters.put("name", "A sound");
+			final TransportResponse response = transport.execute(new TransportRequest(
+					HTTPRequestMethod.POST, server.url("/echo").toString(), headers(), parameters));
+			final String body = read(response.getBody());
+
+			assertTrue(body.startsWith(String.format("POST /echo %s multipart/form-data", USER_AGENT)));
+			assertTrue(body.contains(String.format("filename=\"%s\"", file.getName())));
+			assertTrue(body.contains("sound data"));
+			assertTrue(body.contains("A sound"));
+		} finally {
+			Files.delete(file.toPath());
+		}
+	}
+
+	/**
+	 * Ensure that a request to an origin that is slow to establish a connection does not hold up requests to other
+	 * origins.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void slowOriginDoesNotBlockOthers() throws Exception {
+		startCleartext(0);
+		transport = new Http2Transport(10, 1000, 5000);
+
+		// Connections are accepted by the operating system, but the TLS handshake is never answered
+		try (ServerSocket unresponsive = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))) {
+			final ExecutorService executor = Executors.newSingleThreadExecutor();
+			try {
+				final Future<TransportResponse> stalled = executor.submit(new Callable<TransportResponse>() {
+					@Override
+					public TransportResponse call() throws Exception {
+						return transport.execute(new TransportRequest(
+								HTTPRequestMethod.GET,
+								String.format("https://127.0.0.1:%d/", unresponsive.getLocalPort()),
+								headers(),
+								null));
+					}
+				});
+
+				try {
+					stalled.get(500, TimeUnit.MILLISECONDS);
+				} catch (final TimeoutException e) {
+					// Expected, the handshake is still waiting on the server
+				}
+
+				final long start = System.nanoTime();
+				assertEquals(String.format("GET /echo %s null ", USER_AGENT), get("/echo", null));
+				assertTrue(!stalled.isDone());
+				assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Ensure that warming up establishes the connection before the first request, which then uses it.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void warmUpEstablishesConnection() throws Exception {
+		startCleartext(0);
+		transport = new Http2Transport(10, 1000, 5000);
+
+		transport.warmUp(server.url("/echo").toString(), 5);
+		assertEquals(1, transport.getOpenConnections());
+		assertTrue(transport.getDnsResolver().isCached(server.getHostName()));
+
+		get("/echo", null);
+		assertEquals("HEAD", server.takeRequest().getMethod());
+		assertEquals(1, server.takeRequest().getSequenceNumber());
+		assertEquals(1, transport.getOpenConnections());
+	}
+
+	/**
+	 * Ensure that invalid limits on concurrent requests are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectInvalidConcurrency() {
+		new Http2Transport(0);
+	}
+
+	/**
+	 * Start the local server accepting HTTP/2 in cleartext with prior knowledge.
+	 *
+	 * @param responseDelayMilliseconds The time taken to respond to each request
+	 * @throws IOException Any errors starting the server
+	 */
+	private void startCleartext(final long responseDelayMilliseconds) throws IOException {
+		server.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+		server.setDispatcher(new EchoDispatcher(responseDelayMilliseconds));
+		server.start(InetAddress.getByName("127.0.0.1"), 0);
+	}
+
+	/**
+	 * Start the local server accepting TLS connections with a self-signed certificate, and build an OkHttp client
+	 * trusting it that records the protocol each request is made over.
+	 *
+	 * @param serverProtocols The protocols the server will select through ALPN
+	 * @return The client
+	 * @throws IOException Any errors starting the server
+	 */
+	private OkHttpClient startSecure(final Protocol... serverProtocols) throws IOException {
+		final InetAddress localhost = InetAddress.getByName("localhost");
+		final HeldCertificate certificate = new HeldCertificate.Builder()
+				.addSubjectAlternativeName(localhost.getCanonicalHostName())
+				.build();
+		final HandshakeCertificates serverCertificates =
+				new HandshakeCertificates.Builder().heldCertificate(certificate).build();
+		final HandshakeCertificates clientCertificates =
+				new HandshakeCertificates.Builder().addTrustedCertificate(certificate.certificate()).build();
+
+		server.useHttps(serverCertificates.sslSocketFactory(), false);
+		server.setProtocols(Arrays.asList(serverProtocols));
+		server.setDispatcher(new EchoDispatcher(0));
+		server.start(localhost, 0);
+
+		return new OkHttpClient.Builder()
+				.sslSocketFactory(clientCertificates.sslSocketFactory(), clientCertificates.trustManager())
+				.addNetworkInterceptor(new Interceptor() {
+					@Override
+					public Response intercept(final Chain chain) throws IOException {
+						protocols.add(chain.connection().protocol());
+						return chain.proceed(chain.request());
+					}
+				})
+				.build();
+	}
+
+	/**
+	 * Make a GET request to the local server, and read the body of the response.
+	 *
+	 * @param path The path to request
+	 * @param parameters The parameters of the request (may be null)
+	 * @return The body of the response
+	 * @throws IOException Any errors making the request
+	 */
+	private String get(final String path, final Map<String, Object> parameters) throws IOException {
+		final TransportResponse response = transport.execute(
+				new TransportRequest(HTTPRequestMethod.GET, server.url(path).toString(), headers(), parameters));
+		assertEquals(200, response.getStatus());
+
+		return read(response.getBody());
+	}
+
+	/**
+	 * @return The headers sent with each request
+	 */
+	private static Map<String, String> headers() {
+		final Map<String, String> headers = new HashMap<>();
+		headers.put("User-Agent", USER_AGENT);
+		headers.put("Connection", "keep-alive");
+
+		return headers;
+	}
+
+	/**
+	 * Read the whole of a stream as a string.
+	 *
+	 * @param in The stream, which is closed once read
+	 * @return The content of the stream
+	 * @throws IOException Any errors reading the stream
+	 */
+	private static String read(final InputStream in) throws IOException {
+		try (InputStream stream = in) {
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[8192];
+			int read;
+			while ((read = stream.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Dispatcher answering each request with its method, path, User-Agent, Content-Type and body, after a delay. The
+	 * peak number of requests handled at once is recorded.
+	 */
+	private final class EchoDispatcher extends Dispatcher {
+
+		/** The time taken to respond to each request. */
+		private final long responseDelayMilliseconds;
+
+		/**
+		 * @param responseDelayMilliseconds The time taken to respond to each request
+		 */
+		private EchoDispatcher(final long responseDelayMilliseconds) {
+			this.responseDelayMilliseconds = responseDelayMilliseconds;
+		}
+
+		@Override
+		public MockResponse dispatch(final RecordedRequest request) throws InterruptedException {
+			final int open = openRequests.incrementAndGet();
+			try {
+				int maximum;
+				while ((maximum = maximumOpenRequests.get()) < open) {
+					maximumOpenRequests.compareAndSet(maximum, open);
+				}
+
+				Thread.sleep(responseDelayMilliseconds);
+
+				return new MockResponse().setBody(String.format("%s %s %s %s %s",
+						request.getMethod(),
+						request.getPath(),
+						request.getHeader("User-Agent"),
+						request.getHeader("Content-Type"),
+						request.getBody().readUtf8()));
+			} finally {
+				openRequests.decrementAndGet();
+			}
+		}
+	}
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sonoport.freesound.query.HTTPRequestMethod;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Unit tests to ensure the correct operation of {@link HttpClientTransport}, using a local HTTP server standing in for
+ * the freesound API. The server responds with the same body under each of the supported content encodings.
+ */
+public class HttpClientTransportTest {
+
+	/** Body returned by the server, repetitive enough to compress well. */
+	private static final String CONTENT;
+	static {
+		final StringBuilder content = new StringBuilder("{\"results\":[");
+		for (int i = 0; i < 200; i++) {
+			content.append((i > 0) ? "," : "").append("{\"id\":").append(i).append(",\"type\":\"wav\"}");
+		}
+		CONTENT = content.append("]}").toString();
+	}
+
+	/** The time taken by the local server to respond to requests on the 'slow' path. */
+	private static final long SLOW_RESPONSE_MILLISECONDS = 1000;
+
+	/** Local server standing in for the API. */
+	private HttpServer server;
+
+	/** Base URL of the local server. */
+	private String baseURL;
+
+	/** The Accept-Encoding header received with the most recent request. */
+	private volatile String acceptEncoding;
+
+	/** Transport under test. */
+	private HttpClientTransport transport;
+
+	/**
+	 * Start the local server, and create the transport under test.
+	 *
+	 * @throws Exception Any exceptions thrown
+	 */
+	@Before
+	public void startServer() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/content", new HttpHandler() {
+			@Override
+			public void handle(final HttpExchange exchange) throws IOException {
+				acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+
+				final String encoding = exchange.getRequestURI().getPath().substring("/content/".length());
+				final byte[] response = encode(CONTENT.getBytes(StandardCharsets.UTF_8), encoding);
+				if (!encoding.equals("identity")) {
+					exchange.getResponseHeaders().set("Content-Encoding", encoding.replace("raw-", ""));
+				}
+
+				exchange.sendResponseHeaders(200, response.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(response);
+				}
+			}
+		});
+		server.createContext("/echo", new HttpHandler() {
+			@Override
+			public void handle(final HttpExchange exchange) throws IOException {
+				final String echo = String.format(
+						"%s %s %s",
+						exchange.getRequestMethod(),
+						exchange.getRequestURI().getRawQuery(),
+						read(exchange.getRequestBody()));
+
+				final byte[] response = echo.getBytes(StandardCharsets.UTF_8);
+				exchange.sendResponseHeaders(200, response.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(response);
+				}
+			}
+		});
+		server.createContext("/slow", new HttpHandler() {
+			@Override
+			public void handle(final HttpExchange exchange) throws IOException {
+				try {
+					Thread.sleep(SLOW_RESPONSE_MILLISECONDS);
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				exchange.sendResponseHeaders(200, -1);
+				exchange.close();
+			}
+		});
+		server.start();
+
+		baseURL = String.format("http://127.0.0.1:%d", server.getAddress().getPort());
+		transport = new HttpClientTransport();
+	}
+
+	/**
+	 * Stop the local server and the transport.
+	 *
+	 * @throws Exception Any exceptions thrown
+	 */
+	@After
+	public void stopServer() throws Exception {
+		transport.shutdown();
+		server.stop(0);
+	}
+
+	/**
+	 * Ensure that compressed responses are requested, and that gzip encoded bodies are decoded with the bytes received
+	 * recorded in the metrics.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void gzipResponse() throws Exception {
+		assertEquals(CONTENT, get("/content/gzip"));
+		assertEquals(HttpClientTransport.ENCODINGS_TO_ACCEPT, acceptEncoding);
+
+		final TransferMetrics metrics = transport.getTransferMetrics();
+		assertEquals(1, metrics.getResponses());
+		assertEquals(1, metrics.getCompressedResponses());
+		assertEquals(CONTENT.length(), metrics.getBytesDecoded());
+		assertTrue(metrics.getBytesOnWire() < metrics.getBytesDecoded());
+		assertTrue(metrics.getCompressionRatio() > 1);
+	}
+
+	/**
+	 * Ensure that deflate encoded bodies are decoded, whether or not they include the zlib wrapper.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void deflateResponse() throws Exception {
+		assertEquals(CONTENT, get("/content/deflate"));
+		assertEquals(CONTENT, get("/content/raw-deflate"));
+
+		assertEquals(2, transport.getTransferMetrics().getCompressedResponses());
+	}
+
+	/**
+	 * Ensure that uncompressed bodies are passed through, with the same number of bytes received and decoded.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void identityResponse() throws Exception {
+		assertEquals(CONTENT, get("/content/identity"));
+
+		final TransferMetrics metrics = transport.getTransferMetrics();
+		assertEquals(1, metrics.getResponses());
+		assertEquals(0, metrics.getCompressedResponses());
+		assertEquals(CONTENT.length(), metrics.getBytesOnWire());
+		assertEquals(CONTENT.length(), metrics.getBytesDecoded());
+	}
+
+	/**
+	 * Ensure that GET requests are submitted with their query string, and POST requests with their parameters as form
+	 * fields.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void requestParameters() throws Exception {
+		final TransportResponse getResponse = transport.execute(new TransportRequest(
+				HTTPRequestMethod.GET,
+				baseURL + "/echo",
+				null,
+				Collections.<String, Object>singletonMap("query", "drill")));
+		assertEquals("GET query=drill ", read(getResponse.getBody()));
+
+		final Map<String, Object> parameters = new HashMap<>();
+		parameters.put("rating", Integer.valueOf(5));
+		final TransportResponse postResponse = transport.execute(
+				new TransportRequest(HTTPRequestMethod.POST, baseURL + "/echo", null, parameters));
+		assertEquals(200, postResponse.getStatus());
+		assertEquals("POST null rating=5", read(postResponse.getBody()));
+	}
+
+	/**
+	 * Ensure that warming up establishes pooled connections, resolves the host into the DNS cache, and that the
+	 * connections are then used by requests rather than new ones being opened.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void warmUpEstablishesConnections() throws Exception {
+		assertEquals(0, transport.getIdleConnections());
+
+		transport.warmUp(baseURL + "/echo", 3);
+
+		assertEquals(3, transport.getIdleConnections());
+		assertTrue(transport.getDnsResolver().isCached("127.0.0.1"));
+
+		assertEquals(CONTENT, get("/content/identity"));
+		assertEquals(3, transport.getIdleConnections());
+	}
+
+	/**
+	 * Ensure that no more connections are established than the pool will hold for a single host.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void warmUpLimitedToConnectionsPerRoute() throws Exception {
+		final HttpClientTransport smallTransport = new HttpClientTransport(10, 2);
+		try {
+			smallTransport.warmUp(baseURL, 5);
+			assertEquals(2, smallTransport.getIdleConnections());
+		} finally {
+			smallTransport.shutdown();
+		}
+	}
+
+	/**
+	 * Ensure that failures to connect when warming up are reported as {@link IOException}s.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test(expected = IOException.class)
+	public void warmUpConnectionFailure() throws Exception {
+		server.stop(0);
+
+		transport.warmUp(baseURL, 1);
+	}
+
+	/**
+	 * Ensure that content encodings are matched regardless of case, and of the default locale.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void encodingMatchedIndependentOfLocale() throws Exception {
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(compressed)) {
+			out.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+		}
+
+		final Locale defaultLocale = Locale.getDefault();
+		Locale.setDefault(new Locale("tr", "TR"));
+		try {
+			assertEquals(CONTENT, read(transport.decode(new ByteArrayInputStream(compressed.toByteArray()), "GZIP")));
+		} finally {
+			Locale.setDefault(defaultLocale);
+		}
+	}
+
+	/**
+	 * Ensure that unsupported content encodings are reported as {@link IOException}s.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test(expected = IOException.class)
+	public void unsupportedEncoding() throws Exception {
+		transport.decode(new ByteArrayInputStream(new byte[0]), "br");
+	}
+
+	/**
+	 * Ensure that the default timeouts match those used by Unirest, with a finite wait for a pooled connection.
+	 */
+	@Test
+	public void defaultTimeouts() {
+		assertEquals(10000, transport.getRequestConfig().getConnectTimeout());
+		assertEquals(60000, transport.getRequestConfig().getSocketTimeout());
+		assertEquals(10000, transport.getRequestConfig().getConnectionRequestTimeout());
+	}
+
+	/**
+	 * Ensure that a server failing to respond within the socket timeout is reported as a
+	 * {@link SocketTimeoutException}.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test(expected = SocketTimeoutException.class)
+	public void socketTimeout() throws Exception {
+		final HttpClientTransport impatientTransport = new HttpClientTransport(10, 2, 1000, 100, 1000);
+		try {
+			impatientTransport.execute(new TransportRequest(HTTPRequestMethod.GET, baseURL + "/slow", null, null));
+		} finally {
+			impatientTransport.shutdown();
+		}
+	}
+
+	/**
+	 * Ensure that timeouts which are not positive are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectInvalidTimeout() {
+		new HttpClientTransport(10, 2, 1000, 0, 1000);
+	}
+
+	/**
+	 * Ensure that invalid connection pool sizes are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectInvalidConcurrency() {
+		new HttpClientTransport(1, 0);
+	}
+
+	/**
+	 * Make a GET request to the local server, and read the body of the response.
+	 *
+	 * @param path The path to request
+	 * @return The body of the response
+	 * @throws IOException Any errors making the request
+	 */
+	private String get(final String path) throws IOException {
+		final TransportResponse response =
+				transport.execute(new TransportRequest(HTTPRequestMethod.GET, baseURL + path, null, null));
+		assertEquals(200, response.getStatus());
+
+		return read(response.getBody());
+	}
+
+	/**
+	 * Encode content in the way a server would for a given content encoding.
+	 *
+	 * @param content The content to encode
+	 * @param encoding The encoding ('gzip', 'deflate', 'raw-deflate' or 'identity')
+	 * @return The encoded content
+	 * @throws IOException Any errors encoding the content
+	 */
+	private static byte[] encode(final byte[] content, final String encoding) throws IOException {
+		final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+		try (OutputStream out = encoder(encoded, encoding)) {
+			out.write(content);
+		}
+
+		return encoded.toByteArray();
+	}
+
+	/**
+	 * @param out The stream to write encoded content to
+	 * @param encoding The encoding ('gzip', 'deflate', 'raw-deflate' or 'identity')
+	 * @return Stream encoding content written to it
+	 * @throws IOException Any errors creating the stream
+	 */
+	private static OutputStream encoder(final OutputStream out, final String encoding) throws IOException {
+		switch (encoding) {
+			case "gzip":
+				return new GZIPOutputStream(out);
+			case "deflate":
+				return new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION, false));
+			case "raw-deflate":
+				return new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+			default:
+				return out;
+		}
+	}
+
+	/**
+	 * Read the whole of a stream as a string.
+	 *
+	 * @param in The stream, which is closed once read
+	 * @return The content of the stream
+	 * @throws IOException Any errors reading the stream
+	 */
+	private static String read(final InputStream in) throws IOException {
+		try (InputStream stream = in) {
+			final ByteArrayOutputStream content = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[1024];
+			int read;
+			while ((read = stream.read(buffer)) != -1) {
+				content.write(buffer, 0, read);
+			}
+
+			return new String(content.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
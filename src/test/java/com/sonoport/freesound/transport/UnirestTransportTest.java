@@ -0,0 +1,184 @@
+/*
+ * Copyright 2014 Sonoport (Asia) Pte Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sonoport.freesound.transport;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sonoport.freesound.query.HTTPRequestMethod;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Unit tests to ensure the correct operation of {@link UnirestTransport}, using a local HTTP server standing in for the
+ * freesound API. The server echoes back details of each request it receives.
+ */
+public class UnirestTransportTest {
+
+	/** Local server standing in for the API. */
+	private HttpServer server;
+
+	/** Base URL of the local server. */
+	private String baseURL;
+
+	/**
+	 * Start the local server.
+	 *
+	 * @throws Exception Any exceptions thrown
+	 */
+	@Before
+	public void startServer() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/echo", new HttpHandler() {
+			@Override
+			public void handle(final HttpExchange exchange) throws IOException {
+				final String body = read(exchange.getRequestBody());
+				final String echo = String.format(
+						"%s %s %s %s",
+						exchange.getRequestMethod(),
+						exchange.getRequestURI().getRawQuery(),
+						exchange.getRequestHeaders().getFirst("X-Test"),
+						body);
+
+				final byte[] response = echo.getBytes(StandardCharsets.UTF_8);
+				exchange.sendResponseHeaders(exchange.getRequestURI().getPath().endsWith("missing") ? 404 : 200,
+						response.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(response);
+				}
+			}
+		});
+		server.start();
+
+		baseURL = String.format("http://127.0.0.1:%d", server.getAddress().getPort());
+	}
+
+	/**
+	 * Stop the local server.
+	 */
+	@After
+	public void stopServer() {
+		server.stop(0);
+	}
+
+	/**
+	 * Ensure that GET requests are submitted with their headers and query string.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void getRequest() throws Exception {
+		final TransportRequest request = new TransportRequest(
+				HTTPRequestMethod.GET,
+				baseURL + "/echo",
+				Collections.singletonMap("X-Test", "header-value"),
+				Collections.<String, Object>singletonMap("query", "drill"));
+
+		final TransportResponse response = new UnirestTransport().execute(request);
+
+		assertEquals(200, response.getStatus());
+		assertEquals("GET query=drill header-value ", read(response.getBody()));
+	}
+
+	/**
+	 * Ensure that POST requests are submitted with their parameters as form fields.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void postRequest() throws Exception {
+		final Map<String, Object> parameters = new HashMap<>();
+		parameters.put("rating", Integer.valueOf(5));
+
+		final TransportRequest request = new TransportRequest(
+				HTTPRequestMethod.POST, baseURL + "/echo", Collections.<String, String>emptyMap(), parameters);
+
+		final TransportResponse response = new UnirestTransport().execute(request);
+
+		assertEquals(200, response.getStatus());
+		assertEquals("POST null null rating=5", read(response.getBody()));
+	}
+
+	/**
+	 * Ensure that error responses are passed back to the caller, rather than raised as exceptions.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test
+	public void errorResponse() throws Exception {
+		final TransportRequest request =
+				new TransportRequest(HTTPRequestMethod.GET, baseURL + "/echo/missing", null, null);
+
+		final TransportResponse response = new UnirestTransport().execute(request);
+
+		assertEquals(404, response.getStatus());
+		read(response.getBody());
+	}
+
+	/**
+	 * Ensure that failures to connect are reported as {@link IOException}s.
+	 *
+	 * @throws Exception Any exceptions thrown in test
+	 */
+	@Test(expected = IOException.class)
+	public void connectionFailure() throws Exception {
+		server.stop(0);
+
+		new UnirestTransport().execute(new TransportRequest(HTTPRequestMethod.GET, baseURL + "/echo", null, null));
+	}
+
+	/**
+	 * Ensure that invalid connection pool sizes are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectInvalidConcurrency() {
+		UnirestTransport.setConnectionPoolSize(0, 1);
+	}
+
+	/**
+	 * Read the whole of a stream as a string.
+	 *
+	 * @param in The stream, which is closed once read
+	 * @return The content of the stream
+	 * @throws IOException Any errors reading the stream
+	 */
+	private static String read(final InputStream in) throws IOException {
+		try (InputStream stream = in) {
+			final ByteArrayOutputStream content = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[1024];
+			int read;
+			while ((read = stream.read(buffer)) != -1) {
+				content.write(buffer, 0, read);
+			}
+
+			return new String(content.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}